@@ -0,0 +1,185 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Closeable;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketFactory;
+import io.rsocket.metadata.CompositeMetadataFlyweight;
+import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.transport.local.LocalClientTransport;
+import io.rsocket.transport.local.LocalServerTransport;
+import io.rsocket.util.DefaultPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reactivestreams.Publisher;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authorization.AuthenticatedReactiveAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.rsocket.interceptor.authentication.AuthenticationPayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.authentication.BearerPayloadExchangeConverter;
+import org.springframework.security.rsocket.interceptor.authorization.AuthorizationPayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.authorization.PayloadExchangeMatcherReactiveAuthorizationManager;
+import org.springframework.security.rsocket.metadata.BearerTokenMetadata;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcherEntry;
+import org.springframework.security.rsocket.util.PayloadExchangeMatchers;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a request channel of {@link #payloads} payloads for each
+ * {@link ChannelPayloadPolicy}. Every payload carries a bearer token that is
+ * authenticated (without verification) and must be authenticated to be authorized.
+ *
+ * <ul>
+ * <li>every - {@link ChannelPayloadPolicy#everyPayload()}</li>
+ * <li>sampled - {@link ChannelPayloadPolicy#sampled(int)} with an interval of 100</li>
+ * <li>first - {@link ChannelPayloadPolicy#firstPayloadOnly()}</li>
+ * <li>lightweight - {@link ChannelPayloadPolicy#interceptors(java.util.List)} with a
+ * single interceptor that only checks the type of the exchange</li>
+ * </ul>
+ *
+ * @author Rob Winch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChannelPayloadPolicyBenchmarks {
+	private static final Payload RESPONSE = DefaultPayload.create("response");
+
+	@Param({ "every", "sampled", "first", "lightweight" })
+	String policy;
+
+	@Param({ "1000" })
+	int payloads;
+
+	private Closeable server;
+
+	private RSocket client;
+
+	private Flux<Payload> requests;
+
+	@Setup
+	public void setup() {
+		String name = "channel-" + this.policy;
+		PayloadSocketAcceptorInterceptor interceptor = new PayloadSocketAcceptorInterceptor(Arrays.asList(
+				authentication(), authorization()));
+		interceptor.setChannelPayloadPolicy(createPolicy());
+		this.server = RSocketFactory.receive()
+				.addSocketAcceptorPlugin(interceptor)
+				.acceptor((setup, sendingSocket) -> Mono.just(new AbstractRSocket() {
+					@Override
+					public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
+						return Flux.from(payloads)
+								.doOnNext(Payload::release)
+								.then(Mono.just(RESPONSE))
+								.flux();
+					}
+				}))
+				.transport(LocalServerTransport.create(name))
+				.start()
+				.block();
+		this.client = RSocketFactory.connect()
+				.metadataMimeType(WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA.getString())
+				.dataMimeType(MediaType.APPLICATION_JSON_VALUE)
+				.transport(LocalClientTransport.create(name))
+				.start()
+				.block();
+		Payload request = createRequest();
+		this.requests = Flux.range(0, this.payloads).map(i -> request);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.client.dispose();
+		this.server.dispose();
+	}
+
+	@Benchmark
+	public Payload requestChannel() {
+		return this.client.requestChannel(this.requests)
+				.doOnNext(Payload::release)
+				.blockLast();
+	}
+
+	private ChannelPayloadPolicy createPolicy() {
+		switch (this.policy) {
+			case "sampled":
+				return ChannelPayloadPolicy.sampled(100);
+			case "first":
+				return ChannelPayloadPolicy.firstPayloadOnly();
+			case "lightweight":
+				return ChannelPayloadPolicy.interceptors(Collections.singletonList((exchange, chain) ->
+						exchange.getType() == PayloadExchangeType.PAYLOAD ?
+								chain.next(exchange) :
+								Mono.error(new IllegalStateException("Unexpected " + exchange.getType()))));
+			default:
+				return ChannelPayloadPolicy.everyPayload();
+		}
+	}
+
+	private static PayloadInterceptor authentication() {
+		Authentication authentication = new TestingAuthenticationToken("user", "password", "ROLE_USER");
+		AuthenticationPayloadInterceptor result = new AuthenticationPayloadInterceptor(
+				token -> Mono.just(authentication));
+		result.setAuthenticationConverter(new BearerPayloadExchangeConverter());
+		return result;
+	}
+
+	private static PayloadInterceptor authorization() {
+		return new AuthorizationPayloadInterceptor(PayloadExchangeMatcherReactiveAuthorizationManager.builder()
+				.add(new PayloadExchangeMatcherEntry<>(PayloadExchangeMatchers.setup(),
+						(authentication, context) -> Mono.just(new AuthorizationDecision(true))))
+				.add(new PayloadExchangeMatcherEntry<>(PayloadExchangeMatchers.anyExchange(),
+						AuthenticatedReactiveAuthorizationManager.authenticated()))
+				.build());
+	}
+
+	private static Payload createRequest() {
+		ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+		CompositeByteBuf metadata = allocator.compositeBuffer();
+		CompositeMetadataFlyweight.encodeAndAddMetadata(metadata, allocator,
+				BearerTokenMetadata.BEARER_AUTHENTICATION_MIME_TYPE.toString(),
+				Unpooled.copiedBuffer("token", StandardCharsets.UTF_8));
+		return DefaultPayload.create(Unpooled.copiedBuffer("request", StandardCharsets.UTF_8), metadata);
+	}
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.AbstractRSocket;
+import io.rsocket.Closeable;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketFactory;
+import io.rsocket.metadata.CompositeMetadataFlyweight;
+import io.rsocket.metadata.TaggingMetadataFlyweight;
+import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.transport.local.LocalClientTransport;
+import io.rsocket.transport.local.LocalServerTransport;
+import io.rsocket.util.DefaultPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.rsocket.MetadataExtractor;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.authorization.AuthenticatedReactiveAuthorizationManager;
+import org.springframework.security.authorization.AuthorityReactiveAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtReactiveAuthenticationManager;
+import org.springframework.security.rsocket.interceptor.authentication.AnonymousPayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.authentication.AuthenticationPayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.authentication.BearerPayloadExchangeConverter;
+import org.springframework.security.rsocket.interceptor.authorization.AuthorizationPayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.authorization.PayloadExchangeMatcherReactiveAuthorizationManager;
+import org.springframework.security.rsocket.metadata.BasicAuthenticationEncoder;
+import org.springframework.security.rsocket.metadata.BearerTokenMetadata;
+import org.springframework.security.rsocket.metadata.UsernamePasswordMetadata;
+import org.springframework.security.rsocket.util.PayloadExchangeAuthorizationContext;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcherEntry;
+import org.springframework.security.rsocket.util.PayloadExchangeMatchers;
+import org.springframework.security.rsocket.util.RoutePayloadExchangeMatcher;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.RouteMatcher;
+import org.springframework.util.SimpleRouteMatcher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures requestResponse, requestStream and requestChannel through
+ * {@link PayloadSocketAcceptorInterceptor} over the local (in-memory) transport for
+ * different security configurations. Run with the {@code gc} profiler (the default for
+ * the jmh task) to report {@code gc.alloc.rate.norm}, the bytes allocated per operation.
+ *
+ * <ul>
+ * <li>none - no interceptor, the baseline</li>
+ * <li>anonymous - anonymous authentication and {@code anyExchange().permitAll()}</li>
+ * <li>basic - Basic authentication on every payload and {@code anyRequest().authenticated()}</li>
+ * <li>jwt - Bearer authentication on every payload and {@code anyRequest().authenticated()}.
+ * The token is not verified so only the cost of the interceptors is measured.</li>
+ * <li>route - Basic authentication and {@code hasRole("USER")} for the last of 10
+ * {@code route(...)} mappings</li>
+ * </ul>
+ *
+ * Every configuration other than none ends with {@code anyExchange().permitAll()} so
+ * that the payloads of a channel that are not matched are permitted.
+ *
+ * @author Rob Winch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadSocketAcceptorInterceptorBenchmarks {
+	private static final String ROUTE = "benchmark.request";
+
+	private static final int ELEMENTS = 10;
+
+	private static final Payload RESPONSE = DefaultPayload.create("response");
+
+	@Param({ "none", "anonymous", "basic", "jwt", "route" })
+	String security;
+
+	private Closeable server;
+
+	private RSocket client;
+
+	private Payload request;
+
+	private Flux<Payload> channelRequests;
+
+	@Setup
+	public void setup() {
+		String name = "benchmark-" + this.security;
+		RSocketFactory.ServerRSocketFactory serverFactory = RSocketFactory.receive();
+		if (!"none".equals(this.security)) {
+			serverFactory = serverFactory.addSocketAcceptorPlugin(
+					new PayloadSocketAcceptorInterceptor(createInterceptors()));
+		}
+		this.server = serverFactory
+				.acceptor((setup, sendingSocket) -> Mono.just(new ResponderRSocket()))
+				.transport(LocalServerTransport.create(name))
+				.start()
+				.block();
+		this.client = RSocketFactory.connect()
+				.metadataMimeType(WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA.getString())
+				.dataMimeType(MediaType.APPLICATION_JSON_VALUE)
+				.transport(LocalClientTransport.create(name))
+				.start()
+				.block();
+		this.request = createRequest();
+		this.channelRequests = Flux.range(0, ELEMENTS).map(i -> this.request);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.client.dispose();
+		this.server.dispose();
+	}
+
+	@Benchmark
+	public Payload requestResponse() {
+		return this.client.requestResponse(this.request)
+				.doOnNext(Payload::release)
+				.block();
+	}
+
+	@Benchmark
+	public Payload requestStream() {
+		return this.client.requestStream(this.request)
+				.doOnNext(Payload::release)
+				.blockLast();
+	}
+
+	@Benchmark
+	public Payload requestChannel() {
+		return this.client.requestChannel(this.channelRequests)
+				.doOnNext(Payload::release)
+				.blockLast();
+	}
+
+	private List<PayloadInterceptor> createInterceptors() {
+		List<PayloadInterceptor> interceptors = new ArrayList<>();
+		PayloadExchangeMatcherReactiveAuthorizationManager.Builder authz =
+				PayloadExchangeMatcherReactiveAuthorizationManager.builder()
+						.add(new PayloadExchangeMatcherEntry<>(PayloadExchangeMatchers.setup(), permitAll()));
+		if ("basic".equals(this.security) || "route".equals(this.security)) {
+			MapReactiveUserDetailsService users = new MapReactiveUserDetailsService(
+					User.withUsername("user").password("{noop}password").roles("USER").build());
+			interceptors.add(new AuthenticationPayloadInterceptor(
+					new UserDetailsRepositoryReactiveAuthenticationManager(users)));
+		}
+		if ("jwt".equals(this.security)) {
+			Jwt jwt = Jwt.withTokenValue("token")
+					.header("alg", "none")
+					.subject("user")
+					.build();
+			AuthenticationPayloadInterceptor jwtInterceptor = new AuthenticationPayloadInterceptor(
+					new JwtReactiveAuthenticationManager(token -> Mono.just(jwt)));
+			jwtInterceptor.setAuthenticationConverter(new BearerPayloadExchangeConverter());
+			interceptors.add(jwtInterceptor);
+		}
+		interceptors.add(new AnonymousPayloadInterceptor("anonymousUser"));
+		if ("anonymous".equals(this.security)) {
+			authz.add(new PayloadExchangeMatcherEntry<>(PayloadExchangeMatchers.anyExchange(), permitAll()));
+		}
+		else if ("route".equals(this.security)) {
+			MetadataExtractor metadataExtractor = RSocketStrategies.create().metadataExtractor();
+			RouteMatcher routeMatcher = new SimpleRouteMatcher(new AntPathMatcher("."));
+			for (int i = 0; i < 9; i++) {
+				authz.add(new PayloadExchangeMatcherEntry<>(
+						new RoutePayloadExchangeMatcher(metadataExtractor, routeMatcher, "benchmark.other" + i),
+						AuthorityReactiveAuthorizationManager.hasRole("ADMIN")));
+			}
+			authz.add(new PayloadExchangeMatcherEntry<>(
+					new RoutePayloadExchangeMatcher(metadataExtractor, routeMatcher, ROUTE),
+					AuthorityReactiveAuthorizationManager.hasRole("USER")));
+		}
+		else {
+			authz.add(new PayloadExchangeMatcherEntry<>(PayloadExchangeMatchers.anyRequest(),
+					AuthenticatedReactiveAuthorizationManager.authenticated()));
+		}
+		authz.add(new PayloadExchangeMatcherEntry<>(PayloadExchangeMatchers.anyExchange(), permitAll()));
+		interceptors.add(new AuthorizationPayloadInterceptor(authz.build()));
+		return interceptors;
+	}
+
+	private static ReactiveAuthorizationManager<PayloadExchangeAuthorizationContext> permitAll() {
+		return (authentication, context) -> Mono.just(new AuthorizationDecision(true));
+	}
+
+	private Payload createRequest() {
+		ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+		CompositeByteBuf metadata = allocator.compositeBuffer();
+		CompositeMetadataFlyweight.encodeAndAddMetadata(metadata, allocator,
+				WellKnownMimeType.MESSAGE_RSOCKET_ROUTING,
+				TaggingMetadataFlyweight.createRoutingMetadata(allocator, Collections.singletonList(ROUTE))
+						.getContent());
+		if ("basic".equals(this.security) || "route".equals(this.security)) {
+			CompositeMetadataFlyweight.encodeAndAddMetadata(metadata, allocator,
+					UsernamePasswordMetadata.BASIC_AUTHENTICATION_MIME_TYPE.toString(), basic());
+		}
+		if ("jwt".equals(this.security)) {
+			CompositeMetadataFlyweight.encodeAndAddMetadata(metadata, allocator,
+					BearerTokenMetadata.BEARER_AUTHENTICATION_MIME_TYPE.toString(),
+					Unpooled.copiedBuffer("token", StandardCharsets.UTF_8));
+		}
+		return DefaultPayload.create(Unpooled.copiedBuffer("request", StandardCharsets.UTF_8), metadata);
+	}
+
+	private static ByteBuf basic() {
+		NettyDataBufferFactory factory = new NettyDataBufferFactory(ByteBufAllocator.DEFAULT);
+		return NettyDataBufferFactory.toByteBuf(new BasicAuthenticationEncoder().encodeValue(
+				new UsernamePasswordMetadata("user", "password"), factory,
+				ResolvableType.forClass(UsernamePasswordMetadata.class),
+				UsernamePasswordMetadata.BASIC_AUTHENTICATION_MIME_TYPE, null));
+	}
+
+	private static class ResponderRSocket extends AbstractRSocket {
+		@Override
+		public Mono<Payload> requestResponse(Payload payload) {
+			payload.release();
+			return Mono.just(RESPONSE);
+		}
+
+		@Override
+		public Flux<Payload> requestStream(Payload payload) {
+			payload.release();
+			return Flux.range(0, ELEMENTS).map(i -> RESPONSE);
+		}
+
+		@Override
+		public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
+			return Flux.from(payloads).map(payload -> {
+				payload.release();
+				return RESPONSE;
+			});
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.authentication;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of authenticating with a {@link ReactiveUserDetailsService}
+ * that blocks (i.e. one that wraps JDBC) for {@code lookupMillis}. Concurrent
+ * authentications are started from a single thread that stands in for a Netty event
+ * loop.
+ *
+ * <ul>
+ * <li>event-loop - users are looked up on the event loop, the default</li>
+ * <li>virtual-threads - users are looked up with a {@link BlockingReactiveUserDetailsService}
+ * on {@link AuthenticationScheduler#virtualThreads(int)}, which is a bounded elastic pool
+ * if the JVM does not support virtual threads</li>
+ * </ul>
+ *
+ * @author Rob Winch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockingReactiveUserDetailsServiceBenchmarks {
+	private static final int CONCURRENCY = 64;
+
+	@Param({ "event-loop", "virtual-threads" })
+	String execution;
+
+	@Param({ "1" })
+	long lookupMillis;
+
+	private Scheduler eventLoop;
+
+	private AuthenticationScheduler userDetailsScheduler;
+
+	private UserDetailsRepositoryReactiveAuthenticationManager authenticationManager;
+
+	private Authentication credentials;
+
+	@Setup
+	public void setup() {
+		this.eventLoop = Schedulers.newSingle("event-loop");
+		UserDetails user = User.withUsername("user").password("{noop}password").roles("USER").build();
+		ReactiveUserDetailsService users = username -> {
+			try {
+				Thread.sleep(this.lookupMillis);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return Mono.just(User.withUserDetails(user).build());
+		};
+		if ("virtual-threads".equals(this.execution)) {
+			this.userDetailsScheduler =
+					AuthenticationScheduler.virtualThreads(Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE);
+			users = new BlockingReactiveUserDetailsService(users, this.userDetailsScheduler.getScheduler());
+		}
+		this.authenticationManager = new UserDetailsRepositoryReactiveAuthenticationManager(users);
+		this.credentials = new UsernamePasswordAuthenticationToken("user", "password");
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.eventLoop.dispose();
+		if (this.userDetailsScheduler != null) {
+			this.userDetailsScheduler.dispose();
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CONCURRENCY)
+	public Authentication authenticate() {
+		return Flux.range(0, CONCURRENCY)
+				.flatMap(i -> Mono.defer(() -> this.authenticationManager.authenticate(this.credentials))
+						.subscribeOn(this.eventLoop), CONCURRENCY)
+				.blockLast();
+	}
+}
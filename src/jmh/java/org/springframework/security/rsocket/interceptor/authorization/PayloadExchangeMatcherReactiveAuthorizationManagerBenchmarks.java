@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.authorization;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.Payload;
+import io.rsocket.metadata.CompositeMetadataFlyweight;
+import io.rsocket.metadata.TaggingMetadataFlyweight;
+import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.util.DefaultPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.rsocket.MetadataExtractor;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authorization.AuthenticatedReactiveAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.rsocket.interceptor.DefaultPayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcher;
+import org.springframework.security.rsocket.util.RoutePayloadExchangeMatcher;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcherEntry;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.RouteMatcher;
+import org.springframework.util.SimpleRouteMatcher;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares authorizing a route that is matched by the last of {@link #rules} route rules
+ * when the rules are indexed by route and when every rule is evaluated in order.
+ *
+ * @author Rob Winch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadExchangeMatcherReactiveAuthorizationManagerBenchmarks {
+
+	@Param({ "10", "100", "1000" })
+	int rules;
+
+	@Param({ "true", "false" })
+	boolean indexed;
+
+	private PayloadExchangeMatcherReactiveAuthorizationManager manager;
+
+	private PayloadExchange exchange;
+
+	private Mono<Authentication> authentication = Mono.just(
+			new TestingAuthenticationToken("user", "password", "ROLE_USER"));
+
+	@Setup
+	public void setup() {
+		MetadataExtractor metadataExtractor = RSocketStrategies.create().metadataExtractor();
+		RouteMatcher routeMatcher = new SimpleRouteMatcher(new AntPathMatcher("."));
+		PayloadExchangeMatcherReactiveAuthorizationManager.Builder builder =
+				PayloadExchangeMatcherReactiveAuthorizationManager.builder();
+		for (int i = 0; i < this.rules; i++) {
+			String pattern = (i % 2 == 0) ? "service" + i + ".method" : "service" + i + ".*";
+			PayloadExchangeMatcher matcher = new RoutePayloadExchangeMatcher(metadataExtractor,
+					routeMatcher, pattern);
+			if (!this.indexed) {
+				// hide the route so every rule is evaluated in order
+				matcher = matcher::matches;
+			}
+			builder.add(new PayloadExchangeMatcherEntry<>(matcher,
+					AuthenticatedReactiveAuthorizationManager.authenticated()));
+		}
+		this.manager = builder.build();
+		String lastRoute = "service" + (this.rules - 1) + ".method";
+		this.exchange = new DefaultPayloadExchange(PayloadExchangeType.REQUEST_RESPONSE,
+				createPayload(lastRoute),
+				MimeTypeUtils.parseMimeType(WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA.getString()),
+				MediaType.APPLICATION_JSON);
+	}
+
+	@Benchmark
+	public AuthorizationDecision check() {
+		return this.manager.check(this.authentication, this.exchange).block();
+	}
+
+	private static Payload createPayload(String route) {
+		ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+		CompositeByteBuf metadata = allocator.compositeBuffer();
+		CompositeMetadataFlyweight.encodeAndAddMetadata(metadata, allocator,
+				WellKnownMimeType.MESSAGE_RSOCKET_ROUTING,
+				TaggingMetadataFlyweight.createRoutingMetadata(allocator, Collections.singletonList(route))
+						.getContent());
+		return DefaultPayload.create(Unpooled.EMPTY_BUFFER, metadata);
+	}
+}
@@ -36,4 +36,13 @@ import java.lang.annotation.Target;
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
 @Import({ RSocketSecurityConfiguration.class })
-public @interface EnableRSocketSecurity { }
+public @interface EnableRSocketSecurity {
+
+	/**
+	 * Determines where users are looked up with the {@code ReactiveUserDetailsService}
+	 * Bean. The default is {@link UserDetailsServiceExecution#EVENT_LOOP}.
+	 * @return the {@link UserDetailsServiceExecution} to use
+	 */
+	UserDetailsServiceExecution userDetailsServiceExecution() default UserDetailsServiceExecution.EVENT_LOOP;
+
+}
@@ -16,9 +16,11 @@
 
 package org.springframework.security.config.annotation.rsocket;
 
+import io.netty.util.concurrent.EventExecutorGroup;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.ResolvableType;
+import org.springframework.http.client.reactive.ReactorResourceFactory;
 import org.springframework.messaging.rsocket.annotation.support.RSocketMessageHandler;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authorization.AuthenticatedReactiveAuthorizationManager;
@@ -30,22 +32,45 @@ import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoders;
 import org.springframework.security.oauth2.server.resource.authentication.JwtReactiveAuthenticationManager;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeSecurityContextHolder;
 import org.springframework.security.rsocket.interceptor.PayloadInterceptor;
 import org.springframework.security.rsocket.interceptor.PayloadSocketAcceptorInterceptor;
 import org.springframework.security.rsocket.interceptor.authentication.AnonymousPayloadInterceptor;
 import org.springframework.security.rsocket.interceptor.authentication.AuthenticationPayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.authentication.AuthenticationScheduler;
 import org.springframework.security.rsocket.interceptor.authentication.BearerPayloadExchangeConverter;
+import org.springframework.security.rsocket.interceptor.authentication.CachingBearerTokenReactiveAuthenticationManager;
+import org.springframework.security.rsocket.interceptor.authentication.CachingReactiveAuthenticationManager;
+import org.springframework.security.rsocket.interceptor.authentication.ConnectionAuthenticationPayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.authentication.SingleFlightBearerTokenReactiveAuthenticationManager;
 import org.springframework.security.rsocket.interceptor.authorization.AuthorizationPayloadInterceptor;
 import org.springframework.security.rsocket.interceptor.authorization.PayloadExchangeMatcherReactiveAuthorizationManager;
+import org.springframework.security.rsocket.interceptor.authorization.PermitAllPayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.metrics.AuthenticationLatencyHistograms;
+import org.springframework.security.rsocket.interceptor.metrics.InstrumentedPayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.metrics.PayloadSecurityMetrics;
+import org.springframework.security.rsocket.interceptor.metrics.TimedReactiveAuthenticationManager;
+import org.springframework.security.rsocket.interceptor.ratelimit.ConcurrencyLimit;
+import org.springframework.security.rsocket.interceptor.ratelimit.ConcurrencyLimitPayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.ratelimit.LoadSheddingPayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.ratelimit.RateLimit;
+import org.springframework.security.rsocket.interceptor.ratelimit.RateLimitPayloadInterceptor;
 import org.springframework.security.rsocket.util.PayloadExchangeAuthorizationContext;
 import org.springframework.security.rsocket.util.PayloadExchangeMatcher;
 import org.springframework.security.rsocket.util.PayloadExchangeMatcherEntry;
 import org.springframework.security.rsocket.util.PayloadExchangeMatchers;
+import org.springframework.security.rsocket.util.RouteMatchCache;
 import org.springframework.security.rsocket.util.RoutePayloadExchangeMatcher;
+import org.springframework.util.RouteMatcher;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.netty.resources.LoopResources;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 /**
  * Allows configuring RSocket based security.
@@ -115,15 +140,112 @@ public class RSocketSecurity {
 
 	private AuthorizePayloadsSpec authorizePayload;
 
+	private ConnectionAuthenticationSpec connectionAuthenticationSpec;
+
+	private RateLimitSpec rateLimitSpec;
+
+	private Supplier<? extends ConcurrencyLimit> concurrencyLimits;
+
+	private LoadSheddingSpec loadSheddingSpec;
+
 	private ApplicationContext context;
 
 	private ReactiveAuthenticationManager authenticationManager;
 
+	private boolean exchangeSecurityContext;
+
+	private PayloadSecurityMetrics metrics;
+
+	private AuthenticationLatencyHistograms authenticationLatency;
+
+	private AuthenticationScheduler authenticationScheduler;
+
+	private EventExecutorGroup eventLoopGroup;
+
 	public RSocketSecurity authenticationManager(ReactiveAuthenticationManager authenticationManager) {
 		this.authenticationManager = authenticationManager;
 		return this;
 	}
 
+	/**
+	 * If true, the authentication interceptors store the resolved {@code SecurityContext}
+	 * on the {@code PayloadExchange} instead of adding it to the Reactor {@code Context}
+	 * of every remaining interceptor. It is still added to the Reactor {@code Context} of
+	 * the RSocket, so handlers can use {@code ReactiveSecurityContextHolder}. The default
+	 * is false.
+	 * @param exchangeSecurityContext true to store the {@code SecurityContext} on the
+	 * exchange
+	 * @return the {@link RSocketSecurity} for additional customizations
+	 * @see PayloadExchangeSecurityContextHolder
+	 */
+	public RSocketSecurity exchangeSecurityContext(boolean exchangeSecurityContext) {
+		this.exchangeSecurityContext = exchangeSecurityContext;
+		return this;
+	}
+
+	/**
+	 * Records the time and outcome of every {@link PayloadInterceptor} and every
+	 * authorization decision with the provided {@link PayloadSecurityMetrics}. The default
+	 * is to not record metrics.
+	 * @param metrics the {@link PayloadSecurityMetrics} to use
+	 * @return the {@link RSocketSecurity} for additional customizations
+	 * @see org.springframework.security.rsocket.interceptor.metrics.InMemoryPayloadSecurityMetrics
+	 */
+	public RSocketSecurity metrics(PayloadSecurityMetrics metrics) {
+		this.metrics = metrics;
+		return this;
+	}
+
+	/**
+	 * Records how long basic and JWT authentication take in the provided
+	 * {@link AuthenticationLatencyHistograms}. The default is to not record the latency.
+	 * @param authenticationLatency the {@link AuthenticationLatencyHistograms} to use
+	 * @return the {@link RSocketSecurity} for additional customizations
+	 * @see TimedReactiveAuthenticationManager
+	 */
+	public RSocketSecurity authenticationLatency(AuthenticationLatencyHistograms authenticationLatency) {
+		this.authenticationLatency = authenticationLatency;
+		return this;
+	}
+
+	/**
+	 * Performs basic and JWT authentication on the provided {@link AuthenticationScheduler}
+	 * rather than on the Netty event loop. Once authentication completes, the remaining
+	 * interceptors are invoked on the event loop that received the Payload again. The
+	 * event loops are those of the {@link ReactorResourceFactory} bean, which Spring Boot
+	 * uses for the RSocket server. If there is no such bean, or the server uses
+	 * different event loops, use
+	 * {@link #authenticationScheduler(AuthenticationScheduler, EventExecutorGroup)}, since
+	 * otherwise the remaining interceptors are invoked on the
+	 * {@link AuthenticationScheduler}. If there is an {@link ApplicationContext}, it
+	 * publishes the
+	 * {@link org.springframework.security.rsocket.interceptor.authentication.AuthenticationSchedulerSaturatedEvent}.
+	 * The default is to authenticate on the event loop.
+	 * @param authenticationScheduler the {@link AuthenticationScheduler} to use
+	 * @return the {@link RSocketSecurity} for additional customizations
+	 * @see AuthenticationPayloadInterceptor#setAuthenticationScheduler(Scheduler)
+	 */
+	public RSocketSecurity authenticationScheduler(AuthenticationScheduler authenticationScheduler) {
+		return authenticationScheduler(authenticationScheduler, null);
+	}
+
+	/**
+	 * Performs basic and JWT authentication on the provided {@link AuthenticationScheduler}
+	 * rather than on the Netty event loop. The remaining interceptors are invoked on the
+	 * event loop of {@code eventLoopGroup} that received the Payload again.
+	 * @param authenticationScheduler the {@link AuthenticationScheduler} to use
+	 * @param eventLoopGroup the event loops of the RSocket server or null to use the
+	 * event loops of the {@link ReactorResourceFactory} bean
+	 * @return the {@link RSocketSecurity} for additional customizations
+	 * @see AuthenticationPayloadInterceptor#setEventLoopGroup(EventExecutorGroup)
+	 */
+	public RSocketSecurity authenticationScheduler(AuthenticationScheduler authenticationScheduler,
+			EventExecutorGroup eventLoopGroup) {
+		this.authenticationScheduler = authenticationScheduler;
+		this.eventLoopGroup = eventLoopGroup;
+		return this;
+	}
+
 	public RSocketSecurity basicAuthentication(Customizer<BasicAuthenticationSpec> basic) {
 		if (this.basicAuthSpec == null) {
 			this.basicAuthSpec = new BasicAuthenticationSpec();
@@ -135,21 +257,49 @@ public class RSocketSecurity {
 	public class BasicAuthenticationSpec {
 		private ReactiveAuthenticationManager authenticationManager;
 
+		private Duration cacheTimeToLive;
+
+		private int cacheMaxSize;
+
 		public BasicAuthenticationSpec authenticationManager(ReactiveAuthenticationManager authenticationManager) {
 			this.authenticationManager = authenticationManager;
 			return this;
 		}
 
+		/**
+		 * Caches successful authentications so that repeated credentials are not verified
+		 * by the {@link ReactiveAuthenticationManager} on every request. To invalidate the
+		 * cache when a user is changed, provide a {@link CachingReactiveAuthenticationManager}
+		 * to {@link #authenticationManager(ReactiveAuthenticationManager)} instead and
+		 * invoke {@link CachingReactiveAuthenticationManager#invalidate(String)} on it.
+		 * @param timeToLive how long a successful authentication is cached
+		 * @param maxSize the maximum number of cached authentications
+		 * @return the {@link BasicAuthenticationSpec} for additional customizations
+		 * @see CachingReactiveAuthenticationManager
+		 */
+		public BasicAuthenticationSpec cache(Duration timeToLive, int maxSize) {
+			this.cacheTimeToLive = timeToLive;
+			this.cacheMaxSize = maxSize;
+			return this;
+		}
+
 		private ReactiveAuthenticationManager getAuthenticationManager() {
-			if (this.authenticationManager == null) {
-				return RSocketSecurity.this.authenticationManager;
+			if (this.authenticationManager != null) {
+				return this.authenticationManager;
 			}
-			return this.authenticationManager;
+			return RSocketSecurity.this.authenticationManager;
 		}
 
 		protected AuthenticationPayloadInterceptor build() {
 			ReactiveAuthenticationManager manager = getAuthenticationManager();
-			return new AuthenticationPayloadInterceptor(manager);
+			if (this.cacheTimeToLive != null && !(manager instanceof CachingReactiveAuthenticationManager)) {
+				manager = new CachingReactiveAuthenticationManager(manager, this.cacheTimeToLive, this.cacheMaxSize);
+			}
+			AuthenticationPayloadInterceptor result = new AuthenticationPayloadInterceptor(timed(manager));
+			result.setExchangeSecurityContext(RSocketSecurity.this.exchangeSecurityContext);
+			result.setAuthenticationScheduler(getAuthenticationScheduler());
+			result.setEventLoopGroup(getEventLoopGroup());
+			return result;
 		}
 
 		private BasicAuthenticationSpec() {}
@@ -166,11 +316,62 @@ public class RSocketSecurity {
 	public class JwtSpec {
 		private ReactiveAuthenticationManager authenticationManager;
 
+		private Duration cacheMaxTimeToLive;
+
+		private int cacheMaxSize;
+
+		private boolean singleFlight;
+
+		private Scheduler verificationScheduler;
+
 		public JwtSpec authenticationManager(ReactiveAuthenticationManager authenticationManager) {
 			this.authenticationManager = authenticationManager;
 			return this;
 		}
 
+		/**
+		 * Caches the result of authenticating a token, so that a token that is sent
+		 * repeatedly is only verified once. Results are cached until the token expires or
+		 * the maximum time to live, whichever is first. Cache hits and misses are reported to
+		 * the {@link RSocketSecurity#metrics(PayloadSecurityMetrics)}.
+		 * @param maxTimeToLive the maximum time a result is cached
+		 * @param maxSize the maximum number of cached tokens
+		 * @return the {@link JwtSpec} for additional customizations
+		 * @see CachingBearerTokenReactiveAuthenticationManager
+		 */
+		public JwtSpec cache(Duration maxTimeToLive, int maxSize) {
+			this.cacheMaxTimeToLive = maxTimeToLive;
+			this.cacheMaxSize = maxSize;
+			return this;
+		}
+
+		/**
+		 * Coalesces concurrent authentications of the same token into a single
+		 * authentication, so that a burst of requests with a token that is not yet cached
+		 * only verifies it once.
+		 * @return the {@link JwtSpec} for additional customizations
+		 * @see SingleFlightBearerTokenReactiveAuthenticationManager
+		 */
+		public JwtSpec singleFlight() {
+			this.singleFlight = true;
+			return this;
+		}
+
+		/**
+		 * Verifies tokens on the provided {@link Scheduler} (i.e. a bounded
+		 * {@code Schedulers.newBoundedElastic(...)}) rather than on the Netty event loop.
+		 * Concurrent authentications of the same token are coalesced as with
+		 * {@link #singleFlight()}.
+		 * @param scheduler the {@link Scheduler} to verify tokens on
+		 * @return the {@link JwtSpec} for additional customizations
+		 * @see SingleFlightBearerTokenReactiveAuthenticationManager#setScheduler(Scheduler)
+		 */
+		public JwtSpec verifyOn(Scheduler scheduler) {
+			this.singleFlight = true;
+			this.verificationScheduler = scheduler;
+			return this;
+		}
+
 		private ReactiveAuthenticationManager getAuthenticationManager() {
 			if (this.authenticationManager != null) {
 				return this.authenticationManager;
@@ -185,14 +386,89 @@ public class RSocketSecurity {
 
 		protected AuthenticationPayloadInterceptor build() {
 			ReactiveAuthenticationManager manager = getAuthenticationManager();
-			AuthenticationPayloadInterceptor result = new AuthenticationPayloadInterceptor(manager);
+			if (this.singleFlight) {
+				SingleFlightBearerTokenReactiveAuthenticationManager singleFlight =
+						new SingleFlightBearerTokenReactiveAuthenticationManager(manager);
+				singleFlight.setScheduler(this.verificationScheduler);
+				manager = singleFlight;
+			}
+			if (this.cacheMaxTimeToLive != null) {
+				CachingBearerTokenReactiveAuthenticationManager cache = new CachingBearerTokenReactiveAuthenticationManager(
+						manager, this.cacheMaxTimeToLive, this.cacheMaxSize);
+				cache.setMetrics(RSocketSecurity.this.metrics);
+				manager = cache;
+			}
+			AuthenticationPayloadInterceptor result = new AuthenticationPayloadInterceptor(timed(manager));
 			result.setAuthenticationConverter(new BearerPayloadExchangeConverter());
+			result.setExchangeSecurityContext(RSocketSecurity.this.exchangeSecurityContext);
+			result.setAuthenticationScheduler(getAuthenticationScheduler());
+			result.setEventLoopGroup(getEventLoopGroup());
 			return result;
 		}
 
 		private JwtSpec() {}
 	}
 
+	/**
+	 * Authenticates once with the SETUP frame and reuses the result for every request on
+	 * the connection. Requests are only authenticated again if they re-authenticate or
+	 * the connection authentication has expired. By default a request re-authenticates
+	 * when it contains Basic or Bearer authentication metadata, so a request with
+	 * invalid credentials is rejected instead of running as the connection's principal.
+	 * @param connection the customizer
+	 * @return the {@link RSocketSecurity} for additional customizations
+	 * @see ConnectionAuthenticationPayloadInterceptor
+	 */
+	public RSocketSecurity connectionAuthentication(Customizer<ConnectionAuthenticationSpec> connection) {
+		if (this.connectionAuthenticationSpec == null) {
+			this.connectionAuthenticationSpec = new ConnectionAuthenticationSpec();
+		}
+		connection.customize(this.connectionAuthenticationSpec);
+		return this;
+	}
+
+	public class ConnectionAuthenticationSpec {
+		private PayloadExchangeMatcher reauthenticationMatcher;
+
+		private Duration expiration;
+
+		/**
+		 * Determines which requests are authenticated again even though the connection
+		 * is authenticated. The default is
+		 * {@link PayloadExchangeMatchers#authenticationMetadata()}, which re-authenticates
+		 * requests that contain Basic or Bearer authentication metadata.
+		 * @param reauthenticationMatcher the matcher to use
+		 * @return the {@link ConnectionAuthenticationSpec} for additional customizations
+		 */
+		public ConnectionAuthenticationSpec reauthenticationMatcher(PayloadExchangeMatcher reauthenticationMatcher) {
+			this.reauthenticationMatcher = reauthenticationMatcher;
+			return this;
+		}
+
+		/**
+		 * Sets how long the connection remains authenticated after the SETUP frame. By
+		 * default the connection authentication does not expire.
+		 * @param expiration the expiration
+		 * @return the {@link ConnectionAuthenticationSpec} for additional customizations
+		 */
+		public ConnectionAuthenticationSpec expiration(Duration expiration) {
+			this.expiration = expiration;
+			return this;
+		}
+
+		protected PayloadInterceptor build(PayloadInterceptor authentication) {
+			ConnectionAuthenticationPayloadInterceptor result =
+					new ConnectionAuthenticationPayloadInterceptor(authentication);
+			if (this.reauthenticationMatcher != null) {
+				result.setReauthenticationMatcher(this.reauthenticationMatcher);
+			}
+			result.setExpiration(this.expiration);
+			return result;
+		}
+
+		private ConnectionAuthenticationSpec() {}
+	}
+
 	public RSocketSecurity authorizePayload(Customizer<AuthorizePayloadsSpec> authorize) {
 		if (this.authorizePayload == null) {
 			this.authorizePayload = new AuthorizePayloadsSpec();
@@ -201,6 +477,169 @@ public class RSocketSecurity {
 		return this;
 	}
 
+	/**
+	 * Rejects requests that exceed a {@link RateLimit}. Connection and shared limits are
+	 * applied before the request is authenticated. Principal limits are applied after the
+	 * request is authenticated, independently of the connection and shared limits: the
+	 * first principal limit that matches applies in addition to the first connection or
+	 * shared limit that matches.
+	 * @param rateLimit the customizer
+	 * @return the {@link RSocketSecurity} for additional customizations
+	 * @see RateLimitPayloadInterceptor
+	 */
+	public RSocketSecurity rateLimit(Customizer<RateLimitSpec> rateLimit) {
+		if (this.rateLimitSpec == null) {
+			this.rateLimitSpec = new RateLimitSpec();
+		}
+		rateLimit.customize(this.rateLimitSpec);
+		return this;
+	}
+
+	/**
+	 * Limits the number of streams and channels that are open at the same time for each
+	 * combination of the {@link #authorizePayload(Customizer)} mapping that authorized the
+	 * request and the principal. Exchanges that are permitted for everyone are limited for
+	 * each of their mappings. The permit is released when the stream terminates or is
+	 * cancelled.
+	 * @param concurrencyLimits creates the {@link ConcurrencyLimit} for each combination
+	 * (i.e. {@code () -> new FixedConcurrencyLimit(100)})
+	 * @return the {@link RSocketSecurity} for additional customizations
+	 * @see ConcurrencyLimitPayloadInterceptor
+	 */
+	public RSocketSecurity concurrencyLimit(Supplier<? extends ConcurrencyLimit> concurrencyLimits) {
+		this.concurrencyLimits = concurrencyLimits;
+		return this;
+	}
+
+	/**
+	 * Rejects requests before they are authenticated while the node is overloaded.
+	 * @param loadShedding the customizer
+	 * @return the {@link RSocketSecurity} for additional customizations
+	 * @see LoadSheddingPayloadInterceptor
+	 */
+	public RSocketSecurity loadShedding(Customizer<LoadSheddingSpec> loadShedding) {
+		if (this.loadSheddingSpec == null) {
+			this.loadSheddingSpec = new LoadSheddingSpec();
+		}
+		loadShedding.customize(this.loadSheddingSpec);
+		return this;
+	}
+
+	public class LoadSheddingSpec {
+		private final LoadSheddingPayloadInterceptor interceptor = new LoadSheddingPayloadInterceptor();
+
+		/**
+		 * @param maxPendingRequests the maximum number of pending requests
+		 * @return the {@link LoadSheddingSpec} for additional customizations
+		 * @see LoadSheddingPayloadInterceptor#setMaxPendingRequests(int)
+		 */
+		public LoadSheddingSpec maxPendingRequests(int maxPendingRequests) {
+			this.interceptor.setMaxPendingRequests(maxPendingRequests);
+			return this;
+		}
+
+		/**
+		 * @param overloadDetector returns true while the node is overloaded
+		 * @return the {@link LoadSheddingSpec} for additional customizations
+		 * @see LoadSheddingPayloadInterceptor#setOverloadDetector(BooleanSupplier)
+		 */
+		public LoadSheddingSpec overloadDetector(BooleanSupplier overloadDetector) {
+			this.interceptor.setOverloadDetector(overloadDetector);
+			return this;
+		}
+
+		/**
+		 * Requests for the route are never rejected
+		 * @param pattern the route pattern
+		 * @return the {@link LoadSheddingSpec} for additional customizations
+		 */
+		public LoadSheddingSpec bypassRoute(String pattern) {
+			RSocketMessageHandler handler = getBean(RSocketMessageHandler.class);
+			return bypass(new RoutePayloadExchangeMatcher(handler.getMetadataExtractor(),
+					handler.getRouteMatcher(), pattern));
+		}
+
+		/**
+		 * Requests matching the {@link PayloadExchangeMatcher} are never rejected
+		 * @param matcher the matcher
+		 * @return the {@link LoadSheddingSpec} for additional customizations
+		 */
+		public LoadSheddingSpec bypass(PayloadExchangeMatcher matcher) {
+			this.interceptor.setBypassMatcher(matcher);
+			return this;
+		}
+
+		protected LoadSheddingPayloadInterceptor build() {
+			return this.interceptor;
+		}
+
+		private LoadSheddingSpec() {}
+	}
+
+	public class RateLimitSpec {
+		private final List<PayloadExchangeMatcherEntry<RateLimit>> limits = new ArrayList<>();
+
+		public Limit route(String pattern) {
+			RSocketMessageHandler handler = getBean(RSocketMessageHandler.class);
+			return matcher(new RoutePayloadExchangeMatcher(handler.getMetadataExtractor(),
+					handler.getRouteMatcher(), pattern));
+		}
+
+		public Limit anyRequest() {
+			return matcher(PayloadExchangeMatchers.anyExchange());
+		}
+
+		public Limit matcher(PayloadExchangeMatcher matcher) {
+			return new Limit(matcher);
+		}
+
+		protected RateLimitPayloadInterceptor buildBeforeAuthentication() {
+			return build(false);
+		}
+
+		protected RateLimitPayloadInterceptor buildAfterAuthentication() {
+			return build(true);
+		}
+
+		private RateLimitPayloadInterceptor build(boolean principal) {
+			List<PayloadExchangeMatcherEntry<RateLimit>> limits = new ArrayList<>();
+			for (PayloadExchangeMatcherEntry<RateLimit> entry : this.limits) {
+				boolean principalLimit = entry.getEntry().getScope() == RateLimit.Scope.PRINCIPAL;
+				if (principalLimit == principal) {
+					limits.add(entry);
+				}
+			}
+			return limits.isEmpty() ? null : new RateLimitPayloadInterceptor(limits);
+		}
+
+		private RateLimitSpec() {}
+
+		public class Limit {
+			private final PayloadExchangeMatcher matcher;
+
+			private Limit(PayloadExchangeMatcher matcher) {
+				this.matcher = matcher;
+			}
+
+			public RateLimitSpec perConnection(long permits, Duration period) {
+				return limit(RateLimit.perConnection(permits, period));
+			}
+
+			public RateLimitSpec perPrincipal(long permits, Duration period) {
+				return limit(RateLimit.perPrincipal(permits, period));
+			}
+
+			public RateLimitSpec shared(long permits, Duration period) {
+				return limit(RateLimit.shared(permits, period));
+			}
+
+			public RateLimitSpec limit(RateLimit limit) {
+				RateLimitSpec.this.limits.add(new PayloadExchangeMatcherEntry<>(this.matcher, limit));
+				return RateLimitSpec.this;
+			}
+		}
+	}
+
 	public PayloadSocketAcceptorInterceptor build() {
 		PayloadSocketAcceptorInterceptor interceptor = new PayloadSocketAcceptorInterceptor(
 				payloadInterceptors());
@@ -210,20 +649,90 @@ public class RSocketSecurity {
 		return interceptor;
 	}
 
+	private ReactiveAuthenticationManager timed(ReactiveAuthenticationManager manager) {
+		if (this.authenticationLatency == null) {
+			return manager;
+		}
+		return new TimedReactiveAuthenticationManager(manager, this.authenticationLatency);
+	}
+
+	private Scheduler getAuthenticationScheduler() {
+		if (this.authenticationScheduler == null) {
+			return null;
+		}
+		if (this.context != null) {
+			this.authenticationScheduler.setApplicationEventPublisher(this.context);
+		}
+		return this.authenticationScheduler.getScheduler();
+	}
+
+	private EventExecutorGroup getEventLoopGroup() {
+		if (this.eventLoopGroup != null) {
+			return this.eventLoopGroup;
+		}
+		ReactorResourceFactory resourceFactory = getBeanOrNull(ReactorResourceFactory.class);
+		if (resourceFactory == null) {
+			return null;
+		}
+		return resourceFactory.getLoopResources().onServer(LoopResources.DEFAULT_NATIVE);
+	}
+
+	private PayloadInterceptor connectionAuthentication(PayloadInterceptor authentication) {
+		if (this.connectionAuthenticationSpec == null) {
+			return authentication;
+		}
+		return this.connectionAuthenticationSpec.build(authentication);
+	}
+
 	private List<PayloadInterceptor> payloadInterceptors() {
 		List<PayloadInterceptor> payloadInterceptors = new ArrayList<>();
 
 		if (this.basicAuthSpec != null) {
-			payloadInterceptors.add(this.basicAuthSpec.build());
+			payloadInterceptors.add(connectionAuthentication(this.basicAuthSpec.build()));
 		}
 		if (this.jwtSpec != null) {
-			payloadInterceptors.add(this.jwtSpec.build());
+			payloadInterceptors.add(connectionAuthentication(this.jwtSpec.build()));
+		}
+		AnonymousPayloadInterceptor anonymous = new AnonymousPayloadInterceptor("anonymousUser");
+		anonymous.setExchangeSecurityContext(this.exchangeSecurityContext);
+		payloadInterceptors.add(anonymous);
+		if (this.rateLimitSpec != null) {
+			RateLimitPayloadInterceptor principalRateLimit = this.rateLimitSpec.buildAfterAuthentication();
+			if (principalRateLimit != null) {
+				payloadInterceptors.add(principalRateLimit);
+			}
+		}
+
+		ConcurrencyLimitPayloadInterceptor concurrencyLimit = this.concurrencyLimits == null ?
+				null : new ConcurrencyLimitPayloadInterceptor(this.concurrencyLimits);
+		if (this.authorizePayload != null) {
+			List<PayloadExchangeMatcher> permitAllMatchers = this.authorizePayload.permitAllMatchers;
+			if (!permitAllMatchers.isEmpty()) {
+				PermitAllPayloadInterceptor permitAll = new PermitAllPayloadInterceptor(permitAllMatchers);
+				permitAll.setMetrics(this.metrics);
+				permitAll.setPermittedInterceptor(concurrencyLimit);
+				payloadInterceptors.add(0, permitAll);
+			}
 		}
-		payloadInterceptors.add(new AnonymousPayloadInterceptor("anonymousUser"));
 
 		if (this.authorizePayload != null) {
 			payloadInterceptors.add(this.authorizePayload.build());
 		}
+		if (this.rateLimitSpec != null) {
+			RateLimitPayloadInterceptor rateLimit = this.rateLimitSpec.buildBeforeAuthentication();
+			if (rateLimit != null) {
+				payloadInterceptors.add(0, rateLimit);
+			}
+		}
+		if (this.loadSheddingSpec != null) {
+			payloadInterceptors.add(0, this.loadSheddingSpec.build());
+		}
+		if (concurrencyLimit != null) {
+			payloadInterceptors.add(concurrencyLimit);
+		}
+		if (this.metrics != null) {
+			payloadInterceptors.replaceAll(i -> new InstrumentedPayloadInterceptor(i, this.metrics));
+		}
 		return payloadInterceptors;
 	}
 
@@ -232,8 +741,40 @@ public class RSocketSecurity {
 		private PayloadExchangeMatcherReactiveAuthorizationManager.Builder authzBuilder =
 				PayloadExchangeMatcherReactiveAuthorizationManager.builder();
 
+		/**
+		 * The route matchers that are mapped to {@code permitAll()} and cannot be matched
+		 * by an earlier mapping. Exchanges matching these skip the rest of the security
+		 * pipeline unless they contain authentication metadata.
+		 */
+		private final List<PayloadExchangeMatcher> permitAllMatchers = new ArrayList<>();
+
+		private final List<String> routePatterns = new ArrayList<>();
+
+		/**
+		 * False once a mapping that may match any request (e.g. {@code anyRequest()} or a
+		 * custom {@link PayloadExchangeMatcher}) has been added.
+		 */
+		private boolean onlyRoutesMapped = true;
+
+		private RouteMatcher routeMatcher;
+
+		private final List<RoutePayloadExchangeMatcher> routeMatchers = new ArrayList<>();
+
+		private RouteMatchCache routeMatchCache;
+
+		/**
+		 * Caches the parsed routes and the match results of every {@link #route(String)}
+		 * mapping in the provided {@link RouteMatchCache}.
+		 * @param routeMatchCache the cache to use
+		 * @return the {@link AuthorizePayloadsSpec} for additional customizations
+		 */
+		public AuthorizePayloadsSpec routeMatchCache(RouteMatchCache routeMatchCache) {
+			this.routeMatchCache = routeMatchCache;
+			return this;
+		}
+
 		public Access setup() {
-			return matcher(PayloadExchangeMatchers.setup());
+			return new Access(PayloadExchangeMatchers.setup(), null, false);
 		}
 
 		public Access anyRequest() {
@@ -241,28 +782,66 @@ public class RSocketSecurity {
 		}
 
 		protected AuthorizationPayloadInterceptor build() {
+			if (this.routeMatchCache != null) {
+				this.routeMatchers.forEach(m -> m.setRouteMatchCache(this.routeMatchCache));
+			}
+			this.authzBuilder.metrics(RSocketSecurity.this.metrics);
+			this.authzBuilder.exposeMatcher(RSocketSecurity.this.concurrencyLimits != null);
 			return new AuthorizationPayloadInterceptor(this.authzBuilder.build());
 		}
 
 		public Access route(String pattern) {
 			RSocketMessageHandler handler = getBean(RSocketMessageHandler.class);
-			PayloadExchangeMatcher matcher = new RoutePayloadExchangeMatcher(
+			this.routeMatcher = handler.getRouteMatcher();
+			RoutePayloadExchangeMatcher matcher = new RoutePayloadExchangeMatcher(
 					handler.getMetadataExtractor(),
-					handler.getRouteMatcher(),
+					this.routeMatcher,
 					pattern);
-			return matcher(matcher);
+			this.routeMatchers.add(matcher);
+			return new Access(matcher, pattern, true);
 		}
 
 		public Access matcher(PayloadExchangeMatcher matcher) {
-			return new Access(matcher);
+			return new Access(matcher, null, true);
+		}
+
+		/**
+		 * Determines if every request matching the route pattern would be granted by a
+		 * {@code permitAll()} mapping, i.e. no earlier mapping can match the same route.
+		 * Route patterns are only considered to not overlap if at least one of them is not
+		 * a pattern and the other does not match it.
+		 */
+		private boolean isUnconditionalPermitAll(String pattern) {
+			if (!this.onlyRoutesMapped) {
+				return false;
+			}
+			boolean isPattern = this.routeMatcher.isPattern(pattern);
+			for (String previous : this.routePatterns) {
+				if (isPattern) {
+					if (this.routeMatcher.isPattern(previous) ||
+							this.routeMatcher.match(pattern, this.routeMatcher.parseRoute(previous))) {
+						return false;
+					}
+				}
+				else if (this.routeMatcher.match(previous, this.routeMatcher.parseRoute(pattern))) {
+					return false;
+				}
+			}
+			return true;
 		}
 
 		public class Access {
 
 			private final PayloadExchangeMatcher matcher;
 
-			private Access(PayloadExchangeMatcher matcher) {
+			private final String route;
+
+			private final boolean matchesRequests;
+
+			private Access(PayloadExchangeMatcher matcher, String route, boolean matchesRequests) {
 				this.matcher = matcher;
+				this.route = route;
+				this.matchesRequests = matchesRequests;
 			}
 
 			public AuthorizePayloadsSpec authenticated() {
@@ -274,6 +853,9 @@ public class RSocketSecurity {
 			}
 
 			public AuthorizePayloadsSpec permitAll() {
+				if (this.route != null && isUnconditionalPermitAll(this.route)) {
+					AuthorizePayloadsSpec.this.permitAllMatchers.add(this.matcher);
+				}
 				return access((a,ctx) -> Mono
 						.just(new AuthorizationDecision(true)));
 			}
@@ -281,6 +863,12 @@ public class RSocketSecurity {
 			public AuthorizePayloadsSpec access(
 					ReactiveAuthorizationManager<PayloadExchangeAuthorizationContext> authorization) {
 				AuthorizePayloadsSpec.this.authzBuilder.add(new PayloadExchangeMatcherEntry<>(this.matcher, authorization));
+				if (this.route != null) {
+					AuthorizePayloadsSpec.this.routePatterns.add(this.route);
+				}
+				else if (this.matchesRequests) {
+					AuthorizePayloadsSpec.this.onlyRoutesMapped = false;
+				}
 				return AuthorizePayloadsSpec.this;
 			}
 		}
@@ -16,22 +16,29 @@
 
 package org.springframework.security.config.annotation.rsocket;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportAware;
 import org.springframework.context.annotation.Scope;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
 import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.rsocket.interceptor.authentication.AuthenticationScheduler;
+import org.springframework.security.rsocket.interceptor.authentication.BlockingReactiveUserDetailsService;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * @author Rob Winch
  * @since 5.2
  */
 @Configuration(proxyBeanMethods = false)
-class RSocketSecurityConfiguration {
+class RSocketSecurityConfiguration implements ImportAware, DisposableBean {
 
 	private static final String BEAN_NAME_PREFIX = "org.springframework.security.config.annotation.rsocket.RSocketSecurityConfiguration.";
 	private static final String RSOCKET_SECURITY_BEAN_NAME = BEAN_NAME_PREFIX + "rsocketSecurity";
@@ -42,6 +49,10 @@ class RSocketSecurityConfiguration {
 
 	private PasswordEncoder passwordEncoder;
 
+	private UserDetailsServiceExecution userDetailsServiceExecution = UserDetailsServiceExecution.EVENT_LOOP;
+
+	private AuthenticationScheduler userDetailsServiceScheduler;
+
 	@Autowired(required = false)
 	void setAuthenticationManager(
 			ReactiveAuthenticationManager authenticationManager) {
@@ -58,6 +69,22 @@ class RSocketSecurityConfiguration {
 		this.passwordEncoder = passwordEncoder;
 	}
 
+	@Override
+	public void setImportMetadata(AnnotationMetadata importMetadata) {
+		AnnotationAttributes attributes = AnnotationAttributes.fromMap(
+				importMetadata.getAnnotationAttributes(EnableRSocketSecurity.class.getName()));
+		if (attributes != null) {
+			this.userDetailsServiceExecution = attributes.getEnum("userDetailsServiceExecution");
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (this.userDetailsServiceScheduler != null) {
+			this.userDetailsServiceScheduler.dispose();
+		}
+	}
+
 	@Bean(name = RSOCKET_SECURITY_BEAN_NAME)
 	@Scope("prototype")
 	public RSocketSecurity rsocketSecurity(ApplicationContext context) {
@@ -73,7 +100,7 @@ class RSocketSecurityConfiguration {
 		}
 		if (this.reactiveUserDetailsService != null) {
 			UserDetailsRepositoryReactiveAuthenticationManager manager =
-					new UserDetailsRepositoryReactiveAuthenticationManager(this.reactiveUserDetailsService);
+					new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService());
 			if (this.passwordEncoder != null) {
 				manager.setPasswordEncoder(this.passwordEncoder);
 			}
@@ -81,4 +108,16 @@ class RSocketSecurityConfiguration {
 		}
 		return null;
 	}
+
+	private ReactiveUserDetailsService userDetailsService() {
+		if (this.userDetailsServiceExecution != UserDetailsServiceExecution.VIRTUAL_THREADS) {
+			return this.reactiveUserDetailsService;
+		}
+		if (this.userDetailsServiceScheduler == null) {
+			this.userDetailsServiceScheduler =
+					AuthenticationScheduler.virtualThreads(Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE);
+		}
+		return new BlockingReactiveUserDetailsService(this.reactiveUserDetailsService,
+				this.userDetailsServiceScheduler.getScheduler());
+	}
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.config.annotation.rsocket;
+
+import org.springframework.security.rsocket.interceptor.authentication.AuthenticationScheduler;
+
+/**
+ * Determines where {@link EnableRSocketSecurity} looks up users with the
+ * {@code ReactiveUserDetailsService} Bean.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ * @see EnableRSocketSecurity#userDetailsServiceExecution()
+ */
+public enum UserDetailsServiceExecution {
+
+	/**
+	 * Looks up users on the thread that received the Payload, typically the Netty event
+	 * loop. Use this when the {@code ReactiveUserDetailsService} does not block.
+	 */
+	EVENT_LOOP,
+
+	/**
+	 * Looks up users on a virtual thread per lookup if the JVM supports virtual threads,
+	 * otherwise on a bounded elastic pool. Use this when the
+	 * {@code ReactiveUserDetailsService} blocks (i.e. wraps JDBC).
+	 * @see AuthenticationScheduler#virtualThreads(int)
+	 */
+	VIRTUAL_THREADS
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor;
+
+import org.springframework.util.Assert;
+
+import java.util.List;
+
+/**
+ * Determines how the {@link PayloadExchangeType#PAYLOAD} frames of a request channel
+ * are intercepted after the initial {@link PayloadExchangeType#REQUEST_CHANNEL} frame was
+ * intercepted. In all cases the payloads are intercepted in order and the demand of the
+ * requester is respected.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ * @see PayloadSocketAcceptorInterceptor#setChannelPayloadPolicy(ChannelPayloadPolicy)
+ */
+public final class ChannelPayloadPolicy {
+	private static final ChannelPayloadPolicy EVERY_PAYLOAD = new ChannelPayloadPolicy(1, null);
+
+	private static final ChannelPayloadPolicy FIRST_PAYLOAD_ONLY = new ChannelPayloadPolicy(0, null);
+
+	private final int interval;
+
+	private final ContextPayloadInterceptorChain chain;
+
+	private ChannelPayloadPolicy(int interval, ContextPayloadInterceptorChain chain) {
+		this.interval = interval;
+		this.chain = chain;
+	}
+
+	/**
+	 * Every payload is intercepted by all of the {@link PayloadInterceptor}s. This is the
+	 * default.
+	 * @return the {@link ChannelPayloadPolicy}
+	 */
+	public static ChannelPayloadPolicy everyPayload() {
+		return EVERY_PAYLOAD;
+	}
+
+	/**
+	 * Only the initial {@link PayloadExchangeType#REQUEST_CHANNEL} frame is intercepted,
+	 * which authorizes the channel once.
+	 * @return the {@link ChannelPayloadPolicy}
+	 */
+	public static ChannelPayloadPolicy firstPayloadOnly() {
+		return FIRST_PAYLOAD_ONLY;
+	}
+
+	/**
+	 * The first {@link PayloadExchangeType#PAYLOAD} frame and every {@code interval}
+	 * frame after that is intercepted by all of the {@link PayloadInterceptor}s.
+	 * @param interval the interval. Must be greater than 0.
+	 * @return the {@link ChannelPayloadPolicy}
+	 */
+	public static ChannelPayloadPolicy sampled(int interval) {
+		Assert.isTrue(interval > 0, "interval must be greater than 0");
+		return interval == 1 ? EVERY_PAYLOAD : new ChannelPayloadPolicy(interval, null);
+	}
+
+	/**
+	 * Every payload is intercepted by the provided {@link PayloadInterceptor}s instead of
+	 * the ones used for requests (i.e. only authorization). The interceptors are invoked
+	 * with the context that was established for the
+	 * {@link PayloadExchangeType#REQUEST_CHANNEL} frame (i.e. its authentication).
+	 * @param interceptors the interceptors to use. Cannot be null or empty.
+	 * @return the {@link ChannelPayloadPolicy}
+	 */
+	public static ChannelPayloadPolicy interceptors(List<PayloadInterceptor> interceptors) {
+		Assert.notEmpty(interceptors, "interceptors cannot be null or empty");
+		return new ChannelPayloadPolicy(1, new ContextPayloadInterceptorChain(interceptors));
+	}
+
+	/**
+	 * Intercept every {@code interval} payload, or none if 0.
+	 */
+	int getInterval() {
+		return this.interval;
+	}
+
+	/**
+	 * The chain to use or null to use the chain used for requests.
+	 */
+	ContextPayloadInterceptorChain getChain() {
+		return this.chain;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[interval=" + this.interval + ",chain=" + this.chain + "]";
+	}
+}
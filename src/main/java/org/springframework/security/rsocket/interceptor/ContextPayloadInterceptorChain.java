@@ -16,6 +16,7 @@
 
 package org.springframework.security.rsocket.interceptor;
 
+import org.springframework.security.core.context.SecurityContext;
 import reactor.core.publisher.Mono;
 import reactor.util.context.Context;
 
@@ -23,12 +24,15 @@ import java.util.List;
 import java.util.ListIterator;
 
 /**
- * A {@link PayloadInterceptorChain} which exposes the Reactor {@link Context} via a member variable.
- * This class is not Thread safe, so a new instance must be created for each Thread.
+ * A {@link PayloadInterceptorChain} which exposes the Reactor {@link Context} that is
+ * visible to the end of the chain. The chain is immutable, so a single instance can be
+ * created up front and shared by every exchange (and every Thread) of a connection.
  *
  * Internally {@code ContextPayloadInterceptorChain} is used to ensure that the Reactor
  * {@code Context} is captured so it can be transferred to subscribers outside of this
- * {@code Context} in {@code PayloadSocketAcceptor}.
+ * {@code Context} in {@code PayloadSocketAcceptor}. The captured {@code Context} is
+ * emitted by {@link #intercept(PayloadExchange, Context)} rather than stored on the
+ * chain.
  *
  * @author Rob Winch
  * @since 5.2
@@ -36,12 +40,17 @@ import java.util.ListIterator;
  */
 class ContextPayloadInterceptorChain implements PayloadInterceptorChain {
 
+	private static final Mono<Void> CAPTURE_CONTEXT = Mono.subscriberContext()
+			.doOnNext(c -> c.get(CapturedContext.class).context = c.delete(CapturedContext.class))
+			.then();
+
+	private static final Mono<CapturedContext> CAPTURED_CONTEXT = Mono.subscriberContext()
+			.map(c -> c.get(CapturedContext.class));
+
 	private final PayloadInterceptor currentInterceptor;
 
 	private final ContextPayloadInterceptorChain next;
 
-	private Context context;
-
 	public ContextPayloadInterceptorChain(List<PayloadInterceptor> interceptors) {
 		if (interceptors == null) {
 			throw new IllegalArgumentException("interceptors cannot be null");
@@ -68,21 +77,34 @@ class ContextPayloadInterceptorChain implements PayloadInterceptorChain {
 		this.next = next;
 	}
 
+	/**
+	 * Invokes the current interceptor when the result is subscribed to. Interceptors
+	 * create {@code chain.next(exchange)} before they have decided whether to continue
+	 * (i.e. as the fallback of {@code switchIfEmpty}), so invoking the interceptor
+	 * eagerly would run the rest of the chain once for every Mono that is created.
+	 */
 	public Mono<Void> next(PayloadExchange exchange) {
-		return Mono.defer(() ->
-				shouldIntercept() ?
-						this.currentInterceptor.intercept(exchange, this.next) :
-						Mono.subscriberContext()
-							.doOnNext(c -> this.context = c)
-							.then()
-		);
+		return shouldIntercept() ?
+				Mono.defer(() -> this.currentInterceptor.intercept(exchange, this.next)) :
+				CAPTURE_CONTEXT;
 	}
 
-	Context getContext() {
-		if (this.next == null) {
-			return this.context;
-		}
-		return this.next.getContext();
+	/**
+	 * Invokes the chain for the provided exchange and emits the Reactor {@link Context}
+	 * that was visible at the end of the chain. If a {@link SecurityContext} was set with
+	 * {@link PayloadExchangeSecurityContextHolder}, it is added to the emitted
+	 * {@link Context}. If an interceptor completes without invoking the rest of the chain
+	 * (i.e. an exchange that is permitted for everyone), the provided {@code context} is
+	 * emitted, so that the connection's {@link SecurityContext} is still available.
+	 * @param exchange the exchange to process
+	 * @param context the {@link Context} the chain is invoked with
+	 * @return the {@link Context} that was visible at the end of the chain
+	 */
+	Mono<Context> intercept(PayloadExchange exchange, Context context) {
+		return next(exchange)
+			.then(CAPTURED_CONTEXT)
+			.map(captured -> captured.getContext(exchange, context))
+			.subscriberContext(c -> c.putAll(context).put(CapturedContext.class, new CapturedContext()));
 	}
 
 	private boolean shouldIntercept() {
@@ -93,4 +115,19 @@ class ContextPayloadInterceptorChain implements PayloadInterceptorChain {
 	public String toString() {
 		return getClass().getSimpleName() + "[currentInterceptor=" + this.currentInterceptor + "]";
 	}
+
+	/**
+	 * Holds the {@link Context} captured by a single subscription to the chain.
+	 */
+	private static final class CapturedContext {
+		private Context context;
+
+		private Context getContext(PayloadExchange exchange, Context incoming) {
+			Context result = this.context == null ? incoming : this.context;
+			SecurityContext securityContext = PayloadExchangeSecurityContextHolder.getContext(exchange);
+			return securityContext == null ?
+					result :
+					result.put(SecurityContext.class, Mono.just(securityContext));
+		}
+	}
 }
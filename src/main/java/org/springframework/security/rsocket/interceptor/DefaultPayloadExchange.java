@@ -16,18 +16,31 @@
 
 package org.springframework.security.rsocket.interceptor;
 
+import io.netty.buffer.ByteBuf;
 import io.rsocket.Payload;
+import io.rsocket.metadata.CompositeMetadata;
+import io.rsocket.metadata.WellKnownMimeType;
+import org.springframework.messaging.rsocket.MetadataExtractor;
 import org.springframework.util.Assert;
 import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
- * Default implementation of {@link PayloadExchange}
+ * Default implementation of {@link PayloadExchange}. The metadata is parsed lazily and
+ * at most once, so that every {@link PayloadInterceptor} can share the result.
  *
  * @author Rob Winch
  * @since 5.2
  */
 public class DefaultPayloadExchange implements PayloadExchange {
 
+	private static final MimeType COMPOSITE_METADATA = MimeTypeUtils.parseMimeType(
+			WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA.getString());
+
 	private final PayloadExchangeType type;
 
 	private final Payload payload;
@@ -36,6 +49,14 @@ public class DefaultPayloadExchange implements PayloadExchange {
 
 	private final MimeType dataMimeType;
 
+	private Map<String, ByteBuf> metadataEntries;
+
+	private MetadataExtractor metadataExtractor;
+
+	private Map<String, Object> metadata;
+
+	private Map<String, Object> attributes;
+
 	public DefaultPayloadExchange(PayloadExchangeType type, Payload payload, MimeType metadataMimeType,
 			MimeType dataMimeType) {
 		Assert.notNull(type, "type cannot be null");
@@ -67,4 +88,51 @@ public class DefaultPayloadExchange implements PayloadExchange {
 	public MimeType getDataMimeType() {
 		return this.dataMimeType;
 	}
+
+	@Override
+	public Map<String, ByteBuf> getMetadataEntries() {
+		Map<String, ByteBuf> result = this.metadataEntries;
+		if (result == null) {
+			result = parseMetadataEntries(this.payload, this.metadataMimeType);
+			this.metadataEntries = result;
+		}
+		return result;
+	}
+
+	@Override
+	public Map<String, Object> getMetadata(MetadataExtractor metadataExtractor) {
+		Assert.notNull(metadataExtractor, "metadataExtractor cannot be null");
+		if (this.metadataExtractor != metadataExtractor) {
+			this.metadata = metadataExtractor.extract(this.payload, this.metadataMimeType);
+			this.metadataExtractor = metadataExtractor;
+		}
+		return this.metadata;
+	}
+
+	@Override
+	public Map<String, Object> getAttributes() {
+		Map<String, Object> result = this.attributes;
+		if (result == null) {
+			result = new HashMap<>(4);
+			this.attributes = result;
+		}
+		return result;
+	}
+
+	static Map<String, ByteBuf> parseMetadataEntries(Payload payload, MimeType metadataMimeType) {
+		if (!payload.hasMetadata()) {
+			return Collections.emptyMap();
+		}
+		ByteBuf metadata = payload.metadata();
+		if (!COMPOSITE_METADATA.equals(metadataMimeType)) {
+			return Collections.singletonMap(metadataMimeType.toString(), metadata);
+		}
+		Map<String, ByteBuf> result = new HashMap<>();
+		for (CompositeMetadata.Entry entry : new CompositeMetadata(metadata, false)) {
+			if (entry.getMimeType() != null) {
+				result.putIfAbsent(entry.getMimeType(), entry.getContent());
+			}
+		}
+		return result;
+	}
 }
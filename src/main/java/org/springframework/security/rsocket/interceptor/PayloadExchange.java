@@ -16,9 +16,14 @@
 
 package org.springframework.security.rsocket.interceptor;
 
+import io.netty.buffer.ByteBuf;
 import io.rsocket.Payload;
+import org.springframework.messaging.rsocket.MetadataExtractor;
 import org.springframework.util.MimeType;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * Contract for a Payload interaction.
  *
@@ -33,4 +38,44 @@ public interface PayloadExchange {
 	MimeType getDataMimeType();
 
 	MimeType getMetadataMimeType();
+
+	/**
+	 * Gets the content of each metadata entry keyed by its mime type. If the
+	 * {@link #getMetadataMimeType()} is composite metadata, there is an entry for each
+	 * composite metadata entry (the first wins if a mime type is repeated). Otherwise, the
+	 * entire metadata is keyed by {@link #getMetadataMimeType()}.
+	 *
+	 * The content is not retained, so it is only valid as long as the {@link Payload}.
+	 * The default implementation parses the metadata on every invocation.
+	 * @return the metadata entries. Never null.
+	 */
+	default Map<String, ByteBuf> getMetadataEntries() {
+		return DefaultPayloadExchange.parseMetadataEntries(getPayload(), getMetadataMimeType());
+	}
+
+	/**
+	 * Gets the metadata extracted from the {@link Payload} using the provided
+	 * {@link MetadataExtractor}. Implementations may cache the result, so callers should
+	 * not modify it. The default implementation extracts the metadata on every invocation.
+	 * @param metadataExtractor the {@link MetadataExtractor} to use
+	 * @return the extracted metadata
+	 */
+	default Map<String, Object> getMetadata(MetadataExtractor metadataExtractor) {
+		return metadataExtractor.extract(getPayload(), getMetadataMimeType());
+	}
+
+	/**
+	 * Gets a mutable map of attributes that are scoped to this exchange. The attributes
+	 * allow a {@link PayloadInterceptor} to share state (i.e. a resolved
+	 * {@link org.springframework.security.core.context.SecurityContext}) with the
+	 * {@link PayloadInterceptor}s that are invoked after it for the same exchange.
+	 * The default implementation returns an empty immutable map, in which case the
+	 * state is not shared through the exchange and attempts to modify the attributes
+	 * fail with an {@link UnsupportedOperationException}.
+	 * @return the attributes. Never null.
+	 * @see PayloadExchangeSecurityContextHolder
+	 */
+	default Map<String, Object> getAttributes() {
+		return Collections.emptyMap();
+	}
 }
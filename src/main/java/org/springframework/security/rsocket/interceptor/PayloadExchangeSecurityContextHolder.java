@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.util.Assert;
+
+/**
+ * Stores an already resolved {@link SecurityContext} in the
+ * {@link PayloadExchange#getAttributes()} of a single exchange. Unlike
+ * {@link ReactiveSecurityContextHolder}, the {@link SecurityContext} is not wrapped in a
+ * {@code Mono} and added to the Reactor {@code Context} by every interceptor, so
+ * {@link PayloadInterceptor}s can read it synchronously. The {@link SecurityContext} is
+ * added to the Reactor {@code Context} of the {@link io.rsocket.RSocket} once, after every
+ * {@link PayloadInterceptor} has been invoked.
+ *
+ * A {@link PayloadInterceptor} that reads the {@link SecurityContext} should use
+ * {@link #getContext(PayloadExchange)} and fall back to {@link ReactiveSecurityContextHolder}
+ * (i.e. for a {@link SecurityContext} that was established by the SETUP frame).
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public final class PayloadExchangeSecurityContextHolder {
+	private static final String SECURITY_CONTEXT_ATTR_NAME =
+			PayloadExchangeSecurityContextHolder.class.getName() + ".SECURITY_CONTEXT";
+
+	private PayloadExchangeSecurityContextHolder() {
+	}
+
+	/**
+	 * Gets the {@link SecurityContext} of the exchange
+	 * @param exchange the exchange
+	 * @return the {@link SecurityContext} or null if none has been set
+	 */
+	public static SecurityContext getContext(PayloadExchange exchange) {
+		return (SecurityContext) exchange.getAttributes().get(SECURITY_CONTEXT_ATTR_NAME);
+	}
+
+	/**
+	 * Sets the {@link SecurityContext} of the exchange
+	 * @param exchange the exchange
+	 * @param securityContext the {@link SecurityContext} to set. Cannot be null.
+	 * @return true if the {@link SecurityContext} was set or false if the exchange does
+	 * not support attributes
+	 */
+	public static boolean setContext(PayloadExchange exchange, SecurityContext securityContext) {
+		Assert.notNull(securityContext, "securityContext cannot be null");
+		try {
+			exchange.getAttributes().put(SECURITY_CONTEXT_ATTR_NAME, securityContext);
+			return true;
+		}
+		catch (UnsupportedOperationException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Sets a {@link SecurityContext} containing the {@link Authentication} on the exchange
+	 * @param exchange the exchange
+	 * @param authentication the {@link Authentication} to set
+	 * @return true if the {@link SecurityContext} was set or false if the exchange does
+	 * not support attributes
+	 */
+	public static boolean setAuthentication(PayloadExchange exchange, Authentication authentication) {
+		return setContext(exchange, new SecurityContextImpl(authentication));
+	}
+}
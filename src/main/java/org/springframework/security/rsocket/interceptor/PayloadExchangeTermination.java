@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor;
+
+import org.springframework.util.Assert;
+
+import java.util.Map;
+
+/**
+ * Allows a {@link PayloadInterceptor} to be notified once the response to an exchange
+ * terminates, since the {@code Mono} returned by the {@link PayloadInterceptor} completes
+ * before the {@link io.rsocket.RSocket} handles the request. The callbacks are stored in
+ * the {@link PayloadExchange#getAttributes()} and are invoked once when the response
+ * completes, fails or is cancelled, including when a later {@link PayloadInterceptor}
+ * rejects the exchange.
+ *
+ * Callbacks are only invoked for the exchanges that start a request (i.e. not for
+ * {@link PayloadExchangeType#SETUP} or {@link PayloadExchangeType#PAYLOAD}).
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public final class PayloadExchangeTermination {
+	private static final String CALLBACK_ATTR_NAME =
+			PayloadExchangeTermination.class.getName() + ".CALLBACK";
+
+	private PayloadExchangeTermination() {
+	}
+
+	/**
+	 * Registers a callback that is invoked once the response to the exchange terminates
+	 * @param exchange the exchange
+	 * @param callback the callback to invoke. Cannot be null.
+	 * @return true if the callback was registered or false if the exchange does not
+	 * support attributes, in which case the callback is never invoked
+	 */
+	public static boolean onTerminate(PayloadExchange exchange, Runnable callback) {
+		Assert.notNull(callback, "callback cannot be null");
+		Map<String, Object> attributes = exchange.getAttributes();
+		Runnable previous = (Runnable) attributes.get(CALLBACK_ATTR_NAME);
+		try {
+			attributes.put(CALLBACK_ATTR_NAME, previous == null ? callback : (Runnable) () -> {
+				try {
+					previous.run();
+				}
+				finally {
+					callback.run();
+				}
+			});
+			return true;
+		}
+		catch (UnsupportedOperationException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Invokes the registered callbacks, if any, at most once.
+	 * @param exchange the exchange that terminated
+	 */
+	static void terminate(PayloadExchange exchange) {
+		Map<String, Object> attributes = exchange.getAttributes();
+		if (!attributes.containsKey(CALLBACK_ATTR_NAME)) {
+			return;
+		}
+		Runnable callback = (Runnable) attributes.remove(CALLBACK_ATTR_NAME);
+		if (callback != null) {
+			callback.run();
+		}
+	}
+}
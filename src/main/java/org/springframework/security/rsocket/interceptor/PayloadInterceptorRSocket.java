@@ -21,12 +21,15 @@ import io.rsocket.RSocket;
 import io.rsocket.ResponderRSocket;
 import io.rsocket.util.RSocketProxy;
 import org.reactivestreams.Publisher;
+import org.springframework.util.Assert;
 import org.springframework.util.MimeType;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.concurrent.Queues;
 import reactor.util.context.Context;
 
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Combines the {@link PayloadInterceptor} with a {@link ResponderRSocket}
@@ -34,7 +37,7 @@ import java.util.List;
  * @since 5.2
  */
 class PayloadInterceptorRSocket extends RSocketProxy implements ResponderRSocket {
-	private final List<PayloadInterceptor> interceptors;
+	private final ContextPayloadInterceptorChain chain;
 
 	private final MimeType metadataMimeType;
 
@@ -42,6 +45,12 @@ class PayloadInterceptorRSocket extends RSocketProxy implements ResponderRSocket
 
 	private final Context context;
 
+	private ChannelPayloadPolicy channelPayloadPolicy = ChannelPayloadPolicy.everyPayload();
+
+	private int channelPayloadConcurrency = 1;
+
+	private int channelPayloadPrefetch = Queues.XS_BUFFER_SIZE;
+
 	public PayloadInterceptorRSocket(RSocket delegate,
 			List<PayloadInterceptor> interceptors, MimeType metadataMimeType,
 			MimeType dataMimeType) {
@@ -51,47 +60,54 @@ class PayloadInterceptorRSocket extends RSocketProxy implements ResponderRSocket
 	public PayloadInterceptorRSocket(RSocket delegate,
 			List<PayloadInterceptor> interceptors, MimeType metadataMimeType,
 			MimeType dataMimeType, Context context) {
+		this(delegate, new ContextPayloadInterceptorChain(interceptors), metadataMimeType,
+				dataMimeType, context);
+	}
+
+	PayloadInterceptorRSocket(RSocket delegate,
+			ContextPayloadInterceptorChain chain, MimeType metadataMimeType,
+			MimeType dataMimeType, Context context) {
 		super(delegate);
 		this.metadataMimeType = metadataMimeType;
 		this.dataMimeType = dataMimeType;
 		if (delegate == null) {
 			throw new IllegalArgumentException("delegate cannot be null");
 		}
-		if (interceptors == null) {
-			throw new IllegalArgumentException("interceptors cannot be null");
-		}
-		if (interceptors.isEmpty()) {
-			throw new IllegalArgumentException("interceptors cannot be empty");
-		}
-		this.interceptors = interceptors;
+		this.chain = chain;
 		this.context = context;
 	}
 
 	@Override
 	public Mono<Void> fireAndForget(Payload payload) {
-		return intercept(PayloadExchangeType.FIRE_AND_FORGET, payload)
+		DefaultPayloadExchange exchange = createExchange(PayloadExchangeType.FIRE_AND_FORGET, payload);
+		return this.chain.intercept(exchange, this.context)
 			.flatMap(context ->
 				this.source.fireAndForget(payload)
 					.subscriberContext(context)
-			);
+			)
+			.doFinally(s -> PayloadExchangeTermination.terminate(exchange));
 	}
 
 	@Override
 	public Mono<Payload> requestResponse(Payload payload) {
-		return intercept(PayloadExchangeType.REQUEST_RESPONSE, payload)
+		DefaultPayloadExchange exchange = createExchange(PayloadExchangeType.REQUEST_RESPONSE, payload);
+		return this.chain.intercept(exchange, this.context)
 			.flatMap(context ->
 				this.source.requestResponse(payload)
 					.subscriberContext(context)
-			);
+			)
+			.doFinally(s -> PayloadExchangeTermination.terminate(exchange));
 	}
 
 	@Override
 	public Flux<Payload> requestStream(Payload payload) {
-		return intercept(PayloadExchangeType.REQUEST_STREAM, payload)
+		DefaultPayloadExchange exchange = createExchange(PayloadExchangeType.REQUEST_STREAM, payload);
+		return this.chain.intercept(exchange, this.context)
 			.flatMapMany(context ->
 				this.source.requestStream(payload)
 					.subscriberContext(context)
-			);
+			)
+			.doFinally(s -> PayloadExchangeTermination.terminate(exchange));
 	}
 
 	@Override
@@ -99,42 +115,96 @@ class PayloadInterceptorRSocket extends RSocketProxy implements ResponderRSocket
 		return Flux.from(payloads)
 			.switchOnFirst((signal, innerFlux) -> {
 				Payload firstPayload = signal.get();
-				return intercept(PayloadExchangeType.REQUEST_CHANNEL, firstPayload)
+				DefaultPayloadExchange exchange = createExchange(PayloadExchangeType.REQUEST_CHANNEL, firstPayload);
+				return this.chain.intercept(exchange, this.context)
 					.flatMapMany(context ->
 						innerFlux
 							.skip(1)
-							.flatMap(p -> intercept(PayloadExchangeType.PAYLOAD, p).thenReturn(p))
+							.transform(securedPayloads -> interceptPayloads(securedPayloads, context))
 							.transform(securedPayloads -> Flux.concat(Flux.just(firstPayload), securedPayloads))
 							.transform(securedPayloads -> this.source.requestChannel(securedPayloads))
 							.subscriberContext(context)
-					);
+					)
+					.doFinally(s -> PayloadExchangeTermination.terminate(exchange));
 			});
 	}
 
 	@Override
 	public Mono<Void> metadataPush(Payload payload) {
-		return intercept(PayloadExchangeType.METADATA_PUSH, payload)
+		DefaultPayloadExchange exchange = createExchange(PayloadExchangeType.METADATA_PUSH, payload);
+		return this.chain.intercept(exchange, this.context)
 			.flatMap(c -> this.source
 					.metadataPush(payload)
 					.subscriberContext(c)
-			);
-	}
-
-	private Mono<Context> intercept(PayloadExchangeType type, Payload payload) {
-		return Mono.defer(() -> {
-			ContextPayloadInterceptorChain chain = new ContextPayloadInterceptorChain(this.interceptors);
-			DefaultPayloadExchange exchange = new DefaultPayloadExchange(type, payload,
-					this.metadataMimeType, this.dataMimeType);
-			return chain.next(exchange)
-				.then(Mono.fromCallable(() -> chain.getContext()))
-				.defaultIfEmpty(Context.empty())
-				.subscriberContext(this.context);
+			)
+			.doFinally(s -> PayloadExchangeTermination.terminate(exchange));
+	}
+
+	/**
+	 * Intercepts the payloads of a channel that follow the initial frame as determined by
+	 * the {@link ChannelPayloadPolicy}. At most {@link #channelPayloadConcurrency} payloads
+	 * are intercepted at a time and at most {@link #channelPayloadPrefetch} payloads are
+	 * requested ahead of the delegate. The payloads remain in order.
+	 *
+	 * The chain used for requests starts from the connection {@link Context}, so each
+	 * payload is authenticated again. The chain of the {@link ChannelPayloadPolicy} starts
+	 * from the {@link Context} of the initial frame, so it sees the channel's
+	 * authentication.
+	 */
+	private Flux<Payload> interceptPayloads(Flux<Payload> payloads, Context channelContext) {
+		int interval = this.channelPayloadPolicy.getInterval();
+		if (interval == 0) {
+			return payloads;
+		}
+		ContextPayloadInterceptorChain policyChain = this.channelPayloadPolicy.getChain();
+		ContextPayloadInterceptorChain chain = policyChain == null ? this.chain : policyChain;
+		Context context = policyChain == null ? this.context : this.context.putAll(channelContext);
+		if (interval == 1) {
+			return interceptEach(payloads, p -> intercept(chain, context, p).thenReturn(p));
+		}
+		return Flux.defer(() -> {
+			long[] count = new long[1];
+			return interceptEach(payloads, p -> count[0]++ % interval == 0 ?
+					intercept(chain, context, p).thenReturn(p) :
+					Mono.just(p));
 		});
 	}
 
+	private Flux<Payload> interceptEach(Flux<Payload> payloads, Function<Payload, Mono<Payload>> intercept) {
+		if (this.channelPayloadConcurrency == 1) {
+			return payloads.concatMap(intercept, this.channelPayloadPrefetch);
+		}
+		return payloads
+				.limitRate(this.channelPayloadPrefetch)
+				.flatMapSequential(intercept, this.channelPayloadConcurrency, 1);
+	}
+
+	private Mono<Context> intercept(ContextPayloadInterceptorChain chain, Context context, Payload payload) {
+		return chain.intercept(createExchange(PayloadExchangeType.PAYLOAD, payload), context);
+	}
+
+	private DefaultPayloadExchange createExchange(PayloadExchangeType type, Payload payload) {
+		return new DefaultPayloadExchange(type, payload, this.metadataMimeType, this.dataMimeType);
+	}
+
+	void setChannelPayloadPolicy(ChannelPayloadPolicy channelPayloadPolicy) {
+		Assert.notNull(channelPayloadPolicy, "channelPayloadPolicy cannot be null");
+		this.channelPayloadPolicy = channelPayloadPolicy;
+	}
+
+	void setChannelPayloadConcurrency(int channelPayloadConcurrency) {
+		Assert.isTrue(channelPayloadConcurrency > 0, "channelPayloadConcurrency must be greater than 0");
+		this.channelPayloadConcurrency = channelPayloadConcurrency;
+	}
+
+	void setChannelPayloadPrefetch(int channelPayloadPrefetch) {
+		Assert.isTrue(channelPayloadPrefetch > 0, "channelPayloadPrefetch must be greater than 0");
+		this.channelPayloadPrefetch = channelPayloadPrefetch;
+	}
+
 	@Override
 	public String toString() {
-		return getClass().getSimpleName() + "[source=" + this.source + ",interceptors="
-				+ this.interceptors + "]";
+		return getClass().getSimpleName() + "[source=" + this.source + ",chain="
+				+ this.chain + "]";
 	}
 }
@@ -27,6 +27,7 @@ import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
 import org.springframework.util.StringUtils;
 import reactor.core.publisher.Mono;
+import reactor.util.concurrent.Queues;
 import reactor.util.context.Context;
 
 import java.util.List;
@@ -38,7 +39,7 @@ import java.util.List;
 class PayloadSocketAcceptor implements SocketAcceptor {
 	private final SocketAcceptor delegate;
 
-	private final List<PayloadInterceptor> interceptors;
+	private final ContextPayloadInterceptorChain chain;
 
 	@Nullable
 	private MimeType defaultDataMimeType;
@@ -46,6 +47,12 @@ class PayloadSocketAcceptor implements SocketAcceptor {
 	private MimeType defaultMetadataMimeType =
 			MimeTypeUtils.parseMimeType(WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA.getString());
 
+	private ChannelPayloadPolicy channelPayloadPolicy = ChannelPayloadPolicy.everyPayload();
+
+	private int channelPayloadConcurrency = 1;
+
+	private int channelPayloadPrefetch = Queues.XS_BUFFER_SIZE;
+
 	public PayloadSocketAcceptor(SocketAcceptor delegate, List<PayloadInterceptor> interceptors) {
 		Assert.notNull(delegate, "delegate cannot be null");
 		if (interceptors == null) {
@@ -55,7 +62,7 @@ class PayloadSocketAcceptor implements SocketAcceptor {
 			throw new IllegalArgumentException("interceptors cannot be empty");
 		}
 		this.delegate = delegate;
-		this.interceptors = interceptors;
+		this.chain = new ContextPayloadInterceptorChain(interceptors);
 	}
 
 	@Override
@@ -69,19 +76,24 @@ class PayloadSocketAcceptor implements SocketAcceptor {
 		// FIXME do we want to make the sendingSocket available in the PayloadExchange
 		return intercept(setup, dataMimeType, metadataMimeType)
 			.flatMap(ctx -> this.delegate.accept(setup, sendingSocket)
-				.map(acceptingSocket -> new PayloadInterceptorRSocket(acceptingSocket, this.interceptors, metadataMimeType, dataMimeType, ctx))
+				.map(acceptingSocket -> createRSocket(acceptingSocket, metadataMimeType, dataMimeType, ctx))
 			);
 	}
 
+	private PayloadInterceptorRSocket createRSocket(RSocket acceptingSocket, MimeType metadataMimeType,
+			MimeType dataMimeType, Context context) {
+		PayloadInterceptorRSocket result = new PayloadInterceptorRSocket(acceptingSocket, this.chain,
+				metadataMimeType, dataMimeType, context);
+		result.setChannelPayloadPolicy(this.channelPayloadPolicy);
+		result.setChannelPayloadConcurrency(this.channelPayloadConcurrency);
+		result.setChannelPayloadPrefetch(this.channelPayloadPrefetch);
+		return result;
+	}
+
 	private Mono<Context> intercept(Payload payload, MimeType dataMimeType, MimeType metadataMimeType) {
-		return Mono.defer(() -> {
-			ContextPayloadInterceptorChain chain = new ContextPayloadInterceptorChain(this.interceptors);
-			DefaultPayloadExchange exchange = new DefaultPayloadExchange(PayloadExchangeType.SETUP, payload,
-					metadataMimeType, dataMimeType);
-			return chain.next(exchange)
-					.then(Mono.fromCallable(() -> chain.getContext()))
-					.defaultIfEmpty(Context.empty());
-		});
+		DefaultPayloadExchange exchange = new DefaultPayloadExchange(PayloadExchangeType.SETUP, payload,
+				metadataMimeType, dataMimeType);
+		return this.chain.intercept(exchange, Context.empty());
 	}
 
 	private MimeType parseMimeType(String str, MimeType defaultMimeType) {
@@ -96,4 +108,19 @@ class PayloadSocketAcceptor implements SocketAcceptor {
 		Assert.notNull(defaultMetadataMimeType, "defaultMetadataMimeType cannot be null");
 		this.defaultMetadataMimeType = defaultMetadataMimeType;
 	}
+
+	public void setChannelPayloadPolicy(ChannelPayloadPolicy channelPayloadPolicy) {
+		Assert.notNull(channelPayloadPolicy, "channelPayloadPolicy cannot be null");
+		this.channelPayloadPolicy = channelPayloadPolicy;
+	}
+
+	public void setChannelPayloadConcurrency(int channelPayloadConcurrency) {
+		Assert.isTrue(channelPayloadConcurrency > 0, "channelPayloadConcurrency must be greater than 0");
+		this.channelPayloadConcurrency = channelPayloadConcurrency;
+	}
+
+	public void setChannelPayloadPrefetch(int channelPayloadPrefetch) {
+		Assert.isTrue(channelPayloadPrefetch > 0, "channelPayloadPrefetch must be greater than 0");
+		this.channelPayloadPrefetch = channelPayloadPrefetch;
+	}
 }
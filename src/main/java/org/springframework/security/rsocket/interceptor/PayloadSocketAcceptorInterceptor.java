@@ -23,6 +23,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
+import reactor.util.concurrent.Queues;
 
 import java.util.List;
 
@@ -42,6 +43,12 @@ public class PayloadSocketAcceptorInterceptor implements SocketAcceptorIntercept
 	private MimeType defaultMetadataMimeType =
 		MimeTypeUtils.parseMimeType(WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA.getString());
 
+	private ChannelPayloadPolicy channelPayloadPolicy = ChannelPayloadPolicy.everyPayload();
+
+	private int channelPayloadConcurrency = 1;
+
+	private int channelPayloadPrefetch = Queues.XS_BUFFER_SIZE;
+
 	public PayloadSocketAcceptorInterceptor(List<PayloadInterceptor> interceptors) {
 		this.interceptors = interceptors;
 	}
@@ -52,6 +59,9 @@ public class PayloadSocketAcceptorInterceptor implements SocketAcceptorIntercept
 				socketAcceptor, this.interceptors);
 		acceptor.setDefaultDataMimeType(this.defaultDataMimeType);
 		acceptor.setDefaultMetadataMimeType(this.defaultMetadataMimeType);
+		acceptor.setChannelPayloadPolicy(this.channelPayloadPolicy);
+		acceptor.setChannelPayloadConcurrency(this.channelPayloadConcurrency);
+		acceptor.setChannelPayloadPrefetch(this.channelPayloadPrefetch);
 		return acceptor;
 	}
 
@@ -63,4 +73,38 @@ public class PayloadSocketAcceptorInterceptor implements SocketAcceptorIntercept
 		Assert.notNull(defaultMetadataMimeType, "defaultMetadataMimeType cannot be null");
 		this.defaultMetadataMimeType = defaultMetadataMimeType;
 	}
+
+	/**
+	 * Sets how the payloads of a request channel are intercepted after the initial frame.
+	 * The default is {@link ChannelPayloadPolicy#everyPayload()}.
+	 * @param channelPayloadPolicy the policy to use. Cannot be null.
+	 */
+	public void setChannelPayloadPolicy(ChannelPayloadPolicy channelPayloadPolicy) {
+		Assert.notNull(channelPayloadPolicy, "channelPayloadPolicy cannot be null");
+		this.channelPayloadPolicy = channelPayloadPolicy;
+	}
+
+	/**
+	 * Sets the maximum number of payloads of a request channel that are intercepted at the
+	 * same time. Payloads are passed to the {@link io.rsocket.RSocket} in the order they
+	 * were received regardless of the concurrency. The default is 1.
+	 * @param channelPayloadConcurrency the maximum number of payloads intercepted at the
+	 * same time. Must be greater than 0.
+	 */
+	public void setChannelPayloadConcurrency(int channelPayloadConcurrency) {
+		Assert.isTrue(channelPayloadConcurrency > 0, "channelPayloadConcurrency must be greater than 0");
+		this.channelPayloadConcurrency = channelPayloadConcurrency;
+	}
+
+	/**
+	 * Sets the maximum number of payloads of a request channel that are requested from the
+	 * requester before the {@link io.rsocket.RSocket} requests them. This bounds the
+	 * payloads buffered for a slow consumer. The default is 32.
+	 * @param channelPayloadPrefetch the number of payloads to request ahead. Must be
+	 * greater than 0.
+	 */
+	public void setChannelPayloadPrefetch(int channelPayloadPrefetch) {
+		Assert.isTrue(channelPayloadPrefetch > 0, "channelPayloadPrefetch must be greater than 0");
+		this.channelPayloadPrefetch = channelPayloadPrefetch;
+	}
 }
@@ -17,19 +17,25 @@
 package org.springframework.security.rsocket.interceptor.authentication;
 
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
 import org.springframework.util.Assert;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
 import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeSecurityContextHolder;
 import org.springframework.security.rsocket.interceptor.PayloadInterceptor;
 
 import java.util.List;
 
 /**
- * If {@link ReactiveSecurityContextHolder} is empty populates an
+ * If neither {@link PayloadExchangeSecurityContextHolder} nor
+ * {@link ReactiveSecurityContextHolder} contain a {@code SecurityContext} populates an
  * {@code AnonymousAuthenticationToken}
  *
  * @author Rob Winch
@@ -37,10 +43,13 @@ import java.util.List;
  */
 public class AnonymousPayloadInterceptor implements PayloadInterceptor {
 
-	private String key;
-	private Object principal;
-	private List<GrantedAuthority> authorities;
+	private final Authentication anonymousAuthentication;
 
+	private final Mono<SecurityContext> anonymousSecurityContextMono;
+
+	private final Context anonymousContext;
+
+	private boolean exchangeSecurityContext;
 
 	/**
 	 * Creates a filter with a principal named "anonymousUser" and the single authority
@@ -62,22 +71,57 @@ public class AnonymousPayloadInterceptor implements PayloadInterceptor {
 		Assert.hasLength(key, "key cannot be null or empty");
 		Assert.notNull(principal, "Anonymous authentication principal must be set");
 		Assert.notNull(authorities, "Anonymous authorities must be set");
-		this.key = key;
-		this.principal = principal;
-		this.authorities = authorities;
+		// the token is the same for every exchange, so it is created once and shared. Each
+		// exchange gets its own SecurityContext, since a SecurityContext is mutable.
+		this.anonymousAuthentication = new AnonymousAuthenticationToken(key, principal, authorities);
+		this.anonymousSecurityContextMono = Mono.fromSupplier(this::createSecurityContext);
+		this.anonymousContext = ReactiveSecurityContextHolder.withSecurityContext(
+				this.anonymousSecurityContextMono);
 	}
 
 
+	/**
+	 * If true, the {@code AnonymousAuthenticationToken} is stored with
+	 * {@link PayloadExchangeSecurityContextHolder} rather than added to the Reactor
+	 * {@code Context} of the remaining interceptors. If the exchange does not support
+	 * attributes, it is added to the Reactor {@code Context}. The default is false.
+	 * @param exchangeSecurityContext true to store the result on the exchange
+	 * @see AuthenticationPayloadInterceptor#setExchangeSecurityContext(boolean)
+	 */
+	public void setExchangeSecurityContext(boolean exchangeSecurityContext) {
+		this.exchangeSecurityContext = exchangeSecurityContext;
+	}
+
 	@Override
 	public Mono<Void> intercept(PayloadExchange exchange, PayloadInterceptorChain chain) {
-		return ReactiveSecurityContextHolder.getContext()
-				.switchIfEmpty(Mono.defer(() -> {
-					AnonymousAuthenticationToken authentication = new AnonymousAuthenticationToken(
-							this.key, this.principal, this.authorities);
-					return chain.next(exchange)
-							.subscriberContext(ReactiveSecurityContextHolder.withAuthentication(authentication))
-							.then(Mono.empty());
-				}))
-				.flatMap(securityContext -> chain.next(exchange));
+		return Mono.subscriberContext()
+				.flatMap(context -> {
+					if (PayloadExchangeSecurityContextHolder.getContext(exchange) != null) {
+						return chain.next(exchange);
+					}
+					if (!context.hasKey(SecurityContext.class)) {
+						return onAnonymous(exchange, chain);
+					}
+					Mono<SecurityContext> securityContext = context.<Mono<SecurityContext>>get(SecurityContext.class);
+					if (securityContext == this.anonymousSecurityContextMono) {
+						// i.e. the connection was established anonymously by this interceptor
+						return chain.next(exchange);
+					}
+					return securityContext.hasElement()
+							.flatMap(present -> present ? chain.next(exchange) : onAnonymous(exchange, chain));
+				});
+	}
+
+	private Mono<Void> onAnonymous(PayloadExchange exchange, PayloadInterceptorChain chain) {
+		if (this.exchangeSecurityContext
+				&& PayloadExchangeSecurityContextHolder.setContext(exchange, createSecurityContext())) {
+			return chain.next(exchange);
+		}
+		return chain.next(exchange)
+				.subscriberContext(this.anonymousContext);
+	}
+
+	private SecurityContext createSecurityContext() {
+		return new SecurityContextImpl(this.anonymousAuthentication);
 	}
 }
@@ -16,19 +16,41 @@
 
 package org.springframework.security.rsocket.interceptor.authentication;
 
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.rsocket.exceptions.RejectedException;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeSecurityContextHolder;
 import org.springframework.security.rsocket.interceptor.PayloadInterceptor;
 import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
 import org.springframework.util.Assert;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Uses the provided {@code ReactiveAuthenticationManager} to authenticate a Payload. If
  * authentication is successful, then the result is added to
- * {@link ReactiveSecurityContextHolder}.
+ * {@link ReactiveSecurityContextHolder}. A converted {@link Authentication} that is
+ * {@link io.netty.util.ReferenceCounted} is released once authentication completes.
+ *
+ * By default, authentication runs on the thread that received the Payload, which is
+ * typically a Netty event loop. Blocking or CPU heavy authentication can run on a
+ * different {@link Scheduler} (i.e. an {@link AuthenticationScheduler}) instead, in which
+ * case the remaining interceptors are published on the event loop that received the
+ * Payload again. The event loop is looked up in the
+ * {@link #setEventLoopGroup(EventExecutorGroup) event loop group} once per thread. A
+ * {@link ByteBufBearerTokenAuthenticationToken} is copied and released before it is
+ * handed to the {@link Scheduler}, so the {@link Scheduler} never accesses the metadata
+ * of the Payload.
  *
  * @author Rob Winch
  * @since 5.2
@@ -40,6 +62,12 @@ public class AuthenticationPayloadInterceptor implements PayloadInterceptor {
 	private PayloadExchangeAuthenticationConverter authenticationConverter =
 			new BasicAuthenticationPayloadExchangeConverter();
 
+	private boolean exchangeSecurityContext;
+
+	private Scheduler authenticationScheduler;
+
+	private ThreadLocal<Scheduler> eventLoop = ThreadLocal.withInitial(Schedulers::immediate);
+
 	/**
 	 * Creates a new instance
 	 * @param authenticationManager the manager to use. Cannot be null
@@ -59,15 +87,114 @@ public class AuthenticationPayloadInterceptor implements PayloadInterceptor {
 		this.authenticationConverter = authenticationConverter;
 	}
 
+	/**
+	 * If true, the {@link Authentication} is stored with
+	 * {@link PayloadExchangeSecurityContextHolder} rather than added to the Reactor
+	 * {@code Context} of the remaining interceptors. This avoids wrapping the result for
+	 * every exchange, but interceptors that are invoked after this one must read it with
+	 * {@link PayloadExchangeSecurityContextHolder}. If the exchange does not support
+	 * attributes, the result is added to the Reactor {@code Context}. The default is
+	 * false.
+	 * @param exchangeSecurityContext true to store the result on the exchange
+	 */
+	public void setExchangeSecurityContext(boolean exchangeSecurityContext) {
+		this.exchangeSecurityContext = exchangeSecurityContext;
+	}
+
+	/**
+	 * Sets the {@link Scheduler} to authenticate on (i.e.
+	 * {@link AuthenticationScheduler#getScheduler()}). Once authentication completes, the
+	 * remaining interceptors are published on the event loop of the
+	 * {@link #setEventLoopGroup(EventExecutorGroup) event loop group} that received the
+	 * Payload. If the Payload was not received on one of those event loops, they are
+	 * invoked on the {@link Scheduler}. If the {@link Scheduler} rejects authentication, the
+	 * request fails with a {@link RejectedException}, which RSocket sends as a retryable
+	 * {@code REJECTED} error. The default is null, which authenticates on the thread that
+	 * received the Payload.
+	 * @param authenticationScheduler the {@link Scheduler} to use or null
+	 */
+	public void setAuthenticationScheduler(Scheduler authenticationScheduler) {
+		this.authenticationScheduler = authenticationScheduler;
+	}
+
+	/**
+	 * Sets the Netty event loops that receive Payloads (i.e. the event loop group of the
+	 * RSocket server), so that the remaining interceptors can be invoked on the
+	 * receiving event loop after authenticating on the
+	 * {@link #setAuthenticationScheduler(Scheduler) authentication scheduler}. A
+	 * {@link Scheduler} is created once for each event loop, and the event loop of a
+	 * thread is only looked up the first time the thread receives a Payload. The default
+	 * is null, which continues on the authentication scheduler.
+	 * @param eventLoopGroup the {@link EventExecutorGroup} to use or null
+	 */
+	public void setEventLoopGroup(EventExecutorGroup eventLoopGroup) {
+		Map<EventExecutor, Scheduler> eventLoops = new IdentityHashMap<>();
+		if (eventLoopGroup != null) {
+			for (EventExecutor eventLoop : eventLoopGroup) {
+				eventLoops.put(eventLoop, Schedulers.fromExecutor(eventLoop));
+			}
+		}
+		this.eventLoop = ThreadLocal.withInitial(() -> currentEventLoop(eventLoops));
+	}
+
 	public Mono<Void> intercept(PayloadExchange exchange, PayloadInterceptorChain chain) {
 		return this.authenticationConverter.convert(exchange)
 			.switchIfEmpty(chain.next(exchange).then(Mono.empty()))
-			.flatMap(a -> this.authenticationManager.authenticate(a))
-			.flatMap(a -> onAuthenticationSuccess(chain.next(exchange), a));
+			.flatMap(this::authenticate)
+			.flatMap(a -> onAuthenticationSuccess(exchange, chain, a));
+	}
+
+	private Mono<Authentication> authenticate(Authentication authentication) {
+		Scheduler scheduler = this.authenticationScheduler;
+		if (scheduler == null) {
+			return this.authenticationManager.authenticate(authentication)
+					.doFinally(s -> ReferenceCountUtil.release(authentication));
+		}
+		Authentication detached = detach(authentication);
+		return Mono.defer(() -> this.authenticationManager.authenticate(detached))
+				.subscribeOn(scheduler)
+				.doFinally(s -> {
+					if (detached == authentication) {
+						ReferenceCountUtil.release(authentication);
+					}
+				})
+				.onErrorMap(RejectedExecutionException.class, e -> new RejectedException("Authentication is overloaded"))
+				.publishOn(this.eventLoop.get());
+	}
+
+	/**
+	 * Copies a {@link ByteBufBearerTokenAuthenticationToken} and releases the original,
+	 * so that the result can be used on a different thread.
+	 */
+	private static Authentication detach(Authentication authentication) {
+		if (!(authentication instanceof ByteBufBearerTokenAuthenticationToken)) {
+			return authentication;
+		}
+		ByteBufBearerTokenAuthenticationToken token = (ByteBufBearerTokenAuthenticationToken) authentication;
+		try {
+			return token.copy();
+		}
+		finally {
+			token.release();
+		}
+	}
+
+	private static Scheduler currentEventLoop(Map<EventExecutor, Scheduler> eventLoops) {
+		for (Map.Entry<EventExecutor, Scheduler> eventLoop : eventLoops.entrySet()) {
+			if (eventLoop.getKey().inEventLoop()) {
+				return eventLoop.getValue();
+			}
+		}
+		return Schedulers.immediate();
 	}
 
-	private Mono<Void> onAuthenticationSuccess(Mono<Void> payload, Authentication authentication) {
-		return payload
+	private Mono<Void> onAuthenticationSuccess(PayloadExchange exchange, PayloadInterceptorChain chain,
+			Authentication authentication) {
+		if (this.exchangeSecurityContext
+				&& PayloadExchangeSecurityContextHolder.setAuthentication(exchange, authentication)) {
+			return chain.next(exchange);
+		}
+		return chain.next(exchange)
 				.subscriberContext(ReactiveSecurityContextHolder.withAuthentication(authentication));
 	}
 
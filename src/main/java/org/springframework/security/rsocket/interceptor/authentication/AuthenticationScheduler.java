@@ -0,0 +1,282 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.authentication;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool that {@link AuthenticationPayloadInterceptor} can authenticate on, so
+ * that blocking or CPU heavy authentication (i.e. BCrypt or verifying RSA signatures) does
+ * not run on the Netty event loop. The pool is one of
+ *
+ * <ul>
+ * <li>{@link #boundedElastic(int, int)} - threads are created on demand up to a maximum
+ * and are removed once idle</li>
+ * <li>{@link #fixed(int, int)} - a fixed number of threads, typically the number of
+ * CPUs for CPU bound work</li>
+ * <li>{@link #virtualThreads(int)} - a virtual thread per task if the JVM supports it,
+ * otherwise a bounded elastic pool</li>
+ * </ul>
+ *
+ * At most {@link #getMaxPendingTasks()} tasks are queued or running. Additional tasks are
+ * rejected, which {@link AuthenticationPayloadInterceptor} reports as a retryable
+ * {@code REJECTED} error. When the pool becomes saturated, an
+ * {@link AuthenticationSchedulerSaturatedEvent} containing the queue depth is published.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public final class AuthenticationScheduler implements Disposable {
+	private static final String THREAD_NAME_PREFIX = "rsocket-authentication-";
+
+	private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = newVirtualThreadPerTaskExecutorMethod();
+
+	private final ExecutorService executor;
+
+	private final int maxPendingTasks;
+
+	private final AtomicInteger pendingTasks = new AtomicInteger();
+
+	private final LongAdder rejectedCount = new LongAdder();
+
+	private final AtomicBoolean saturated = new AtomicBoolean();
+
+	private final Scheduler scheduler;
+
+	private ApplicationEventPublisher eventPublisher;
+
+	private AuthenticationScheduler(ExecutorService executor, int maxPendingTasks) {
+		Assert.isTrue(maxPendingTasks > 0, "maxPendingTasks must be greater than 0");
+		this.executor = executor;
+		this.maxPendingTasks = maxPendingTasks;
+		this.scheduler = Schedulers.fromExecutorService(new BoundedExecutorService(), "rsocket-authentication");
+	}
+
+	/**
+	 * Creates threads on demand up to {@code maxThreads}. Threads are removed once they
+	 * have been idle for 60 seconds.
+	 * @param maxThreads the maximum number of threads. Must be greater than 0.
+	 * @param maxPendingTasks the maximum number of tasks that are queued or running. Must
+	 * be greater than 0.
+	 * @return the {@link AuthenticationScheduler}
+	 */
+	public static AuthenticationScheduler boundedElastic(int maxThreads, int maxPendingTasks) {
+		ThreadPoolExecutor executor = threadPool(maxThreads);
+		executor.allowCoreThreadTimeOut(true);
+		return new AuthenticationScheduler(executor, maxPendingTasks);
+	}
+
+	/**
+	 * Uses a fixed number of threads. For CPU bound work (i.e. BCrypt), use
+	 * {@code Runtime.getRuntime().availableProcessors()} threads.
+	 * @param threads the number of threads. Must be greater than 0.
+	 * @param maxPendingTasks the maximum number of tasks that are queued or running. Must
+	 * be greater than 0.
+	 * @return the {@link AuthenticationScheduler}
+	 */
+	public static AuthenticationScheduler fixed(int threads, int maxPendingTasks) {
+		return new AuthenticationScheduler(threadPool(threads), maxPendingTasks);
+	}
+
+	/**
+	 * Starts a virtual thread for every task if {@link #isVirtualThreadsSupported()}.
+	 * Otherwise, falls back to {@link #boundedElastic(int, int)} with ten threads per
+	 * CPU.
+	 * @param maxPendingTasks the maximum number of tasks that are running. Must be
+	 * greater than 0.
+	 * @return the {@link AuthenticationScheduler}
+	 */
+	public static AuthenticationScheduler virtualThreads(int maxPendingTasks) {
+		if (!isVirtualThreadsSupported()) {
+			return boundedElastic(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE, maxPendingTasks);
+		}
+		try {
+			return new AuthenticationScheduler((ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null),
+					maxPendingTasks);
+		}
+		catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Unable to create a virtual thread executor", e);
+		}
+	}
+
+	/**
+	 * Determines if the JVM supports virtual threads.
+	 * @return true if {@link #virtualThreads(int)} uses virtual threads
+	 */
+	public static boolean isVirtualThreadsSupported() {
+		return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+	}
+
+	/**
+	 * Sets the {@link ApplicationEventPublisher} used to publish
+	 * {@link AuthenticationSchedulerSaturatedEvent}. The default is to not publish events.
+	 * @param eventPublisher the {@link ApplicationEventPublisher} to use
+	 */
+	public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+		this.eventPublisher = eventPublisher;
+	}
+
+	/**
+	 * The {@link Scheduler} that runs tasks on this pool.
+	 * @return the {@link Scheduler}
+	 */
+	public Scheduler getScheduler() {
+		return this.scheduler;
+	}
+
+	/**
+	 * The number of tasks that are queued or running.
+	 * @return the number of pending tasks
+	 */
+	public int getPendingTasks() {
+		return this.pendingTasks.get();
+	}
+
+	/**
+	 * The maximum number of tasks that are queued or running before tasks are rejected.
+	 * @return the maximum number of pending tasks
+	 */
+	public int getMaxPendingTasks() {
+		return this.maxPendingTasks;
+	}
+
+	/**
+	 * The number of tasks that were rejected because the pool was saturated.
+	 * @return the rejected count
+	 */
+	public long getRejectedCount() {
+		return this.rejectedCount.sum();
+	}
+
+	@Override
+	public void dispose() {
+		this.scheduler.dispose();
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return this.scheduler.isDisposed();
+	}
+
+	private void execute(Runnable task) {
+		int pending = this.pendingTasks.incrementAndGet();
+		if (pending > this.maxPendingTasks) {
+			this.pendingTasks.decrementAndGet();
+			reject(pending - 1);
+		}
+		// an event is published once per saturation, which ends once half the capacity is free
+		if (pending <= this.maxPendingTasks / 2) {
+			this.saturated.set(false);
+		}
+		try {
+			this.executor.execute(() -> {
+				try {
+					task.run();
+				}
+				finally {
+					this.pendingTasks.decrementAndGet();
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			this.pendingTasks.decrementAndGet();
+			throw e;
+		}
+	}
+
+	private void reject(int pending) {
+		this.rejectedCount.increment();
+		ApplicationEventPublisher eventPublisher = this.eventPublisher;
+		if (eventPublisher != null && this.saturated.compareAndSet(false, true)) {
+			eventPublisher.publishEvent(new AuthenticationSchedulerSaturatedEvent(this, pending));
+		}
+		throw new RejectedExecutionException("Authentication has " + pending + " pending tasks");
+	}
+
+	private static ThreadPoolExecutor threadPool(int threads) {
+		Assert.isTrue(threads > 0, "threads must be greater than 0");
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(THREAD_NAME_PREFIX);
+		threadFactory.setDaemon(true);
+		// the queue is bounded by maxPendingTasks
+		return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				threadFactory);
+	}
+
+	private static Method newVirtualThreadPerTaskExecutorMethod() {
+		try {
+			Method method = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			// preview releases throw UnsupportedOperationException unless preview features are enabled
+			((ExecutorService) method.invoke(null)).shutdown();
+			return method;
+		}
+		catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Counts the pending tasks of the underlying {@link ExecutorService}.
+	 */
+	private final class BoundedExecutorService extends AbstractExecutorService {
+		@Override
+		public void execute(Runnable command) {
+			AuthenticationScheduler.this.execute(command);
+		}
+
+		@Override
+		public void shutdown() {
+			AuthenticationScheduler.this.executor.shutdown();
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			return AuthenticationScheduler.this.executor.shutdownNow();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return AuthenticationScheduler.this.executor.isShutdown();
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return AuthenticationScheduler.this.executor.isTerminated();
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			return AuthenticationScheduler.this.executor.awaitTermination(timeout, unit);
+		}
+	}
+}
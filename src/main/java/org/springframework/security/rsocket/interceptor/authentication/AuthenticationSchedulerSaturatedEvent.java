@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.authentication;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when an {@link AuthenticationScheduler} becomes saturated and starts
+ * rejecting authentication. It is published once per saturation, which ends when at most
+ * half of {@link #getMaxPendingTasks()} are pending.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public class AuthenticationSchedulerSaturatedEvent extends ApplicationEvent {
+	private final int pendingTasks;
+
+	private final int maxPendingTasks;
+
+	private final long rejectedCount;
+
+	/**
+	 * Creates a new instance
+	 * @param scheduler the {@link AuthenticationScheduler} that is saturated
+	 * @param pendingTasks the number of tasks that were queued or running
+	 */
+	public AuthenticationSchedulerSaturatedEvent(AuthenticationScheduler scheduler, int pendingTasks) {
+		super(scheduler);
+		this.pendingTasks = pendingTasks;
+		this.maxPendingTasks = scheduler.getMaxPendingTasks();
+		this.rejectedCount = scheduler.getRejectedCount();
+	}
+
+	/**
+	 * The {@link AuthenticationScheduler} that is saturated.
+	 * @return the {@link AuthenticationScheduler}
+	 */
+	public AuthenticationScheduler getScheduler() {
+		return (AuthenticationScheduler) getSource();
+	}
+
+	/**
+	 * The number of tasks that were queued or running when a task was rejected.
+	 * @return the queue depth
+	 */
+	public int getPendingTasks() {
+		return this.pendingTasks;
+	}
+
+	/**
+	 * The maximum number of tasks that can be queued or running.
+	 * @return the maximum number of pending tasks
+	 */
+	public int getMaxPendingTasks() {
+		return this.maxPendingTasks;
+	}
+
+	/**
+	 * The total number of tasks that were rejected by the {@link AuthenticationScheduler}.
+	 * @return the rejected count
+	 */
+	public long getRejectedCount() {
+		return this.rejectedCount;
+	}
+}
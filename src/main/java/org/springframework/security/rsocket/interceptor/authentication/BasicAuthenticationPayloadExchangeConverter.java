@@ -16,45 +16,43 @@
 
 package org.springframework.security.rsocket.interceptor.authentication;
 
-import io.rsocket.metadata.WellKnownMimeType;
-import org.springframework.messaging.rsocket.DefaultMetadataExtractor;
-import org.springframework.messaging.rsocket.MetadataExtractor;
+import io.netty.buffer.ByteBuf;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.rsocket.interceptor.PayloadExchange;
-import org.springframework.security.rsocket.metadata.BasicAuthenticationDecoder;
+import org.springframework.security.rsocket.metadata.BasicAuthenticationByteBufDecoder;
 import org.springframework.security.rsocket.metadata.UsernamePasswordMetadata;
-import org.springframework.util.MimeType;
-import org.springframework.util.MimeTypeUtils;
 import reactor.core.publisher.Mono;
 
 /**
  * Converts from the {@link PayloadExchange} to a
  * {@link UsernamePasswordAuthenticationToken} by extracting
  * {@link UsernamePasswordMetadata#BASIC_AUTHENTICATION_MIME_TYPE} from the metadata.
+ * The metadata is decoded directly from the {@link ByteBuf} using
+ * {@link BasicAuthenticationByteBufDecoder}. Malformed metadata results in a
+ * {@link BadCredentialsException}.
  *
  * @author Rob Winch
  * @since 5.2
  */
 public class BasicAuthenticationPayloadExchangeConverter implements PayloadExchangeAuthenticationConverter {
 
-	private MimeType metadataMimetype = MimeTypeUtils.parseMimeType(
-			WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA.getString());
-
-	private MetadataExtractor metadataExtractor = createDefaultExtractor();
+	private static final String BASIC_MIME_TYPE_VALUE =
+			UsernamePasswordMetadata.BASIC_AUTHENTICATION_MIME_TYPE.toString();
 
 	@Override
 	public Mono<Authentication> convert(PayloadExchange exchange) {
-		return Mono.fromCallable(() -> this.metadataExtractor
-				.extract(exchange.getPayload(), this.metadataMimetype))
-				.flatMap(metadata -> Mono.justOrEmpty(metadata.get(UsernamePasswordMetadata.BASIC_AUTHENTICATION_MIME_TYPE.toString())))
-				.cast(UsernamePasswordMetadata.class)
-				.map(credentials -> new UsernamePasswordAuthenticationToken(credentials.getUsername(), credentials.getPassword()));
-	}
-
-	private static MetadataExtractor createDefaultExtractor() {
-		DefaultMetadataExtractor result = new DefaultMetadataExtractor(new BasicAuthenticationDecoder());
-		result.metadataToExtract(UsernamePasswordMetadata.BASIC_AUTHENTICATION_MIME_TYPE, UsernamePasswordMetadata.class, (String) null);
-		return result;
+		ByteBuf content = exchange.getMetadataEntries().get(BASIC_MIME_TYPE_VALUE);
+		if (content == null) {
+			return Mono.empty();
+		}
+		try {
+			UsernamePasswordMetadata credentials = BasicAuthenticationByteBufDecoder.decode(content);
+			return Mono.just(new UsernamePasswordAuthenticationToken(credentials.getUsername(), credentials.getPassword()));
+		}
+		catch (IllegalArgumentException e) {
+			return Mono.error(new BadCredentialsException("Invalid basic authentication metadata", e));
+		}
 	}
 }
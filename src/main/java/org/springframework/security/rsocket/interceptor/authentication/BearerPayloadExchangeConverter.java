@@ -17,19 +17,19 @@
 package org.springframework.security.rsocket.interceptor.authentication;
 
 import io.netty.buffer.ByteBuf;
-import io.rsocket.metadata.CompositeMetadata;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.server.resource.BearerTokenAuthenticationToken;
 import org.springframework.security.rsocket.interceptor.PayloadExchange;
 import org.springframework.security.rsocket.metadata.BearerTokenMetadata;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
-
 /**
  * Converts from the {@link PayloadExchange} to a
  *  {@link BearerTokenAuthenticationToken} by extracting
  *  {@link BearerTokenMetadata#BEARER_AUTHENTICATION_MIME_TYPE} from the metadata.
+ *  The token is a {@link ByteBufBearerTokenAuthenticationToken}, so it is only decoded if
+ *  it is needed. The token retains the metadata, so it is only created once the result is
+ *  requested and the subscriber is responsible for releasing it.
  *  @author Rob Winch
  * @since 5.2
  */
@@ -40,15 +40,10 @@ public class BearerPayloadExchangeConverter implements PayloadExchangeAuthentica
 
 	@Override
 	public Mono<Authentication> convert(PayloadExchange exchange) {
-		ByteBuf metadata = exchange.getPayload().metadata();
-		CompositeMetadata compositeMetadata = new CompositeMetadata(metadata, false);
-		for (CompositeMetadata.Entry entry : compositeMetadata) {
-			if (BEARER_MIME_TYPE_VALUE.equals(entry.getMimeType())) {
-				ByteBuf content = entry.getContent();
-				String token = content.toString(StandardCharsets.UTF_8);
-				return Mono.just(new BearerTokenAuthenticationToken(token));
-			}
+		ByteBuf content = exchange.getMetadataEntries().get(BEARER_MIME_TYPE_VALUE);
+		if (content == null) {
+			return Mono.empty();
 		}
-		return Mono.empty();
+		return Mono.fromSupplier(() -> new ByteBufBearerTokenAuthenticationToken(content));
 	}
 }
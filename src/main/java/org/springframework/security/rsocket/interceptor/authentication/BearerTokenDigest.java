@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.authentication;
+
+import org.springframework.security.oauth2.server.resource.BearerTokenAuthenticationToken;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Computes a SHA-256 digest of a {@link BearerTokenAuthenticationToken} that can be used
+ * as a key for the token. The digest of a {@link ByteBufBearerTokenAuthenticationToken}
+ * is computed from its bytes, so the token is not decoded.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+final class BearerTokenDigest {
+	private static final String ALGORITHM = "SHA-256";
+
+	private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(
+			BearerTokenDigest::createDigest);
+
+	static String digest(BearerTokenAuthenticationToken token) {
+		MessageDigest digest = DIGEST.get();
+		if (token instanceof ByteBufBearerTokenAuthenticationToken) {
+			((ByteBufBearerTokenAuthenticationToken) token).updateDigest(digest);
+		}
+		else {
+			digest.update(token.getToken().getBytes(StandardCharsets.UTF_8));
+		}
+		return Base64.getEncoder().encodeToString(digest.digest());
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance(ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Unable to create " + ALGORITHM, e);
+		}
+	}
+
+	private BearerTokenDigest() {}
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.authentication;
+
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Adapts a {@link ReactiveUserDetailsService} that blocks (i.e. one that wraps JDBC) by
+ * looking up users on the provided {@link Scheduler} (i.e.
+ * {@link AuthenticationScheduler#virtualThreads(int)}), so that the lookup does not block
+ * the Netty event loop.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public class BlockingReactiveUserDetailsService implements ReactiveUserDetailsService {
+	private final ReactiveUserDetailsService delegate;
+
+	private final Scheduler scheduler;
+
+	/**
+	 * Creates a new instance
+	 * @param delegate the {@link ReactiveUserDetailsService} that blocks. Cannot be null.
+	 * @param scheduler the {@link Scheduler} to look up users on. Cannot be null.
+	 */
+	public BlockingReactiveUserDetailsService(ReactiveUserDetailsService delegate, Scheduler scheduler) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		Assert.notNull(scheduler, "scheduler cannot be null");
+		this.delegate = delegate;
+		this.scheduler = scheduler;
+	}
+
+	@Override
+	public Mono<UserDetails> findByUsername(String username) {
+		return Mono.defer(() -> this.delegate.findByUsername(username))
+				.subscribeOn(this.scheduler);
+	}
+}
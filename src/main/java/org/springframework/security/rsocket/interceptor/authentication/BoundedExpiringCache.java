@@ -0,0 +1,158 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.authentication;
+
+import org.springframework.util.Assert;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * A cache with a maximum size whose entries expire. Reads do not lock, while writes are
+ * serialized so that the cache never holds more than the maximum size. Once the maximum
+ * size is reached, the entry that was put first is evicted.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+final class BoundedExpiringCache<K, V> {
+	private final int maxSize;
+
+	private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * The same entries as {@link #entries} in the order they were put. Guarded by itself.
+	 */
+	private final LinkedHashMap<K, Entry<V>> order = new LinkedHashMap<>();
+
+	BoundedExpiringCache(int maxSize) {
+		Assert.isTrue(maxSize > 0, "maxSize must be greater than 0");
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Gets the value for the key, removing it if it is expired.
+	 * @param key the key
+	 * @param now the current time
+	 * @return the value or null if there is no value or it is expired
+	 */
+	V get(K key, Instant now) {
+		Entry<V> entry = this.entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.expires.isAfter(now)) {
+			return entry.value;
+		}
+		removeEntry(key, entry);
+		return null;
+	}
+
+	/**
+	 * Puts the value, replacing an existing value for the key and evicting the eldest
+	 * entry if the maximum size is exceeded.
+	 * @param key the key
+	 * @param value the value
+	 * @param expires when the value expires
+	 */
+	void put(K key, V value, Instant expires) {
+		Entry<V> entry = new Entry<>(value, expires);
+		synchronized (this.order) {
+			this.order.remove(key);
+			this.order.put(key, entry);
+			this.entries.put(key, entry);
+			Iterator<Map.Entry<K, Entry<V>>> eldest = this.order.entrySet().iterator();
+			while (this.order.size() > this.maxSize) {
+				Map.Entry<K, Entry<V>> evicted = eldest.next();
+				eldest.remove();
+				this.entries.remove(evicted.getKey());
+			}
+		}
+	}
+
+	/**
+	 * Removes the key only if it is mapped to the value.
+	 * @param key the key
+	 * @param value the value
+	 */
+	void remove(K key, V value) {
+		synchronized (this.order) {
+			Entry<V> entry = this.order.get(key);
+			if (entry != null && entry.value == value) {
+				removeEntry(key, entry);
+			}
+		}
+	}
+
+	/**
+	 * Removes every value that matches the predicate.
+	 * @param predicate the predicate
+	 */
+	void removeIf(Predicate<V> predicate) {
+		synchronized (this.order) {
+			Iterator<Map.Entry<K, Entry<V>>> entries = this.order.entrySet().iterator();
+			while (entries.hasNext()) {
+				Map.Entry<K, Entry<V>> entry = entries.next();
+				if (predicate.test(entry.getValue().value)) {
+					entries.remove();
+					this.entries.remove(entry.getKey());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes every value.
+	 */
+	void clear() {
+		synchronized (this.order) {
+			this.order.clear();
+			this.entries.clear();
+		}
+	}
+
+	/**
+	 * The number of entries, including expired entries that have not been removed yet.
+	 * @return the size
+	 */
+	int size() {
+		return this.entries.size();
+	}
+
+	private void removeEntry(K key, Entry<V> entry) {
+		synchronized (this.order) {
+			if (this.order.remove(key, entry)) {
+				this.entries.remove(key);
+			}
+		}
+	}
+
+	private static final class Entry<V> {
+		private final V value;
+
+		private final Instant expires;
+
+		private Entry(V value, Instant expires) {
+			this.value = value;
+			this.expires = expires;
+		}
+	}
+}
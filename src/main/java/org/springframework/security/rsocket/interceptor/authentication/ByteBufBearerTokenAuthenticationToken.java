@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.authentication;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCounted;
+import org.springframework.security.oauth2.server.resource.BearerTokenAuthenticationToken;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * A {@link BearerTokenAuthenticationToken} that is backed by a retained slice of the
+ * metadata that contains the token. The token is only decoded into a {@link String} when
+ * {@link #getToken()} is invoked, so that hashing, equality and digests (i.e. for cache
+ * lookups) can be performed directly on the bytes.
+ *
+ * The retained slice must be released once the token is no longer needed (i.e. when
+ * authentication completes). A token that was decoded before it was released can still
+ * be used.
+ *
+ * The bytes of the token are not serialized. Instead, the token is serialized as a
+ * {@link BearerTokenAuthenticationToken} that contains the decoded token, so it must not
+ * be serialized after it is released unless it was decoded before.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public class ByteBufBearerTokenAuthenticationToken extends BearerTokenAuthenticationToken
+		implements ReferenceCounted {
+	// BearerTokenAuthenticationToken requires text, but the token is provided by getToken()
+	private static final String DEFERRED_TOKEN = "deferred";
+
+	private final transient ByteBuf content;
+
+	private volatile String token;
+
+	private int hash;
+
+	/**
+	 * Creates a new instance
+	 * @param content the bytes of the token. A retained slice of the readable bytes is
+	 * used, so the caller keeps ownership of {@code content}. Cannot be null or empty.
+	 */
+	public ByteBufBearerTokenAuthenticationToken(ByteBuf content) {
+		super(DEFERRED_TOKEN);
+		Assert.notNull(content, "content cannot be null");
+		Assert.isTrue(content.isReadable(), "token cannot be empty");
+		this.content = content.retainedSlice();
+	}
+
+	/**
+	 * Gets the bytes of the token without decoding them. The returned buffer must not be
+	 * modified or released.
+	 * @return the bytes of the token
+	 */
+	public ByteBuf getContent() {
+		return this.content;
+	}
+
+	/**
+	 * Creates a copy of this token that is backed by an unpooled heap buffer, so that the
+	 * copy can be used after this token is released and does not need to be released
+	 * itself (i.e. when the token is authenticated on a different thread).
+	 * @return the copy
+	 */
+	public ByteBufBearerTokenAuthenticationToken copy() {
+		ByteBuf copy = Unpooled.copiedBuffer(this.content);
+		try {
+			ByteBufBearerTokenAuthenticationToken result = new ByteBufBearerTokenAuthenticationToken(copy);
+			result.token = this.token;
+			return result;
+		}
+		finally {
+			copy.release();
+		}
+	}
+
+	/**
+	 * Updates the provided {@link MessageDigest} with the bytes of the token without
+	 * decoding or copying them.
+	 * @param digest the digest to update
+	 */
+	public void updateDigest(MessageDigest digest) {
+		digest.update(this.content.nioBuffer());
+	}
+
+	@Override
+	public String getToken() {
+		String result = this.token;
+		if (result == null) {
+			result = this.content.toString(StandardCharsets.UTF_8);
+			this.token = result;
+		}
+		return result;
+	}
+
+	@Override
+	public int refCnt() {
+		return this.content.refCnt();
+	}
+
+	@Override
+	public ByteBufBearerTokenAuthenticationToken retain() {
+		this.content.retain();
+		return this;
+	}
+
+	@Override
+	public ByteBufBearerTokenAuthenticationToken retain(int increment) {
+		this.content.retain(increment);
+		return this;
+	}
+
+	@Override
+	public ByteBufBearerTokenAuthenticationToken touch() {
+		this.content.touch();
+		return this;
+	}
+
+	@Override
+	public ByteBufBearerTokenAuthenticationToken touch(Object hint) {
+		this.content.touch(hint);
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		return this.content.release();
+	}
+
+	@Override
+	public boolean release(int decrement) {
+		return this.content.release(decrement);
+	}
+
+	/**
+	 * Serializes the decoded token, since the bytes of the token cannot be serialized.
+	 * @return the {@link BearerTokenAuthenticationToken} to serialize
+	 */
+	private Object writeReplace() {
+		BearerTokenAuthenticationToken result = new BearerTokenAuthenticationToken(getToken());
+		result.setDetails(getDetails());
+		result.setAuthenticated(isAuthenticated());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ByteBufBearerTokenAuthenticationToken)) {
+			return false;
+		}
+		ByteBufBearerTokenAuthenticationToken that = (ByteBufBearerTokenAuthenticationToken) obj;
+		return isAuthenticated() == that.isAuthenticated()
+				&& ByteBufUtil.equals(this.content, that.content);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = this.hash;
+		if (result == 0) {
+			result = ByteBufUtil.hashCode(this.content);
+			this.hash = result;
+		}
+		return result;
+	}
+}
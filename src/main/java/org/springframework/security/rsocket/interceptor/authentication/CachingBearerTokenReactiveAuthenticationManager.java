@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.authentication;
+
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.AbstractOAuth2Token;
+import org.springframework.security.oauth2.server.resource.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.AbstractOAuth2TokenAuthenticationToken;
+import org.springframework.security.rsocket.interceptor.metrics.PayloadSecurityMetrics;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ReactiveAuthenticationManager} that caches the result of authenticating a
+ * {@link BearerTokenAuthenticationToken} (i.e. with a {@code JwtReactiveAuthenticationManager}),
+ * so that a token that is sent repeatedly is only decoded, verified and converted once.
+ *
+ * The cache is keyed by a SHA-256 digest of the token. The digest of a
+ * {@link ByteBufBearerTokenAuthenticationToken} is computed from its bytes, so the token
+ * is never decoded when the result is cached. An entry expires at the token's
+ * expiration (the {@code exp} claim) or after the configured maximum time to live,
+ * whichever is first. The oldest entries are evicted once the maximum size is reached.
+ * Failed authentication attempts are not cached.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public class CachingBearerTokenReactiveAuthenticationManager implements ReactiveAuthenticationManager {
+	private final ReactiveAuthenticationManager delegate;
+
+	private final Duration maxTimeToLive;
+
+	private final BoundedExpiringCache<String, Authentication> cache;
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private Clock clock = Clock.systemUTC();
+
+	private PayloadSecurityMetrics metrics;
+
+	/**
+	 * Creates a new instance
+	 * @param delegate the {@link ReactiveAuthenticationManager} to authenticate with when
+	 * there is no cached result. Cannot be null.
+	 * @param maxTimeToLive the maximum time a result is cached, even if the token expires
+	 * later. Must be positive.
+	 * @param maxSize the maximum number of cached tokens. Must be greater than 0.
+	 */
+	public CachingBearerTokenReactiveAuthenticationManager(ReactiveAuthenticationManager delegate,
+			Duration maxTimeToLive, int maxSize) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		Assert.notNull(maxTimeToLive, "maxTimeToLive cannot be null");
+		Assert.isTrue(!maxTimeToLive.isNegative() && !maxTimeToLive.isZero(), "maxTimeToLive must be positive");
+		Assert.isTrue(maxSize > 0, "maxSize must be greater than 0");
+		this.delegate = delegate;
+		this.maxTimeToLive = maxTimeToLive;
+		this.cache = new BoundedExpiringCache<>(maxSize);
+	}
+
+	@Override
+	public Mono<Authentication> authenticate(Authentication authentication) {
+		if (!(authentication instanceof BearerTokenAuthenticationToken)) {
+			return this.delegate.authenticate(authentication);
+		}
+		String key = BearerTokenDigest.digest((BearerTokenAuthenticationToken) authentication);
+		Authentication cached = this.cache.get(key, this.clock.instant());
+		if (cached != null) {
+			this.hitCount.increment();
+			record(true);
+			return Mono.just(cached);
+		}
+		this.missCount.increment();
+		record(false);
+		return this.delegate.authenticate(authentication)
+				.doOnNext(result -> put(key, result));
+	}
+
+	/**
+	 * The number of authentications that used a cached result.
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * The number of authentications that were performed by the delegate.
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * The ratio of authentications that used a cached result.
+	 * @return the hit ratio between 0 and 1, or 0 if nothing has been authenticated
+	 */
+	public double getHitRatio() {
+		long hits = getHitCount();
+		long total = hits + getMissCount();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * Removes all cached authentications.
+	 */
+	public void invalidateAll() {
+		this.cache.clear();
+	}
+
+	/**
+	 * Sets the {@link PayloadSecurityMetrics} that each lookup is reported to. The
+	 * default is to not report lookups.
+	 * @param metrics the {@link PayloadSecurityMetrics} or null
+	 * @see PayloadSecurityMetrics#recordAuthenticationCache(ReactiveAuthenticationManager, boolean)
+	 */
+	public void setMetrics(PayloadSecurityMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Sets the {@link Clock} used to determine if an entry is expired. The default is
+	 * {@link Clock#systemUTC()}.
+	 * @param clock the clock to use. Cannot be null.
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	private void put(String key, Authentication authentication) {
+		Instant now = this.clock.instant();
+		Instant expires = now.plus(this.maxTimeToLive);
+		if (authentication instanceof AbstractOAuth2TokenAuthenticationToken) {
+			AbstractOAuth2Token token = ((AbstractOAuth2TokenAuthenticationToken<?>) authentication).getToken();
+			if (token.getExpiresAt() != null && token.getExpiresAt().isBefore(expires)) {
+				expires = token.getExpiresAt();
+			}
+		}
+		if (!expires.isAfter(now)) {
+			return;
+		}
+		this.cache.put(key, authentication, expires);
+	}
+
+	private void record(boolean hit) {
+		if (this.metrics != null) {
+			this.metrics.recordAuthenticationCache(this, hit);
+		}
+	}
+}
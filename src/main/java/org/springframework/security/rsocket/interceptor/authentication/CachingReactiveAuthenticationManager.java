@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.authentication;
+
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link ReactiveAuthenticationManager} that caches successful username and password
+ * authentications so that repeated credentials (i.e. Basic Authentication metadata sent on
+ * every request) do not need to be verified by the delegate (i.e. a BCrypt check) each
+ * time.
+ *
+ * The cache is keyed by an HMAC-SHA256 of the username and password using a random key
+ * that is generated for each instance, so the credentials are never stored. Entries expire
+ * after the configured time to live and the oldest entries are evicted once the maximum
+ * size is reached. Failed authentication attempts are not cached. When a user is changed,
+ * {@link #invalidate(String)} must be invoked so that the old credentials are no longer
+ * accepted.
+ *
+ * Only {@link UsernamePasswordAuthenticationToken} with a {@code String} credential is
+ * cached, all other {@link Authentication} types are passed to the delegate.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public class CachingReactiveAuthenticationManager implements ReactiveAuthenticationManager {
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private final ReactiveAuthenticationManager delegate;
+
+	private final Duration timeToLive;
+
+	private final BoundedExpiringCache<String, CachedAuthentication> cache;
+
+	private final AtomicLong generation = new AtomicLong();
+
+	private final ThreadLocal<Mac> mac;
+
+	private Clock clock = Clock.systemUTC();
+
+	/**
+	 * Creates a new instance
+	 * @param delegate the {@link ReactiveAuthenticationManager} to authenticate with when
+	 * there is no cached result. Cannot be null.
+	 * @param timeToLive how long a successful authentication is cached. Must be positive.
+	 * @param maxSize the maximum number of cached authentications. Must be greater than 0.
+	 */
+	public CachingReactiveAuthenticationManager(ReactiveAuthenticationManager delegate,
+			Duration timeToLive, int maxSize) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		Assert.notNull(timeToLive, "timeToLive cannot be null");
+		Assert.isTrue(!timeToLive.isNegative() && !timeToLive.isZero(), "timeToLive must be positive");
+		Assert.isTrue(maxSize > 0, "maxSize must be greater than 0");
+		this.delegate = delegate;
+		this.timeToLive = timeToLive;
+		this.cache = new BoundedExpiringCache<>(maxSize);
+		byte[] secret = new byte[32];
+		new SecureRandom().nextBytes(secret);
+		SecretKeySpec key = new SecretKeySpec(secret, ALGORITHM);
+		this.mac = ThreadLocal.withInitial(() -> createMac(key));
+	}
+
+	@Override
+	public Mono<Authentication> authenticate(Authentication authentication) {
+		if (!(authentication instanceof UsernamePasswordAuthenticationToken) ||
+				authentication.getName() == null ||
+				!(authentication.getCredentials() instanceof String)) {
+			return this.delegate.authenticate(authentication);
+		}
+		String username = authentication.getName();
+		String key = key(username, (String) authentication.getCredentials());
+		CachedAuthentication cached = this.cache.get(key, this.clock.instant());
+		if (cached != null) {
+			return Mono.just(cached.authentication);
+		}
+		long generation = this.generation.get();
+		return this.delegate.authenticate(authentication)
+				.doOnNext(result -> put(key, generation, new CachedAuthentication(username, result)));
+	}
+
+	/**
+	 * Removes the cached authentications for the provided username. This must be invoked
+	 * when the user is changed (i.e. the password is updated or the user is disabled).
+	 * @param username the username to invalidate
+	 */
+	public void invalidate(String username) {
+		this.generation.incrementAndGet();
+		this.cache.removeIf(cached -> cached.username.equals(username));
+	}
+
+	/**
+	 * Removes all cached authentications.
+	 */
+	public void invalidateAll() {
+		this.generation.incrementAndGet();
+		this.cache.clear();
+	}
+
+	/**
+	 * Sets the {@link Clock} used to determine if an entry is expired. The default is
+	 * {@link Clock#systemUTC()}.
+	 * @param clock the clock to use. Cannot be null.
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	private void put(String key, long generation, CachedAuthentication cached) {
+		if (this.generation.get() != generation) {
+			return;
+		}
+		this.cache.put(key, cached, this.clock.instant().plus(this.timeToLive));
+		if (this.generation.get() != generation) {
+			this.cache.remove(key, cached);
+		}
+	}
+
+	private String key(String username, String password) {
+		Mac mac = this.mac.get();
+		byte[] name = username.getBytes(StandardCharsets.UTF_8);
+		mac.update(ByteBuffer.allocate(4).putInt(name.length).array());
+		mac.update(name);
+		mac.update(password.getBytes(StandardCharsets.UTF_8));
+		return Base64.getEncoder().encodeToString(mac.doFinal());
+	}
+
+	private static Mac createMac(SecretKeySpec key) {
+		try {
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(key);
+			return mac;
+		}
+		catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to create " + ALGORITHM, e);
+		}
+	}
+
+	private static final class CachedAuthentication {
+		private final String username;
+
+		private final Authentication authentication;
+
+		private CachedAuthentication(String username, Authentication authentication) {
+			this.username = username;
+			this.authentication = authentication;
+		}
+	}
+}
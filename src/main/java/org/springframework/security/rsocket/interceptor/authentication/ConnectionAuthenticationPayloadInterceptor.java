@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.authentication;
+
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeSecurityContextHolder;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcher;
+import org.springframework.security.rsocket.util.PayloadExchangeMatchers;
+import org.springframework.security.rsocket.util.SyncPayloadExchangeMatcher;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Binds the {@link SecurityContext} that is established by the SETUP frame to the
+ * connection. Once bound, the delegate (i.e. an {@link AuthenticationPayloadInterceptor})
+ * is skipped for every request on the connection unless the request re-authenticates,
+ * as determined by {@link #setReauthenticationMatcher(PayloadExchangeMatcher)}. By default
+ * a request that contains Basic or Bearer authentication metadata is re-authenticated,
+ * so credentials sent with a request are never silently ignored. A re-authentication
+ * only applies to the request that carries it.
+ *
+ * If an expiration is configured, the bound {@link SecurityContext} is removed once it
+ * expires and each request is authenticated by the delegate again.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public class ConnectionAuthenticationPayloadInterceptor implements PayloadInterceptor {
+	private final PayloadInterceptor delegate;
+
+	private PayloadExchangeMatcher reauthenticationMatcher = PayloadExchangeMatchers.authenticationMetadata();
+
+	private Duration expiration;
+
+	private Clock clock = Clock.systemUTC();
+
+	/**
+	 * Creates a new instance
+	 * @param delegate the {@link PayloadInterceptor} that authenticates. Cannot be null.
+	 */
+	public ConnectionAuthenticationPayloadInterceptor(PayloadInterceptor delegate) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		this.delegate = delegate;
+	}
+
+	/**
+	 * Determines which requests re-authenticate with the delegate even though the
+	 * connection is authenticated. The default is
+	 * {@link PayloadExchangeMatchers#authenticationMetadata()}, which re-authenticates
+	 * requests that contain Basic or Bearer authentication metadata. Invalid credentials
+	 * are therefore rejected rather than running as the connection's principal.
+	 * @param reauthenticationMatcher the matcher to use. Cannot be null.
+	 */
+	public void setReauthenticationMatcher(PayloadExchangeMatcher reauthenticationMatcher) {
+		Assert.notNull(reauthenticationMatcher, "reauthenticationMatcher cannot be null");
+		this.reauthenticationMatcher = reauthenticationMatcher;
+	}
+
+	/**
+	 * Sets how long the connection remains authenticated after the SETUP frame. The
+	 * default is null, which means the connection authentication does not expire.
+	 * @param expiration the expiration or null
+	 */
+	public void setExpiration(Duration expiration) {
+		Assert.isTrue(expiration == null || (!expiration.isNegative() && !expiration.isZero()),
+				"expiration must be positive");
+		this.expiration = expiration;
+	}
+
+	/**
+	 * Sets the {@link Clock} used to determine if the connection authentication is
+	 * expired. The default is {@link Clock#systemUTC()}.
+	 * @param clock the clock to use. Cannot be null.
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock cannot be null");
+		this.clock = clock;
+	}
+
+	@Override
+	public Mono<Void> intercept(PayloadExchange exchange, PayloadInterceptorChain chain) {
+		if (exchange.getType() == PayloadExchangeType.SETUP) {
+			return this.delegate.intercept(exchange, e -> Mono.subscriberContext()
+					.flatMap(context -> isAuthenticatedSetup(e, context) ?
+							chain.next(e).subscriberContext(c -> c.put(ConnectionAuthentication.class, createConnectionAuthentication())) :
+							chain.next(e)));
+		}
+		return Mono.subscriberContext()
+				.flatMap(context -> {
+					ConnectionAuthentication connection = context.getOrDefault(ConnectionAuthentication.class, null);
+					if (connection == null) {
+						return this.delegate.intercept(exchange, chain);
+					}
+					if (connection.isExpired(this.clock.instant())) {
+						return this.delegate.intercept(exchange, chain)
+								.subscriberContext(c -> c.delete(SecurityContext.class).delete(ConnectionAuthentication.class));
+					}
+					if (this.reauthenticationMatcher instanceof SyncPayloadExchangeMatcher) {
+						SyncPayloadExchangeMatcher matcher = (SyncPayloadExchangeMatcher) this.reauthenticationMatcher;
+						return matcher.matchesSync(exchange).isMatch() ?
+								this.delegate.intercept(exchange, chain) :
+								chain.next(exchange);
+					}
+					return this.reauthenticationMatcher.matches(exchange)
+							.flatMap(result -> result.isMatch() ?
+									this.delegate.intercept(exchange, chain) :
+									chain.next(exchange));
+				});
+	}
+
+	/**
+	 * The SETUP frame is authenticated if a {@link SecurityContext} was established by
+	 * this interceptor or one that was invoked before it.
+	 */
+	private static boolean isAuthenticatedSetup(PayloadExchange exchange, Context context) {
+		boolean authenticated = PayloadExchangeSecurityContextHolder.getContext(exchange) != null
+				|| context.hasKey(SecurityContext.class);
+		return authenticated && !context.hasKey(ConnectionAuthentication.class);
+	}
+
+	private ConnectionAuthentication createConnectionAuthentication() {
+		Instant expires = this.expiration == null ? null : this.clock.instant().plus(this.expiration);
+		return new ConnectionAuthentication(expires);
+	}
+
+	private static final class ConnectionAuthentication {
+		private final Instant expires;
+
+		private ConnectionAuthentication(Instant expires) {
+			this.expires = expires;
+		}
+
+		private boolean isExpired(Instant now) {
+			return this.expires != null && !this.expires.isAfter(now);
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.authentication;
+
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.BearerTokenAuthenticationToken;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.context.Context;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ReactiveAuthenticationManager} that coalesces concurrent authentications of the
+ * same {@link BearerTokenAuthenticationToken} (i.e. with a
+ * {@code JwtReactiveAuthenticationManager}) into a single authentication by the delegate
+ * (single-flight). Every concurrent caller receives the same result or error. Once the
+ * authentication completes the token is authenticated again on the next request, so this
+ * is typically combined with {@link CachingBearerTokenReactiveAuthenticationManager},
+ * which avoids authenticating a token again.
+ *
+ * Authentications are coalesced by a SHA-256 digest of the token, which is computed from
+ * the bytes of a {@link ByteBufBearerTokenAuthenticationToken} without decoding it. The
+ * shared authentication is subscribed to with an empty Reactor {@code Context}, so that
+ * it does not depend on which caller happened to arrive first.
+ *
+ * The delegate can be subscribed to on a {@link Scheduler} (i.e. a bounded
+ * {@code Schedulers.newBoundedElastic(...)}), so that decoding and verifying signatures
+ * does not run on the Netty event loop. The remaining {@code PayloadInterceptor}s then
+ * continue on that {@link Scheduler}.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public class SingleFlightBearerTokenReactiveAuthenticationManager implements ReactiveAuthenticationManager {
+	private final ReactiveAuthenticationManager delegate;
+
+	private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+	private final LongAdder coalescedCount = new LongAdder();
+
+	private Scheduler scheduler;
+
+	/**
+	 * Creates a new instance
+	 * @param delegate the {@link ReactiveAuthenticationManager} to authenticate with. Cannot
+	 * be null.
+	 */
+	public SingleFlightBearerTokenReactiveAuthenticationManager(ReactiveAuthenticationManager delegate) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		this.delegate = delegate;
+	}
+
+	/**
+	 * Sets the {@link Scheduler} the delegate is subscribed on. The default is null, which
+	 * means the delegate is subscribed on the calling thread.
+	 * @param scheduler the {@link Scheduler} to use or null
+	 */
+	public void setScheduler(Scheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	@Override
+	public Mono<Authentication> authenticate(Authentication authentication) {
+		if (!(authentication instanceof BearerTokenAuthenticationToken)) {
+			return authenticateWithDelegate(authentication);
+		}
+		return Mono.defer(() -> {
+			String key = BearerTokenDigest.digest((BearerTokenAuthenticationToken) authentication);
+			InFlight current = this.inFlight.get(key);
+			if (current == null) {
+				InFlight created = new InFlight(key, authentication);
+				current = this.inFlight.putIfAbsent(key, created);
+				if (current == null) {
+					return created.result;
+				}
+			}
+			this.coalescedCount.increment();
+			return current.result;
+		});
+	}
+
+	/**
+	 * The number of authentications that joined an authentication that was already in
+	 * flight instead of invoking the delegate.
+	 * @return the coalesced count
+	 */
+	public long getCoalescedCount() {
+		return this.coalescedCount.sum();
+	}
+
+	private Mono<Authentication> authenticateWithDelegate(Authentication authentication) {
+		Mono<Authentication> result = this.delegate.authenticate(authentication);
+		return this.scheduler == null ? result : result.subscribeOn(this.scheduler);
+	}
+
+	private final class InFlight {
+		private final Mono<Authentication> result;
+
+		private InFlight(String key, Authentication authentication) {
+			this.result = authenticateWithDelegate(authentication)
+					.doFinally(s -> SingleFlightBearerTokenReactiveAuthenticationManager.this.inFlight.remove(key, this))
+					.subscriberContext(c -> Context.empty())
+					.cache();
+		}
+	}
+}
@@ -18,12 +18,14 @@ package org.springframework.security.rsocket.interceptor.authorization;
 
 import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.util.Assert;
 import reactor.core.publisher.Mono;
 import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
 import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeSecurityContextHolder;
 import org.springframework.security.rsocket.interceptor.PayloadInterceptor;
 
 /**
@@ -43,11 +45,23 @@ public class AuthorizationPayloadInterceptor implements PayloadInterceptor {
 
 	@Override
 	public Mono<Void> intercept(PayloadExchange exchange, PayloadInterceptorChain chain) {
-		return ReactiveSecurityContextHolder.getContext()
-				.filter(c -> c.getAuthentication() != null)
-				.map(SecurityContext::getAuthentication)
+		return Mono.defer(() -> getAuthentication(exchange))
 				.switchIfEmpty(Mono.error(() -> new AuthenticationCredentialsNotFoundException("An Authentication (possibly AnonymousAuthenticationToken) is required.")))
 				.as(authentication -> this.authorizationManager.verify(authentication, exchange))
 				.then(chain.next(exchange));
 	}
+
+	/**
+	 * Reads the {@link SecurityContext} of the exchange synchronously, falling back to the
+	 * {@link ReactiveSecurityContextHolder}.
+	 */
+	private static Mono<Authentication> getAuthentication(PayloadExchange exchange) {
+		SecurityContext securityContext = PayloadExchangeSecurityContextHolder.getContext(exchange);
+		if (securityContext != null) {
+			return Mono.justOrEmpty(securityContext.getAuthentication());
+		}
+		return ReactiveSecurityContextHolder.getContext()
+				.filter(c -> c.getAuthentication() != null)
+				.map(SecurityContext::getAuthentication);
+	}
 }
@@ -23,40 +23,132 @@ import org.springframework.util.Assert;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.metrics.PayloadSecurityMetrics;
 import org.springframework.security.rsocket.util.PayloadExchangeAuthorizationContext;
 import org.springframework.security.rsocket.util.PayloadExchangeMatcher;
 import org.springframework.security.rsocket.util.PayloadExchangeMatcherEntry;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcherIndex;
+import org.springframework.security.rsocket.util.SyncPayloadExchangeMatcher;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Maps a @{code List} of {@link PayloadExchangeMatcher} instances to
- * @{code ReactiveAuthorizationManager} instances.
+ * @{code ReactiveAuthorizationManager} instances. The mappings are indexed by route using
+ * {@link PayloadExchangeMatcherIndex}, so only the mappings that may match the route of
+ * the exchange are evaluated. The first matching mapping (in the order they were added)
+ * is used. {@link SyncPayloadExchangeMatcher}s are evaluated in a loop, the reactive
+ * {@link PayloadExchangeMatcher#matches(PayloadExchange)} is only used once a matcher that
+ * is not synchronous is reached.
+ *
+ * If {@link PayloadSecurityMetrics} are provided, each decision is recorded with the
+ * {@link PayloadExchangeMatcher} that matched, or {@code null} if access was denied
+ * because no mapping matched.
+ *
+ * If the matcher is exposed, the {@link PayloadExchangeMatcher} of the mapping that made
+ * the decision is stored in the exchange attributes and can be obtained with
+ * {@link #getMatcher(PayloadExchange)} by {@code PayloadInterceptor}s that are invoked
+ * after authorization.
  *
  * @author Rob Winch
  * @since 5.2
  */
 public class PayloadExchangeMatcherReactiveAuthorizationManager implements ReactiveAuthorizationManager<PayloadExchange> {
-	private final List<PayloadExchangeMatcherEntry<ReactiveAuthorizationManager<PayloadExchangeAuthorizationContext>>> mappings;
+	private static final Mono<AuthorizationDecision> DENY = Mono.just(new AuthorizationDecision(false));
+
+	private static final String MATCHER_ATTR_NAME =
+			PayloadExchangeMatcherReactiveAuthorizationManager.class.getName() + ".MATCHER";
+
+	private final PayloadExchangeMatcherIndex<ReactiveAuthorizationManager<PayloadExchangeAuthorizationContext>> mappings;
 
-	private PayloadExchangeMatcherReactiveAuthorizationManager(List<PayloadExchangeMatcherEntry<ReactiveAuthorizationManager<PayloadExchangeAuthorizationContext>>> mappings) {
+	private final PayloadSecurityMetrics metrics;
+
+	private final boolean exposeMatcher;
+
+	private PayloadExchangeMatcherReactiveAuthorizationManager(List<PayloadExchangeMatcherEntry<ReactiveAuthorizationManager<PayloadExchangeAuthorizationContext>>> mappings,
+			PayloadSecurityMetrics metrics, boolean exposeMatcher) {
 		Assert.notEmpty(mappings, "mappings cannot be null");
-		this.mappings = mappings;
+		this.mappings = PayloadExchangeMatcherIndex.of(mappings);
+		this.metrics = metrics;
+		this.exposeMatcher = exposeMatcher;
+	}
+
+	/**
+	 * Gets the {@link PayloadExchangeMatcher} of the mapping that authorized the exchange
+	 * @param exchange the exchange
+	 * @return the {@link PayloadExchangeMatcher} or null if the matcher is not exposed or no
+	 * mapping matched
+	 */
+	public static PayloadExchangeMatcher getMatcher(PayloadExchange exchange) {
+		return (PayloadExchangeMatcher) exchange.getAttributes().get(MATCHER_ATTR_NAME);
+	}
+
+	static void setMatcher(PayloadExchange exchange, PayloadExchangeMatcher matcher) {
+		try {
+			exchange.getAttributes().put(MATCHER_ATTR_NAME, matcher);
+		}
+		catch (UnsupportedOperationException e) {
+			// the exchange does not support attributes, so the matcher is not exposed
+		}
 	}
 
 	@Override
 	public Mono<AuthorizationDecision> check(Mono<Authentication> authentication, PayloadExchange exchange) {
-		return Flux.fromIterable(this.mappings)
+		return Mono.defer(() -> check(authentication, exchange, this.mappings.getCandidates(exchange)));
+	}
+
+	private Mono<AuthorizationDecision> check(Mono<Authentication> authentication, PayloadExchange exchange,
+			List<PayloadExchangeMatcherEntry<ReactiveAuthorizationManager<PayloadExchangeAuthorizationContext>>> candidates) {
+		for (int i = 0; i < candidates.size(); i++) {
+			PayloadExchangeMatcherEntry<ReactiveAuthorizationManager<PayloadExchangeAuthorizationContext>> mapping = candidates.get(i);
+			PayloadExchangeMatcher matcher = mapping.getMatcher();
+			if (!(matcher instanceof SyncPayloadExchangeMatcher)) {
+				return checkReactive(authentication, exchange, candidates.subList(i, candidates.size()));
+			}
+			PayloadExchangeMatcher.MatchResult result = ((SyncPayloadExchangeMatcher) matcher).matchesSync(exchange);
+			if (result.isMatch()) {
+				List<PayloadExchangeMatcherEntry<ReactiveAuthorizationManager<PayloadExchangeAuthorizationContext>>> remaining =
+						candidates.subList(i + 1, candidates.size());
+				return check(authentication, exchange, mapping, result.getVariables())
+						.switchIfEmpty(Mono.defer(() -> check(authentication, exchange, remaining)));
+			}
+		}
+		return deny(exchange);
+	}
+
+	private Mono<AuthorizationDecision> checkReactive(Mono<Authentication> authentication, PayloadExchange exchange,
+			List<PayloadExchangeMatcherEntry<ReactiveAuthorizationManager<PayloadExchangeAuthorizationContext>>> candidates) {
+		return Flux.fromIterable(candidates)
 				.concatMap(mapping -> mapping.getMatcher().matches(exchange)
 						.filter(PayloadExchangeMatcher.MatchResult::isMatch)
 						.map(r -> r.getVariables())
-						.flatMap(variables -> mapping.getEntry()
-								.check(authentication, new PayloadExchangeAuthorizationContext(exchange, variables))
-						)
+						.flatMap(variables -> check(authentication, exchange, mapping, variables))
 				)
 				.next()
-				.switchIfEmpty(Mono.fromCallable(() -> new AuthorizationDecision(false)));
+				.switchIfEmpty(Mono.defer(() -> deny(exchange)));
+	}
+
+	private Mono<AuthorizationDecision> check(Mono<Authentication> authentication, PayloadExchange exchange,
+			PayloadExchangeMatcherEntry<ReactiveAuthorizationManager<PayloadExchangeAuthorizationContext>> mapping,
+			Map<String, Object> variables) {
+		if (this.exposeMatcher) {
+			setMatcher(exchange, mapping.getMatcher());
+		}
+		Mono<AuthorizationDecision> decision = mapping.getEntry()
+				.check(authentication, new PayloadExchangeAuthorizationContext(exchange, variables));
+		if (this.metrics == null) {
+			return decision;
+		}
+		return decision.doOnNext(d -> this.metrics.recordAuthorization(exchange.getType(), mapping.getMatcher(), d.isGranted()));
+	}
+
+	private Mono<AuthorizationDecision> deny(PayloadExchange exchange) {
+		if (this.metrics != null) {
+			this.metrics.recordAuthorization(exchange.getType(), null, false);
+		}
+		return DENY;
 	}
 
 	public static PayloadExchangeMatcherReactiveAuthorizationManager.Builder builder() {
@@ -66,6 +158,10 @@ public class PayloadExchangeMatcherReactiveAuthorizationManager implements React
 	public static class Builder {
 		private final List<PayloadExchangeMatcherEntry<ReactiveAuthorizationManager<PayloadExchangeAuthorizationContext>>> mappings = new ArrayList<>();
 
+		private PayloadSecurityMetrics metrics;
+
+		private boolean exposeMatcher;
+
 		private Builder() {
 		}
 
@@ -75,8 +171,32 @@ public class PayloadExchangeMatcherReactiveAuthorizationManager implements React
 			return this;
 		}
 
+		/**
+		 * Records every authorization decision with the provided
+		 * {@link PayloadSecurityMetrics}. The default is to not record decisions.
+		 * @param metrics the {@link PayloadSecurityMetrics} to use or null
+		 * @return the {@link Builder} for additional customizations
+		 */
+		public PayloadExchangeMatcherReactiveAuthorizationManager.Builder metrics(PayloadSecurityMetrics metrics) {
+			this.metrics = metrics;
+			return this;
+		}
+
+		/**
+		 * If true, the {@link PayloadExchangeMatcher} of the mapping that made the decision
+		 * is stored in the exchange attributes.
+		 * @param exposeMatcher true to expose the matcher. The default is false.
+		 * @return the {@link Builder} for additional customizations
+		 * @see #getMatcher(PayloadExchange)
+		 */
+		public PayloadExchangeMatcherReactiveAuthorizationManager.Builder exposeMatcher(boolean exposeMatcher) {
+			this.exposeMatcher = exposeMatcher;
+			return this;
+		}
+
 		public PayloadExchangeMatcherReactiveAuthorizationManager build() {
-			return new PayloadExchangeMatcherReactiveAuthorizationManager(this.mappings);
+			return new PayloadExchangeMatcherReactiveAuthorizationManager(this.mappings, this.metrics,
+					this.exposeMatcher);
 		}
 	}
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.authorization;
+
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
+import org.springframework.security.rsocket.interceptor.metrics.PayloadSecurityMetrics;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcher;
+import org.springframework.security.rsocket.util.PayloadExchangeMatchers;
+import org.springframework.security.rsocket.util.SyncPayloadExchangeMatcher;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Allows {@link PayloadExchange}s that are permitted for everyone to skip the remaining
+ * {@link PayloadInterceptor}s. If any of the {@link PayloadExchangeMatcher}s match, the
+ * exchange is passed to the delegate {@code RSocket} without authenticating it or
+ * populating a {@code SecurityContext}. Otherwise the chain is invoked as usual.
+ * {@link PayloadExchangeType#SETUP} exchanges are always passed to the chain since they
+ * establish the connection. Exchanges that contain Basic or Bearer authentication
+ * metadata are also passed to the chain, so that invalid credentials are still rejected
+ * and valid credentials are still available to the handler.
+ *
+ * A {@link #setPermittedInterceptor(PayloadInterceptor) permitted interceptor} can be
+ * provided that is still applied to the permitted exchanges, such as a
+ * {@code ConcurrencyLimitPayloadInterceptor}. The matcher that permitted the exchange is
+ * available to it from
+ * {@link PayloadExchangeMatcherReactiveAuthorizationManager#getMatcher(PayloadExchange)}.
+ *
+ * This interceptor should be placed first and only be provided matchers for exchanges
+ * that no other authorization rule applies to.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public class PermitAllPayloadInterceptor implements PayloadInterceptor {
+	private static final SyncPayloadExchangeMatcher AUTHENTICATION_METADATA =
+			(SyncPayloadExchangeMatcher) PayloadExchangeMatchers.authenticationMetadata();
+
+	private final List<PayloadExchangeMatcher> matchers;
+
+	private PayloadSecurityMetrics metrics;
+
+	private PayloadInterceptor permittedInterceptor;
+
+	public PermitAllPayloadInterceptor(List<PayloadExchangeMatcher> matchers) {
+		Assert.notEmpty(matchers, "matchers cannot be empty");
+		this.matchers = matchers;
+	}
+
+	/**
+	 * Sets the {@link PayloadSecurityMetrics} that the permitted exchanges are recorded
+	 * with as granted authorization decisions, since they skip the authorization
+	 * interceptor. The default is to not record metrics.
+	 * @param metrics the {@link PayloadSecurityMetrics} to use or null
+	 */
+	public void setMetrics(PayloadSecurityMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Sets a {@link PayloadInterceptor} that is applied to the permitted exchanges. The
+	 * default is to not apply any.
+	 * @param permittedInterceptor the {@link PayloadInterceptor} to use or null
+	 */
+	public void setPermittedInterceptor(PayloadInterceptor permittedInterceptor) {
+		this.permittedInterceptor = permittedInterceptor;
+	}
+
+	@Override
+	public Mono<Void> intercept(PayloadExchange exchange, PayloadInterceptorChain chain) {
+		if (exchange.getType() == PayloadExchangeType.SETUP || AUTHENTICATION_METADATA.matchesSync(exchange).isMatch()) {
+			return chain.next(exchange);
+		}
+		for (int i = 0; i < this.matchers.size(); i++) {
+			PayloadExchangeMatcher matcher = this.matchers.get(i);
+			if (!(matcher instanceof SyncPayloadExchangeMatcher)) {
+				return intercept(exchange, chain, this.matchers.subList(i, this.matchers.size()));
+			}
+			if (((SyncPayloadExchangeMatcher) matcher).matchesSync(exchange).isMatch()) {
+				return permit(exchange, matcher);
+			}
+		}
+		return chain.next(exchange);
+	}
+
+	private Mono<Void> intercept(PayloadExchange exchange, PayloadInterceptorChain chain,
+			List<PayloadExchangeMatcher> matchers) {
+		return Flux.fromIterable(matchers)
+				.concatMap(matcher -> matcher.matches(exchange)
+						.filter(PayloadExchangeMatcher.MatchResult::isMatch)
+						.map(r -> matcher))
+				.next()
+				.switchIfEmpty(Mono.defer(() -> chain.next(exchange)).then(Mono.empty()))
+				.flatMap(matcher -> permit(exchange, matcher));
+	}
+
+	private Mono<Void> permit(PayloadExchange exchange, PayloadExchangeMatcher matcher) {
+		return Mono.defer(() -> {
+			if (this.metrics != null) {
+				this.metrics.recordAuthorization(exchange.getType(), matcher, true);
+			}
+			if (this.permittedInterceptor == null) {
+				return Mono.empty();
+			}
+			PayloadExchangeMatcherReactiveAuthorizationManager.setMatcher(exchange, matcher);
+			return this.permittedInterceptor.intercept(exchange, e -> Mono.empty());
+		});
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.metrics;
+
+import org.springframework.security.core.Authentication;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds a {@link LatencyHistogram} of the time taken to authenticate for each
+ * {@link Authentication} type (i.e. {@code UsernamePasswordAuthenticationToken} for basic
+ * authentication and {@code ByteBufBearerTokenAuthenticationToken} for bearer tokens) and
+ * {@link Outcome}. The snapshots can be scraped periodically, for example to size thread
+ * pools from the p99.9 latency.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ * @see TimedReactiveAuthenticationManager
+ */
+public class AuthenticationLatencyHistograms {
+	private static final Outcome[] OUTCOMES = Outcome.values();
+
+	private final Map<Class<?>, LatencyHistogram[]> histograms = new ConcurrentHashMap<>();
+
+	/**
+	 * Records the time taken to authenticate
+	 * @param authenticationType the type of the {@link Authentication} that was
+	 * authenticated
+	 * @param outcome the outcome
+	 * @param durationNanos the time in nanoseconds
+	 */
+	public void record(Class<? extends Authentication> authenticationType, Outcome outcome, long durationNanos) {
+		LatencyHistogram[] result = this.histograms.get(authenticationType);
+		if (result == null) {
+			this.histograms.putIfAbsent(authenticationType, createHistograms());
+			result = this.histograms.get(authenticationType);
+		}
+		result[outcome.ordinal()].record(durationNanos);
+	}
+
+	/**
+	 * Gets a snapshot of the time taken to authenticate
+	 * @param authenticationType the type of the {@link Authentication}
+	 * @param outcome the outcome
+	 * @return the {@link LatencyHistogram.Snapshot}, which is empty if nothing was
+	 * recorded
+	 */
+	public LatencyHistogram.Snapshot getSnapshot(Class<? extends Authentication> authenticationType, Outcome outcome) {
+		LatencyHistogram[] result = this.histograms.get(authenticationType);
+		if (result == null) {
+			return new LatencyHistogram().getSnapshot();
+		}
+		return result[outcome.ordinal()].getSnapshot();
+	}
+
+	/**
+	 * The {@link Authentication} types that have been recorded
+	 * @return the {@link Authentication} types
+	 */
+	public Set<Class<?>> getAuthenticationTypes() {
+		return Collections.unmodifiableSet(this.histograms.keySet());
+	}
+
+	private static LatencyHistogram[] createHistograms() {
+		LatencyHistogram[] result = new LatencyHistogram[OUTCOMES.length];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = new LatencyHistogram();
+		}
+		return result;
+	}
+
+	/**
+	 * The outcome of authenticating
+	 */
+	public enum Outcome {
+		/**
+		 * An authenticated {@link Authentication} was returned.
+		 */
+		SUCCESS,
+
+		/**
+		 * The credentials were rejected (i.e. a
+		 * {@link org.springframework.security.authentication.BadCredentialsException} or
+		 * an invalid bearer token).
+		 */
+		BAD_CREDENTIALS,
+
+		/**
+		 * Failed with any other error (i.e. a locked account or an unavailable user
+		 * store) or no {@link Authentication} was returned.
+		 */
+		ERROR
+	}
+}
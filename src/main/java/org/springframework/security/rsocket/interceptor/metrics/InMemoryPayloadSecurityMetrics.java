@@ -0,0 +1,199 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.metrics;
+
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptor;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcher;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link PayloadSecurityMetrics} that keeps counts and total times in memory. The values
+ * are exposed as monotonically increasing counters, so they can be bound to a Micrometer
+ * {@code MeterRegistry} with {@code FunctionCounter} and {@code FunctionTimer}, which read
+ * the values when they are published rather than on every frame. For example:
+ *
+ * <pre>
+ * FunctionTimer.builder("rsocket.security.interceptor", metrics,
+ *         m -&gt; m.getCount(AuthenticationPayloadInterceptor.class, type, Outcome.NEXT),
+ *         m -&gt; m.getTotalTime(AuthenticationPayloadInterceptor.class, type, Outcome.NEXT, TimeUnit.NANOSECONDS),
+ *         TimeUnit.NANOSECONDS)
+ *     .tags("type", type.name(), "interceptor", "authentication", "outcome", "next")
+ *     .register(registry);
+ * </pre>
+ *
+ * Recording a frame only increments {@link LongAdder}s that are looked up by the
+ * {@link PayloadInterceptor} class or the {@link PayloadExchangeMatcher} instance.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public class InMemoryPayloadSecurityMetrics implements PayloadSecurityMetrics {
+	private static final int TYPES = PayloadExchangeType.values().length;
+
+	private static final int OUTCOMES = Outcome.values().length;
+
+	private final Map<Class<?>, Adders> interceptorCounts = new ConcurrentHashMap<>();
+
+	private final Map<Class<?>, Adders> interceptorTimes = new ConcurrentHashMap<>();
+
+	private final Map<PayloadExchangeMatcher, Adders> authorizationCounts = new ConcurrentHashMap<>();
+
+	private final Adders defaultAuthorizationCounts = new Adders(TYPES * 2);
+
+	private final Map<Class<?>, Adders> authenticationCacheCounts = new ConcurrentHashMap<>();
+
+	@Override
+	public void recordInterceptor(PayloadInterceptor interceptor, PayloadExchangeType exchangeType,
+			Outcome outcome, long durationNanos) {
+		Class<?> interceptorType = interceptor.getClass();
+		int index = exchangeType.ordinal() * OUTCOMES + outcome.ordinal();
+		get(this.interceptorCounts, interceptorType, TYPES * OUTCOMES).increment(index);
+		get(this.interceptorTimes, interceptorType, TYPES * OUTCOMES).add(index, durationNanos);
+	}
+
+	@Override
+	public void recordAuthorization(PayloadExchangeType exchangeType, PayloadExchangeMatcher matcher,
+			boolean granted) {
+		Adders counts = matcher == null ?
+				this.defaultAuthorizationCounts :
+				get(this.authorizationCounts, matcher, TYPES * 2);
+		counts.increment(authorizationIndex(exchangeType, granted));
+	}
+
+	@Override
+	public void recordAuthenticationCache(ReactiveAuthenticationManager authenticationManager, boolean hit) {
+		get(this.authenticationCacheCounts, authenticationManager.getClass(), 2).increment(hit ? 1 : 0);
+	}
+
+	/**
+	 * Gets the number of frames processed by a {@link PayloadInterceptor}
+	 * @param interceptorType the class of the {@link PayloadInterceptor}
+	 * @param exchangeType the type of the exchange
+	 * @param outcome the outcome
+	 * @return the count
+	 */
+	public long getCount(Class<? extends PayloadInterceptor> interceptorType, PayloadExchangeType exchangeType,
+			Outcome outcome) {
+		Adders counts = this.interceptorCounts.get(interceptorType);
+		return counts == null ? 0 : counts.sum(exchangeType.ordinal() * OUTCOMES + outcome.ordinal());
+	}
+
+	/**
+	 * Gets the total time a {@link PayloadInterceptor} took to process frames
+	 * @param interceptorType the class of the {@link PayloadInterceptor}
+	 * @param exchangeType the type of the exchange
+	 * @param outcome the outcome
+	 * @param unit the unit of the result
+	 * @return the total time
+	 */
+	public double getTotalTime(Class<? extends PayloadInterceptor> interceptorType, PayloadExchangeType exchangeType,
+			Outcome outcome, TimeUnit unit) {
+		Adders times = this.interceptorTimes.get(interceptorType);
+		long nanos = times == null ? 0 : times.sum(exchangeType.ordinal() * OUTCOMES + outcome.ordinal());
+		return (double) nanos / unit.toNanos(1);
+	}
+
+	/**
+	 * Gets the number of authorization decisions for a {@link PayloadExchangeMatcher}
+	 * @param matcher the {@link PayloadExchangeMatcher} that matched or null for exchanges
+	 * that did not match any mapping
+	 * @param exchangeType the type of the exchange
+	 * @param granted true for the number of granted decisions, false for denied
+	 * @return the count
+	 */
+	public long getAuthorizationCount(PayloadExchangeMatcher matcher, PayloadExchangeType exchangeType,
+			boolean granted) {
+		Adders counts = matcher == null ?
+				this.defaultAuthorizationCounts :
+				this.authorizationCounts.get(matcher);
+		return counts == null ? 0 : counts.sum(authorizationIndex(exchangeType, granted));
+	}
+
+	/**
+	 * Gets the number of authentications that were looked up in a cache
+	 * @param authenticationManagerType the class of the caching
+	 * {@link ReactiveAuthenticationManager}
+	 * @param hit true for the number of lookups that used a cached result, false for the
+	 * number that were performed by the delegate
+	 * @return the count
+	 */
+	public long getAuthenticationCacheCount(Class<? extends ReactiveAuthenticationManager> authenticationManagerType,
+			boolean hit) {
+		Adders counts = this.authenticationCacheCounts.get(authenticationManagerType);
+		return counts == null ? 0 : counts.sum(hit ? 1 : 0);
+	}
+
+	/**
+	 * The classes of the {@link PayloadInterceptor}s that have processed a frame
+	 * @return the classes
+	 */
+	public Set<Class<?>> getInterceptorTypes() {
+		return Collections.unmodifiableSet(this.interceptorCounts.keySet());
+	}
+
+	/**
+	 * The {@link PayloadExchangeMatcher}s that have matched an exchange
+	 * @return the matchers
+	 */
+	public Set<PayloadExchangeMatcher> getAuthorizationMatchers() {
+		return Collections.unmodifiableSet(this.authorizationCounts.keySet());
+	}
+
+	private static int authorizationIndex(PayloadExchangeType exchangeType, boolean granted) {
+		return exchangeType.ordinal() * 2 + (granted ? 1 : 0);
+	}
+
+	private static <K> Adders get(Map<K, Adders> adders, K key, int size) {
+		Adders result = adders.get(key);
+		if (result == null) {
+			adders.putIfAbsent(key, new Adders(size));
+			result = adders.get(key);
+		}
+		return result;
+	}
+
+	private static final class Adders {
+		private final LongAdder[] adders;
+
+		private Adders(int size) {
+			this.adders = new LongAdder[size];
+			for (int i = 0; i < size; i++) {
+				this.adders[i] = new LongAdder();
+			}
+		}
+
+		private void increment(int index) {
+			this.adders[index].increment();
+		}
+
+		private void add(int index, long value) {
+			this.adders[index].add(value);
+		}
+
+		private long sum(int index) {
+			return this.adders[index].sum();
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.metrics;
+
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
+import org.springframework.security.rsocket.interceptor.metrics.PayloadSecurityMetrics.Outcome;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decorates a {@link PayloadInterceptor} to record how long it takes to process each
+ * frame and the {@link Outcome} with {@link PayloadSecurityMetrics}. The time is measured
+ * from the subscription until the delegate either subscribes to the rest of the chain or
+ * terminates, so it does not include the {@link PayloadInterceptor}s that follow.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public class InstrumentedPayloadInterceptor implements PayloadInterceptor {
+	private final PayloadInterceptor delegate;
+
+	private final PayloadSecurityMetrics metrics;
+
+	/**
+	 * Creates a new instance
+	 * @param delegate the {@link PayloadInterceptor} to instrument. Cannot be null.
+	 * @param metrics the {@link PayloadSecurityMetrics} to record with. Cannot be null.
+	 */
+	public InstrumentedPayloadInterceptor(PayloadInterceptor delegate, PayloadSecurityMetrics metrics) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		Assert.notNull(metrics, "metrics cannot be null");
+		this.delegate = delegate;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public Mono<Void> intercept(PayloadExchange exchange, PayloadInterceptorChain chain) {
+		return Mono.defer(() -> {
+			TimedChain timed = new TimedChain(chain, exchange.getType());
+			return this.delegate.intercept(exchange, timed)
+					.doOnSuccess(v -> timed.record(Outcome.COMPLETE))
+					.doOnError(e -> timed.record(Outcome.of(e)));
+		});
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[delegate=" + this.delegate + "]";
+	}
+
+	/**
+	 * Records the time of a single frame once the delegate subscribes to the rest of the
+	 * chain or terminates, whichever is first.
+	 */
+	private final class TimedChain implements PayloadInterceptorChain {
+		private final PayloadInterceptorChain chain;
+
+		private final PayloadExchangeType type;
+
+		private final long start = System.nanoTime();
+
+		private boolean recorded;
+
+		private TimedChain(PayloadInterceptorChain chain, PayloadExchangeType type) {
+			this.chain = chain;
+			this.type = type;
+		}
+
+		@Override
+		public Mono<Void> next(PayloadExchange exchange) {
+			return Mono.defer(() -> {
+				record(Outcome.NEXT);
+				return this.chain.next(exchange);
+			});
+		}
+
+		private void record(Outcome outcome) {
+			if (this.recorded) {
+				return;
+			}
+			this.recorded = true;
+			InstrumentedPayloadInterceptor.this.metrics.recordInterceptor(
+					InstrumentedPayloadInterceptor.this.delegate, this.type, outcome,
+					System.nanoTime() - this.start);
+		}
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.metrics;
+
+import org.springframework.util.Assert;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe histogram of latencies in nanoseconds. Like an HDR histogram, the buckets
+ * are log-linear: values below {@value #LINEAR_LIMIT} are recorded exactly, and larger
+ * values are recorded in one of {@value #SUB_BUCKET_COUNT} buckets per power of two, so
+ * every percentile is accurate to within 1/{@value #SUB_BUCKET_COUNT} of its value. Recording
+ * a value does not allocate and only updates a few atomic counters.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 6;
+
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT << 1;
+
+	private static final int BUCKET_COUNT = index(Long.MAX_VALUE) + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a latency
+	 * @param nanos the latency in nanoseconds. Negative values are recorded as 0.
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		this.counts.incrementAndGet(index(value));
+		long currentMax = this.max.get();
+		while (value > currentMax && !this.max.compareAndSet(currentMax, value)) {
+			currentMax = this.max.get();
+		}
+	}
+
+	/**
+	 * Gets a point in time copy of the recorded values.
+	 * @return the {@link Snapshot}
+	 */
+	public Snapshot getSnapshot() {
+		long[] copy = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			copy[i] = this.counts.get(i);
+		}
+		return new Snapshot(copy, this.max.get());
+	}
+
+	private static int index(long value) {
+		if (value < LINEAR_LIMIT) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+		return LINEAR_LIMIT + (shift - 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	private static long highestValue(int index) {
+		if (index < LINEAR_LIMIT) {
+			return index;
+		}
+		int shift = (index - LINEAR_LIMIT) / SUB_BUCKET_COUNT + 1;
+		long subBucket = (index - LINEAR_LIMIT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * A point in time copy of a {@link LatencyHistogram}
+	 */
+	public static final class Snapshot {
+		private final long[] counts;
+
+		private final long count;
+
+		private final long max;
+
+		private Snapshot(long[] counts, long max) {
+			long count = 0;
+			for (long c : counts) {
+				count += c;
+			}
+			this.counts = counts;
+			this.count = count;
+			this.max = max;
+		}
+
+		/**
+		 * The number of recorded values
+		 * @return the number of recorded values
+		 */
+		public long getCount() {
+			return this.count;
+		}
+
+		/**
+		 * The largest recorded value in nanoseconds
+		 * @return the largest recorded value or 0 if no values were recorded
+		 */
+		public long getMax() {
+			return this.max;
+		}
+
+		/**
+		 * Gets the value that the given percentage of the recorded values are less than or
+		 * equal to. For example, {@code getValueAtPercentile(99.9)} is the p99.9 latency.
+		 * @param percentile the percentile between 0 and 100
+		 * @return the value in nanoseconds or 0 if no values were recorded
+		 */
+		public long getValueAtPercentile(double percentile) {
+			Assert.isTrue(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+			if (this.count == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.count));
+			long seen = 0;
+			for (int i = 0; i < this.counts.length; i++) {
+				seen += this.counts[i];
+				if (seen >= rank) {
+					return Math.min(highestValue(i), this.max);
+				}
+			}
+			return this.max;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.metrics;
+
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptor;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcher;
+
+/**
+ * Records what happens to each frame as it passes through the {@link PayloadInterceptor}s.
+ * Every value is passed as an enum, a {@link Class} or an existing object rather than a
+ * {@link String}, so that an implementation can map it to a pre-registered meter (i.e. a
+ * Micrometer {@code Timer} or {@code Counter}) without allocating tags per frame.
+ *
+ * Implementations are invoked for every frame, so they must be thread safe and fast.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ * @see InstrumentedPayloadInterceptor
+ * @see InMemoryPayloadSecurityMetrics
+ */
+public interface PayloadSecurityMetrics {
+
+	/**
+	 * Records the time a {@link PayloadInterceptor} took to process a frame. The time
+	 * does not include the {@link PayloadInterceptor}s that are invoked after it.
+	 * @param interceptor the {@link PayloadInterceptor} that processed the frame
+	 * @param exchangeType the type of the exchange
+	 * @param outcome the outcome
+	 * @param durationNanos the time in nanoseconds
+	 */
+	void recordInterceptor(PayloadInterceptor interceptor, PayloadExchangeType exchangeType,
+			Outcome outcome, long durationNanos);
+
+	/**
+	 * Records an authorization decision.
+	 * @param exchangeType the type of the exchange
+	 * @param matcher the {@link PayloadExchangeMatcher} that matched (i.e. a
+	 * {@link org.springframework.security.rsocket.util.RoutePayloadExchangeMatcher}), or
+	 * null if no mapping matched and access was denied by default
+	 * @param granted true if access was granted
+	 */
+	void recordAuthorization(PayloadExchangeType exchangeType, PayloadExchangeMatcher matcher,
+			boolean granted);
+
+	/**
+	 * Records whether an authentication used a cached result. The default implementation
+	 * does nothing.
+	 * @param authenticationManager the caching {@link ReactiveAuthenticationManager} (i.e.
+	 * a
+	 * {@link org.springframework.security.rsocket.interceptor.authentication.CachingBearerTokenReactiveAuthenticationManager})
+	 * @param hit true if a cached result was used
+	 */
+	default void recordAuthenticationCache(ReactiveAuthenticationManager authenticationManager, boolean hit) {
+	}
+
+	/**
+	 * The outcome of a {@link PayloadInterceptor} processing a frame.
+	 */
+	enum Outcome {
+		/**
+		 * The rest of the chain was invoked.
+		 */
+		NEXT,
+
+		/**
+		 * Completed without invoking the rest of the chain (i.e. permitted by
+		 * {@code PermitAllPayloadInterceptor}).
+		 */
+		COMPLETE,
+
+		/**
+		 * Failed with an {@link AccessDeniedException}.
+		 */
+		DENIED,
+
+		/**
+		 * Failed with an {@link AuthenticationException}.
+		 */
+		UNAUTHENTICATED,
+
+		/**
+		 * Failed with any other error.
+		 */
+		ERROR;
+
+		/**
+		 * Determines the {@link Outcome} of an error
+		 * @param error the error
+		 * @return the {@link Outcome}
+		 */
+		public static Outcome of(Throwable error) {
+			if (error instanceof AccessDeniedException) {
+				return DENIED;
+			}
+			if (error instanceof AuthenticationException) {
+				return UNAUTHENTICATED;
+			}
+			return ERROR;
+		}
+	}
+}
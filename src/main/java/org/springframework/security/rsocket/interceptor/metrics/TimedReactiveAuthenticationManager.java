@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.metrics;
+
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.server.resource.BearerTokenErrorCodes;
+import org.springframework.security.rsocket.interceptor.metrics.AuthenticationLatencyHistograms.Outcome;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+
+/**
+ * A {@link ReactiveAuthenticationManager} that records how long the delegate takes to
+ * authenticate in {@link AuthenticationLatencyHistograms}. The time is measured from the
+ * subscription until the result is emitted, so it includes any work the delegate performs
+ * (i.e. decoding a JWT, looking up the user or hashing the password). If authentication
+ * was handed off to a {@code Scheduler}, the time spent waiting for the {@code Scheduler}
+ * is not included. Authentications that are cancelled are not recorded.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public class TimedReactiveAuthenticationManager implements ReactiveAuthenticationManager {
+	private final ReactiveAuthenticationManager delegate;
+
+	private final AuthenticationLatencyHistograms histograms;
+
+	/**
+	 * Creates a new instance
+	 * @param delegate the {@link ReactiveAuthenticationManager} to time. Cannot be null.
+	 * @param histograms the {@link AuthenticationLatencyHistograms} to record with. Cannot
+	 * be null.
+	 */
+	public TimedReactiveAuthenticationManager(ReactiveAuthenticationManager delegate,
+			AuthenticationLatencyHistograms histograms) {
+		Assert.notNull(delegate, "delegate cannot be null");
+		Assert.notNull(histograms, "histograms cannot be null");
+		this.delegate = delegate;
+		this.histograms = histograms;
+	}
+
+	@Override
+	public Mono<Authentication> authenticate(Authentication authentication) {
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			Class<? extends Authentication> type = authentication.getClass();
+			return this.delegate.authenticate(authentication)
+					.doOnSuccess(result -> record(type, result == null ? Outcome.ERROR : Outcome.SUCCESS, start))
+					.doOnError(e -> record(type, outcome(e), start));
+		});
+	}
+
+	private static Outcome outcome(Throwable error) {
+		if (error instanceof BadCredentialsException) {
+			return Outcome.BAD_CREDENTIALS;
+		}
+		if (error instanceof OAuth2AuthenticationException) {
+			String errorCode = ((OAuth2AuthenticationException) error).getError().getErrorCode();
+			return BearerTokenErrorCodes.INVALID_TOKEN.equals(errorCode) ? Outcome.BAD_CREDENTIALS : Outcome.ERROR;
+		}
+		return Outcome.ERROR;
+	}
+
+	private void record(Class<? extends Authentication> type, Outcome outcome, long start) {
+		this.histograms.record(type, outcome, System.nanoTime() - start);
+	}
+}
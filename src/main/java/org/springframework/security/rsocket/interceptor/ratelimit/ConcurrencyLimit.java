@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.ratelimit;
+
+/**
+ * Determines how many requests may be in flight at the same time. Implementations may
+ * adapt the limit based on the samples of completed requests.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ * @see ConcurrencyLimitPayloadInterceptor
+ * @see FixedConcurrencyLimit
+ * @see VegasConcurrencyLimit
+ */
+public interface ConcurrencyLimit {
+
+	/**
+	 * The current maximum number of requests in flight
+	 * @return the current limit
+	 */
+	int getLimit();
+
+	/**
+	 * Invoked when a request completes
+	 * @param durationNanos the time the request held its permit in nanoseconds
+	 * @param inFlight the number of requests in flight, including the completed request
+	 */
+	void onSample(long durationNanos, int inFlight);
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.ratelimit;
+
+import org.springframework.security.access.AccessDeniedException;
+
+/**
+ * Indicates that a {@link ConcurrencyLimit} was reached. The stack trace is not filled
+ * in, since the exception is expected to be created for every rejected request.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public class ConcurrencyLimitExceededException extends AccessDeniedException {
+
+	public ConcurrencyLimitExceededException(String msg) {
+		super(msg);
+	}
+
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.ratelimit;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeSecurityContextHolder;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeTermination;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
+import org.springframework.security.rsocket.interceptor.authorization.PayloadExchangeMatcherReactiveAuthorizationManager;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcher;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of requests that are in flight at the same time for each combination
+ * of the {@link PayloadExchangeMatcher} that authorized the request and the principal.
+ * Requests over the {@link ConcurrencyLimit} are rejected with a
+ * {@link ConcurrencyLimitExceededException}. A permit is held until the response
+ * terminates or is cancelled (see {@link PayloadExchangeTermination}).
+ *
+ * This interceptor should be placed after the {@code AuthorizationPayloadInterceptor}
+ * and the {@link PayloadExchangeMatcherReactiveAuthorizationManager} must expose the
+ * matcher; requests that were not authorized by a mapping share a single limit per
+ * principal. By default only {@link PayloadExchangeType#REQUEST_STREAM} and
+ * {@link PayloadExchangeType#REQUEST_CHANNEL} are limited. The limit of a combination is
+ * held while it has requests in flight and is discarded once the last one terminates.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public class ConcurrencyLimitPayloadInterceptor implements PayloadInterceptor {
+	private static final Object NO_MATCHER = new Object();
+
+	private static final String NO_PRINCIPAL = "";
+
+	private final Supplier<? extends ConcurrencyLimit> limits;
+
+	private final Map<Object, Map<String, Limiter>> limiters = new ConcurrentHashMap<>();
+
+	private Set<PayloadExchangeType> exchangeTypes =
+			EnumSet.of(PayloadExchangeType.REQUEST_STREAM, PayloadExchangeType.REQUEST_CHANNEL);
+
+	/**
+	 * Creates a new instance
+	 * @param limits creates the {@link ConcurrencyLimit} for each combination of matcher and
+	 * principal. Cannot be null.
+	 */
+	public ConcurrencyLimitPayloadInterceptor(Supplier<? extends ConcurrencyLimit> limits) {
+		Assert.notNull(limits, "limits cannot be null");
+		this.limits = limits;
+	}
+
+	/**
+	 * Sets the types of exchanges that are limited. The default is
+	 * {@link PayloadExchangeType#REQUEST_STREAM} and
+	 * {@link PayloadExchangeType#REQUEST_CHANNEL}.
+	 * @param exchangeTypes the types to limit. Cannot be null or contain
+	 * {@link PayloadExchangeType#SETUP} or {@link PayloadExchangeType#PAYLOAD}, since
+	 * their permits would never be released.
+	 */
+	public void setExchangeTypes(Set<PayloadExchangeType> exchangeTypes) {
+		Assert.notNull(exchangeTypes, "exchangeTypes cannot be null");
+		Assert.isTrue(!exchangeTypes.contains(PayloadExchangeType.SETUP)
+				&& !exchangeTypes.contains(PayloadExchangeType.PAYLOAD),
+				"exchangeTypes cannot contain SETUP or PAYLOAD");
+		this.exchangeTypes = exchangeTypes.isEmpty() ?
+				EnumSet.noneOf(PayloadExchangeType.class) :
+				EnumSet.copyOf(exchangeTypes);
+	}
+
+	@Override
+	public Mono<Void> intercept(PayloadExchange exchange, PayloadInterceptorChain chain) {
+		if (!this.exchangeTypes.contains(exchange.getType())) {
+			return chain.next(exchange);
+		}
+		SecurityContext securityContext = PayloadExchangeSecurityContextHolder.getContext(exchange);
+		if (securityContext != null) {
+			return Mono.defer(() -> acquire(exchange, chain, securityContext.getAuthentication()));
+		}
+		return Mono.subscriberContext()
+				.flatMap(c -> c.hasKey(SecurityContext.class) ?
+						c.<Mono<SecurityContext>>get(SecurityContext.class) :
+						Mono.<SecurityContext>empty())
+				.map(SecurityContext::getAuthentication)
+				.flatMap(authentication -> acquire(exchange, chain, authentication).thenReturn(authentication))
+				.switchIfEmpty(Mono.defer(() -> acquire(exchange, chain, null).then(Mono.empty())))
+				.then();
+	}
+
+	private Mono<Void> acquire(PayloadExchange exchange, PayloadInterceptorChain chain,
+			Authentication authentication) {
+		PayloadExchangeMatcher matcher = PayloadExchangeMatcherReactiveAuthorizationManager.getMatcher(exchange);
+		String principal = authentication == null ? NO_PRINCIPAL : authentication.getName();
+		Permit permit = tryAcquire(matcher == null ? NO_MATCHER : matcher, principal);
+		if (permit == null) {
+			return Mono.error(new ConcurrencyLimitExceededException("Concurrency limit exceeded"));
+		}
+		if (!PayloadExchangeTermination.onTerminate(exchange, permit::release)) {
+			// the end of the request cannot be observed, so it is not limited
+			permit.release();
+		}
+		return chain.next(exchange);
+	}
+
+	/**
+	 * Acquires a permit from the {@link Limiter} of the matcher and principal. The permit
+	 * is acquired while the entry is locked, so that it cannot race with the removal of a
+	 * {@link Limiter} that has no requests in flight.
+	 */
+	private Permit tryAcquire(Object matcher, String principal) {
+		Map<String, Limiter> principals = this.limiters.computeIfAbsent(matcher, m -> new ConcurrentHashMap<>());
+		Permit[] permit = new Permit[1];
+		principals.compute(principal, (p, limiter) -> {
+			Limiter result = limiter == null ? new Limiter(this.limits.get(), principals, p) : limiter;
+			permit[0] = result.tryAcquire();
+			return result.inFlight.get() == 0 ? null : result;
+		});
+		return permit[0];
+	}
+
+	private static final class Limiter {
+		private final ConcurrencyLimit limit;
+
+		private final Map<String, Limiter> principals;
+
+		private final String principal;
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		private Limiter(ConcurrencyLimit limit, Map<String, Limiter> principals, String principal) {
+			Assert.notNull(limit, "limit cannot be null");
+			this.limit = limit;
+			this.principals = principals;
+			this.principal = principal;
+		}
+
+		private void release(long durationNanos) {
+			int inFlight = this.inFlight.getAndDecrement();
+			this.limit.onSample(durationNanos, inFlight);
+			if (inFlight == 1) {
+				this.principals.computeIfPresent(this.principal, (p, limiter) ->
+						limiter.inFlight.get() == 0 ? null : limiter);
+			}
+		}
+
+		private Permit tryAcquire() {
+			for (;;) {
+				int current = this.inFlight.get();
+				if (current >= this.limit.getLimit()) {
+					return null;
+				}
+				if (this.inFlight.compareAndSet(current, current + 1)) {
+					return new Permit(this);
+				}
+			}
+		}
+	}
+
+	private static final class Permit extends AtomicBoolean {
+		private final Limiter limiter;
+
+		private final long start = System.nanoTime();
+
+		private Permit(Limiter limiter) {
+			this.limiter = limiter;
+		}
+
+		private void release() {
+			if (compareAndSet(false, true)) {
+				this.limiter.release(System.nanoTime() - this.start);
+			}
+		}
+	}
+}
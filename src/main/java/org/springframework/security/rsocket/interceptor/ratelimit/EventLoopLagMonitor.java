@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.ratelimit;
+
+import org.springframework.util.Assert;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Measures how late tasks run on a {@link ScheduledExecutorService} (i.e. a Netty
+ * {@code EventLoopGroup}) by repeatedly scheduling a probe and comparing when it runs with
+ * when it was due. Scheduling on an {@code EventLoopGroup} selects the next event loop, so
+ * successive probes measure each event loop in turn. While a probe is overdue, the time it
+ * is overdue is used, so a blocked event loop is detected before the probe runs.
+ *
+ * The monitor reports an overload (see {@link #getAsBoolean()}) once the lag exceeds the
+ * maximum lag, so it can be used with
+ * {@link LoadSheddingPayloadInterceptor#setOverloadDetector(BooleanSupplier)}.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public final class EventLoopLagMonitor implements BooleanSupplier, Disposable {
+	private final ScheduledExecutorService executor;
+
+	private final long intervalNanos;
+
+	private final long maxLagNanos;
+
+	private volatile long lagNanos;
+
+	private volatile long dueNanos;
+
+	private volatile boolean probing;
+
+	private volatile ScheduledFuture<?> probe;
+
+	private volatile boolean disposed;
+
+	/**
+	 * Creates a new instance
+	 * @param executor the executor to monitor. Cannot be null.
+	 * @param interval how often to probe. Must be positive.
+	 * @param maxLag the lag above which the executor is overloaded. Cannot be null or
+	 * negative.
+	 */
+	public EventLoopLagMonitor(ScheduledExecutorService executor, Duration interval, Duration maxLag) {
+		Assert.notNull(executor, "executor cannot be null");
+		Assert.notNull(interval, "interval cannot be null");
+		Assert.isTrue(!interval.isNegative() && !interval.isZero(), "interval must be positive");
+		Assert.notNull(maxLag, "maxLag cannot be null");
+		Assert.isTrue(!maxLag.isNegative(), "maxLag cannot be negative");
+		this.executor = executor;
+		this.intervalNanos = interval.toNanos();
+		this.maxLagNanos = maxLag.toNanos();
+	}
+
+	/**
+	 * Starts probing
+	 * @return this instance
+	 */
+	public EventLoopLagMonitor start() {
+		schedule();
+		return this;
+	}
+
+	/**
+	 * The most recent lag, or the time the current probe is overdue if that is longer
+	 * @return the lag
+	 */
+	public Duration getLag() {
+		return Duration.ofNanos(currentLagNanos());
+	}
+
+	/**
+	 * Determines if the executor is overloaded
+	 * @return true if the lag is greater than the maximum lag
+	 */
+	@Override
+	public boolean getAsBoolean() {
+		return currentLagNanos() > this.maxLagNanos;
+	}
+
+	@Override
+	public void dispose() {
+		this.disposed = true;
+		this.probing = false;
+		ScheduledFuture<?> probe = this.probe;
+		if (probe != null) {
+			probe.cancel(false);
+		}
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return this.disposed;
+	}
+
+	private long currentLagNanos() {
+		long lag = this.lagNanos;
+		if (this.probing) {
+			lag = Math.max(lag, System.nanoTime() - this.dueNanos);
+		}
+		return lag;
+	}
+
+	private void schedule() {
+		if (this.disposed) {
+			return;
+		}
+		long due = System.nanoTime() + this.intervalNanos;
+		this.dueNanos = due;
+		this.probing = true;
+		try {
+			this.probe = this.executor.schedule(() -> {
+				this.lagNanos = Math.max(0, System.nanoTime() - due);
+				this.probing = false;
+				schedule();
+			}, this.intervalNanos, TimeUnit.NANOSECONDS);
+		}
+		catch (RejectedExecutionException e) {
+			this.probing = false;
+			this.disposed = true;
+		}
+	}
+}
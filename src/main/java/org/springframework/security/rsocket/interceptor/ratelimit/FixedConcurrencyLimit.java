@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.ratelimit;
+
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ConcurrencyLimit} that does not change.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public final class FixedConcurrencyLimit implements ConcurrencyLimit {
+	private final int limit;
+
+	/**
+	 * Creates a new instance
+	 * @param limit the limit. Must be greater than 0.
+	 */
+	public FixedConcurrencyLimit(int limit) {
+		Assert.isTrue(limit > 0, "limit must be greater than 0");
+		this.limit = limit;
+	}
+
+	@Override
+	public int getLimit() {
+		return this.limit;
+	}
+
+	@Override
+	public void onSample(long durationNanos, int inFlight) {
+	}
+}
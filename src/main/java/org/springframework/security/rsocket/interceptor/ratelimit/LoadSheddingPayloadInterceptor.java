@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.ratelimit;
+
+import io.rsocket.exceptions.RejectedException;
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeTermination;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcher;
+import org.springframework.security.rsocket.util.SyncPayloadExchangeMatcher;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Rejects requests with a {@link RejectedException}, which RSocket sends as a retryable
+ * {@code REJECTED} error, while the node is overloaded. The node is overloaded if the
+ * number of pending requests reached {@link #setMaxPendingRequests(int)} or the overload
+ * detector (i.e. an {@link EventLoopLagMonitor}) reports it.
+ *
+ * This interceptor should be placed first, so that overloaded nodes do not parse
+ * metadata, verify credentials or authorize requests that are going to be rejected. The
+ * check is a read of a counter and the detector. Requests matching the bypass
+ * {@link PayloadExchangeMatcher} (i.e. health checks or other priority routes) are never
+ * rejected; the matcher is only evaluated while the node is overloaded. The check is
+ * performed, and a request counted as pending, only once the result of
+ * {@link #intercept(PayloadExchange, PayloadInterceptorChain)} is subscribed.
+ * {@link PayloadExchangeType#SETUP} and the {@link PayloadExchangeType#PAYLOAD}s of a
+ * channel are never rejected.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public class LoadSheddingPayloadInterceptor implements PayloadInterceptor {
+	private final AtomicInteger pending = new AtomicInteger();
+
+	private final Runnable release = this.pending::decrementAndGet;
+
+	private int maxPendingRequests = Integer.MAX_VALUE;
+
+	private BooleanSupplier overloadDetector = () -> false;
+
+	private PayloadExchangeMatcher bypassMatcher;
+
+	/**
+	 * Sets the maximum number of requests that are pending (intercepted, but not yet
+	 * terminated) before new requests are rejected. The default is unlimited, in which
+	 * case pending requests are not counted.
+	 * @param maxPendingRequests the maximum number of pending requests. Must be greater
+	 * than 0.
+	 */
+	public void setMaxPendingRequests(int maxPendingRequests) {
+		Assert.isTrue(maxPendingRequests > 0, "maxPendingRequests must be greater than 0");
+		this.maxPendingRequests = maxPendingRequests;
+	}
+
+	/**
+	 * Sets a detector that returns true while the node is overloaded. It is invoked for
+	 * every request, so it must be fast (i.e. read a value that is updated in the
+	 * background like {@link EventLoopLagMonitor}). The default never reports an overload.
+	 * @param overloadDetector the detector to use. Cannot be null.
+	 */
+	public void setOverloadDetector(BooleanSupplier overloadDetector) {
+		Assert.notNull(overloadDetector, "overloadDetector cannot be null");
+		this.overloadDetector = overloadDetector;
+	}
+
+	/**
+	 * Sets the {@link PayloadExchangeMatcher} for requests that are never rejected. The
+	 * default is null, which means every request can be rejected.
+	 * @param bypassMatcher the matcher or null
+	 */
+	public void setBypassMatcher(PayloadExchangeMatcher bypassMatcher) {
+		this.bypassMatcher = bypassMatcher;
+	}
+
+	/**
+	 * The number of pending requests, if {@link #setMaxPendingRequests(int)} is set.
+	 * @return the number of pending requests
+	 */
+	public int getPendingRequests() {
+		return this.pending.get();
+	}
+
+	@Override
+	public Mono<Void> intercept(PayloadExchange exchange, PayloadInterceptorChain chain) {
+		PayloadExchangeType type = exchange.getType();
+		if (type == PayloadExchangeType.SETUP || type == PayloadExchangeType.PAYLOAD) {
+			return chain.next(exchange);
+		}
+		return Mono.defer(() -> shed(exchange, chain));
+	}
+
+	private Mono<Void> shed(PayloadExchange exchange, PayloadInterceptorChain chain) {
+		if (!isOverloaded()) {
+			return admit(exchange, chain);
+		}
+		if (this.bypassMatcher == null) {
+			return reject();
+		}
+		if (this.bypassMatcher instanceof SyncPayloadExchangeMatcher) {
+			return ((SyncPayloadExchangeMatcher) this.bypassMatcher).matchesSync(exchange).isMatch() ?
+					admit(exchange, chain) :
+					reject();
+		}
+		return this.bypassMatcher.matches(exchange)
+				.flatMap(result -> result.isMatch() ? admit(exchange, chain) : reject());
+	}
+
+	private boolean isOverloaded() {
+		return (this.maxPendingRequests != Integer.MAX_VALUE && this.pending.get() >= this.maxPendingRequests)
+				|| this.overloadDetector.getAsBoolean();
+	}
+
+	private Mono<Void> admit(PayloadExchange exchange, PayloadInterceptorChain chain) {
+		if (this.maxPendingRequests != Integer.MAX_VALUE) {
+			this.pending.incrementAndGet();
+			if (!PayloadExchangeTermination.onTerminate(exchange, this.release)) {
+				// the end of the request cannot be observed, so it is not counted
+				this.release.run();
+			}
+		}
+		return chain.next(exchange);
+	}
+
+	private static Mono<Void> reject() {
+		return Mono.error(new OverloadedException());
+	}
+
+	private static final class OverloadedException extends RejectedException {
+		private static final long serialVersionUID = 1L;
+
+		private OverloadedException() {
+			super("Overloaded");
+		}
+
+		@Override
+		public synchronized Throwable fillInStackTrace() {
+			return this;
+		}
+	}
+}
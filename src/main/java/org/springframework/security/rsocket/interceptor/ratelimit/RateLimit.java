@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.ratelimit;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+
+/**
+ * The number of permits that are allowed within a period and how the permits are shared.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ * @see RateLimitPayloadInterceptor
+ */
+public final class RateLimit {
+	/**
+	 * The default maximum number of principals that are tracked by a
+	 * {@link Scope#PRINCIPAL} limit.
+	 */
+	public static final int DEFAULT_MAX_PRINCIPALS = 10_000;
+
+	private final long permits;
+
+	private final Duration period;
+
+	private final Scope scope;
+
+	private final int maxPrincipals;
+
+	private RateLimit(long permits, Duration period, Scope scope) {
+		this(permits, period, scope, DEFAULT_MAX_PRINCIPALS);
+	}
+
+	private RateLimit(long permits, Duration period, Scope scope, int maxPrincipals) {
+		Assert.isTrue(permits > 0, "permits must be greater than 0");
+		Assert.notNull(period, "period cannot be null");
+		Assert.isTrue(!period.isNegative() && !period.isZero(), "period must be positive");
+		Assert.isTrue(maxPrincipals > 0, "maxPrincipals must be greater than 0");
+		this.permits = permits;
+		this.period = period;
+		this.scope = scope;
+		this.maxPrincipals = maxPrincipals;
+	}
+
+	/**
+	 * Each connection is allowed {@code permits} requests per {@code period}
+	 * @param permits the number of permits
+	 * @param period the period
+	 * @return the {@link RateLimit}
+	 */
+	public static RateLimit perConnection(long permits, Duration period) {
+		return new RateLimit(permits, period, Scope.CONNECTION);
+	}
+
+	/**
+	 * Each authenticated principal is allowed {@code permits} requests per {@code period}
+	 * across all of its connections. Requests without an authenticated principal are
+	 * limited per connection. At most {@link #DEFAULT_MAX_PRINCIPALS} principals are
+	 * tracked.
+	 * @param permits the number of permits
+	 * @param period the period
+	 * @return the {@link RateLimit}
+	 */
+	public static RateLimit perPrincipal(long permits, Duration period) {
+		return new RateLimit(permits, period, Scope.PRINCIPAL);
+	}
+
+	/**
+	 * Each authenticated principal is allowed {@code permits} requests per {@code period}
+	 * across all of its connections. Requests without an authenticated principal are
+	 * limited per connection, as are the requests of a principal that cannot be tracked
+	 * because {@code maxPrincipals} principals are using their permits.
+	 * @param permits the number of permits
+	 * @param period the period
+	 * @param maxPrincipals the maximum number of principals to track. Must be greater
+	 * than 0.
+	 * @return the {@link RateLimit}
+	 */
+	public static RateLimit perPrincipal(long permits, Duration period, int maxPrincipals) {
+		return new RateLimit(permits, period, Scope.PRINCIPAL, maxPrincipals);
+	}
+
+	/**
+	 * All requests are allowed {@code permits} requests per {@code period} in total (i.e.
+	 * to protect an expensive route regardless of who calls it).
+	 * @param permits the number of permits
+	 * @param period the period
+	 * @return the {@link RateLimit}
+	 */
+	public static RateLimit shared(long permits, Duration period) {
+		return new RateLimit(permits, period, Scope.SHARED);
+	}
+
+	public long getPermits() {
+		return this.permits;
+	}
+
+	public Duration getPeriod() {
+		return this.period;
+	}
+
+	public Scope getScope() {
+		return this.scope;
+	}
+
+	public int getMaxPrincipals() {
+		return this.maxPrincipals;
+	}
+
+	TokenBucket createBucket() {
+		return new TokenBucket(this.permits, this.period);
+	}
+
+	@Override
+	public String toString() {
+		return "RateLimit[permits=" + this.permits + ",period=" + this.period + ",scope=" + this.scope + "]";
+	}
+
+	/**
+	 * How the permits of a {@link RateLimit} are shared
+	 */
+	public enum Scope {
+		/**
+		 * Each connection has its own permits.
+		 */
+		CONNECTION,
+
+		/**
+		 * Each authenticated principal has its own permits.
+		 */
+		PRINCIPAL,
+
+		/**
+		 * All requests share the permits.
+		 */
+		SHARED
+	}
+}
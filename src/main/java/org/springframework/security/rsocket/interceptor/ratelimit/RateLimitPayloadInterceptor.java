@@ -0,0 +1,232 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.ratelimit;
+
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeSecurityContextHolder;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcher;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcherEntry;
+import org.springframework.security.rsocket.util.SyncPayloadExchangeMatcher;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rejects requests that exceed a {@link RateLimit} with a
+ * {@link RateLimitExceededException}. The {@link RateLimit} of the first
+ * {@link PayloadExchangeMatcher} that matches (in the order they were provided) is
+ * applied; exchanges that match none are not limited. A permit is only taken once the
+ * result of {@link #intercept(PayloadExchange, PayloadInterceptorChain)} is subscribed,
+ * so each request takes at most one permit even if the interceptors in front of this one
+ * assemble the chain before they decide to invoke it.
+ *
+ * {@link RateLimit.Scope#CONNECTION} and {@link RateLimit.Scope#SHARED} limits should be
+ * placed first, so that requests are rejected before they are authenticated.
+ * {@link RateLimit.Scope#PRINCIPAL} limits use the principal that is available when the
+ * request passes through this interceptor, so they must be placed after authentication;
+ * requests without an authenticated principal are limited per connection. The buckets
+ * for the connection are bound to it when the {@link PayloadExchangeType#SETUP} frame,
+ * which is never limited, passes through this interceptor.
+ *
+ * At most {@link RateLimit#getMaxPrincipals()} principal buckets are held. Once that
+ * many are held, the buckets that are full again (which are indistinguishable from new
+ * buckets) are removed. If none are full, the requests of new principals are limited per
+ * connection.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ * @see TokenBucket
+ */
+public class RateLimitPayloadInterceptor implements PayloadInterceptor {
+	private static final AuthenticationTrustResolver TRUST_RESOLVER = new AuthenticationTrustResolverImpl();
+
+	private final PayloadExchangeMatcher[] matchers;
+
+	private final Limiter[] limiters;
+
+	/**
+	 * Creates a new instance
+	 * @param limits the {@link RateLimit}s to apply. Cannot be null or empty.
+	 */
+	public RateLimitPayloadInterceptor(List<PayloadExchangeMatcherEntry<RateLimit>> limits) {
+		Assert.notEmpty(limits, "limits cannot be empty");
+		this.matchers = new PayloadExchangeMatcher[limits.size()];
+		this.limiters = new Limiter[limits.size()];
+		for (int i = 0; i < limits.size(); i++) {
+			PayloadExchangeMatcherEntry<RateLimit> limit = limits.get(i);
+			Assert.notNull(limit.getMatcher(), "matcher cannot be null");
+			Assert.notNull(limit.getEntry(), "limit cannot be null");
+			this.matchers[i] = limit.getMatcher();
+			this.limiters[i] = new Limiter(limit.getEntry(), i);
+		}
+	}
+
+	@Override
+	public Mono<Void> intercept(PayloadExchange exchange, PayloadInterceptorChain chain) {
+		if (exchange.getType() == PayloadExchangeType.SETUP) {
+			return chain.next(exchange)
+					.subscriberContext(c -> c.put(this, new ConnectionBuckets(this.limiters)));
+		}
+		for (int i = 0; i < this.matchers.length; i++) {
+			PayloadExchangeMatcher matcher = this.matchers[i];
+			if (!(matcher instanceof SyncPayloadExchangeMatcher)) {
+				return intercept(exchange, chain, i);
+			}
+			if (((SyncPayloadExchangeMatcher) matcher).matchesSync(exchange).isMatch()) {
+				return this.limiters[i].acquire(exchange, chain);
+			}
+		}
+		return chain.next(exchange);
+	}
+
+	private Mono<Void> intercept(PayloadExchange exchange, PayloadInterceptorChain chain, int start) {
+		return Flux.range(start, this.matchers.length - start)
+				.concatMap(i -> this.matchers[i].matches(exchange)
+						.filter(PayloadExchangeMatcher.MatchResult::isMatch)
+						.map(r -> this.limiters[i]))
+				.next()
+				.flatMap(limiter -> limiter.acquire(exchange, chain).thenReturn(limiter))
+				.switchIfEmpty(Mono.defer(() -> chain.next(exchange).then(Mono.empty())))
+				.then();
+	}
+
+	private static Mono<Void> next(boolean acquired, PayloadExchange exchange, PayloadInterceptorChain chain) {
+		if (acquired) {
+			return chain.next(exchange);
+		}
+		return Mono.error(new RateLimitExceededException("Rate limit exceeded"));
+	}
+
+	/**
+	 * The buckets that are bound to a connection using this interceptor as the key. Only the {@link Limiter}s that can fall
+	 * back to the connection have a bucket.
+	 */
+	private static final class ConnectionBuckets {
+		private final TokenBucket[] buckets;
+
+		private ConnectionBuckets(Limiter[] limiters) {
+			this.buckets = new TokenBucket[limiters.length];
+			for (int i = 0; i < limiters.length; i++) {
+				RateLimit limit = limiters[i].limit;
+				if (limit.getScope() != RateLimit.Scope.SHARED) {
+					this.buckets[i] = limit.createBucket();
+				}
+			}
+		}
+	}
+
+	private final class Limiter {
+		private final RateLimit limit;
+
+		private final int index;
+
+		private final TokenBucket shared;
+
+		private final Map<String, TokenBucket> principals;
+
+		private final AtomicBoolean removingFull = new AtomicBoolean();
+
+		private Limiter(RateLimit limit, int index) {
+			this.limit = limit;
+			this.index = index;
+			this.shared = limit.getScope() == RateLimit.Scope.SHARED ? limit.createBucket() : null;
+			this.principals = limit.getScope() == RateLimit.Scope.PRINCIPAL ?
+					new ConcurrentHashMap<>() :
+					null;
+		}
+
+		private Mono<Void> acquire(PayloadExchange exchange, PayloadInterceptorChain chain) {
+			if (this.shared != null) {
+				return Mono.defer(() -> next(this.shared.tryAcquire(), exchange, chain));
+			}
+			if (this.principals != null) {
+				SecurityContext securityContext = PayloadExchangeSecurityContextHolder.getContext(exchange);
+				if (securityContext != null) {
+					return Mono.subscriberContext()
+							.flatMap(c -> next(tryAcquire(securityContext.getAuthentication(), c), exchange, chain));
+				}
+			}
+			return Mono.subscriberContext()
+					.flatMap(c -> {
+						if (this.principals == null || !c.hasKey(SecurityContext.class)) {
+							return next(tryAcquire(null, c), exchange, chain);
+						}
+						return c.<Mono<SecurityContext>>get(SecurityContext.class)
+								.map(SecurityContext::getAuthentication)
+								.map(a -> tryAcquire(a, c))
+								.switchIfEmpty(Mono.fromSupplier(() -> tryAcquire(null, c)))
+								.flatMap(acquired -> next(acquired, exchange, chain));
+					});
+		}
+
+		private boolean tryAcquire(Authentication authentication, Context context) {
+			if (authentication != null && authentication.isAuthenticated()
+					&& !TRUST_RESOLVER.isAnonymous(authentication)) {
+				TokenBucket principal = principalBucket(authentication.getName());
+				if (principal != null) {
+					return principal.tryAcquire();
+				}
+			}
+			ConnectionBuckets connection = context.getOrDefault(RateLimitPayloadInterceptor.this, null);
+			return connection == null || connection.buckets[this.index].tryAcquire();
+		}
+
+		/**
+		 * Gets the bucket of the principal or null if the maximum number of principals
+		 * are using their permits.
+		 */
+		private TokenBucket principalBucket(String principal) {
+			TokenBucket result = this.principals.get(principal);
+			if (result != null) {
+				return result;
+			}
+			if (this.principals.size() >= this.limit.getMaxPrincipals()) {
+				removeFull();
+				if (this.principals.size() >= this.limit.getMaxPrincipals()) {
+					return null;
+				}
+			}
+			TokenBucket bucket = this.limit.createBucket();
+			result = this.principals.putIfAbsent(principal, bucket);
+			return result == null ? bucket : result;
+		}
+
+		private void removeFull() {
+			if (this.removingFull.compareAndSet(false, true)) {
+				try {
+					this.principals.values().removeIf(TokenBucket::isFull);
+				}
+				finally {
+					this.removingFull.set(false);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.ratelimit;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A lock free token bucket that holds up to {@code capacity} permits and refills
+ * {@code capacity} permits every {@code period}. The state is a single
+ * {@link AtomicLong}, the theoretical time at which the bucket is full again (the generic
+ * cell rate algorithm). Acquiring a permit is a single compare and set, and rejecting a
+ * permit only reads the state, so a flood of rejected requests does not contend on the
+ * bucket.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public final class TokenBucket {
+	private final long nanosPerPermit;
+
+	private final long burstNanos;
+
+	private final LongSupplier nanoTime;
+
+	private final AtomicLong fullAt;
+
+	/**
+	 * Creates a new full instance
+	 * @param capacity the maximum number of permits. Must be greater than 0.
+	 * @param period the time it takes to refill {@code capacity} permits. Must be positive.
+	 */
+	public TokenBucket(long capacity, Duration period) {
+		this(capacity, period, System::nanoTime);
+	}
+
+	TokenBucket(long capacity, Duration period, LongSupplier nanoTime) {
+		Assert.isTrue(capacity > 0, "capacity must be greater than 0");
+		Assert.notNull(period, "period cannot be null");
+		Assert.isTrue(!period.isNegative() && !period.isZero(), "period must be positive");
+		this.nanosPerPermit = Math.max(1, period.toNanos() / capacity);
+		this.burstNanos = this.nanosPerPermit * capacity;
+		this.nanoTime = nanoTime;
+		this.fullAt = new AtomicLong(nanoTime.getAsLong());
+	}
+
+	/**
+	 * Acquires a permit if one is available
+	 * @return true if a permit was acquired, else false
+	 */
+	public boolean tryAcquire() {
+		long now = this.nanoTime.getAsLong();
+		for (;;) {
+			long current = this.fullAt.get();
+			long next = Math.max(current, now) + this.nanosPerPermit;
+			if (next - now > this.burstNanos) {
+				return false;
+			}
+			if (this.fullAt.compareAndSet(current, next)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Determines if the bucket holds all of its permits, in which case it is
+	 * indistinguishable from a new bucket.
+	 * @return true if the bucket is full
+	 */
+	boolean isFull() {
+		return this.fullAt.get() - this.nanoTime.getAsLong() <= 0;
+	}
+}
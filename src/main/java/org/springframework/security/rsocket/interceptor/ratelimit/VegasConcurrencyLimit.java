@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.ratelimit;
+
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ConcurrencyLimit} based on TCP Vegas. The shortest sampled duration is treated
+ * as the duration without load. Each sample estimates how many requests are queued as
+ * {@code limit * (1 - noLoadDuration / duration)}. The limit grows by one while the queue
+ * is small and the limit is being used, and shrinks by one once the queue grows, so the
+ * limit converges towards the concurrency that can be served without queueing.
+ *
+ * The shortest duration is forgotten after {@code 30 * limit} samples, and the next
+ * sample becomes the duration without load. Otherwise a single unusually fast request,
+ * or a change in the work that is being limited, would keep the limit shrinking forever.
+ *
+ * The duration of a request is the time it held its permit. For a stream this is how long
+ * the stream was open, which says little about load, so this is intended for
+ * {@link PayloadExchangeType#REQUEST_RESPONSE} (see
+ * {@link ConcurrencyLimitPayloadInterceptor#setExchangeTypes(java.util.Set)}).
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public final class VegasConcurrencyLimit implements ConcurrencyLimit {
+	private static final int PROBE_MULTIPLIER = 30;
+
+	private final int maxLimit;
+
+	private volatile int limit;
+
+	private long noLoadNanos;
+
+	private int samples;
+
+	/**
+	 * Creates a new instance
+	 * @param initialLimit the initial limit. Must be greater than 0.
+	 * @param maxLimit the maximum limit. Must be greater than or equal to
+	 * {@code initialLimit}.
+	 */
+	public VegasConcurrencyLimit(int initialLimit, int maxLimit) {
+		Assert.isTrue(initialLimit > 0, "initialLimit must be greater than 0");
+		Assert.isTrue(maxLimit >= initialLimit, "maxLimit must be greater than or equal to initialLimit");
+		this.limit = initialLimit;
+		this.maxLimit = maxLimit;
+	}
+
+	@Override
+	public int getLimit() {
+		return this.limit;
+	}
+
+	@Override
+	public synchronized void onSample(long durationNanos, int inFlight) {
+		if (durationNanos <= 0) {
+			return;
+		}
+		if (++this.samples >= PROBE_MULTIPLIER * this.limit) {
+			this.samples = 0;
+			this.noLoadNanos = 0;
+		}
+		if (this.noLoadNanos == 0 || durationNanos < this.noLoadNanos) {
+			this.noLoadNanos = durationNanos;
+		}
+		int current = this.limit;
+		double log = Math.max(1, Math.log10(current));
+		int queued = (int) Math.ceil(current * (1 - (double) this.noLoadNanos / durationNanos));
+		if (queued < 3 * log) {
+			if (inFlight * 2 >= current) {
+				this.limit = Math.min(this.maxLimit, current + 1);
+			}
+		}
+		else if (queued > 6 * log) {
+			this.limit = Math.max(1, current - 1);
+		}
+	}
+}
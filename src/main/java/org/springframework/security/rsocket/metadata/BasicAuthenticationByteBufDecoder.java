@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.metadata;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Decodes {@link UsernamePasswordMetadata#BASIC_AUTHENTICATION_MIME_TYPE} directly from a
+ * {@link ByteBuf}. The layout is a 4 byte length of the username, the UTF-8 encoded
+ * username, and then the UTF-8 encoded password.
+ *
+ * Unlike {@link BasicAuthenticationDecoder}, the username and password are decoded
+ * straight to a {@link String} without intermediate {@code byte[]} or {@code char[]}
+ * copies, the lengths are validated against the readable bytes, and malformed UTF-8 is
+ * rejected rather than replaced. The password can also be obtained as a {@code char[]}
+ * (that the caller can wipe) or as a view of the bytes, so that it never needs to be a
+ * {@link String}. The reader index of the provided {@link ByteBuf} is not modified.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public final class BasicAuthenticationByteBufDecoder {
+	private static final int USERNAME_LENGTH_SIZE = 4;
+
+	private static final ThreadLocal<CharsetDecoder> UTF_8_DECODER = ThreadLocal.withInitial(() ->
+			StandardCharsets.UTF_8.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT));
+
+	private BasicAuthenticationByteBufDecoder() {
+	}
+
+	/**
+	 * Decodes the username and the password.
+	 * @param metadata the metadata to decode
+	 * @return the decoded {@link UsernamePasswordMetadata}
+	 * @throws IllegalArgumentException if the metadata is malformed
+	 */
+	public static UsernamePasswordMetadata decode(ByteBuf metadata) {
+		return new UsernamePasswordMetadata(decodeUsername(metadata),
+				toString(passwordSlice(metadata), "password"));
+	}
+
+	/**
+	 * Decodes the username.
+	 * @param metadata the metadata to decode
+	 * @return the username
+	 * @throws IllegalArgumentException if the metadata is malformed
+	 */
+	public static String decodeUsername(ByteBuf metadata) {
+		return toString(usernameSlice(metadata), "username");
+	}
+
+	/**
+	 * Decodes the password into a {@code char[]}. The caller should wipe the result (i.e.
+	 * with {@link Arrays#fill(char[], char)}) once it is no longer needed.
+	 * @param metadata the metadata to decode
+	 * @return the password
+	 * @throws IllegalArgumentException if the metadata is malformed
+	 */
+	public static char[] decodePassword(ByteBuf metadata) {
+		return decode(passwordSlice(metadata), "password");
+	}
+
+	/**
+	 * Gets a view of the UTF-8 encoded username without copying it.
+	 * @param metadata the metadata
+	 * @return a slice of {@code metadata} that contains the username
+	 * @throws IllegalArgumentException if the metadata is malformed
+	 */
+	public static ByteBuf usernameSlice(ByteBuf metadata) {
+		return metadata.slice(metadata.readerIndex() + USERNAME_LENGTH_SIZE, usernameLength(metadata));
+	}
+
+	/**
+	 * Gets a view of the UTF-8 encoded password without copying it.
+	 * @param metadata the metadata
+	 * @return a slice of {@code metadata} that contains the password
+	 * @throws IllegalArgumentException if the metadata is malformed
+	 */
+	public static ByteBuf passwordSlice(ByteBuf metadata) {
+		int passwordOffset = USERNAME_LENGTH_SIZE + usernameLength(metadata);
+		return metadata.slice(metadata.readerIndex() + passwordOffset,
+				metadata.readableBytes() - passwordOffset);
+	}
+
+	private static int usernameLength(ByteBuf metadata) {
+		if (metadata.readableBytes() < USERNAME_LENGTH_SIZE) {
+			throw new IllegalArgumentException("Basic authentication metadata must contain the username length");
+		}
+		int usernameLength = metadata.getInt(metadata.readerIndex());
+		if (usernameLength < 0 || usernameLength > metadata.readableBytes() - USERNAME_LENGTH_SIZE) {
+			throw new IllegalArgumentException("Basic authentication metadata contains an invalid username length "
+					+ usernameLength);
+		}
+		return usernameLength;
+	}
+
+	private static char[] decode(ByteBuf bytes, String name) {
+		// UTF-8 never decodes to more chars than there are bytes
+		char[] chars = new char[bytes.readableBytes()];
+		ByteBuffer in = bytes.nioBuffer();
+		CharBuffer out = CharBuffer.wrap(chars);
+		CharsetDecoder decoder = UTF_8_DECODER.get().reset();
+		try {
+			throwIfError(decoder.decode(in, out, true));
+			throwIfError(decoder.flush(out));
+		}
+		catch (CharacterCodingException e) {
+			Arrays.fill(chars, '\0');
+			throw new IllegalArgumentException("Basic authentication " + name + " is not valid UTF-8", e);
+		}
+		if (out.position() == chars.length) {
+			return chars;
+		}
+		char[] result = Arrays.copyOf(chars, out.position());
+		Arrays.fill(chars, '\0');
+		return result;
+	}
+
+	private static void throwIfError(CoderResult result) throws CharacterCodingException {
+		if (result.isError()) {
+			result.throwException();
+		}
+	}
+
+	private static String toString(ByteBuf bytes, String name) {
+		if (!ByteBufUtil.isText(bytes, StandardCharsets.UTF_8)) {
+			throw new IllegalArgumentException("Basic authentication " + name + " is not valid UTF-8");
+		}
+		return bytes.toString(StandardCharsets.UTF_8);
+	}
+}
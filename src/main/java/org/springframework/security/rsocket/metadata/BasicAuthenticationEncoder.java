@@ -16,21 +16,28 @@
 
 package org.springframework.security.rsocket.metadata;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import org.reactivestreams.Publisher;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.codec.AbstractEncoder;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.MimeType;
 import reactor.core.publisher.Flux;
 
-import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
- * Encodes {@link UsernamePasswordMetadata#BASIC_AUTHENTICATION_MIME_TYPE}
+ * Encodes {@link UsernamePasswordMetadata#BASIC_AUTHENTICATION_MIME_TYPE}. The encoded
+ * bytes are computed once per {@link UsernamePasswordMetadata} instance (the instances are
+ * weakly referenced) and written into a buffer of the exact size. When a
+ * {@link NettyDataBufferFactory} is used, the buffer is allocated from its (typically
+ * pooled) {@link io.netty.buffer.ByteBufAllocator}.
  *
  * @author Rob Winch
  * @since 5.2
@@ -38,6 +45,9 @@ import java.util.Map;
 public class BasicAuthenticationEncoder extends
 		AbstractEncoder<UsernamePasswordMetadata> {
 
+	private final Map<UsernamePasswordMetadata, byte[]> encoded =
+			new ConcurrentReferenceHashMap<>(16, ConcurrentReferenceHashMap.ReferenceType.WEAK);
+
 	public BasicAuthenticationEncoder() {
 		super(UsernamePasswordMetadata.BASIC_AUTHENTICATION_MIME_TYPE);
 	}
@@ -55,16 +65,18 @@ public class BasicAuthenticationEncoder extends
 	public DataBuffer encodeValue(UsernamePasswordMetadata credentials,
 			DataBufferFactory bufferFactory, ResolvableType valueType, MimeType mimeType,
 			Map<String, Object> hints) {
-		String username = credentials.getUsername();
-		String password = credentials.getPassword();
-		byte[] usernameBytes = username.getBytes(StandardCharsets.UTF_8);
-		byte[] usernameBytesLengthBytes = ByteBuffer.allocate(4).putInt(usernameBytes.length).array();
-		DataBuffer metadata = bufferFactory.allocateBuffer();
+		byte[] encoded = this.encoded.computeIfAbsent(credentials, BasicAuthenticationEncoder::encode);
+		if (bufferFactory instanceof NettyDataBufferFactory) {
+			NettyDataBufferFactory nettyBufferFactory = (NettyDataBufferFactory) bufferFactory;
+			ByteBuf metadata = nettyBufferFactory.getByteBufAllocator()
+					.buffer(encoded.length, encoded.length)
+					.writeBytes(encoded);
+			return nettyBufferFactory.wrap(metadata);
+		}
+		DataBuffer metadata = bufferFactory.allocateBuffer(encoded.length);
 		boolean release = true;
 		try {
-			metadata.write(usernameBytesLengthBytes);
-			metadata.write(usernameBytes);
-			metadata.write(password.getBytes(StandardCharsets.UTF_8));
+			metadata.write(encoded);
 			release = false;
 			return metadata;
 		} finally {
@@ -73,4 +85,17 @@ public class BasicAuthenticationEncoder extends
 			}
 		}
 	}
+
+	private static byte[] encode(UsernamePasswordMetadata credentials) {
+		String username = credentials.getUsername();
+		String password = credentials.getPassword();
+		int usernameLength = ByteBufUtil.utf8Bytes(username);
+		int passwordLength = ByteBufUtil.utf8Bytes(password);
+		byte[] result = new byte[4 + usernameLength + passwordLength];
+		ByteBuf buffer = Unpooled.wrappedBuffer(result).clear();
+		buffer.writeInt(usernameLength);
+		ByteBufUtil.reserveAndWriteUtf8(buffer, username, usernameLength);
+		ByteBufUtil.reserveAndWriteUtf8(buffer, password, passwordLength);
+		return result;
+	}
 }
@@ -40,6 +40,14 @@ public interface PayloadExchangeMatcher {
 	 * The result of matching
 	 */
 	class MatchResult {
+		private static final MatchResult MATCH = new MatchResult(true, Collections.emptyMap());
+
+		private static final MatchResult NOT_MATCH = new MatchResult(false, Collections.emptyMap());
+
+		private static final Mono<MatchResult> MATCH_MONO = Mono.just(MATCH);
+
+		private static final Mono<MatchResult> NOT_MATCH_MONO = Mono.just(NOT_MATCH);
+
 		private final boolean match;
 		private final Map<String, Object> variables;
 
@@ -60,12 +68,27 @@ public interface PayloadExchangeMatcher {
 			return variables;
 		}
 
+		/**
+		 * Gets this result as a {@code Mono}. The shared match and no match results reuse
+		 * the same {@code Mono}.
+		 * @return
+		 */
+		public Mono<MatchResult> asMono() {
+			if (this == MATCH) {
+				return MATCH_MONO;
+			}
+			if (this == NOT_MATCH) {
+				return NOT_MATCH_MONO;
+			}
+			return Mono.just(this);
+		}
+
 		/**
 		 * Creates an instance of {@link MatchResult} that is a match with no variables
 		 * @return
 		 */
 		public static Mono<MatchResult> match() {
-			return match(Collections.emptyMap());
+			return MATCH_MONO;
 		}
 
 		/**
@@ -75,7 +98,7 @@ public interface PayloadExchangeMatcher {
 		 * @return
 		 */
 		public static Mono<MatchResult> match(Map<String, ? extends Object> variables) {
-			return Mono.just(new MatchResult(true, variables == null ? null : new HashMap<String, Object>(variables)));
+			return matched(variables).asMono();
 		}
 
 		/**
@@ -83,7 +106,49 @@ public interface PayloadExchangeMatcher {
 		 * @return
 		 */
 		public static Mono<MatchResult> notMatch() {
-			return Mono.just(new MatchResult(false, Collections.emptyMap()));
+			return NOT_MATCH_MONO;
+		}
+
+		/**
+		 * Gets the shared {@link MatchResult} that is a match with no variables
+		 * @return
+		 */
+		public static MatchResult matched() {
+			return MATCH;
+		}
+
+		/**
+		 * Creates a {@link MatchResult} that is a match with the specified variables. If
+		 * there are no variables, the shared instance is returned.
+		 * @param variables
+		 * @return
+		 */
+		public static MatchResult matched(Map<String, ? extends Object> variables) {
+			if (variables != null && variables.isEmpty()) {
+				return MATCH;
+			}
+			return new MatchResult(true, variables == null ? null : new HashMap<String, Object>(variables));
+		}
+
+		/**
+		 * Creates a {@link MatchResult} that is a match with variables that cannot be
+		 * modified, so that it can be shared between exchanges.
+		 * @param variables the variables. Cannot be null.
+		 * @return the {@link MatchResult}
+		 */
+		static MatchResult unmodifiable(Map<String, ? extends Object> variables) {
+			if (variables.isEmpty()) {
+				return MATCH;
+			}
+			return new MatchResult(true, Collections.unmodifiableMap(new HashMap<String, Object>(variables)));
+		}
+
+		/**
+		 * Gets the shared {@link MatchResult} that is not a match.
+		 * @return
+		 */
+		public static MatchResult notMatched() {
+			return NOT_MATCH;
 		}
 	}
 }
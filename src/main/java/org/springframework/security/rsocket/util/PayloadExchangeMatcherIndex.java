@@ -0,0 +1,207 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.util;
+
+import org.springframework.messaging.rsocket.MetadataExtractor;
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.util.Assert;
+import org.springframework.util.RouteMatcher;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes a {@code List} of {@link PayloadExchangeMatcherEntry} instances by the literal
+ * leading segments of their {@link RoutePayloadExchangeMatcher} patterns, so that only the
+ * entries which may match the route of a {@link PayloadExchange} need to be evaluated.
+ * The candidates are returned in the order the entries were declared, so the first
+ * matching entry is the same as when every entry is evaluated.
+ *
+ * Entries that are not a {@link RoutePayloadExchangeMatcher}, or whose pattern starts with
+ * a wildcard or variable, are always candidates. If the {@link RouteMatcher} does not match
+ * literal segments exactly (i.e. it is case insensitive or trims whitespace), no index is
+ * created and every entry is a candidate.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public final class PayloadExchangeMatcherIndex<T> {
+	private final List<PayloadExchangeMatcherEntry<T>> entries;
+
+	private final Node root = new Node();
+
+	private final RoutePayloadExchangeMatcher routes;
+
+	private final String separator;
+
+	private PayloadExchangeMatcherIndex(List<PayloadExchangeMatcherEntry<T>> entries,
+			RoutePayloadExchangeMatcher routes, String separator) {
+		this.entries = entries;
+		this.routes = routes;
+		this.separator = separator;
+	}
+
+	/**
+	 * Creates an index of the provided entries.
+	 * @param entries the entries to index in the order they are declared. Cannot be null.
+	 * @return the index
+	 */
+	public static <T> PayloadExchangeMatcherIndex<T> of(List<PayloadExchangeMatcherEntry<T>> entries) {
+		Assert.notNull(entries, "entries cannot be null");
+		List<PayloadExchangeMatcherEntry<T>> copy = new ArrayList<>(entries);
+		RoutePayloadExchangeMatcher first = findFirstRouteMatcher(copy);
+		String separator = first == null ? null : findSeparator(first.getRouteMatcher());
+		if (separator == null) {
+			PayloadExchangeMatcherIndex<T> result = new PayloadExchangeMatcherIndex<>(copy, null, null);
+			for (int i = 0; i < copy.size(); i++) {
+				result.root.add(i);
+			}
+			return result;
+		}
+		PayloadExchangeMatcherIndex<T> result = new PayloadExchangeMatcherIndex<>(copy, first, separator);
+		for (int i = 0; i < copy.size(); i++) {
+			PayloadExchangeMatcher matcher = copy.get(i).getMatcher();
+			if (isIndexable(matcher, first)) {
+				result.root.add(((RoutePayloadExchangeMatcher) matcher).getPattern(), separator, i);
+			}
+			else {
+				result.root.add(i);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the entries that may match the provided exchange in the order they were declared.
+	 * @param exchange the exchange to find candidates for
+	 * @return the entries that may match
+	 */
+	public List<PayloadExchangeMatcherEntry<T>> getCandidates(PayloadExchange exchange) {
+		if (this.separator == null || this.root.children.isEmpty()) {
+			return this.entries;
+		}
+		BitSet candidates = new BitSet(this.entries.size());
+		this.root.collect(extractRoute(exchange), this.separator, candidates);
+		List<PayloadExchangeMatcherEntry<T>> result = new ArrayList<>(candidates.cardinality());
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			result.add(this.entries.get(i));
+		}
+		return result;
+	}
+
+	private String extractRoute(PayloadExchange exchange) {
+		RouteMatchCache routeMatchCache = this.routes.getRouteMatchCache();
+		if (routeMatchCache != null) {
+			RouteMatchCache.CachedRoute route = routeMatchCache.getRoute(exchange,
+					this.routes.getMetadataExtractor(), this.routes.getRouteMatcher());
+			return route == null ? null : route.getValue();
+		}
+		Map<String, Object> metadata = exchange.getMetadata(this.routes.getMetadataExtractor());
+		return (String) metadata.get(MetadataExtractor.ROUTE_KEY);
+	}
+
+	private static boolean isIndexable(PayloadExchangeMatcher matcher, RoutePayloadExchangeMatcher first) {
+		if (!(matcher instanceof RoutePayloadExchangeMatcher)) {
+			return false;
+		}
+		RoutePayloadExchangeMatcher route = (RoutePayloadExchangeMatcher) matcher;
+		return route.getMetadataExtractor() == first.getMetadataExtractor()
+				&& route.getRouteMatcher() == first.getRouteMatcher();
+	}
+
+	private static RoutePayloadExchangeMatcher findFirstRouteMatcher(List<? extends PayloadExchangeMatcherEntry<?>> entries) {
+		for (PayloadExchangeMatcherEntry<?> entry : entries) {
+			if (entry.getMatcher() instanceof RoutePayloadExchangeMatcher) {
+				return (RoutePayloadExchangeMatcher) entry.getMatcher();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Determines the separator of the {@link RouteMatcher} and ensures literal segments are
+	 * matched exactly.
+	 * @return the separator or null if the {@link RouteMatcher} cannot be indexed
+	 */
+	private static String findSeparator(RouteMatcher routeMatcher) {
+		String combined = routeMatcher.combine("a", "b");
+		if (combined == null || combined.length() < 3 || !combined.startsWith("a") || !combined.endsWith("b")) {
+			return null;
+		}
+		if (routeMatcher.match("a", routeMatcher.parseRoute("A"))
+				|| routeMatcher.match("a", routeMatcher.parseRoute(" a"))) {
+			return null;
+		}
+		return combined.substring(1, combined.length() - 1);
+	}
+
+	private static boolean isLiteral(String segment) {
+		return segment.indexOf('*') == -1 && segment.indexOf('?') == -1 && segment.indexOf('{') == -1;
+	}
+
+	private static final class Node {
+		private final Map<String, Node> children = new HashMap<>();
+
+		private final BitSet entries = new BitSet();
+
+		void add(int entry) {
+			this.entries.set(entry);
+		}
+
+		void add(String pattern, String separator, int entry) {
+			Node node = this;
+			int start = 0;
+			while (start <= pattern.length()) {
+				int end = pattern.indexOf(separator, start);
+				end = end == -1 ? pattern.length() : end;
+				String segment = pattern.substring(start, end);
+				if (!isLiteral(segment)) {
+					break;
+				}
+				if (!segment.isEmpty()) {
+					node = node.children.computeIfAbsent(segment, s -> new Node());
+				}
+				start = end + separator.length();
+			}
+			node.add(entry);
+		}
+
+		void collect(String route, String separator, BitSet candidates) {
+			Node node = this;
+			candidates.or(node.entries);
+			if (route == null) {
+				return;
+			}
+			int start = 0;
+			while (start < route.length()) {
+				int end = route.indexOf(separator, start);
+				end = end == -1 ? route.length() : end;
+				if (end > start) {
+					node = node.children.get(route.substring(start, end));
+					if (node == null) {
+						return;
+					}
+					candidates.or(node.entries);
+				}
+				start = end + separator.length();
+			}
+		}
+	}
+}
@@ -18,37 +18,60 @@ package org.springframework.security.rsocket.util;
 
 import org.springframework.security.rsocket.interceptor.PayloadExchange;
 import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
-import reactor.core.publisher.Mono;
+import org.springframework.security.rsocket.metadata.BearerTokenMetadata;
+import org.springframework.security.rsocket.metadata.UsernamePasswordMetadata;
+
+import java.util.Map;
 
 /**
  * @author Rob Winch
  */
 public abstract class PayloadExchangeMatchers {
+	private static final String BASIC_MIME_TYPE_VALUE =
+			UsernamePasswordMetadata.BASIC_AUTHENTICATION_MIME_TYPE.toString();
+
+	private static final String BEARER_MIME_TYPE_VALUE =
+			BearerTokenMetadata.BEARER_AUTHENTICATION_MIME_TYPE.toString();
 
 	public static PayloadExchangeMatcher setup() {
-		return new PayloadExchangeMatcher() {
-			public Mono<MatchResult> matches(PayloadExchange exchange) {
+		return new SyncPayloadExchangeMatcher() {
+			public MatchResult matchesSync(PayloadExchange exchange) {
 				return PayloadExchangeType.SETUP.equals(exchange.getType()) ?
-						MatchResult.match() :
-						MatchResult.notMatch();
+						MatchResult.matched() :
+						MatchResult.notMatched();
 			}
 		};
 	}
 
 	public static PayloadExchangeMatcher anyRequest() {
-		return new PayloadExchangeMatcher() {
-			public Mono<MatchResult> matches(PayloadExchange exchange) {
+		return new SyncPayloadExchangeMatcher() {
+			public MatchResult matchesSync(PayloadExchange exchange) {
 				return exchange.getType().isRequest() ?
-						MatchResult.match() :
-						MatchResult.notMatch();
+						MatchResult.matched() :
+						MatchResult.notMatched();
 			}
 		};
 	}
 
 	public static PayloadExchangeMatcher anyExchange() {
-		return new PayloadExchangeMatcher() {
-			public Mono<MatchResult> matches(PayloadExchange exchange) {
-				return MatchResult.match();
+		return new SyncPayloadExchangeMatcher() {
+			public MatchResult matchesSync(PayloadExchange exchange) {
+				return MatchResult.matched();
+			}
+		};
+	}
+
+	/**
+	 * Matches exchanges that contain Basic or Bearer authentication metadata.
+	 * @return the {@link PayloadExchangeMatcher}
+	 */
+	public static PayloadExchangeMatcher authenticationMetadata() {
+		return new SyncPayloadExchangeMatcher() {
+			public MatchResult matchesSync(PayloadExchange exchange) {
+				Map<String, ?> entries = exchange.getMetadataEntries();
+				return entries.containsKey(BASIC_MIME_TYPE_VALUE) || entries.containsKey(BEARER_MIME_TYPE_VALUE) ?
+						MatchResult.matched() :
+						MatchResult.notMatched();
 			}
 		};
 	}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.metadata.RoutingMetadata;
+import io.rsocket.metadata.WellKnownMimeType;
+import org.springframework.messaging.rsocket.DefaultMetadataExtractor;
+import org.springframework.messaging.rsocket.MetadataExtractor;
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.util.Assert;
+import org.springframework.util.RouteMatcher;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of parsed {@link RouteMatcher.Route}s and the result of matching them
+ * against route patterns, so a cache hit does not need to parse the route or match it
+ * again.
+ *
+ * If the route is extracted by a {@link DefaultMetadataExtractor}, entries are keyed by
+ * the raw bytes of the {@code message/x.rsocket.routing.v0} composite metadata entry, so
+ * a cache hit does not need to decode the route either. The bytes are only used as the
+ * key if the extracted route is the first tag of that entry. Otherwise (i.e. for a custom
+ * {@link MetadataExtractor}), entries are keyed by the extracted route.
+ *
+ * When the cache is full, the entry that was added first is evicted (FIFO). Lookups do
+ * not change the order, so this is not a least recently used cache.
+ *
+ * A {@code RouteMatchCache} must only be shared by {@link RoutePayloadExchangeMatcher}s
+ * that use the same {@link MetadataExtractor} and {@link RouteMatcher}.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ * @see RoutePayloadExchangeMatcher#setRouteMatchCache(RouteMatchCache)
+ */
+public final class RouteMatchCache {
+	private static final String ROUTING_MIME_TYPE = WellKnownMimeType.MESSAGE_RSOCKET_ROUTING.getString();
+
+	private final int maxSize;
+
+	// keyed by the routing metadata ByteBuf or the extracted route String
+	private final Map<Object, CachedRoute> routes = new ConcurrentHashMap<>();
+
+	private final Queue<Object> keys = new ConcurrentLinkedQueue<>();
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	/**
+	 * Creates a new instance
+	 * @param maxSize the maximum number of routes to cache. Must be greater than 0.
+	 */
+	public RouteMatchCache(int maxSize) {
+		Assert.isTrue(maxSize > 0, "maxSize must be greater than 0");
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * The number of lookups that found a cached route.
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * The number of lookups that had to parse the route.
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * The number of routes that are currently cached.
+	 * @return the size
+	 */
+	public int size() {
+		return this.routes.size();
+	}
+
+	/**
+	 * Gets the route of the exchange.
+	 * @param exchange the exchange
+	 * @param metadataExtractor the {@link MetadataExtractor} used to extract the route
+	 * @param routeMatcher the {@link RouteMatcher} used to parse the route if not cached
+	 * @return the cached route or null if the exchange has no route
+	 */
+	CachedRoute getRoute(PayloadExchange exchange, MetadataExtractor metadataExtractor,
+			RouteMatcher routeMatcher) {
+		ByteBuf routing = metadataExtractor.getClass() == DefaultMetadataExtractor.class ?
+				exchange.getMetadataEntries().get(ROUTING_MIME_TYPE) :
+				null;
+		CachedRoute route = routing == null ? null : this.routes.get(routing);
+		if (route != null) {
+			this.hitCount.increment();
+			return route;
+		}
+		String value = (String) exchange.getMetadata(metadataExtractor).get(MetadataExtractor.ROUTE_KEY);
+		if (value == null) {
+			return null;
+		}
+		boolean routingKey = routing != null && value.equals(firstTag(routing));
+		Object key = routingKey ? routing : value;
+		route = this.routes.get(key);
+		if (route != null) {
+			this.hitCount.increment();
+			return route;
+		}
+		this.missCount.increment();
+		route = new CachedRoute(routeMatcher, routeMatcher.parseRoute(value));
+		if (routingKey) {
+			// the content is only valid as long as the Payload
+			key = Unpooled.copiedBuffer(routing);
+		}
+		CachedRoute existing = this.routes.putIfAbsent(key, route);
+		if (existing != null) {
+			return existing;
+		}
+		this.keys.add(key);
+		while (this.routes.size() > this.maxSize) {
+			Object eldest = this.keys.poll();
+			if (eldest == null) {
+				break;
+			}
+			this.routes.remove(eldest);
+		}
+		return route;
+	}
+
+	private static String firstTag(ByteBuf routing) {
+		Iterator<String> tags = new RoutingMetadata(routing.slice()).iterator();
+		return tags.hasNext() ? tags.next() : null;
+	}
+
+	/**
+	 * A parsed route and the result of matching it against each pattern. The results are
+	 * shared by every exchange with the same route, so their variables cannot be modified.
+	 */
+	static final class CachedRoute {
+		private final RouteMatcher routeMatcher;
+
+		private final RouteMatcher.Route route;
+
+		private final Map<String, PayloadExchangeMatcher.MatchResult> results = new ConcurrentHashMap<>();
+
+		private CachedRoute(RouteMatcher routeMatcher, RouteMatcher.Route route) {
+			this.routeMatcher = routeMatcher;
+			this.route = route;
+		}
+
+		String getValue() {
+			return this.route.value();
+		}
+
+		PayloadExchangeMatcher.MatchResult matches(String pattern) {
+			PayloadExchangeMatcher.MatchResult result = this.results.get(pattern);
+			if (result == null) {
+				Map<String, String> variables = this.routeMatcher.matchAndExtract(pattern, this.route);
+				result = variables == null ?
+						PayloadExchangeMatcher.MatchResult.notMatched() :
+						PayloadExchangeMatcher.MatchResult.unmodifiable(variables);
+				this.results.putIfAbsent(pattern, result);
+			}
+			return result;
+		}
+	}
+}
@@ -20,7 +20,6 @@ import org.springframework.messaging.rsocket.MetadataExtractor;
 import org.springframework.security.rsocket.interceptor.PayloadExchange;
 import org.springframework.util.Assert;
 import org.springframework.util.RouteMatcher;
-import reactor.core.publisher.Mono;
 
 import java.util.Map;
 import java.util.Optional;
@@ -32,7 +31,7 @@ import java.util.Optional;
  * @author Rob Winch
  * @since 5.2
  */
-public class RoutePayloadExchangeMatcher implements PayloadExchangeMatcher {
+public class RoutePayloadExchangeMatcher implements SyncPayloadExchangeMatcher {
 
 	private final String pattern;
 
@@ -40,6 +39,8 @@ public class RoutePayloadExchangeMatcher implements PayloadExchangeMatcher {
 
 	private final RouteMatcher routeMatcher;
 
+	private RouteMatchCache routeMatchCache;
+
 	public RoutePayloadExchangeMatcher(MetadataExtractor metadataExtractor,
 			RouteMatcher routeMatcher, String pattern) {
 		Assert.notNull(pattern, "pattern cannot be null");
@@ -48,14 +49,49 @@ public class RoutePayloadExchangeMatcher implements PayloadExchangeMatcher {
 		this.pattern = pattern;
 	}
 
+	/**
+	 * Sets a {@link RouteMatchCache} that is used to look up the route and the result of
+	 * matching it. The cache must only be shared with matchers that use the same
+	 * {@link MetadataExtractor} and {@link RouteMatcher}.
+	 * @param routeMatchCache the cache to use. Cannot be null.
+	 */
+	public void setRouteMatchCache(RouteMatchCache routeMatchCache) {
+		Assert.notNull(routeMatchCache, "routeMatchCache cannot be null");
+		this.routeMatchCache = routeMatchCache;
+	}
+
 	@Override
-	public Mono<MatchResult> matches(PayloadExchange exchange) {
-		Map<String, Object> metadata = this.metadataExtractor
-				.extract(exchange.getPayload(), exchange.getMetadataMimeType());
+	public MatchResult matchesSync(PayloadExchange exchange) {
+		if (this.routeMatchCache != null) {
+			RouteMatchCache.CachedRoute route = this.routeMatchCache.getRoute(exchange,
+					this.metadataExtractor, this.routeMatcher);
+			return route == null ? MatchResult.notMatched() : route.matches(this.pattern);
+		}
+		Map<String, Object> metadata = exchange.getMetadata(this.metadataExtractor);
 		return Optional.ofNullable((String) metadata.get(MetadataExtractor.ROUTE_KEY))
 			.map(routeValue -> this.routeMatcher.parseRoute(routeValue))
 			.map(route -> this.routeMatcher.matchAndExtract(this.pattern, route))
-			.map(v -> MatchResult.match(v))
-			.orElse(MatchResult.notMatch());
+			.map(v -> MatchResult.matched(v))
+			.orElse(MatchResult.notMatched());
+	}
+
+	/**
+	 * Gets the route pattern that is matched
+	 * @return the route pattern
+	 */
+	public String getPattern() {
+		return this.pattern;
+	}
+
+	MetadataExtractor getMetadataExtractor() {
+		return this.metadataExtractor;
+	}
+
+	RouteMatcher getRouteMatcher() {
+		return this.routeMatcher;
+	}
+
+	RouteMatchCache getRouteMatchCache() {
+		return this.routeMatchCache;
 	}
 }
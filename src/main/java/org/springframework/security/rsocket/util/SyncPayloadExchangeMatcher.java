@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.util;
+
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * A {@link PayloadExchangeMatcher} that can determine if it matches without blocking. This
+ * allows callers to evaluate the matcher without assembling a {@code Mono}.
+ *
+ * @author Rob Winch
+ * @since 5.2
+ */
+public interface SyncPayloadExchangeMatcher extends PayloadExchangeMatcher {
+
+	/**
+	 * Determines if a request matches or not
+	 * @param exchange
+	 * @return
+	 */
+	MatchResult matchesSync(PayloadExchange exchange);
+
+	@Override
+	default Mono<MatchResult> matches(PayloadExchange exchange) {
+		return matchesSync(exchange).asMono();
+	}
+}
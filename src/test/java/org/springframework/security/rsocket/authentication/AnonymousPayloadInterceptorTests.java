@@ -27,12 +27,20 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
 import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeSecurityContextHolder;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
 import org.springframework.security.rsocket.interceptor.authentication.AnonymousPayloadInterceptor;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.when;
 
 /**
  * @author Rob Winch
@@ -105,4 +113,61 @@ public class AnonymousPayloadInterceptorTests {
 
 		assertThat(authentication).isEqualTo(expected);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void interceptWhenExchangeSecurityContextThenAnonymousOnExchange() {
+		AuthenticationPayloadInterceptorChain chain = new AuthenticationPayloadInterceptorChain();
+		Map<String, Object> attributes = new HashMap<>();
+		when(this.exchange.getAttributes()).thenReturn(attributes);
+		this.interceptor.setExchangeSecurityContext(true);
+
+		this.interceptor.intercept(this.exchange, chain).block();
+
+		assertThat(PayloadExchangeSecurityContextHolder.getContext(this.exchange).getAuthentication())
+				.isInstanceOf(AnonymousAuthenticationToken.class);
+		assertThat(chain.getAuthentication()).isNull();
+	}
+
+	@Test
+	public void interceptWhenExchangeAuthenticationThenNotAnonymous() {
+		AuthenticationPayloadInterceptorChain chain = new AuthenticationPayloadInterceptorChain();
+		Map<String, Object> attributes = new HashMap<>();
+		when(this.exchange.getAttributes()).thenReturn(attributes);
+		TestingAuthenticationToken expected =
+				new TestingAuthenticationToken("test", "password");
+		PayloadExchangeSecurityContextHolder.setAuthentication(this.exchange, expected);
+
+		this.interceptor.intercept(this.exchange, chain).block();
+
+		assertThat(PayloadExchangeSecurityContextHolder.getContext(this.exchange).getAuthentication())
+				.isEqualTo(expected);
+		assertThat(chain.getAuthentication()).isNull();
+	}
+
+	@Test
+	public void interceptWhenNoAuthenticationTwiceThenSameAnonymousAuthentication() {
+		AuthenticationPayloadInterceptorChain chain1 = new AuthenticationPayloadInterceptorChain();
+		AuthenticationPayloadInterceptorChain chain2 = new AuthenticationPayloadInterceptorChain();
+
+		this.interceptor.intercept(this.exchange, chain1).block();
+		this.interceptor.intercept(this.exchange, chain2).block();
+
+		assertThat(chain1.getAuthentication()).isSameAs(chain2.getAuthentication());
+	}
+
+	@Test
+	public void interceptWhenSecurityContextModifiedThenNextExchangeAnonymous() {
+		AtomicReference<SecurityContext> securityContext = new AtomicReference<>();
+		PayloadInterceptorChain chain = e -> ReactiveSecurityContextHolder.getContext()
+				.doOnNext(securityContext::set)
+				.then();
+		this.interceptor.intercept(this.exchange, chain).block();
+		securityContext.get().setAuthentication(new TestingAuthenticationToken("test", "password"));
+
+		AuthenticationPayloadInterceptorChain next = new AuthenticationPayloadInterceptorChain();
+		this.interceptor.intercept(this.exchange, next).block();
+
+		assertThat(next.getAuthentication()).isInstanceOf(AnonymousAuthenticationToken.class);
+		assertThat(securityContext.get()).isInstanceOf(SecurityContextImpl.class);
+	}
+}
@@ -16,11 +16,16 @@
 
 package org.springframework.security.rsocket.authentication;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.DefaultEventExecutor;
 import io.rsocket.Payload;
+import io.rsocket.exceptions.RejectedException;
 import io.rsocket.metadata.CompositeMetadataFlyweight;
 import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.util.ByteBufPayload;
 import io.rsocket.util.DefaultPayload;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -33,13 +38,18 @@ import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.core.io.buffer.NettyDataBufferFactory;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
 import org.springframework.security.rsocket.interceptor.authentication.AuthenticationPayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.authentication.AuthenticationScheduler;
+import org.springframework.security.rsocket.interceptor.authentication.BearerPayloadExchangeConverter;
+import org.springframework.security.rsocket.interceptor.authentication.ByteBufBearerTokenAuthenticationToken;
 import org.springframework.security.rsocket.metadata.BasicAuthenticationEncoder;
+import org.springframework.security.rsocket.metadata.BearerTokenMetadata;
 import org.springframework.security.rsocket.metadata.UsernamePasswordMetadata;
 import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
@@ -49,13 +59,22 @@ import reactor.test.publisher.PublisherProbe;
 import org.springframework.security.rsocket.interceptor.DefaultPayloadExchange;
 import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
 import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeSecurityContextHolder;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -119,6 +138,252 @@ public class AuthenticationPayloadInterceptorTests {
 			.verifyComplete();
 	}
 
+	@Test
+	public void interceptWhenExchangeSecurityContextThenAuthenticationOnExchange() {
+		AuthenticationPayloadInterceptor interceptor = new AuthenticationPayloadInterceptor(
+				this.authenticationManager);
+		interceptor.setExchangeSecurityContext(true);
+		PayloadExchange exchange = createExchange();
+		TestingAuthenticationToken expectedAuthentication =
+				new TestingAuthenticationToken("user","password");
+		when(this.authenticationManager.authenticate(any())).thenReturn(Mono.just(
+				expectedAuthentication));
+		AuthenticationPayloadInterceptorChain chain = new AuthenticationPayloadInterceptorChain();
+
+		interceptor.intercept(exchange, chain).block();
+
+		assertThat(PayloadExchangeSecurityContextHolder.getContext(exchange).getAuthentication())
+				.isEqualTo(expectedAuthentication);
+		assertThat(chain.getAuthentication()).isNull();
+	}
+
+	@Test
+	public void interceptWhenExchangeSecurityContextAndNoAttributesThenAuthenticationInContext() {
+		AuthenticationPayloadInterceptor interceptor = new AuthenticationPayloadInterceptor(
+				this.authenticationManager);
+		interceptor.setExchangeSecurityContext(true);
+		PayloadExchange exchange = new DefaultPayloadExchange(PayloadExchangeType.REQUEST_RESPONSE,
+				createRequestPayload(), COMPOSITE_METADATA, MediaType.APPLICATION_JSON) {
+			@Override
+			public Map<String, Object> getAttributes() {
+				return Collections.emptyMap();
+			}
+		};
+		TestingAuthenticationToken expectedAuthentication =
+				new TestingAuthenticationToken("user","password");
+		when(this.authenticationManager.authenticate(any())).thenReturn(Mono.just(
+				expectedAuthentication));
+		AuthenticationPayloadInterceptorChain chain = new AuthenticationPayloadInterceptorChain();
+
+		interceptor.intercept(exchange, chain).block();
+
+		assertThat(chain.getAuthentication()).isEqualTo(expectedAuthentication);
+	}
+
+	@Test
+	public void interceptWhenBearerTokenThenTokenReleased() {
+		AuthenticationPayloadInterceptor interceptor = new AuthenticationPayloadInterceptor(
+				this.authenticationManager);
+		interceptor.setAuthenticationConverter(new BearerPayloadExchangeConverter());
+		ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+		CompositeByteBuf metadata = allocator.compositeBuffer();
+		CompositeMetadataFlyweight.encodeAndAddMetadata(metadata, allocator,
+				BearerTokenMetadata.BEARER_AUTHENTICATION_MIME_TYPE.toString(),
+				Unpooled.copiedBuffer("token", StandardCharsets.UTF_8));
+		PayloadExchange exchange = new DefaultPayloadExchange(PayloadExchangeType.REQUEST_RESPONSE,
+				DefaultPayload.create(allocator.buffer(), metadata), COMPOSITE_METADATA,
+				MediaType.APPLICATION_JSON);
+		when(this.authenticationManager.authenticate(any())).thenReturn(Mono.just(
+				new TestingAuthenticationToken("user", "password")));
+
+		interceptor.intercept(exchange, new AuthenticationPayloadInterceptorChain()).block();
+
+		verify(this.authenticationManager).authenticate(this.authenticationArg.capture());
+		ByteBufBearerTokenAuthenticationToken token =
+				(ByteBufBearerTokenAuthenticationToken) this.authenticationArg.getValue();
+		assertThat(token.refCnt()).isEqualTo(1);
+		assertThat(token.getToken()).isEqualTo("token");
+	}
+
+	@Test
+	public void interceptWhenBasicAndBearerThenMetadataNotRetained() {
+		AuthenticationPayloadInterceptor basic = new AuthenticationPayloadInterceptor(
+				this.authenticationManager);
+		AuthenticationPayloadInterceptor bearer = new AuthenticationPayloadInterceptor(
+				this.authenticationManager);
+		bearer.setAuthenticationConverter(new BearerPayloadExchangeConverter());
+		ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+		CompositeByteBuf metadata = allocator.compositeBuffer();
+		CompositeMetadataFlyweight.encodeAndAddMetadata(metadata, allocator,
+				UsernamePasswordMetadata.BASIC_AUTHENTICATION_MIME_TYPE.toString(),
+				Unpooled.buffer().writeInt(4).writeBytes("userpassword".getBytes(StandardCharsets.UTF_8)));
+		CompositeMetadataFlyweight.encodeAndAddMetadata(metadata, allocator,
+				BearerTokenMetadata.BEARER_AUTHENTICATION_MIME_TYPE.toString(),
+				Unpooled.copiedBuffer("token", StandardCharsets.UTF_8));
+		PayloadExchange exchange = new DefaultPayloadExchange(PayloadExchangeType.REQUEST_RESPONSE,
+				ByteBufPayload.create(allocator.buffer(), metadata), COMPOSITE_METADATA,
+				MediaType.APPLICATION_JSON);
+		when(this.authenticationManager.authenticate(any())).thenReturn(Mono.just(
+				new TestingAuthenticationToken("user", "password")));
+		AuthenticationPayloadInterceptorChain chain = new AuthenticationPayloadInterceptorChain();
+
+		basic.intercept(exchange, e -> bearer.intercept(e, chain)).block();
+
+		verify(this.authenticationManager, times(2)).authenticate(any());
+		assertThat(metadata.refCnt()).isEqualTo(1);
+	}
+
+	@Test
+	public void interceptWhenBearerAndNotSubscribedThenMetadataNotRetained() {
+		AuthenticationPayloadInterceptor interceptor = new AuthenticationPayloadInterceptor(
+				this.authenticationManager);
+		interceptor.setAuthenticationConverter(new BearerPayloadExchangeConverter());
+		ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+		CompositeByteBuf metadata = allocator.compositeBuffer();
+		CompositeMetadataFlyweight.encodeAndAddMetadata(metadata, allocator,
+				BearerTokenMetadata.BEARER_AUTHENTICATION_MIME_TYPE.toString(),
+				Unpooled.copiedBuffer("token", StandardCharsets.UTF_8));
+		PayloadExchange exchange = new DefaultPayloadExchange(PayloadExchangeType.REQUEST_RESPONSE,
+				ByteBufPayload.create(allocator.buffer(), metadata), COMPOSITE_METADATA,
+				MediaType.APPLICATION_JSON);
+
+		interceptor.intercept(exchange, new AuthenticationPayloadInterceptorChain());
+
+		assertThat(metadata.refCnt()).isEqualTo(1);
+		verifyZeroInteractions(this.authenticationManager);
+	}
+
+	@Test
+	public void interceptWhenMalformedBasicCredentialsThenBadCredentials() {
+		AuthenticationPayloadInterceptor interceptor = new AuthenticationPayloadInterceptor(
+				this.authenticationManager);
+		ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+		CompositeByteBuf metadata = allocator.compositeBuffer();
+		CompositeMetadataFlyweight.encodeAndAddMetadata(metadata, allocator,
+				UsernamePasswordMetadata.BASIC_AUTHENTICATION_MIME_TYPE.toString(),
+				Unpooled.buffer().writeInt(100).writeBytes("user".getBytes(StandardCharsets.UTF_8)));
+		PayloadExchange exchange = new DefaultPayloadExchange(PayloadExchangeType.REQUEST_RESPONSE,
+				DefaultPayload.create(allocator.buffer(), metadata), COMPOSITE_METADATA,
+				MediaType.APPLICATION_JSON);
+
+		StepVerifier.create(interceptor.intercept(exchange, new AuthenticationPayloadInterceptorChain()))
+				.verifyError(BadCredentialsException.class);
+		verifyZeroInteractions(this.authenticationManager);
+	}
+
+	@Test
+	public void interceptWhenAuthenticationSchedulerThenAuthenticatesOnSchedulerAndContinuesOnEventLoop()
+			throws Exception {
+		AuthenticationScheduler scheduler = AuthenticationScheduler.fixed(1, 1);
+		DefaultEventExecutor eventLoop = new DefaultEventExecutor();
+		try {
+			AuthenticationPayloadInterceptor interceptor = new AuthenticationPayloadInterceptor(
+					this.authenticationManager);
+			interceptor.setAuthenticationScheduler(scheduler.getScheduler());
+			interceptor.setEventLoopGroup(eventLoop);
+			AtomicReference<String> authenticationThread = new AtomicReference<>();
+			when(this.authenticationManager.authenticate(any())).thenReturn(Mono.fromCallable(() -> {
+				authenticationThread.set(Thread.currentThread().getName());
+				return new TestingAuthenticationToken("user", "password");
+			}));
+			AtomicReference<Thread> chainThread = new AtomicReference<>();
+			PayloadInterceptorChain chain = mock(PayloadInterceptorChain.class);
+			when(chain.next(any())).thenReturn(Mono.fromRunnable(() -> chainThread.set(Thread.currentThread())));
+			PayloadExchange exchange = createExchange();
+
+			eventLoop.submit(() -> interceptor.intercept(exchange, chain).toFuture()).get()
+					.get(5, TimeUnit.SECONDS);
+
+			assertThat(authenticationThread.get()).startsWith("rsocket-authentication-");
+			assertThat(eventLoop.inEventLoop(chainThread.get())).isTrue();
+		}
+		finally {
+			eventLoop.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+			scheduler.dispose();
+		}
+	}
+
+	@Test
+	public void interceptWhenAuthenticationSchedulerAndNoEventLoopGroupThenContinuesOnScheduler()
+			throws Exception {
+		AuthenticationScheduler scheduler = AuthenticationScheduler.fixed(1, 1);
+		DefaultEventExecutor eventLoop = new DefaultEventExecutor();
+		try {
+			AuthenticationPayloadInterceptor interceptor = new AuthenticationPayloadInterceptor(
+					this.authenticationManager);
+			interceptor.setAuthenticationScheduler(scheduler.getScheduler());
+			when(this.authenticationManager.authenticate(any()))
+					.thenReturn(Mono.just(new TestingAuthenticationToken("user", "password")));
+			AtomicReference<String> chainThread = new AtomicReference<>();
+			PayloadInterceptorChain chain = mock(PayloadInterceptorChain.class);
+			when(chain.next(any())).thenReturn(Mono.fromRunnable(() -> chainThread.set(Thread.currentThread().getName())));
+			PayloadExchange exchange = createExchange();
+
+			eventLoop.submit(() -> interceptor.intercept(exchange, chain).toFuture()).get()
+					.get(5, TimeUnit.SECONDS);
+
+			assertThat(chainThread.get()).startsWith("rsocket-authentication-");
+		}
+		finally {
+			eventLoop.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+			scheduler.dispose();
+		}
+	}
+
+	@Test
+	public void interceptWhenAuthenticationSchedulerAndByteBufTokenThenAuthenticatesCopy() {
+		AuthenticationScheduler scheduler = AuthenticationScheduler.fixed(1, 1);
+		try {
+			AuthenticationPayloadInterceptor interceptor = new AuthenticationPayloadInterceptor(
+					this.authenticationManager);
+			interceptor.setAuthenticationScheduler(scheduler.getScheduler());
+			ByteBuf content = Unpooled.copiedBuffer("token", StandardCharsets.UTF_8);
+			ByteBufBearerTokenAuthenticationToken token = new ByteBufBearerTokenAuthenticationToken(content);
+			content.release();
+			interceptor.setAuthenticationConverter(e -> Mono.just(token));
+			AtomicReference<Authentication> authenticated = new AtomicReference<>();
+			when(this.authenticationManager.authenticate(any())).thenAnswer(invocation -> {
+				authenticated.set((Authentication) invocation.getArguments()[0]);
+				return Mono.just(new TestingAuthenticationToken("user", "password"));
+			});
+
+			StepVerifier.create(interceptor.intercept(createExchange(), new AuthenticationPayloadInterceptorChain()))
+					.verifyComplete();
+
+			assertThat(authenticated.get()).isNotSameAs(token);
+			assertThat(token.refCnt()).isZero();
+			assertThat(((ByteBufBearerTokenAuthenticationToken) authenticated.get()).getToken()).isEqualTo("token");
+		}
+		finally {
+			scheduler.dispose();
+		}
+	}
+
+	@Test
+	public void interceptWhenAuthenticationSchedulerRejectsThenRejectedException() throws Exception {
+		AuthenticationScheduler scheduler = AuthenticationScheduler.fixed(1, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<Boolean> blocking = Mono.fromCallable(() -> release.await(5, TimeUnit.SECONDS))
+				.subscribeOn(scheduler.getScheduler())
+				.toFuture();
+		try {
+			AuthenticationPayloadInterceptor interceptor = new AuthenticationPayloadInterceptor(
+					this.authenticationManager);
+			interceptor.setAuthenticationScheduler(scheduler.getScheduler());
+			Mono<Void> intercept = interceptor.intercept(createExchange(), new AuthenticationPayloadInterceptorChain());
+
+			StepVerifier.create(intercept)
+					.verifyError(RejectedException.class);
+			verifyZeroInteractions(this.authenticationManager);
+		}
+		finally {
+			// complete the blocked task so that dispose does not interrupt it
+			release.countDown();
+			blocking.get(5, TimeUnit.SECONDS);
+			scheduler.dispose();
+		}
+	}
+
 	private Payload createRequestPayload() {
 
 		UsernamePasswordMetadata credentials = new UsernamePasswordMetadata("user", "password");
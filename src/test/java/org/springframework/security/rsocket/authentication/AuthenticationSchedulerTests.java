@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.rsocket.authentication;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.rsocket.interceptor.authentication.AuthenticationScheduler;
+import org.springframework.security.rsocket.interceptor.authentication.AuthenticationSchedulerSaturatedEvent;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author Rob Winch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class AuthenticationSchedulerTests {
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	private AuthenticationScheduler scheduler;
+
+	@After
+	public void cleanup() {
+		if (this.scheduler != null) {
+			this.scheduler.dispose();
+		}
+	}
+
+	@Test
+	public void fixedWhenThreadsZeroThenException() {
+		assertThatCode(() -> AuthenticationScheduler.fixed(0, 1))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void boundedElasticWhenMaxPendingTasksZeroThenException() {
+		assertThatCode(() -> AuthenticationScheduler.boundedElastic(1, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void getSchedulerWhenFixedThenRunsOnPool() throws Exception {
+		this.scheduler = AuthenticationScheduler.fixed(1, 1);
+
+		String thread = Mono.fromCallable(() -> Thread.currentThread().getName())
+				.subscribeOn(this.scheduler.getScheduler())
+				.block();
+
+		assertThat(thread).startsWith("rsocket-authentication-");
+		// the task is pending until it returns, which is after the result is emitted
+		awaitPendingTasks(0);
+	}
+
+	@Test
+	public void virtualThreadsThenRunsTasks() {
+		this.scheduler = AuthenticationScheduler.virtualThreads(1);
+
+		String thread = Mono.fromCallable(() -> Thread.currentThread().getName())
+				.subscribeOn(this.scheduler.getScheduler())
+				.block();
+
+		if (AuthenticationScheduler.isVirtualThreadsSupported()) {
+			assertThat(thread).isNotNull();
+		}
+		else {
+			assertThat(thread).startsWith("rsocket-authentication-");
+		}
+	}
+
+	@Test
+	public void getSchedulerWhenSaturatedThenRejectedAndEventPublished() throws Exception {
+		this.scheduler = AuthenticationScheduler.boundedElastic(1, 2);
+		this.scheduler.setApplicationEventPublisher(this.eventPublisher);
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Mono<Boolean> blocking = Mono.fromCallable(() -> {
+			running.countDown();
+			return release.await(5, TimeUnit.SECONDS);
+		}).subscribeOn(this.scheduler.getScheduler());
+		blocking.subscribe();
+		blocking.subscribe();
+		assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(this.scheduler.getPendingTasks()).isEqualTo(2);
+
+		StepVerifier.create(blocking).verifyError(RejectedExecutionException.class);
+		StepVerifier.create(blocking).verifyError(RejectedExecutionException.class);
+		// complete the blocked tasks so that dispose does not interrupt them
+		release.countDown();
+		awaitPendingTasks(0);
+
+		assertThat(this.scheduler.getRejectedCount()).isEqualTo(2);
+		ArgumentCaptor<ApplicationEvent> event = ArgumentCaptor.forClass(ApplicationEvent.class);
+		verify(this.eventPublisher, times(1)).publishEvent(event.capture());
+		AuthenticationSchedulerSaturatedEvent saturated = (AuthenticationSchedulerSaturatedEvent) event.getValue();
+		assertThat(saturated.getScheduler()).isSameAs(this.scheduler);
+		assertThat(saturated.getPendingTasks()).isEqualTo(2);
+		assertThat(saturated.getMaxPendingTasks()).isEqualTo(2);
+		assertThat(saturated.getRejectedCount()).isEqualTo(1);
+	}
+
+	private void awaitPendingTasks(int pendingTasks) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (this.scheduler.getPendingTasks() != pendingTasks && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(this.scheduler.getPendingTasks()).isEqualTo(pendingTasks);
+	}
+}
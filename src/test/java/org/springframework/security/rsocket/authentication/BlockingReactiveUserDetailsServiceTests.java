@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.rsocket.authentication;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.rsocket.interceptor.authentication.BlockingReactiveUserDetailsService;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Rob Winch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class BlockingReactiveUserDetailsServiceTests {
+	@Mock
+	private ReactiveUserDetailsService delegate;
+
+	@Test
+	public void constructorWhenSchedulerNullThenException() {
+		assertThatCode(() -> new BlockingReactiveUserDetailsService(this.delegate, null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void findByUsernameWhenNotSubscribedThenDelegateNotInvoked() {
+		new BlockingReactiveUserDetailsService(this.delegate, Schedulers.immediate()).findByUsername("user");
+
+		verifyZeroInteractions(this.delegate);
+	}
+
+	@Test
+	public void findByUsernameThenDelegateInvokedOnScheduler() {
+		Scheduler scheduler = Schedulers.newSingle("users");
+		try {
+			UserDetails user = User.withUsername("user").password("password").roles("USER").build();
+			AtomicReference<String> thread = new AtomicReference<>();
+			when(this.delegate.findByUsername("user")).thenAnswer(invocation -> {
+				thread.set(Thread.currentThread().getName());
+				return Mono.just(user);
+			});
+			BlockingReactiveUserDetailsService users = new BlockingReactiveUserDetailsService(this.delegate,
+					scheduler);
+
+			assertThat(users.findByUsername("user").block()).isEqualTo(user);
+			assertThat(thread.get()).startsWith("users");
+		}
+		finally {
+			scheduler.dispose();
+		}
+	}
+}
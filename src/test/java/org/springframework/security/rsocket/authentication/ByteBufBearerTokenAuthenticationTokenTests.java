@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.authentication;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+import org.springframework.security.oauth2.server.resource.BearerTokenAuthenticationToken;
+import org.springframework.security.rsocket.interceptor.authentication.ByteBufBearerTokenAuthenticationToken;
+import org.springframework.util.SerializationUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * @author Rob Winch
+ */
+public class ByteBufBearerTokenAuthenticationTokenTests {
+
+	@Test
+	public void constructorWhenEmptyThenException() {
+		assertThatCode(() -> new ByteBufBearerTokenAuthenticationToken(Unpooled.EMPTY_BUFFER))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void constructorWhenContentThenRetainedSlice() {
+		ByteBuf content = buffer("token");
+
+		ByteBufBearerTokenAuthenticationToken token = new ByteBufBearerTokenAuthenticationToken(content);
+
+		assertThat(content.refCnt()).isEqualTo(2);
+		assertThat(token.release()).isFalse();
+		assertThat(content.refCnt()).isEqualTo(1);
+	}
+
+	@Test
+	public void getTokenThenDecoded() {
+		ByteBufBearerTokenAuthenticationToken token = new ByteBufBearerTokenAuthenticationToken(buffer("token"));
+
+		assertThat(token.getToken()).isEqualTo("token");
+		assertThat(token.getCredentials()).isEqualTo("token");
+		assertThat(token.getPrincipal()).isEqualTo("token");
+	}
+
+	@Test
+	public void getTokenWhenDecodedBeforeReleaseThenDecoded() {
+		ByteBufBearerTokenAuthenticationToken token = new ByteBufBearerTokenAuthenticationToken(buffer("token"));
+		token.getToken();
+
+		token.release();
+
+		assertThat(token.getToken()).isEqualTo("token");
+	}
+
+	@Test
+	public void copyWhenReleasedThenCopyUsable() {
+		ByteBuf content = buffer("token");
+		ByteBufBearerTokenAuthenticationToken token = new ByteBufBearerTokenAuthenticationToken(content);
+		content.release();
+
+		ByteBufBearerTokenAuthenticationToken copy = token.copy();
+		token.release();
+
+		assertThat(content.refCnt()).isZero();
+		assertThat(copy.refCnt()).isEqualTo(1);
+		assertThat(copy.getToken()).isEqualTo("token");
+		assertThat(copy).isEqualTo(new ByteBufBearerTokenAuthenticationToken(buffer("token")));
+	}
+
+	@Test
+	public void equalsWhenSameBytesThenEqual() {
+		ByteBuf content = Unpooled.copiedBuffer("xtokenx", StandardCharsets.UTF_8);
+		ByteBufBearerTokenAuthenticationToken token1 = new ByteBufBearerTokenAuthenticationToken(content.slice(1, 5));
+		ByteBufBearerTokenAuthenticationToken token2 = new ByteBufBearerTokenAuthenticationToken(buffer("token"));
+		ByteBufBearerTokenAuthenticationToken other = new ByteBufBearerTokenAuthenticationToken(buffer("other"));
+
+		assertThat(token1).isEqualTo(token2);
+		assertThat(token1.hashCode()).isEqualTo(token2.hashCode());
+		assertThat(token1).isNotEqualTo(other);
+	}
+
+	@Test
+	public void updateDigestThenSameAsTokenDigest() throws Exception {
+		ByteBufBearerTokenAuthenticationToken token = new ByteBufBearerTokenAuthenticationToken(buffer("token"));
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+		token.updateDigest(digest);
+
+		assertThat(digest.digest()).isEqualTo(MessageDigest.getInstance("SHA-256")
+				.digest("token".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void serializeThenDeserializedAsBearerTokenAuthenticationToken() {
+		ByteBufBearerTokenAuthenticationToken token = new ByteBufBearerTokenAuthenticationToken(buffer("token"));
+		token.setDetails("details");
+
+		Object deserialized = SerializationUtils.deserialize(SerializationUtils.serialize(token));
+
+		assertThat(deserialized).isExactlyInstanceOf(BearerTokenAuthenticationToken.class);
+		BearerTokenAuthenticationToken result = (BearerTokenAuthenticationToken) deserialized;
+		assertThat(result.getToken()).isEqualTo("token");
+		assertThat(result.getDetails()).isEqualTo("details");
+		assertThat(result.isAuthenticated()).isFalse();
+	}
+
+	@Test
+	public void isInstanceOfBearerTokenAuthenticationToken() {
+		assertThat(new ByteBufBearerTokenAuthenticationToken(buffer("token")))
+				.isInstanceOf(BearerTokenAuthenticationToken.class);
+	}
+
+	private static ByteBuf buffer(String value) {
+		return Unpooled.copiedBuffer(value, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.rsocket.authentication;
+
+import io.netty.buffer.Unpooled;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.rsocket.interceptor.authentication.ByteBufBearerTokenAuthenticationToken;
+import org.springframework.security.rsocket.interceptor.authentication.CachingBearerTokenReactiveAuthenticationManager;
+import org.springframework.security.rsocket.interceptor.metrics.InMemoryPayloadSecurityMetrics;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Rob Winch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CachingBearerTokenReactiveAuthenticationManagerTests {
+	@Mock
+	private ReactiveAuthenticationManager delegate;
+
+	private Instant now = Instant.now();
+
+	private CachingBearerTokenReactiveAuthenticationManager manager;
+
+	@Before
+	public void setup() {
+		this.manager = new CachingBearerTokenReactiveAuthenticationManager(this.delegate, Duration.ofHours(1), 2);
+		this.manager.setClock(Clock.fixed(this.now, ZoneOffset.UTC));
+	}
+
+	@Test
+	public void constructorWhenMaxSizeZeroThenException() {
+		assertThatCode(() -> new CachingBearerTokenReactiveAuthenticationManager(this.delegate, Duration.ofHours(1), 0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void authenticateWhenSameTokenThenDelegateInvokedOnce() {
+		Authentication result = jwt(this.now.plus(Duration.ofMinutes(5)));
+		when(this.delegate.authenticate(any())).thenReturn(Mono.just(result));
+
+		assertThat(this.manager.authenticate(new BearerTokenAuthenticationToken("token")).block()).isEqualTo(result);
+		assertThat(this.manager.authenticate(new BearerTokenAuthenticationToken("token")).block()).isEqualTo(result);
+
+		verify(this.delegate, times(1)).authenticate(any());
+		assertThat(this.manager.getHitCount()).isEqualTo(1);
+		assertThat(this.manager.getMissCount()).isEqualTo(1);
+		assertThat(this.manager.getHitRatio()).isEqualTo(0.5);
+	}
+
+	@Test
+	public void authenticateWhenByteBufTokenThenSameCacheEntryAsString() {
+		Authentication result = jwt(this.now.plus(Duration.ofMinutes(5)));
+		when(this.delegate.authenticate(any())).thenReturn(Mono.just(result));
+		ByteBufBearerTokenAuthenticationToken token = new ByteBufBearerTokenAuthenticationToken(
+				Unpooled.copiedBuffer("token", StandardCharsets.UTF_8));
+
+		assertThat(this.manager.authenticate(new BearerTokenAuthenticationToken("token")).block()).isEqualTo(result);
+		assertThat(this.manager.authenticate(token).block()).isEqualTo(result);
+
+		verify(this.delegate, times(1)).authenticate(any());
+		assertThat(this.manager.getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void authenticateWhenTokenExpiredThenDelegateInvoked() {
+		when(this.delegate.authenticate(any())).thenReturn(Mono.just(jwt(this.now.plus(Duration.ofMinutes(5)))));
+		this.manager.authenticate(new BearerTokenAuthenticationToken("token")).block();
+		this.manager.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(5)), ZoneOffset.UTC));
+
+		this.manager.authenticate(new BearerTokenAuthenticationToken("token")).block();
+
+		verify(this.delegate, times(2)).authenticate(any());
+	}
+
+	@Test
+	public void authenticateWhenMaxTimeToLiveBeforeExpirationThenDelegateInvoked() {
+		when(this.delegate.authenticate(any())).thenReturn(Mono.just(jwt(this.now.plus(Duration.ofDays(1)))));
+		this.manager.authenticate(new BearerTokenAuthenticationToken("token")).block();
+		this.manager.setClock(Clock.fixed(this.now.plus(Duration.ofHours(1)), ZoneOffset.UTC));
+
+		this.manager.authenticate(new BearerTokenAuthenticationToken("token")).block();
+
+		verify(this.delegate, times(2)).authenticate(any());
+	}
+
+	@Test
+	public void authenticateWhenDifferentTokenThenDelegateInvoked() {
+		when(this.delegate.authenticate(any())).thenReturn(Mono.just(jwt(this.now.plus(Duration.ofMinutes(5)))));
+
+		this.manager.authenticate(new BearerTokenAuthenticationToken("a")).block();
+		this.manager.authenticate(new BearerTokenAuthenticationToken("b")).block();
+
+		verify(this.delegate, times(2)).authenticate(any());
+	}
+
+	@Test
+	public void authenticateWhenMetricsThenLookupsRecorded() {
+		InMemoryPayloadSecurityMetrics metrics = new InMemoryPayloadSecurityMetrics();
+		this.manager.setMetrics(metrics);
+		when(this.delegate.authenticate(any())).thenReturn(Mono.just(jwt(this.now.plus(Duration.ofMinutes(5)))));
+
+		this.manager.authenticate(new BearerTokenAuthenticationToken("token")).block();
+		this.manager.authenticate(new BearerTokenAuthenticationToken("token")).block();
+		this.manager.authenticate(new BearerTokenAuthenticationToken("token")).block();
+
+		assertThat(metrics.getAuthenticationCacheCount(CachingBearerTokenReactiveAuthenticationManager.class, true))
+				.isEqualTo(2);
+		assertThat(metrics.getAuthenticationCacheCount(CachingBearerTokenReactiveAuthenticationManager.class, false))
+				.isEqualTo(1);
+	}
+
+	@Test
+	public void authenticateWhenExpiredTokenReplacedThenReplacementNotEvicted() {
+		when(this.delegate.authenticate(any())).thenReturn(Mono.just(jwt(this.now.plus(Duration.ofMinutes(5)))));
+		this.manager.authenticate(new BearerTokenAuthenticationToken("a")).block();
+		this.manager.setClock(Clock.fixed(this.now.plus(Duration.ofMinutes(10)), ZoneOffset.UTC));
+		when(this.delegate.authenticate(any())).thenReturn(Mono.just(jwt(this.now.plus(Duration.ofMinutes(15)))));
+		this.manager.authenticate(new BearerTokenAuthenticationToken("a")).block();
+		this.manager.authenticate(new BearerTokenAuthenticationToken("b")).block();
+		this.manager.authenticate(new BearerTokenAuthenticationToken("a")).block();
+		this.manager.authenticate(new BearerTokenAuthenticationToken("b")).block();
+
+		verify(this.delegate, times(3)).authenticate(any());
+	}
+
+	@Test
+	public void authenticateWhenNotBearerTokenThenNotCached() {
+		Authentication authentication = new TestingAuthenticationToken("user", "password");
+		when(this.delegate.authenticate(any())).thenReturn(Mono.just(authentication));
+
+		this.manager.authenticate(authentication).block();
+		this.manager.authenticate(authentication).block();
+
+		verify(this.delegate, times(2)).authenticate(any());
+		assertThat(this.manager.getHitRatio()).isEqualTo(0);
+	}
+
+	private JwtAuthenticationToken jwt(Instant expiresAt) {
+		Jwt jwt = Jwt.withTokenValue("token")
+				.header("alg", "none")
+				.subject("user")
+				.issuedAt(this.now)
+				.expiresAt(expiresAt)
+				.build();
+		return new JwtAuthenticationToken(jwt);
+	}
+}
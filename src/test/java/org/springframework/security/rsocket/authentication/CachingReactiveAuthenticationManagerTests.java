@@ -0,0 +1,171 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.rsocket.authentication;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.rsocket.interceptor.authentication.CachingReactiveAuthenticationManager;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Rob Winch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CachingReactiveAuthenticationManagerTests {
+	@Mock
+	private ReactiveAuthenticationManager delegate;
+
+	private Authentication result = new TestingAuthenticationToken("user", "password", "ROLE_USER");
+
+	private CachingReactiveAuthenticationManager manager;
+
+	@Before
+	public void setup() {
+		when(this.delegate.authenticate(any())).thenReturn(Mono.just(this.result));
+		this.manager = new CachingReactiveAuthenticationManager(this.delegate, Duration.ofMinutes(1), 2);
+	}
+
+	@Test
+	public void constructorWhenTimeToLiveZeroThenException() {
+		assertThatCode(() -> new CachingReactiveAuthenticationManager(this.delegate, Duration.ZERO, 1))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void authenticateWhenSameCredentialsThenDelegateInvokedOnce() {
+		assertThat(this.manager.authenticate(token("user", "password")).block()).isEqualTo(this.result);
+		assertThat(this.manager.authenticate(token("user", "password")).block()).isEqualTo(this.result);
+
+		verify(this.delegate, times(1)).authenticate(any());
+	}
+
+	@Test
+	public void authenticateWhenDifferentPasswordThenDelegateInvoked() {
+		this.manager.authenticate(token("user", "password")).block();
+		this.manager.authenticate(token("user", "other")).block();
+
+		verify(this.delegate, times(2)).authenticate(any());
+	}
+
+	@Test
+	public void authenticateWhenFailedThenNotCached() {
+		when(this.delegate.authenticate(any())).thenReturn(Mono.error(new BadCredentialsException("failed")));
+
+		StepVerifier.create(this.manager.authenticate(token("user", "password")))
+				.expectError(BadCredentialsException.class)
+				.verify();
+		StepVerifier.create(this.manager.authenticate(token("user", "password")))
+				.expectError(BadCredentialsException.class)
+				.verify();
+
+		verify(this.delegate, times(2)).authenticate(any());
+	}
+
+	@Test
+	public void authenticateWhenExpiredThenDelegateInvoked() {
+		Instant now = Instant.now();
+		this.manager.setClock(Clock.fixed(now, ZoneOffset.UTC));
+		this.manager.authenticate(token("user", "password")).block();
+		this.manager.setClock(Clock.fixed(now.plus(Duration.ofMinutes(2)), ZoneOffset.UTC));
+		this.manager.authenticate(token("user", "password")).block();
+
+		verify(this.delegate, times(2)).authenticate(any());
+	}
+
+	@Test
+	public void authenticateWhenInvalidatedThenDelegateInvoked() {
+		this.manager.authenticate(token("user", "password")).block();
+		this.manager.authenticate(token("other", "password")).block();
+		this.manager.invalidate("user");
+		this.manager.authenticate(token("user", "password")).block();
+		this.manager.authenticate(token("other", "password")).block();
+
+		verify(this.delegate, times(3)).authenticate(any());
+	}
+
+	@Test
+	public void authenticateWhenMaxSizeExceededThenEldestEvicted() {
+		this.manager.authenticate(token("a", "password")).block();
+		this.manager.authenticate(token("b", "password")).block();
+		this.manager.authenticate(token("c", "password")).block();
+		this.manager.authenticate(token("a", "password")).block();
+		this.manager.authenticate(token("c", "password")).block();
+
+		verify(this.delegate, times(4)).authenticate(any());
+	}
+
+	@Test
+	public void authenticateWhenExpiredEntryReplacedThenReplacementNotEvicted() {
+		Instant now = Instant.now();
+		this.manager.setClock(Clock.fixed(now, ZoneOffset.UTC));
+		this.manager.authenticate(token("a", "password")).block();
+		this.manager.setClock(Clock.fixed(now.plus(Duration.ofMinutes(2)), ZoneOffset.UTC));
+		this.manager.authenticate(token("a", "password")).block();
+		this.manager.authenticate(token("b", "password")).block();
+		this.manager.authenticate(token("a", "password")).block();
+		this.manager.authenticate(token("b", "password")).block();
+
+		verify(this.delegate, times(3)).authenticate(any());
+	}
+
+	@Test
+	public void authenticateWhenInvalidatedThenCapacityAvailable() {
+		this.manager.authenticate(token("a", "password")).block();
+		this.manager.authenticate(token("b", "password")).block();
+		this.manager.invalidate("a");
+		this.manager.invalidateAll();
+		this.manager.authenticate(token("c", "password")).block();
+		this.manager.authenticate(token("d", "password")).block();
+		this.manager.authenticate(token("c", "password")).block();
+		this.manager.authenticate(token("d", "password")).block();
+
+		verify(this.delegate, times(4)).authenticate(any());
+	}
+
+	@Test
+	public void authenticateWhenNotUsernamePasswordThenNotCached() {
+		Authentication authentication = new TestingAuthenticationToken("user", "password");
+		this.manager.authenticate(authentication).block();
+		this.manager.authenticate(authentication).block();
+
+		verify(this.delegate, times(2)).authenticate(any());
+	}
+
+	private static UsernamePasswordAuthenticationToken token(String username, String password) {
+		return new UsernamePasswordAuthenticationToken(username, password);
+	}
+}
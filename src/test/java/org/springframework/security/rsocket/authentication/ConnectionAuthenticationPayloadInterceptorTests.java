@@ -0,0 +1,185 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.rsocket.authentication;
+
+import io.netty.buffer.Unpooled;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
+import org.springframework.security.rsocket.interceptor.authentication.ConnectionAuthenticationPayloadInterceptor;
+import org.springframework.security.rsocket.metadata.UsernamePasswordMetadata;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcher;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Rob Winch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ConnectionAuthenticationPayloadInterceptorTests {
+	@Mock
+	private PayloadExchange setup;
+
+	@Mock
+	private PayloadExchange request;
+
+	private Authentication setupAuthentication = new TestingAuthenticationToken("setup", "password");
+
+	private Authentication requestAuthentication = new TestingAuthenticationToken("request", "password");
+
+	private int delegateInvocations;
+
+	private Context context;
+
+	private ConnectionAuthenticationPayloadInterceptor interceptor;
+
+	@Before
+	public void setup() {
+		when(this.setup.getType()).thenReturn(PayloadExchangeType.SETUP);
+		when(this.request.getType()).thenReturn(PayloadExchangeType.REQUEST_RESPONSE);
+		this.interceptor = new ConnectionAuthenticationPayloadInterceptor(authenticate());
+	}
+
+	@Test
+	public void constructorWhenDelegateNullThenException() {
+		assertThatCode(() -> new ConnectionAuthenticationPayloadInterceptor(null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void interceptWhenSetupAuthenticatedThenRequestNotAuthenticated() {
+		Context connection = interceptSetup();
+
+		AuthenticationPayloadInterceptorChain chain = new AuthenticationPayloadInterceptorChain();
+		this.interceptor.intercept(this.request, chain).subscriberContext(connection).block();
+
+		assertThat(chain.getAuthentication()).isEqualTo(this.setupAuthentication);
+		assertThat(this.delegateInvocations).isEqualTo(1);
+	}
+
+	@Test
+	public void interceptWhenReauthenticationThenRequestAuthenticated() {
+		this.interceptor.setReauthenticationMatcher(e -> PayloadExchangeMatcher.MatchResult.match());
+		Context connection = interceptSetup();
+
+		AuthenticationPayloadInterceptorChain chain = new AuthenticationPayloadInterceptorChain();
+		this.interceptor.intercept(this.request, chain).subscriberContext(connection).block();
+
+		assertThat(chain.getAuthentication()).isEqualTo(this.requestAuthentication);
+		assertThat(this.delegateInvocations).isEqualTo(2);
+	}
+
+	@Test
+	public void interceptWhenAuthenticationMetadataThenRequestAuthenticated() {
+		when(this.request.getMetadataEntries()).thenReturn(Collections.singletonMap(
+				UsernamePasswordMetadata.BASIC_AUTHENTICATION_MIME_TYPE.toString(), Unpooled.EMPTY_BUFFER));
+		Context connection = interceptSetup();
+
+		AuthenticationPayloadInterceptorChain chain = new AuthenticationPayloadInterceptorChain();
+		this.interceptor.intercept(this.request, chain).subscriberContext(connection).block();
+
+		assertThat(chain.getAuthentication()).isEqualTo(this.requestAuthentication);
+		assertThat(this.delegateInvocations).isEqualTo(2);
+	}
+
+	@Test
+	public void interceptWhenNeverReauthenticateAndAuthenticationMetadataThenRequestNotAuthenticated() {
+		this.interceptor.setReauthenticationMatcher(e -> PayloadExchangeMatcher.MatchResult.notMatch());
+		when(this.request.getMetadataEntries()).thenReturn(Collections.singletonMap(
+				UsernamePasswordMetadata.BASIC_AUTHENTICATION_MIME_TYPE.toString(), Unpooled.EMPTY_BUFFER));
+		Context connection = interceptSetup();
+
+		AuthenticationPayloadInterceptorChain chain = new AuthenticationPayloadInterceptorChain();
+		this.interceptor.intercept(this.request, chain).subscriberContext(connection).block();
+
+		assertThat(chain.getAuthentication()).isEqualTo(this.setupAuthentication);
+		assertThat(this.delegateInvocations).isEqualTo(1);
+	}
+
+	@Test
+	public void interceptWhenExpiredThenConnectionAuthenticationRemoved() {
+		Instant now = Instant.now();
+		this.interceptor = new ConnectionAuthenticationPayloadInterceptor((e, c) -> {
+			this.delegateInvocations++;
+			return e.getType() == PayloadExchangeType.SETUP ?
+					c.next(e).subscriberContext(ReactiveSecurityContextHolder.withAuthentication(this.setupAuthentication)) :
+					c.next(e);
+		});
+		this.interceptor.setExpiration(Duration.ofMinutes(1));
+		this.interceptor.setClock(Clock.fixed(now, ZoneOffset.UTC));
+		Context connection = interceptSetup();
+		this.interceptor.setClock(Clock.fixed(now.plus(Duration.ofMinutes(1)), ZoneOffset.UTC));
+
+		AuthenticationPayloadInterceptorChain chain = new AuthenticationPayloadInterceptorChain();
+		this.interceptor.intercept(this.request, chain).subscriberContext(connection).block();
+
+		assertThat(chain.getAuthentication()).isNull();
+		assertThat(this.delegateInvocations).isEqualTo(2);
+	}
+
+	@Test
+	public void interceptWhenSetupNotAuthenticatedThenRequestAuthenticated() {
+		this.interceptor = new ConnectionAuthenticationPayloadInterceptor((e, c) -> {
+			this.delegateInvocations++;
+			return e.getType() == PayloadExchangeType.SETUP ?
+					c.next(e) :
+					c.next(e).subscriberContext(ReactiveSecurityContextHolder.withAuthentication(this.requestAuthentication));
+		});
+		Context connection = interceptSetup();
+
+		AuthenticationPayloadInterceptorChain chain = new AuthenticationPayloadInterceptorChain();
+		this.interceptor.intercept(this.request, chain).subscriberContext(connection).block();
+
+		assertThat(chain.getAuthentication()).isEqualTo(this.requestAuthentication);
+		assertThat(this.delegateInvocations).isEqualTo(2);
+	}
+
+	private Context interceptSetup() {
+		PayloadInterceptorChain chain = e -> Mono.subscriberContext()
+				.doOnNext(c -> this.context = c)
+				.then();
+		this.interceptor.intercept(this.setup, chain).block();
+		return this.context;
+	}
+
+	private PayloadInterceptor authenticate() {
+		return (e, c) -> {
+			this.delegateInvocations++;
+			Authentication authentication = e.getType() == PayloadExchangeType.SETUP ?
+					this.setupAuthentication : this.requestAuthentication;
+			return c.next(e).subscriberContext(ReactiveSecurityContextHolder.withAuthentication(authentication));
+		};
+	}
+}
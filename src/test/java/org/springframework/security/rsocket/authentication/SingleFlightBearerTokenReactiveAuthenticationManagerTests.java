@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.rsocket.authentication;
+
+import io.netty.buffer.Unpooled;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.server.resource.BearerTokenAuthenticationToken;
+import org.springframework.security.rsocket.interceptor.authentication.ByteBufBearerTokenAuthenticationToken;
+import org.springframework.security.rsocket.interceptor.authentication.SingleFlightBearerTokenReactiveAuthenticationManager;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Rob Winch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SingleFlightBearerTokenReactiveAuthenticationManagerTests {
+	@Mock
+	private ReactiveAuthenticationManager delegate;
+
+	private SingleFlightBearerTokenReactiveAuthenticationManager manager;
+
+	@Before
+	public void setup() {
+		this.manager = new SingleFlightBearerTokenReactiveAuthenticationManager(this.delegate);
+	}
+
+	@Test
+	public void constructorWhenDelegateNullThenException() {
+		assertThatCode(() -> new SingleFlightBearerTokenReactiveAuthenticationManager(null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void authenticateWhenConcurrentSameTokenThenDelegateInvokedOnce() {
+		MonoProcessor<Authentication> verification = MonoProcessor.create();
+		when(this.delegate.authenticate(any())).thenReturn(verification);
+		Authentication result = new TestingAuthenticationToken("user", "password");
+
+		MonoProcessor<Authentication> first = this.manager.authenticate(new BearerTokenAuthenticationToken("token"))
+				.toProcessor();
+		MonoProcessor<Authentication> second = this.manager.authenticate(new BearerTokenAuthenticationToken("token"))
+				.toProcessor();
+		verification.onNext(result);
+
+		assertThat(first.block()).isEqualTo(result);
+		assertThat(second.block()).isEqualTo(result);
+		verify(this.delegate, times(1)).authenticate(any());
+		assertThat(this.manager.getCoalescedCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void authenticateWhenConcurrentSameByteBufTokenThenCoalescedWithoutDecoding() {
+		MonoProcessor<Authentication> verification = MonoProcessor.create();
+		when(this.delegate.authenticate(any())).thenReturn(verification);
+		ByteBufBearerTokenAuthenticationToken token = spy(new ByteBufBearerTokenAuthenticationToken(
+				Unpooled.copiedBuffer("token", StandardCharsets.UTF_8)));
+
+		this.manager.authenticate(new BearerTokenAuthenticationToken("token")).toProcessor();
+		this.manager.authenticate(token).toProcessor();
+
+		verify(this.delegate, times(1)).authenticate(any());
+		verify(token, never()).getToken();
+		assertThat(this.manager.getCoalescedCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void authenticateWhenContextThenDelegateNotSubscribedWithCallerContext() {
+		AtomicReference<Context> delegateContext = new AtomicReference<>();
+		Authentication result = new TestingAuthenticationToken("user", "password");
+		when(this.delegate.authenticate(any())).thenReturn(Mono.subscriberContext()
+				.doOnNext(delegateContext::set)
+				.thenReturn(result));
+
+		StepVerifier.create(this.manager.authenticate(new BearerTokenAuthenticationToken("token"))
+				.subscriberContext(Context.of("caller", "first")))
+				.expectNext(result)
+				.verifyComplete();
+
+		assertThat(delegateContext.get().hasKey("caller")).isFalse();
+	}
+
+	@Test
+	public void authenticateWhenConcurrentDifferentTokensThenDelegateInvokedForEach() {
+		when(this.delegate.authenticate(any())).thenReturn(MonoProcessor.create());
+
+		this.manager.authenticate(new BearerTokenAuthenticationToken("a")).toProcessor();
+		this.manager.authenticate(new BearerTokenAuthenticationToken("b")).toProcessor();
+
+		verify(this.delegate, times(2)).authenticate(any());
+		assertThat(this.manager.getCoalescedCount()).isZero();
+	}
+
+	@Test
+	public void authenticateWhenPreviousCompletedThenDelegateInvokedAgain() {
+		Authentication result = new TestingAuthenticationToken("user", "password");
+		when(this.delegate.authenticate(any())).thenReturn(Mono.just(result));
+
+		assertThat(this.manager.authenticate(new BearerTokenAuthenticationToken("token")).block()).isEqualTo(result);
+		assertThat(this.manager.authenticate(new BearerTokenAuthenticationToken("token")).block()).isEqualTo(result);
+
+		verify(this.delegate, times(2)).authenticate(any());
+		assertThat(this.manager.getCoalescedCount()).isZero();
+	}
+
+	@Test
+	public void authenticateWhenConcurrentErrorThenAllErrorAndNextInvokesDelegate() {
+		MonoProcessor<Authentication> verification = MonoProcessor.create();
+		when(this.delegate.authenticate(any())).thenReturn(verification, Mono.empty());
+
+		MonoProcessor<Authentication> first = this.manager.authenticate(new BearerTokenAuthenticationToken("token"))
+				.toProcessor();
+		MonoProcessor<Authentication> second = this.manager.authenticate(new BearerTokenAuthenticationToken("token"))
+				.toProcessor();
+		verification.onError(new BadCredentialsException("invalid"));
+
+		StepVerifier.create(first).verifyError(BadCredentialsException.class);
+		StepVerifier.create(second).verifyError(BadCredentialsException.class);
+		StepVerifier.create(this.manager.authenticate(new BearerTokenAuthenticationToken("token")))
+				.verifyComplete();
+		verify(this.delegate, times(2)).authenticate(any());
+	}
+
+	@Test
+	public void authenticateWhenNotBearerTokenThenNotCoalesced() {
+		Authentication authentication = new TestingAuthenticationToken("user", "password");
+		when(this.delegate.authenticate(any())).thenReturn(MonoProcessor.create());
+
+		this.manager.authenticate(authentication).toProcessor();
+		this.manager.authenticate(authentication).toProcessor();
+
+		verify(this.delegate, times(2)).authenticate(any());
+	}
+
+	@Test
+	public void authenticateWhenSchedulerThenDelegateSubscribedOnScheduler() {
+		Scheduler scheduler = Schedulers.newSingle("verify");
+		try {
+			AtomicReference<String> thread = new AtomicReference<>();
+			Authentication result = new TestingAuthenticationToken("user", "password");
+			when(this.delegate.authenticate(any())).thenReturn(Mono.fromCallable(() -> {
+				thread.set(Thread.currentThread().getName());
+				return result;
+			}));
+			this.manager.setScheduler(scheduler);
+
+			assertThat(this.manager.authenticate(new BearerTokenAuthenticationToken("token")).block())
+					.isEqualTo(result);
+			assertThat(thread.get()).startsWith("verify");
+		}
+		finally {
+			scheduler.dispose();
+		}
+	}
+}
@@ -32,6 +32,9 @@ import reactor.test.publisher.PublisherProbe;
 import reactor.util.context.Context;
 import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
 import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeSecurityContextHolder;
+
+import java.util.HashMap;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.when;
@@ -115,4 +118,34 @@ public class AuthorizationPayloadInterceptorTests {
 				.then(() -> this.chainResult.assertWasSubscribed())
 				.verifyComplete();
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void interceptWhenExchangeAuthorizedThenContinues() {
+		when(this.chain.next(any())).thenReturn(this.chainResult.mono());
+		when(this.exchange.getAttributes()).thenReturn(new HashMap<>());
+		PayloadExchangeSecurityContextHolder.setAuthentication(this.exchange,
+				new TestingAuthenticationToken("user", "password", "ROLE_USER"));
+
+		AuthorizationPayloadInterceptor interceptor =
+				new AuthorizationPayloadInterceptor(hasRole("USER"));
+
+		StepVerifier.create(interceptor.intercept(this.exchange, this.chain))
+				.then(() -> this.chainResult.assertWasSubscribed())
+				.verifyComplete();
+	}
+
+	@Test
+	public void interceptWhenExchangeNotAuthorizedThenException() {
+		when(this.chain.next(any())).thenReturn(this.chainResult.mono());
+		when(this.exchange.getAttributes()).thenReturn(new HashMap<>());
+		PayloadExchangeSecurityContextHolder.setAuthentication(this.exchange,
+				new TestingAuthenticationToken("user", "password"));
+
+		AuthorizationPayloadInterceptor interceptor =
+				new AuthorizationPayloadInterceptor(hasRole("USER"));
+
+		StepVerifier.create(interceptor.intercept(this.exchange, this.chain))
+				.then(() -> this.chainResult.assertWasNotSubscribed())
+				.verifyError(AccessDeniedException.class);
+	}
+}
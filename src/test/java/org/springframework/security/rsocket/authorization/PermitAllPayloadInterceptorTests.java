@@ -0,0 +1,211 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.authorization;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
+import org.springframework.security.rsocket.interceptor.authorization.PayloadExchangeMatcherReactiveAuthorizationManager;
+import org.springframework.security.rsocket.interceptor.authorization.PermitAllPayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.metrics.PayloadSecurityMetrics;
+import org.springframework.security.rsocket.metadata.BearerTokenMetadata;
+import org.springframework.security.rsocket.metadata.UsernamePasswordMetadata;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcher;
+import org.springframework.security.rsocket.util.SyncPayloadExchangeMatcher;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Rob Winch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PermitAllPayloadInterceptorTests {
+	@Mock
+	private PayloadExchange exchange;
+
+	@Mock
+	private PayloadInterceptorChain chain;
+
+	@Mock
+	private PayloadSecurityMetrics metrics;
+
+	private PublisherProbe<Void> chainResult = PublisherProbe.empty();
+
+	@Test
+	public void constructorWhenEmptyMatchersThenException() {
+		assertThatCode(() -> new PermitAllPayloadInterceptor(Collections.emptyList()))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void interceptWhenMatchThenChainNotSubscribed() {
+		when(this.exchange.getType()).thenReturn(PayloadExchangeType.REQUEST_RESPONSE);
+		when(this.chain.next(any())).thenReturn(this.chainResult.mono());
+		PermitAllPayloadInterceptor interceptor = new PermitAllPayloadInterceptor(Arrays.asList(
+				e -> PayloadExchangeMatcher.MatchResult.notMatch(),
+				e -> PayloadExchangeMatcher.MatchResult.match()));
+
+		StepVerifier.create(interceptor.intercept(this.exchange, this.chain))
+				.then(() -> this.chainResult.assertWasNotSubscribed())
+				.verifyComplete();
+	}
+
+	@Test
+	public void interceptWhenNoMatchThenChainSubscribed() {
+		when(this.exchange.getType()).thenReturn(PayloadExchangeType.REQUEST_RESPONSE);
+		when(this.chain.next(any())).thenReturn(this.chainResult.mono());
+		PermitAllPayloadInterceptor interceptor = new PermitAllPayloadInterceptor(Arrays.asList(
+				e -> PayloadExchangeMatcher.MatchResult.notMatch()));
+
+		StepVerifier.create(interceptor.intercept(this.exchange, this.chain))
+				.then(() -> this.chainResult.assertWasSubscribed())
+				.verifyComplete();
+	}
+
+	@Test
+	public void interceptWhenSetupThenChainSubscribed() {
+		when(this.exchange.getType()).thenReturn(PayloadExchangeType.SETUP);
+		when(this.chain.next(any())).thenReturn(this.chainResult.mono());
+		PermitAllPayloadInterceptor interceptor = new PermitAllPayloadInterceptor(Arrays.asList(
+				e -> PayloadExchangeMatcher.MatchResult.match()));
+
+		StepVerifier.create(interceptor.intercept(this.exchange, this.chain))
+				.then(() -> this.chainResult.assertWasSubscribed())
+				.verifyComplete();
+	}
+
+	@Test
+	public void interceptWhenMatchAndBasicMetadataThenChainSubscribed() {
+		when(this.exchange.getType()).thenReturn(PayloadExchangeType.REQUEST_RESPONSE);
+		when(this.exchange.getMetadataEntries()).thenReturn(Collections.singletonMap(
+				UsernamePasswordMetadata.BASIC_AUTHENTICATION_MIME_TYPE.toString(), null));
+		when(this.chain.next(any())).thenReturn(this.chainResult.mono());
+		PermitAllPayloadInterceptor interceptor = new PermitAllPayloadInterceptor(Arrays.asList(
+				e -> PayloadExchangeMatcher.MatchResult.match()));
+
+		StepVerifier.create(interceptor.intercept(this.exchange, this.chain))
+				.then(() -> this.chainResult.assertWasSubscribed())
+				.verifyComplete();
+	}
+
+	@Test
+	public void interceptWhenMatchAndBearerMetadataThenChainSubscribed() {
+		when(this.exchange.getType()).thenReturn(PayloadExchangeType.REQUEST_RESPONSE);
+		when(this.exchange.getMetadataEntries()).thenReturn(Collections.singletonMap(
+				BearerTokenMetadata.BEARER_AUTHENTICATION_MIME_TYPE.toString(), null));
+		when(this.chain.next(any())).thenReturn(this.chainResult.mono());
+		PermitAllPayloadInterceptor interceptor = new PermitAllPayloadInterceptor(Arrays.asList(
+				e -> PayloadExchangeMatcher.MatchResult.match()));
+		interceptor.setMetrics(this.metrics);
+
+		StepVerifier.create(interceptor.intercept(this.exchange, this.chain))
+				.then(() -> this.chainResult.assertWasSubscribed())
+				.verifyComplete();
+		verifyZeroInteractions(this.metrics);
+	}
+
+	@Test
+	public void interceptWhenMatchAndMetricsThenGrantedRecorded() {
+		when(this.exchange.getType()).thenReturn(PayloadExchangeType.REQUEST_RESPONSE);
+		when(this.chain.next(any())).thenReturn(this.chainResult.mono());
+		SyncPayloadExchangeMatcher matcher = e -> PayloadExchangeMatcher.MatchResult.matched();
+		PermitAllPayloadInterceptor interceptor = new PermitAllPayloadInterceptor(Arrays.asList(matcher));
+		interceptor.setMetrics(this.metrics);
+
+		StepVerifier.create(interceptor.intercept(this.exchange, this.chain))
+				.verifyComplete();
+
+		verify(this.metrics).recordAuthorization(PayloadExchangeType.REQUEST_RESPONSE, matcher, true);
+	}
+
+	@Test
+	public void interceptWhenAsyncMatchAndMetricsThenGrantedRecorded() {
+		when(this.exchange.getType()).thenReturn(PayloadExchangeType.REQUEST_RESPONSE);
+		when(this.chain.next(any())).thenReturn(this.chainResult.mono());
+		PayloadExchangeMatcher matcher = e -> PayloadExchangeMatcher.MatchResult.match();
+		PermitAllPayloadInterceptor interceptor = new PermitAllPayloadInterceptor(Arrays.asList(matcher));
+		interceptor.setMetrics(this.metrics);
+
+		StepVerifier.create(interceptor.intercept(this.exchange, this.chain))
+				.then(() -> this.chainResult.assertWasNotSubscribed())
+				.verifyComplete();
+
+		verify(this.metrics).recordAuthorization(PayloadExchangeType.REQUEST_RESPONSE, matcher, true);
+	}
+
+	@Test
+	public void interceptWhenMatchAndPermittedInterceptorThenPermittedInterceptorSubscribedWithMatcher() {
+		when(this.exchange.getType()).thenReturn(PayloadExchangeType.REQUEST_STREAM);
+		when(this.exchange.getAttributes()).thenReturn(new HashMap<>());
+		when(this.chain.next(any())).thenReturn(this.chainResult.mono());
+		SyncPayloadExchangeMatcher matcher = e -> PayloadExchangeMatcher.MatchResult.matched();
+		PermitAllPayloadInterceptor interceptor = new PermitAllPayloadInterceptor(Arrays.asList(matcher));
+		PublisherProbe<Void> permittedResult = PublisherProbe.empty();
+		PayloadExchangeMatcher[] permittedMatcher = new PayloadExchangeMatcher[1];
+		PayloadInterceptor permitted = (e, c) -> {
+			permittedMatcher[0] = PayloadExchangeMatcherReactiveAuthorizationManager.getMatcher(e);
+			return permittedResult.mono();
+		};
+		interceptor.setPermittedInterceptor(permitted);
+
+		StepVerifier.create(interceptor.intercept(this.exchange, this.chain))
+				.then(() -> this.chainResult.assertWasNotSubscribed())
+				.verifyComplete();
+
+		permittedResult.assertWasSubscribed();
+		assertThat(permittedMatcher[0]).isSameAs(matcher);
+	}
+
+	@Test
+	public void interceptWhenMatchAndNotSubscribedThenMetricsNotRecorded() {
+		when(this.exchange.getType()).thenReturn(PayloadExchangeType.REQUEST_RESPONSE);
+		SyncPayloadExchangeMatcher matcher = e -> PayloadExchangeMatcher.MatchResult.matched();
+		PermitAllPayloadInterceptor interceptor = new PermitAllPayloadInterceptor(Arrays.asList(matcher));
+		interceptor.setMetrics(this.metrics);
+
+		interceptor.intercept(this.exchange, this.chain);
+
+		verifyZeroInteractions(this.metrics);
+	}
+
+	@Test
+	public void interceptWhenAsyncMatcherAndNotSubscribedThenChainNotInvoked() {
+		when(this.exchange.getType()).thenReturn(PayloadExchangeType.REQUEST_RESPONSE);
+		PermitAllPayloadInterceptor interceptor = new PermitAllPayloadInterceptor(Arrays.asList(
+				e -> PayloadExchangeMatcher.MatchResult.notMatch()));
+
+		interceptor.intercept(this.exchange, this.chain);
+
+		verifyZeroInteractions(this.chain);
+	}
+}
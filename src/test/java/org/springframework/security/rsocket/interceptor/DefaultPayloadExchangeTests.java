@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.Payload;
+import io.rsocket.metadata.CompositeMetadataFlyweight;
+import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.util.DefaultPayload;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.rsocket.MetadataExtractor;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Rob Winch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultPayloadExchangeTests {
+	static final MimeType COMPOSITE_METADATA = MimeTypeUtils.parseMimeType(
+			WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA.getString());
+
+	@Mock
+	private MetadataExtractor metadataExtractor;
+
+	@Mock
+	private MetadataExtractor metadataExtractor2;
+
+	@Test
+	public void getMetadataWhenInvokedTwiceThenExtractedOnce() {
+		Map<String, Object> metadata = Collections.singletonMap(MetadataExtractor.ROUTE_KEY, "route");
+		when(this.metadataExtractor.extract(any(), any())).thenReturn(metadata);
+		PayloadExchange exchange = createExchange(COMPOSITE_METADATA, Unpooled.EMPTY_BUFFER);
+
+		assertThat(exchange.getMetadata(this.metadataExtractor)).isEqualTo(metadata);
+		assertThat(exchange.getMetadata(this.metadataExtractor)).isEqualTo(metadata);
+
+		verify(this.metadataExtractor, times(1)).extract(any(), any());
+	}
+
+	@Test
+	public void getMetadataWhenDifferentExtractorThenExtracted() {
+		Map<String, Object> metadata = Collections.singletonMap(MetadataExtractor.ROUTE_KEY, "route");
+		Map<String, Object> metadata2 = Collections.singletonMap(MetadataExtractor.ROUTE_KEY, "route2");
+		when(this.metadataExtractor.extract(any(), any())).thenReturn(metadata);
+		when(this.metadataExtractor2.extract(any(), any())).thenReturn(metadata2);
+		PayloadExchange exchange = createExchange(COMPOSITE_METADATA, Unpooled.EMPTY_BUFFER);
+
+		assertThat(exchange.getMetadata(this.metadataExtractor)).isEqualTo(metadata);
+		assertThat(exchange.getMetadata(this.metadataExtractor2)).isEqualTo(metadata2);
+	}
+
+	@Test
+	public void getAttributesWhenInvokedTwiceThenSameAttributes() {
+		PayloadExchange exchange = createExchange(COMPOSITE_METADATA, Unpooled.EMPTY_BUFFER);
+
+		exchange.getAttributes().put("a", "b");
+
+		assertThat(exchange.getAttributes()).containsEntry("a", "b");
+	}
+
+	@Test
+	public void getMetadataEntriesWhenCompositeThenEntries() {
+		ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+		CompositeByteBuf metadata = allocator.compositeBuffer();
+		CompositeMetadataFlyweight.encodeAndAddMetadata(metadata, allocator, "text/a", utf8("a"));
+		CompositeMetadataFlyweight.encodeAndAddMetadata(metadata, allocator, "text/b", utf8("b"));
+		CompositeMetadataFlyweight.encodeAndAddMetadata(metadata, allocator, "text/a", utf8("ignored"));
+		PayloadExchange exchange = createExchange(COMPOSITE_METADATA, metadata);
+
+		Map<String, ByteBuf> entries = exchange.getMetadataEntries();
+
+		assertThat(entries).containsOnlyKeys("text/a", "text/b");
+		assertThat(entries.get("text/a").toString(StandardCharsets.UTF_8)).isEqualTo("a");
+		assertThat(entries.get("text/b").toString(StandardCharsets.UTF_8)).isEqualTo("b");
+		assertThat(exchange.getMetadataEntries()).isSameAs(entries);
+	}
+
+	@Test
+	public void getMetadataEntriesWhenNotCompositeThenMetadataMimeType() {
+		PayloadExchange exchange = createExchange(MediaType.TEXT_PLAIN, utf8("a"));
+
+		Map<String, ByteBuf> entries = exchange.getMetadataEntries();
+
+		assertThat(entries).containsOnlyKeys(MediaType.TEXT_PLAIN_VALUE);
+		assertThat(entries.get(MediaType.TEXT_PLAIN_VALUE).toString(StandardCharsets.UTF_8)).isEqualTo("a");
+	}
+
+	@Test
+	public void getMetadataEntriesWhenNoMetadataThenEmpty() {
+		Payload payload = DefaultPayload.create("data");
+		PayloadExchange exchange = new DefaultPayloadExchange(PayloadExchangeType.REQUEST_RESPONSE,
+				payload, COMPOSITE_METADATA, MediaType.APPLICATION_JSON);
+
+		assertThat(exchange.getMetadataEntries()).isEmpty();
+	}
+
+	private static PayloadExchange createExchange(MimeType metadataMimeType, ByteBuf metadata) {
+		Payload payload = DefaultPayload.create(Unpooled.EMPTY_BUFFER, metadata);
+		return new DefaultPayloadExchange(PayloadExchangeType.REQUEST_RESPONSE, payload,
+				metadataMimeType, MediaType.APPLICATION_JSON);
+	}
+
+	private static ByteBuf utf8(String value) {
+		return Unpooled.copiedBuffer(value, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.Payload;
+import io.rsocket.metadata.CompositeMetadataFlyweight;
+import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.util.DefaultPayload;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.rsocket.MetadataExtractor;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the default methods of {@link PayloadExchange}.
+ *
+ * @author Rob Winch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PayloadExchangeTests {
+	static final MimeType COMPOSITE_METADATA = MimeTypeUtils.parseMimeType(
+			WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA.getString());
+
+	@Mock
+	private MetadataExtractor metadataExtractor;
+
+	@Test
+	public void getMetadataEntriesWhenCompositeThenEntries() {
+		ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+		CompositeByteBuf metadata = allocator.compositeBuffer();
+		CompositeMetadataFlyweight.encodeAndAddMetadata(metadata, allocator, "text/a",
+				Unpooled.copiedBuffer("a", StandardCharsets.UTF_8));
+		PayloadExchange exchange = new MinimalPayloadExchange(
+				DefaultPayload.create(Unpooled.EMPTY_BUFFER, metadata), COMPOSITE_METADATA);
+
+		Map<String, ByteBuf> entries = exchange.getMetadataEntries();
+
+		assertThat(entries).containsOnlyKeys("text/a");
+		assertThat(entries.get("text/a").toString(StandardCharsets.UTF_8)).isEqualTo("a");
+	}
+
+	@Test
+	public void getMetadataThenExtracted() {
+		Payload payload = DefaultPayload.create("data");
+		Map<String, Object> metadata = Collections.singletonMap(MetadataExtractor.ROUTE_KEY, "route");
+		when(this.metadataExtractor.extract(payload, COMPOSITE_METADATA)).thenReturn(metadata);
+		PayloadExchange exchange = new MinimalPayloadExchange(payload, COMPOSITE_METADATA);
+
+		assertThat(exchange.getMetadata(this.metadataExtractor)).isEqualTo(metadata);
+	}
+
+	@Test
+	public void getAttributesThenEmptyAndUnmodifiable() {
+		PayloadExchange exchange = new MinimalPayloadExchange(DefaultPayload.create("data"),
+				COMPOSITE_METADATA);
+
+		assertThat(exchange.getAttributes()).isEmpty();
+		assertThatCode(() -> exchange.getAttributes().put("a", "b"))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void setContextWhenNoAttributesThenFalse() {
+		PayloadExchange exchange = new MinimalPayloadExchange(DefaultPayload.create("data"),
+				COMPOSITE_METADATA);
+
+		assertThat(PayloadExchangeSecurityContextHolder.setContext(exchange,
+				new SecurityContextImpl())).isFalse();
+		assertThat(PayloadExchangeSecurityContextHolder.getContext(exchange)).isNull();
+	}
+
+	@Test
+	public void onTerminateWhenNoAttributesThenFalse() {
+		PayloadExchange exchange = new MinimalPayloadExchange(DefaultPayload.create("data"),
+				COMPOSITE_METADATA);
+
+		assertThat(PayloadExchangeTermination.onTerminate(exchange, () -> {})).isFalse();
+		PayloadExchangeTermination.terminate(exchange);
+	}
+
+	/**
+	 * Only implements the methods that an implementation written before the default
+	 * methods were added would implement.
+	 */
+	static class MinimalPayloadExchange implements PayloadExchange {
+		private final Payload payload;
+
+		private final MimeType metadataMimeType;
+
+		MinimalPayloadExchange(Payload payload, MimeType metadataMimeType) {
+			this.payload = payload;
+			this.metadataMimeType = metadataMimeType;
+		}
+
+		@Override
+		public PayloadExchangeType getType() {
+			return PayloadExchangeType.REQUEST_RESPONSE;
+		}
+
+		@Override
+		public Payload getPayload() {
+			return this.payload;
+		}
+
+		@Override
+		public MimeType getDataMimeType() {
+			return MediaType.APPLICATION_JSON;
+		}
+
+		@Override
+		public MimeType getMetadataMimeType() {
+			return this.metadataMimeType;
+		}
+	}
+}
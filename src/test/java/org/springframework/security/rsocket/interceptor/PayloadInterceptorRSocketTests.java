@@ -19,6 +19,7 @@ package org.springframework.security.rsocket.interceptor;
 import io.rsocket.Payload;
 import io.rsocket.RSocket;
 import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.util.DefaultPayload;
 import io.rsocket.util.RSocketProxy;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -41,13 +42,18 @@ import reactor.test.StepVerifier;
 import reactor.test.publisher.PublisherProbe;
 import reactor.test.publisher.TestPublisher;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -188,6 +194,29 @@ public class PayloadInterceptorRSocketTests {
 		verify(this.delegate).requestResponse(this.payload);
 	}
 
+	@Test
+	public void requestResponseWhenNextCreatedBeforeDecidingThenEachInterceptorInvokedOnce() {
+		// creates chain.next(exchange) as a fallback that is not used, like authentication does
+		PayloadInterceptor authenticate = (e, chain) -> Mono.just("user")
+				.switchIfEmpty(chain.next(e).then(Mono.empty()))
+				.flatMap(a -> chain.next(e));
+		AtomicInteger invocations = new AtomicInteger();
+		PayloadInterceptor counting = (e, chain) -> {
+			invocations.incrementAndGet();
+			return chain.next(e);
+		};
+		when(this.delegate.requestResponse(any())).thenReturn(Mono.just(this.payload));
+
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(this.delegate,
+				Arrays.asList(authenticate, counting), metadataMimeType, dataMimeType);
+
+		StepVerifier.create(interceptor.requestResponse(this.payload))
+			.expectNext(this.payload)
+			.verifyComplete();
+
+		assertThat(invocations).hasValue(1);
+	}
+
 	@Test
 	public void requestResponseWhenInterceptorErrorsThenDelegateNotInvoked() {
 		RuntimeException expected = new RuntimeException("Oops");
@@ -231,6 +260,36 @@ public class PayloadInterceptorRSocketTests {
 		verify(this.delegate).requestResponse(this.payload);
 	}
 
+	@Test
+	public void requestResponseWhenExchangeSecurityContextThenDelegateContext() {
+		TestingAuthenticationToken authentication = new TestingAuthenticationToken("user", "password");
+		when(this.interceptor.intercept(any(), any())).thenAnswer(invocation -> {
+			PayloadExchange exchange = (PayloadExchange) invocation.getArguments()[0];
+			PayloadInterceptorChain c = (PayloadInterceptorChain) invocation.getArguments()[1];
+			PayloadExchangeSecurityContextHolder.setAuthentication(exchange, authentication);
+			return c.next(exchange);
+		});
+		when(this.delegate.requestResponse(any())).thenReturn(this.payloadResult.mono());
+
+		RSocket assertAuthentication = new RSocketProxy(this.delegate) {
+			@Override
+			public Mono<Payload> requestResponse(Payload payload) {
+				return assertAuthentication(authentication)
+						.flatMap(a -> super.requestResponse(payload));
+			}
+		};
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(assertAuthentication,
+				Arrays.asList(this.interceptor), metadataMimeType, dataMimeType);
+
+		StepVerifier.create(interceptor.requestResponse(this.payload))
+				.then(() -> this.payloadResult.assertSubscribers())
+				.then(() -> this.payloadResult.emit(this.payload))
+				.expectNext(this.payload)
+				.verifyComplete();
+
+		verify(this.delegate).requestResponse(this.payload);
+	}
+
 	@Test
 	public void requestStreamWhenInterceptorCompletesThenDelegateSubscribed() {
 		when(this.interceptor.intercept(any(), any())).thenReturn(Mono.empty());
@@ -418,6 +477,86 @@ public class PayloadInterceptorRSocketTests {
 		this.voidResult.assertWasSubscribed();
 	}
 
+	@Test
+	public void requestResponseWhenMultipleRequestsThenEachDelegateContext() {
+		TestingAuthenticationToken authentication = new TestingAuthenticationToken("user", "password");
+		TestingAuthenticationToken authentication2 = new TestingAuthenticationToken("user2", "password");
+		when(this.interceptor.intercept(any(), any()))
+				.thenAnswer(withAuthenticated(authentication))
+				.thenAnswer(withAuthenticated(authentication2));
+		when(this.delegate.requestResponse(any())).thenReturn(Mono.just(this.payload));
+
+		List<Authentication> authentications = new ArrayList<>();
+		RSocket assertAuthentication = new RSocketProxy(this.delegate) {
+			@Override
+			public Mono<Payload> requestResponse(Payload payload) {
+				return ReactiveSecurityContextHolder.getContext()
+						.map(SecurityContext::getAuthentication)
+						.doOnNext(authentications::add)
+						.flatMap(a -> super.requestResponse(payload));
+			}
+		};
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(assertAuthentication,
+				Arrays.asList(this.interceptor), metadataMimeType, dataMimeType);
+
+		interceptor.requestResponse(this.payload).block();
+		interceptor.requestResponse(this.payload).block();
+
+		assertThat(authentications).containsExactly(authentication, authentication2);
+	}
+
+	@Test
+	public void requestResponseWhenInterceptorDoesNotInvokeChainThenDelegateEmptyContext() {
+		TestingAuthenticationToken authentication = new TestingAuthenticationToken("user", "password");
+		when(this.interceptor.intercept(any(), any()))
+				.thenAnswer(withAuthenticated(authentication))
+				.thenReturn(Mono.empty());
+		when(this.delegate.requestResponse(any())).thenReturn(Mono.just(this.payload));
+
+		List<Authentication> authentications = new ArrayList<>();
+		RSocket assertAuthentication = new RSocketProxy(this.delegate) {
+			@Override
+			public Mono<Payload> requestResponse(Payload payload) {
+				return ReactiveSecurityContextHolder.getContext()
+						.map(SecurityContext::getAuthentication)
+						.doOnNext(authentications::add)
+						.then(super.requestResponse(payload));
+			}
+		};
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(assertAuthentication,
+				Arrays.asList(this.interceptor), metadataMimeType, dataMimeType);
+
+		interceptor.requestResponse(this.payload).block();
+		interceptor.requestResponse(this.payload).block();
+
+		assertThat(authentications).containsExactly(authentication);
+	}
+
+	@Test
+	public void requestResponseWhenInterceptorDoesNotInvokeChainThenDelegateConnectionContext() {
+		TestingAuthenticationToken authentication = new TestingAuthenticationToken("user", "password");
+		when(this.interceptor.intercept(any(), any())).thenReturn(Mono.empty());
+		when(this.delegate.requestResponse(any())).thenReturn(Mono.just(this.payload));
+
+		List<Authentication> authentications = new ArrayList<>();
+		RSocket assertAuthentication = new RSocketProxy(this.delegate) {
+			@Override
+			public Mono<Payload> requestResponse(Payload payload) {
+				return ReactiveSecurityContextHolder.getContext()
+						.map(SecurityContext::getAuthentication)
+						.doOnNext(authentications::add)
+						.then(super.requestResponse(payload));
+			}
+		};
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(assertAuthentication,
+				Arrays.asList(this.interceptor), metadataMimeType, dataMimeType,
+				ReactiveSecurityContextHolder.withAuthentication(authentication));
+
+		interceptor.requestResponse(this.payload).block();
+
+		assertThat(authentications).containsExactly(authentication);
+	}
+
 	// multiple interceptors
 
 	@Test
@@ -495,6 +634,213 @@ public class PayloadInterceptorRSocketTests {
 		this.voidResult.assertWasNotSubscribed();
 	}
 
+	@Test
+	public void requestChannelWhenInterceptorDelaysThenPayloadsInOrder() {
+		PayloadInterceptor delaying = (exchange, chain) -> {
+			int value = Integer.parseInt(exchange.getPayload().getDataUtf8());
+			return Mono.delay(Duration.ofMillis(50 - 10 * value)).then(chain.next(exchange));
+		};
+		when(this.delegate.requestChannel(any())).thenAnswer(a -> Flux.from((Publisher<Payload>) a.getArguments()[0]));
+
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(this.delegate,
+				Arrays.asList(delaying), metadataMimeType, dataMimeType);
+
+		StepVerifier.create(interceptor.requestChannel(payloads(5)).map(Payload::getDataUtf8))
+				.expectNext("0", "1", "2", "3", "4")
+				.verifyComplete();
+	}
+
+	@Test
+	public void requestChannelWhenFirstPayloadOnlyThenInterceptedOnce() {
+		when(this.interceptor.intercept(any(), any())).thenAnswer(withChainNext());
+		when(this.delegate.requestChannel(any())).thenAnswer(a -> Flux.from((Publisher<Payload>) a.getArguments()[0]));
+
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(this.delegate,
+				Arrays.asList(this.interceptor), metadataMimeType, dataMimeType);
+		interceptor.setChannelPayloadPolicy(ChannelPayloadPolicy.firstPayloadOnly());
+
+		StepVerifier.create(interceptor.requestChannel(payloads(3)))
+				.expectNextCount(3)
+				.verifyComplete();
+
+		verify(this.interceptor, times(1)).intercept(any(), any());
+	}
+
+	@Test
+	public void requestChannelWhenSampledThenEveryIntervalIntercepted() {
+		when(this.interceptor.intercept(any(), any())).thenAnswer(withChainNext());
+		when(this.delegate.requestChannel(any())).thenAnswer(a -> Flux.from((Publisher<Payload>) a.getArguments()[0]));
+
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(this.delegate,
+				Arrays.asList(this.interceptor), metadataMimeType, dataMimeType);
+		interceptor.setChannelPayloadPolicy(ChannelPayloadPolicy.sampled(2));
+
+		StepVerifier.create(interceptor.requestChannel(payloads(6)))
+				.expectNextCount(6)
+				.verifyComplete();
+
+		verify(this.interceptor, times(4)).intercept(this.exchange.capture(), any());
+		assertThat(this.exchange.getAllValues()).extracting(e -> e.getPayload().getDataUtf8())
+				.containsExactly("0", "1", "3", "5");
+	}
+
+	@Test
+	public void requestChannelWhenPolicyInterceptorsThenPayloadsUsePolicyInterceptors() {
+		when(this.interceptor.intercept(any(), any())).thenAnswer(withChainNext());
+		when(this.interceptor2.intercept(any(), any())).thenAnswer(withChainNext());
+		when(this.delegate.requestChannel(any())).thenAnswer(a -> Flux.from((Publisher<Payload>) a.getArguments()[0]));
+
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(this.delegate,
+				Arrays.asList(this.interceptor), metadataMimeType, dataMimeType);
+		interceptor.setChannelPayloadPolicy(ChannelPayloadPolicy.interceptors(Arrays.asList(this.interceptor2)));
+
+		StepVerifier.create(interceptor.requestChannel(payloads(3)))
+				.expectNextCount(3)
+				.verifyComplete();
+
+		verify(this.interceptor, times(1)).intercept(any(), any());
+		verify(this.interceptor2, times(2)).intercept(this.exchange.capture(), any());
+		assertThat(this.exchange.getAllValues()).extracting(PayloadExchange::getType)
+				.containsOnly(PayloadExchangeType.PAYLOAD);
+	}
+
+	@Test
+	public void requestChannelWhenPolicyInterceptorsThenPayloadsUseChannelContext() {
+		Authentication channelAuthentication = new TestingAuthenticationToken("channel", "password");
+		PayloadInterceptor authenticate = (exchange, chain) -> chain.next(exchange)
+				.subscriberContext(ReactiveSecurityContextHolder.withAuthentication(channelAuthentication));
+		AtomicInteger authenticated = new AtomicInteger();
+		PayloadInterceptor authorize = (exchange, chain) -> assertAuthentication(channelAuthentication)
+				.doOnNext(a -> authenticated.incrementAndGet())
+				.then(chain.next(exchange));
+		when(this.delegate.requestChannel(any())).thenAnswer(a -> Flux.from((Publisher<Payload>) a.getArguments()[0]));
+
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(this.delegate,
+				Arrays.asList(authenticate), metadataMimeType, dataMimeType);
+		interceptor.setChannelPayloadPolicy(ChannelPayloadPolicy.interceptors(Arrays.asList(authorize)));
+
+		StepVerifier.create(interceptor.requestChannel(payloads(3)))
+				.expectNextCount(3)
+				.verifyComplete();
+
+		assertThat(authenticated).hasValue(2);
+	}
+
+	@Test
+	public void requestChannelWhenConcurrencyThenPayloadsInOrderAndInFlightBounded() {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		PayloadInterceptor delaying = (exchange, chain) -> {
+			int value = Integer.parseInt(exchange.getPayload().getDataUtf8());
+			return Mono.delay(Duration.ofMillis(60 - 10 * value))
+					.doOnSubscribe(s -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+					.doOnTerminate(inFlight::decrementAndGet)
+					.then(chain.next(exchange));
+		};
+		when(this.delegate.requestChannel(any())).thenAnswer(a -> Flux.from((Publisher<Payload>) a.getArguments()[0]));
+
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(this.delegate,
+				Arrays.asList(delaying), metadataMimeType, dataMimeType);
+		interceptor.setChannelPayloadConcurrency(2);
+
+		StepVerifier.create(interceptor.requestChannel(payloads(6)).map(Payload::getDataUtf8))
+				.expectNext("0", "1", "2", "3", "4", "5")
+				.verifyComplete();
+
+		assertThat(maxInFlight.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void requestChannelWhenPrefetchThenRequestedPayloadsBounded() {
+		when(this.interceptor.intercept(any(), any())).thenAnswer(withChainNext());
+		when(this.delegate.requestChannel(any())).thenAnswer(a -> Flux.from((Publisher<Payload>) a.getArguments()[0]));
+		AtomicLong requested = new AtomicLong();
+		Flux<Payload> payloads = payloads(1000).doOnRequest(requested::addAndGet);
+
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(this.delegate,
+				Arrays.asList(this.interceptor), metadataMimeType, dataMimeType);
+		interceptor.setChannelPayloadPrefetch(4);
+
+		StepVerifier.create(interceptor.requestChannel(payloads), 0)
+				.thenRequest(3)
+				.expectNextCount(3)
+				.thenCancel()
+				.verify();
+
+		assertThat(requested.get()).isLessThan(10);
+	}
+
+	@Test
+	public void requestStreamWhenCompleteThenTerminationCallbackInvoked() {
+		AtomicInteger terminated = new AtomicInteger();
+		when(this.interceptor.intercept(any(), any())).thenAnswer(withTerminationCallback(terminated));
+		when(this.delegate.requestStream(any())).thenReturn(this.payloadResult.flux());
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(this.delegate,
+				Arrays.asList(this.interceptor), metadataMimeType, dataMimeType);
+
+		StepVerifier.create(interceptor.requestStream(this.payload))
+				.then(() -> this.payloadResult.next(this.payload))
+				.expectNext(this.payload)
+				.then(() -> assertThat(terminated).hasValue(0))
+				.then(() -> this.payloadResult.complete())
+				.verifyComplete();
+
+		assertThat(terminated).hasValue(1);
+	}
+
+	@Test
+	public void requestStreamWhenCancelledThenTerminationCallbackInvoked() {
+		AtomicInteger terminated = new AtomicInteger();
+		when(this.interceptor.intercept(any(), any())).thenAnswer(withTerminationCallback(terminated));
+		when(this.delegate.requestStream(any())).thenReturn(this.payloadResult.flux());
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(this.delegate,
+				Arrays.asList(this.interceptor), metadataMimeType, dataMimeType);
+
+		StepVerifier.create(interceptor.requestStream(this.payload))
+				.then(() -> this.payloadResult.next(this.payload))
+				.expectNext(this.payload)
+				.thenCancel()
+				.verify();
+
+		assertThat(terminated).hasValue(1);
+	}
+
+	@Test
+	public void requestResponseWhenLaterInterceptorErrorsThenTerminationCallbackInvoked() {
+		AtomicInteger terminated = new AtomicInteger();
+		when(this.interceptor.intercept(any(), any())).thenAnswer(withTerminationCallback(terminated));
+		when(this.interceptor2.intercept(any(), any())).thenReturn(Mono.error(new RuntimeException("Oops")));
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(this.delegate,
+				Arrays.asList(this.interceptor, this.interceptor2), metadataMimeType, dataMimeType);
+
+		StepVerifier.create(interceptor.requestResponse(this.payload))
+				.verifyError(RuntimeException.class);
+
+		assertThat(terminated).hasValue(1);
+	}
+
+	@Test
+	public void setChannelPayloadConcurrencyWhenZeroThenException() {
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(this.delegate,
+				Arrays.asList(this.interceptor), metadataMimeType, dataMimeType);
+
+		assertThatCode(() -> interceptor.setChannelPayloadConcurrency(0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void setChannelPayloadPrefetchWhenZeroThenException() {
+		PayloadInterceptorRSocket interceptor = new PayloadInterceptorRSocket(this.delegate,
+				Arrays.asList(this.interceptor), metadataMimeType, dataMimeType);
+
+		assertThatCode(() -> interceptor.setChannelPayloadPrefetch(0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static Flux<Payload> payloads(int count) {
+		return Flux.range(0, count).map(i -> DefaultPayload.create(String.valueOf(i)));
+	}
+
 	private Mono<Authentication> assertAuthentication(Authentication authentication) {
 		return ReactiveSecurityContextHolder.getContext()
 				.map(SecurityContext::getAuthentication)
@@ -510,6 +856,15 @@ public class PayloadInterceptorRSocketTests {
 		};
 	}
 
+	private static Answer<Mono<Void>> withTerminationCallback(AtomicInteger terminated) {
+		return invocation -> {
+			PayloadExchange exchange = (PayloadExchange) invocation.getArguments()[0];
+			PayloadInterceptorChain chain = (PayloadInterceptorChain) invocation.getArguments()[1];
+			PayloadExchangeTermination.onTerminate(exchange, terminated::incrementAndGet);
+			return chain.next(exchange);
+		};
+	}
+
 	private static Answer<Mono<Void>> withChainNext() {
 		return invocation -> {
 			PayloadExchange exchange = (PayloadExchange) invocation.getArguments()[0];
@@ -25,12 +25,15 @@ import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.authorization.ReactiveAuthorizationManager;
 import org.springframework.security.rsocket.interceptor.PayloadExchange;
 import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.interceptor.metrics.InMemoryPayloadSecurityMetrics;
 import org.springframework.security.rsocket.util.PayloadExchangeAuthorizationContext;
 import org.springframework.security.rsocket.util.PayloadExchangeMatcher;
 import org.springframework.security.rsocket.util.PayloadExchangeMatcherEntry;
 import org.springframework.security.rsocket.util.PayloadExchangeMatchers;
 import reactor.core.publisher.Mono;
 
+import java.util.HashMap;
+
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.when;
@@ -112,4 +115,107 @@ public class PayloadExchangeMatcherReactiveAuthorizationManagerTest {
 		assertThat(manager.check(Mono.empty(), this.exchange).block())
 				.isEqualTo(expected);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void checkWhenSyncMatchAndEmptyDecisionThenNextUsed() {
+		AuthorizationDecision expected = new AuthorizationDecision(true);
+		when(this.authz.check(any(), any())).thenReturn(Mono.empty());
+		when(this.authz2.check(any(), any())).thenReturn(Mono.just(
+				expected));
+		PayloadExchangeMatcherReactiveAuthorizationManager manager =
+				PayloadExchangeMatcherReactiveAuthorizationManager.builder()
+						.add(new PayloadExchangeMatcherEntry<>(PayloadExchangeMatchers.anyExchange(), this.authz))
+						.add(new PayloadExchangeMatcherEntry<>(PayloadExchangeMatchers.anyExchange(), this.authz2))
+						.build();
+
+		assertThat(manager.check(Mono.empty(), this.exchange).block())
+				.isEqualTo(expected);
+	}
+
+	@Test
+	public void checkWhenSyncNotMatchThenReactiveMatcherUsed() {
+		AuthorizationDecision expected = new AuthorizationDecision(true);
+		when(this.authz2.check(any(), any())).thenReturn(Mono.just(
+				expected));
+		PayloadExchangeMatcherReactiveAuthorizationManager manager =
+				PayloadExchangeMatcherReactiveAuthorizationManager.builder()
+						.add(new PayloadExchangeMatcherEntry<>(PayloadExchangeMatchers.setup(), this.authz))
+						.add(new PayloadExchangeMatcherEntry<>(e -> PayloadExchangeMatcher.MatchResult.match(), this.authz2))
+						.build();
+
+		assertThat(manager.check(Mono.empty(), this.exchange).block())
+				.isEqualTo(expected);
+	}
+
+	@Test
+	public void checkWhenNoMatchThenDenied() {
+		PayloadExchangeMatcherReactiveAuthorizationManager manager =
+				PayloadExchangeMatcherReactiveAuthorizationManager.builder()
+						.add(new PayloadExchangeMatcherEntry<>(PayloadExchangeMatchers.setup(), this.authz))
+						.build();
+
+		assertThat(manager.check(Mono.empty(), this.exchange).block().isGranted()).isFalse();
+	}
+
+	@Test
+	public void checkWhenMetricsThenDecisionRecordedWithMatcher() {
+		when(this.authz.check(any(), any())).thenReturn(Mono.just(new AuthorizationDecision(true)));
+		PayloadExchangeMatcher matcher = PayloadExchangeMatchers.anyExchange();
+		InMemoryPayloadSecurityMetrics metrics = new InMemoryPayloadSecurityMetrics();
+		PayloadExchangeMatcherReactiveAuthorizationManager manager =
+				PayloadExchangeMatcherReactiveAuthorizationManager.builder()
+						.add(new PayloadExchangeMatcherEntry<>(matcher, this.authz))
+						.metrics(metrics)
+						.build();
+
+		manager.check(Mono.empty(), this.exchange).block();
+
+		assertThat(metrics.getAuthorizationCount(matcher, PayloadExchangeType.REQUEST_RESPONSE, true)).isEqualTo(1);
+		assertThat(metrics.getAuthorizationCount(matcher, PayloadExchangeType.REQUEST_RESPONSE, false)).isEqualTo(0);
+	}
+
+	@Test
+	public void checkWhenMetricsAndNoMatchThenDefaultDenyRecorded() {
+		InMemoryPayloadSecurityMetrics metrics = new InMemoryPayloadSecurityMetrics();
+		PayloadExchangeMatcherReactiveAuthorizationManager manager =
+				PayloadExchangeMatcherReactiveAuthorizationManager.builder()
+						.add(new PayloadExchangeMatcherEntry<>(e -> PayloadExchangeMatcher.MatchResult.notMatch(), this.authz))
+						.metrics(metrics)
+						.build();
+
+		assertThat(manager.check(Mono.empty(), this.exchange).block().isGranted()).isFalse();
+
+		assertThat(metrics.getAuthorizationCount(null, PayloadExchangeType.REQUEST_RESPONSE, false)).isEqualTo(1);
+	}
+
+	@Test
+	public void checkWhenExposeMatcherThenMatcherAvailable() {
+		when(this.authz2.check(any(), any())).thenReturn(Mono.just(new AuthorizationDecision(true)));
+		when(this.exchange.getAttributes()).thenReturn(new HashMap<>());
+		PayloadExchangeMatcher matcher = PayloadExchangeMatchers.anyExchange();
+		PayloadExchangeMatcherReactiveAuthorizationManager manager =
+				PayloadExchangeMatcherReactiveAuthorizationManager.builder()
+						.add(new PayloadExchangeMatcherEntry<>(e -> PayloadExchangeMatcher.MatchResult.notMatch(), this.authz))
+						.add(new PayloadExchangeMatcherEntry<>(matcher, this.authz2))
+						.exposeMatcher(true)
+						.build();
+
+		manager.check(Mono.empty(), this.exchange).block();
+
+		assertThat(PayloadExchangeMatcherReactiveAuthorizationManager.getMatcher(this.exchange)).isSameAs(matcher);
+	}
+
+	@Test
+	public void checkWhenMatcherNotExposedThenMatcherNull() {
+		when(this.authz.check(any(), any())).thenReturn(Mono.just(new AuthorizationDecision(true)));
+		when(this.exchange.getAttributes()).thenReturn(new HashMap<>());
+		PayloadExchangeMatcherReactiveAuthorizationManager manager =
+				PayloadExchangeMatcherReactiveAuthorizationManager.builder()
+						.add(new PayloadExchangeMatcherEntry<>(PayloadExchangeMatchers.anyExchange(), this.authz))
+						.build();
+
+		manager.check(Mono.empty(), this.exchange).block();
+
+		assertThat(PayloadExchangeMatcherReactiveAuthorizationManager.getMatcher(this.exchange)).isNull();
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.metrics;
+
+import org.junit.Test;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.authentication.AnonymousPayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.authentication.CachingBearerTokenReactiveAuthenticationManager;
+import org.springframework.security.rsocket.interceptor.authorization.AuthorizationPayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.metrics.PayloadSecurityMetrics.Outcome;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcher;
+import org.springframework.security.rsocket.util.PayloadExchangeMatchers;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * @author Rob Winch
+ */
+public class InMemoryPayloadSecurityMetricsTests {
+	private InMemoryPayloadSecurityMetrics metrics = new InMemoryPayloadSecurityMetrics();
+
+	@Test
+	public void recordInterceptorThenCountedByTypeAndOutcome() {
+		PayloadInterceptor anonymous = new AnonymousPayloadInterceptor("anonymous");
+
+		this.metrics.recordInterceptor(anonymous, PayloadExchangeType.REQUEST_RESPONSE, Outcome.NEXT, 1000);
+		this.metrics.recordInterceptor(anonymous, PayloadExchangeType.REQUEST_RESPONSE, Outcome.NEXT, 2000);
+		this.metrics.recordInterceptor(anonymous, PayloadExchangeType.REQUEST_STREAM, Outcome.ERROR, 5000);
+
+		assertThat(this.metrics.getCount(AnonymousPayloadInterceptor.class, PayloadExchangeType.REQUEST_RESPONSE,
+				Outcome.NEXT)).isEqualTo(2);
+		assertThat(this.metrics.getTotalTime(AnonymousPayloadInterceptor.class, PayloadExchangeType.REQUEST_RESPONSE,
+				Outcome.NEXT, TimeUnit.MICROSECONDS)).isEqualTo(3.0);
+		assertThat(this.metrics.getCount(AnonymousPayloadInterceptor.class, PayloadExchangeType.REQUEST_STREAM,
+				Outcome.ERROR)).isEqualTo(1);
+		assertThat(this.metrics.getCount(AnonymousPayloadInterceptor.class, PayloadExchangeType.REQUEST_STREAM,
+				Outcome.NEXT)).isEqualTo(0);
+		assertThat(this.metrics.getInterceptorTypes()).containsOnly(AnonymousPayloadInterceptor.class);
+	}
+
+	@Test
+	public void getCountWhenNotRecordedThenZero() {
+		assertThat(this.metrics.getCount(AuthorizationPayloadInterceptor.class, PayloadExchangeType.SETUP,
+				Outcome.DENIED)).isEqualTo(0);
+		assertThat(this.metrics.getTotalTime(AuthorizationPayloadInterceptor.class, PayloadExchangeType.SETUP,
+				Outcome.DENIED, TimeUnit.SECONDS)).isEqualTo(0.0);
+	}
+
+	@Test
+	public void recordAuthenticationCacheThenCountedByType() {
+		ReactiveAuthenticationManager cache = new CachingBearerTokenReactiveAuthenticationManager(
+				a -> Mono.empty(), Duration.ofMinutes(1), 1);
+
+		this.metrics.recordAuthenticationCache(cache, true);
+		this.metrics.recordAuthenticationCache(cache, true);
+		this.metrics.recordAuthenticationCache(cache, false);
+
+		assertThat(this.metrics.getAuthenticationCacheCount(CachingBearerTokenReactiveAuthenticationManager.class,
+				true)).isEqualTo(2);
+		assertThat(this.metrics.getAuthenticationCacheCount(CachingBearerTokenReactiveAuthenticationManager.class,
+				false)).isEqualTo(1);
+	}
+
+	@Test
+	public void recordAuthorizationThenCountedByMatcher() {
+		PayloadExchangeMatcher matcher = PayloadExchangeMatchers.anyExchange();
+
+		this.metrics.recordAuthorization(PayloadExchangeType.REQUEST_RESPONSE, matcher, true);
+		this.metrics.recordAuthorization(PayloadExchangeType.REQUEST_RESPONSE, matcher, false);
+		this.metrics.recordAuthorization(PayloadExchangeType.REQUEST_RESPONSE, matcher, false);
+		this.metrics.recordAuthorization(PayloadExchangeType.REQUEST_RESPONSE, null, false);
+
+		assertThat(this.metrics.getAuthorizationCount(matcher, PayloadExchangeType.REQUEST_RESPONSE, true))
+				.isEqualTo(1);
+		assertThat(this.metrics.getAuthorizationCount(matcher, PayloadExchangeType.REQUEST_RESPONSE, false))
+				.isEqualTo(2);
+		assertThat(this.metrics.getAuthorizationCount(null, PayloadExchangeType.REQUEST_RESPONSE, false))
+				.isEqualTo(1);
+		assertThat(this.metrics.getAuthorizationMatchers()).containsOnly(matcher);
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptor;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
+import org.springframework.security.rsocket.interceptor.metrics.PayloadSecurityMetrics.Outcome;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Rob Winch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class InstrumentedPayloadInterceptorTests {
+	@Mock
+	PayloadSecurityMetrics metrics;
+
+	@Mock
+	PayloadExchange exchange;
+
+	@Mock
+	PayloadInterceptorChain chain;
+
+	@Before
+	public void setup() {
+		when(this.exchange.getType()).thenReturn(PayloadExchangeType.REQUEST_RESPONSE);
+	}
+
+	@Test
+	public void constructorWhenDelegateNullThenException() {
+		assertThatCode(() -> new InstrumentedPayloadInterceptor(null, this.metrics))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void constructorWhenMetricsNullThenException() {
+		assertThatCode(() -> new InstrumentedPayloadInterceptor((e, c) -> c.next(e), null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void interceptWhenNextThenNextRecordedOnce() {
+		PayloadInterceptor delegate = (e, c) -> c.next(e);
+		PublisherProbe<Void> next = PublisherProbe.empty();
+		when(this.chain.next(any())).thenReturn(next.mono());
+		InstrumentedPayloadInterceptor interceptor = new InstrumentedPayloadInterceptor(delegate, this.metrics);
+
+		StepVerifier.create(interceptor.intercept(this.exchange, this.chain))
+				.verifyComplete();
+
+		next.assertWasSubscribed();
+		verify(this.metrics).recordInterceptor(eq(delegate), eq(PayloadExchangeType.REQUEST_RESPONSE),
+				eq(Outcome.NEXT), anyLong());
+	}
+
+	@Test
+	public void interceptWhenNextErrorsThenOnlyNextRecorded() {
+		PayloadInterceptor delegate = (e, c) -> c.next(e);
+		when(this.chain.next(any())).thenReturn(Mono.error(new AccessDeniedException("denied")));
+		InstrumentedPayloadInterceptor interceptor = new InstrumentedPayloadInterceptor(delegate, this.metrics);
+
+		StepVerifier.create(interceptor.intercept(this.exchange, this.chain))
+				.verifyError(AccessDeniedException.class);
+
+		verify(this.metrics).recordInterceptor(eq(delegate), eq(PayloadExchangeType.REQUEST_RESPONSE),
+				eq(Outcome.NEXT), anyLong());
+	}
+
+	@Test
+	public void interceptWhenCompleteWithoutNextThenCompleteRecorded() {
+		PayloadInterceptor delegate = (e, c) -> Mono.empty();
+		InstrumentedPayloadInterceptor interceptor = new InstrumentedPayloadInterceptor(delegate, this.metrics);
+
+		StepVerifier.create(interceptor.intercept(this.exchange, this.chain))
+				.verifyComplete();
+
+		verifyZeroInteractions(this.chain);
+		verify(this.metrics).recordInterceptor(eq(delegate), eq(PayloadExchangeType.REQUEST_RESPONSE),
+				eq(Outcome.COMPLETE), anyLong());
+	}
+
+	@Test
+	public void interceptWhenAccessDeniedThenDeniedRecorded() {
+		PayloadInterceptor delegate = (e, c) -> Mono.error(new AccessDeniedException("denied"));
+		InstrumentedPayloadInterceptor interceptor = new InstrumentedPayloadInterceptor(delegate, this.metrics);
+
+		StepVerifier.create(interceptor.intercept(this.exchange, this.chain))
+				.verifyError(AccessDeniedException.class);
+
+		verify(this.metrics).recordInterceptor(eq(delegate), eq(PayloadExchangeType.REQUEST_RESPONSE),
+				eq(Outcome.DENIED), anyLong());
+	}
+
+	@Test
+	public void interceptWhenAuthenticationExceptionThenUnauthenticatedRecorded() {
+		PayloadInterceptor delegate = (e, c) -> Mono.error(new BadCredentialsException("bad"));
+		InstrumentedPayloadInterceptor interceptor = new InstrumentedPayloadInterceptor(delegate, this.metrics);
+
+		StepVerifier.create(interceptor.intercept(this.exchange, this.chain))
+				.verifyError(BadCredentialsException.class);
+
+		verify(this.metrics).recordInterceptor(eq(delegate), eq(PayloadExchangeType.REQUEST_RESPONSE),
+				eq(Outcome.UNAUTHENTICATED), anyLong());
+	}
+
+	@Test
+	public void interceptWhenNextNotSubscribedThenNotRecordedAsNext() {
+		PayloadInterceptor delegate = (e, c) -> {
+			c.next(e);
+			return Mono.empty();
+		};
+		InstrumentedPayloadInterceptor interceptor = new InstrumentedPayloadInterceptor(delegate, this.metrics);
+		when(this.chain.next(any())).thenReturn(Mono.empty());
+
+		StepVerifier.create(interceptor.intercept(this.exchange, this.chain))
+				.verifyComplete();
+
+		verify(this.metrics).recordInterceptor(eq(delegate), eq(PayloadExchangeType.REQUEST_RESPONSE),
+				eq(Outcome.COMPLETE), anyLong());
+	}
+
+	@Test
+	public void interceptWhenNotSubscribedThenNotRecorded() {
+		InstrumentedPayloadInterceptor interceptor = new InstrumentedPayloadInterceptor(mock(PayloadInterceptor.class),
+				this.metrics);
+
+		interceptor.intercept(this.exchange, this.chain);
+
+		verifyZeroInteractions(this.metrics);
+	}
+}
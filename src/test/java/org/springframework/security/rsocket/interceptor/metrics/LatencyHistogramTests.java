@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.metrics;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * @author Rob Winch
+ */
+public class LatencyHistogramTests {
+	private LatencyHistogram histogram = new LatencyHistogram();
+
+	@Test
+	public void getSnapshotWhenEmptyThenZero() {
+		LatencyHistogram.Snapshot snapshot = this.histogram.getSnapshot();
+
+		assertThat(snapshot.getCount()).isEqualTo(0);
+		assertThat(snapshot.getMax()).isEqualTo(0);
+		assertThat(snapshot.getValueAtPercentile(99.9)).isEqualTo(0);
+	}
+
+	@Test
+	public void getValueAtPercentileWhenSmallValuesThenExact() {
+		for (int i = 1; i <= 100; i++) {
+			this.histogram.record(i);
+		}
+
+		LatencyHistogram.Snapshot snapshot = this.histogram.getSnapshot();
+
+		assertThat(snapshot.getCount()).isEqualTo(100);
+		assertThat(snapshot.getValueAtPercentile(50)).isEqualTo(50);
+		assertThat(snapshot.getValueAtPercentile(99)).isEqualTo(99);
+		assertThat(snapshot.getValueAtPercentile(100)).isEqualTo(100);
+		assertThat(snapshot.getMax()).isEqualTo(100);
+	}
+
+	@Test
+	public void getValueAtPercentileWhenLargeValuesThenWithinPrecision() {
+		for (int i = 1; i <= 1000; i++) {
+			this.histogram.record(i * 1_000_000L);
+		}
+
+		LatencyHistogram.Snapshot snapshot = this.histogram.getSnapshot();
+
+		assertThat(snapshot.getValueAtPercentile(50)).isBetween(500_000_000L, 500_000_000L + 500_000_000L / 64);
+		assertThat(snapshot.getValueAtPercentile(99.9)).isBetween(999_000_000L, 999_000_000L + 999_000_000L / 64);
+		assertThat(snapshot.getValueAtPercentile(100)).isEqualTo(1_000_000_000L);
+	}
+
+	@Test
+	public void recordWhenMaxValueThenRecorded() {
+		this.histogram.record(Long.MAX_VALUE);
+		this.histogram.record(-1);
+
+		LatencyHistogram.Snapshot snapshot = this.histogram.getSnapshot();
+
+		assertThat(snapshot.getValueAtPercentile(50)).isEqualTo(0);
+		assertThat(snapshot.getValueAtPercentile(100)).isEqualTo(Long.MAX_VALUE);
+	}
+
+	@Test
+	public void getValueAtPercentileWhenInvalidThenException() {
+		assertThatCode(() -> this.histogram.getSnapshot().getValueAtPercentile(101))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.metrics;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.server.resource.BearerTokenErrorCodes;
+import org.springframework.security.rsocket.interceptor.metrics.AuthenticationLatencyHistograms.Outcome;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Rob Winch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class TimedReactiveAuthenticationManagerTests {
+	@Mock
+	ReactiveAuthenticationManager delegate;
+
+	AuthenticationLatencyHistograms histograms = new AuthenticationLatencyHistograms();
+
+	UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken("user", "password");
+
+	@Test
+	public void constructorWhenDelegateNullThenException() {
+		assertThatCode(() -> new TimedReactiveAuthenticationManager(null, this.histograms))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void constructorWhenHistogramsNullThenException() {
+		assertThatCode(() -> new TimedReactiveAuthenticationManager(this.delegate, null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void authenticateWhenSuccessThenSuccessRecorded() {
+		TestingAuthenticationToken result = new TestingAuthenticationToken("user", "password", "ROLE_USER");
+		when(this.delegate.authenticate(any())).thenReturn(Mono.<Authentication>just(result).delayElement(Duration.ofMillis(10)));
+		TimedReactiveAuthenticationManager manager = new TimedReactiveAuthenticationManager(this.delegate,
+				this.histograms);
+
+		StepVerifier.create(manager.authenticate(this.authentication))
+				.expectNext(result)
+				.verifyComplete();
+
+		LatencyHistogram.Snapshot snapshot = this.histograms.getSnapshot(UsernamePasswordAuthenticationToken.class,
+				Outcome.SUCCESS);
+		assertThat(snapshot.getCount()).isEqualTo(1);
+		assertThat(snapshot.getValueAtPercentile(99.9)).isGreaterThanOrEqualTo(Duration.ofMillis(10).toNanos());
+		assertThat(this.histograms.getAuthenticationTypes()).containsOnly(UsernamePasswordAuthenticationToken.class);
+	}
+
+	@Test
+	public void authenticateWhenBadCredentialsThenBadCredentialsRecorded() {
+		when(this.delegate.authenticate(any())).thenReturn(Mono.error(new BadCredentialsException("bad")));
+		TimedReactiveAuthenticationManager manager = new TimedReactiveAuthenticationManager(this.delegate,
+				this.histograms);
+
+		StepVerifier.create(manager.authenticate(this.authentication))
+				.verifyError(BadCredentialsException.class);
+
+		assertThat(this.histograms.getSnapshot(UsernamePasswordAuthenticationToken.class, Outcome.BAD_CREDENTIALS)
+				.getCount()).isEqualTo(1);
+		assertThat(this.histograms.getSnapshot(UsernamePasswordAuthenticationToken.class, Outcome.SUCCESS)
+				.getCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void authenticateWhenEmptyThenErrorRecorded() {
+		when(this.delegate.authenticate(any())).thenReturn(Mono.empty());
+		TimedReactiveAuthenticationManager manager = new TimedReactiveAuthenticationManager(this.delegate,
+				this.histograms);
+
+		StepVerifier.create(manager.authenticate(this.authentication))
+				.verifyComplete();
+
+		assertThat(this.histograms.getSnapshot(UsernamePasswordAuthenticationToken.class, Outcome.ERROR)
+				.getCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void authenticateWhenInvalidTokenThenBadCredentialsRecorded() {
+		when(this.delegate.authenticate(any())).thenReturn(Mono.error(new OAuth2AuthenticationException(
+				new OAuth2Error(BearerTokenErrorCodes.INVALID_TOKEN))));
+		TimedReactiveAuthenticationManager manager = new TimedReactiveAuthenticationManager(this.delegate,
+				this.histograms);
+
+		StepVerifier.create(manager.authenticate(this.authentication))
+				.verifyError(OAuth2AuthenticationException.class);
+
+		assertThat(this.histograms.getSnapshot(UsernamePasswordAuthenticationToken.class, Outcome.BAD_CREDENTIALS)
+				.getCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void authenticateWhenLockedThenErrorRecorded() {
+		when(this.delegate.authenticate(any())).thenReturn(Mono.error(new LockedException("locked")));
+		TimedReactiveAuthenticationManager manager = new TimedReactiveAuthenticationManager(this.delegate,
+				this.histograms);
+
+		StepVerifier.create(manager.authenticate(this.authentication))
+				.verifyError(LockedException.class);
+
+		assertThat(this.histograms.getSnapshot(UsernamePasswordAuthenticationToken.class, Outcome.ERROR)
+				.getCount()).isEqualTo(1);
+		assertThat(this.histograms.getSnapshot(UsernamePasswordAuthenticationToken.class, Outcome.BAD_CREDENTIALS)
+				.getCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void authenticateWhenErrorThenErrorRecorded() {
+		when(this.delegate.authenticate(any())).thenReturn(Mono.error(new IllegalStateException()));
+		TimedReactiveAuthenticationManager manager = new TimedReactiveAuthenticationManager(this.delegate,
+				this.histograms);
+
+		StepVerifier.create(manager.authenticate(this.authentication))
+				.verifyError(IllegalStateException.class);
+
+		assertThat(this.histograms.getSnapshot(UsernamePasswordAuthenticationToken.class, Outcome.ERROR)
+				.getCount()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.ratelimit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeSecurityContextHolder;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Rob Winch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ConcurrencyLimitPayloadInterceptorTests {
+	@Mock
+	ConcurrencyLimit limit;
+
+	AtomicInteger invocations = new AtomicInteger();
+
+	PayloadInterceptorChain chain = e -> Mono.fromRunnable(this.invocations::incrementAndGet);
+
+	ConcurrencyLimitPayloadInterceptor interceptor;
+
+	@Before
+	public void setup() {
+		this.interceptor = new ConcurrencyLimitPayloadInterceptor(() -> new FixedConcurrencyLimit(1));
+	}
+
+	@Test
+	public void constructorWhenNullThenException() {
+		assertThatCode(() -> new ConcurrencyLimitPayloadInterceptor(null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void setExchangeTypesWhenPayloadThenException() {
+		assertThatCode(() -> this.interceptor.setExchangeTypes(Collections.singleton(PayloadExchangeType.PAYLOAD)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void interceptWhenLimitReachedThenConcurrencyLimitExceeded() {
+		PayloadExchange first = exchange(PayloadExchangeType.REQUEST_STREAM);
+		PayloadExchange second = exchange(PayloadExchangeType.REQUEST_STREAM);
+
+		intercept(first).verifyComplete();
+		intercept(second).verifyError(ConcurrencyLimitExceededException.class);
+
+		assertThat(this.invocations).hasValue(1);
+	}
+
+	@Test
+	public void interceptWhenTerminatedThenPermitReleased() {
+		PayloadExchange first = exchange(PayloadExchangeType.REQUEST_STREAM);
+		intercept(first).verifyComplete();
+
+		terminate(first);
+		terminate(first);
+
+		intercept(exchange(PayloadExchangeType.REQUEST_STREAM)).verifyComplete();
+		intercept(exchange(PayloadExchangeType.REQUEST_STREAM)).verifyError(ConcurrencyLimitExceededException.class);
+		assertThat(this.invocations).hasValue(2);
+	}
+
+	@Test
+	public void interceptWhenDifferentPrincipalsThenLimitedSeparately() {
+		PayloadExchange user = exchange(PayloadExchangeType.REQUEST_STREAM);
+		PayloadExchangeSecurityContextHolder.setAuthentication(user, authentication("user"));
+		PayloadExchange admin = exchange(PayloadExchangeType.REQUEST_STREAM);
+
+		intercept(user).verifyComplete();
+		StepVerifier.create(this.interceptor.intercept(admin, this.chain)
+				.subscriberContext(ReactiveSecurityContextHolder.withAuthentication(authentication("admin"))))
+				.verifyComplete();
+		intercept(exchange(PayloadExchangeType.REQUEST_STREAM)).verifyComplete();
+
+		assertThat(this.invocations).hasValue(3);
+	}
+
+	@Test
+	public void interceptWhenInFlightThenLimitKept() {
+		AtomicInteger limits = new AtomicInteger();
+		this.interceptor = new ConcurrencyLimitPayloadInterceptor(() -> {
+			limits.incrementAndGet();
+			return new FixedConcurrencyLimit(2);
+		});
+		PayloadExchange first = exchange(PayloadExchangeType.REQUEST_STREAM);
+		intercept(first).verifyComplete();
+		PayloadExchange second = exchange(PayloadExchangeType.REQUEST_STREAM);
+		intercept(second).verifyComplete();
+
+		terminate(first);
+		intercept(exchange(PayloadExchangeType.REQUEST_STREAM)).verifyComplete();
+
+		assertThat(limits).hasValue(1);
+	}
+
+	@Test
+	public void interceptWhenAllTerminatedThenLimitDiscarded() {
+		AtomicInteger limits = new AtomicInteger();
+		this.interceptor = new ConcurrencyLimitPayloadInterceptor(() -> {
+			limits.incrementAndGet();
+			return new FixedConcurrencyLimit(1);
+		});
+		PayloadExchange first = exchange(PayloadExchangeType.REQUEST_STREAM);
+		intercept(first).verifyComplete();
+
+		terminate(first);
+		intercept(exchange(PayloadExchangeType.REQUEST_STREAM)).verifyComplete();
+
+		assertThat(limits).hasValue(2);
+	}
+
+	@Test
+	public void interceptWhenRequestResponseThenNotLimited() {
+		intercept(exchange(PayloadExchangeType.REQUEST_RESPONSE)).verifyComplete();
+		intercept(exchange(PayloadExchangeType.REQUEST_RESPONSE)).verifyComplete();
+
+		assertThat(this.invocations).hasValue(2);
+	}
+
+	@Test
+	public void interceptWhenTerminatedThenLimitSampled() {
+		when(this.limit.getLimit()).thenReturn(1);
+		this.interceptor = new ConcurrencyLimitPayloadInterceptor(() -> this.limit);
+		PayloadExchange exchange = exchange(PayloadExchangeType.REQUEST_CHANNEL);
+		intercept(exchange).verifyComplete();
+
+		terminate(exchange);
+
+		verify(this.limit).onSample(anyLong(), eq(1));
+	}
+
+	private StepVerifier.FirstStep<Void> intercept(PayloadExchange exchange) {
+		return StepVerifier.create(this.interceptor.intercept(exchange, this.chain));
+	}
+
+	private static PayloadExchange exchange(PayloadExchangeType type) {
+		PayloadExchange exchange = mock(PayloadExchange.class);
+		when(exchange.getType()).thenReturn(type);
+		when(exchange.getAttributes()).thenReturn(new HashMap<>());
+		return exchange;
+	}
+
+	private static void terminate(PayloadExchange exchange) {
+		Map<String, Object> attributes = exchange.getAttributes();
+		attributes.values().removeIf(callback -> {
+			if (callback instanceof Runnable) {
+				((Runnable) callback).run();
+				return true;
+			}
+			return false;
+		});
+	}
+
+	private static Authentication authentication(String name) {
+		return new TestingAuthenticationToken(name, "password", "ROLE_USER");
+	}
+}
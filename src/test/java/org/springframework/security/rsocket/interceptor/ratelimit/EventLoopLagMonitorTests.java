@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.ratelimit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * @author Rob Winch
+ */
+public class EventLoopLagMonitorTests {
+	ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+	EventLoopLagMonitor monitor;
+
+	@After
+	public void cleanup() {
+		if (this.monitor != null) {
+			this.monitor.dispose();
+		}
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void constructorWhenIntervalZeroThenException() {
+		assertThatCode(() -> new EventLoopLagMonitor(this.executor, Duration.ZERO, Duration.ofMillis(10)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void getAsBooleanWhenNotStartedThenFalse() {
+		this.monitor = new EventLoopLagMonitor(this.executor, Duration.ofMillis(10), Duration.ofMillis(100));
+
+		assertThat(this.monitor.getAsBoolean()).isFalse();
+		assertThat(this.monitor.getLag()).isEqualTo(Duration.ZERO);
+	}
+
+	@Test
+	public void getAsBooleanWhenExecutorBlockedThenTrue() throws Exception {
+		this.monitor = new EventLoopLagMonitor(this.executor, Duration.ofMillis(10), Duration.ofMillis(100)).start();
+		CountDownLatch release = new CountDownLatch(1);
+		this.executor.execute(() -> {
+			try {
+				release.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		try {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (!this.monitor.getAsBoolean() && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+			assertThat(this.monitor.getAsBoolean()).isTrue();
+			assertThat(this.monitor.getLag()).isGreaterThan(Duration.ofMillis(100));
+		}
+		finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void disposeWhenStartedThenNotOverloaded() {
+		this.monitor = new EventLoopLagMonitor(this.executor, Duration.ofMillis(10), Duration.ofMillis(100)).start();
+		this.executor.shutdownNow();
+
+		this.monitor.dispose();
+
+		assertThat(this.monitor.isDisposed()).isTrue();
+		assertThat(this.monitor.getAsBoolean()).isFalse();
+	}
+}
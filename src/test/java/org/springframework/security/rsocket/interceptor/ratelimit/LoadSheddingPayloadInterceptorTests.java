@@ -0,0 +1,183 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.ratelimit;
+
+import io.rsocket.exceptions.RejectedException;
+import org.junit.Test;
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcher;
+import org.springframework.security.rsocket.util.PayloadExchangeMatchers;
+import org.springframework.security.rsocket.util.SyncPayloadExchangeMatcher;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Rob Winch
+ */
+public class LoadSheddingPayloadInterceptorTests {
+	AtomicInteger invocations = new AtomicInteger();
+
+	PayloadInterceptorChain chain = e -> Mono.fromRunnable(this.invocations::incrementAndGet);
+
+	LoadSheddingPayloadInterceptor interceptor = new LoadSheddingPayloadInterceptor();
+
+	AtomicBoolean overloaded = new AtomicBoolean();
+
+	@Test
+	public void setMaxPendingRequestsWhenZeroThenException() {
+		assertThatCode(() -> this.interceptor.setMaxPendingRequests(0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void setOverloadDetectorWhenNullThenException() {
+		assertThatCode(() -> this.interceptor.setOverloadDetector(null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void interceptWhenNotOverloadedThenAdmitted() {
+		this.interceptor.setOverloadDetector(this.overloaded::get);
+
+		intercept(exchange(PayloadExchangeType.REQUEST_RESPONSE)).verifyComplete();
+
+		assertThat(this.invocations).hasValue(1);
+	}
+
+	@Test
+	public void interceptWhenOverloadedThenRejected() {
+		this.interceptor.setOverloadDetector(this.overloaded::get);
+		this.overloaded.set(true);
+
+		intercept(exchange(PayloadExchangeType.REQUEST_STREAM)).verifyError(RejectedException.class);
+
+		assertThat(this.invocations).hasValue(0);
+	}
+
+	@Test
+	public void interceptWhenOverloadedAndSetupThenAdmitted() {
+		this.interceptor.setOverloadDetector(this.overloaded::get);
+		this.overloaded.set(true);
+
+		intercept(exchange(PayloadExchangeType.SETUP)).verifyComplete();
+		intercept(exchange(PayloadExchangeType.PAYLOAD)).verifyComplete();
+
+		assertThat(this.invocations).hasValue(2);
+	}
+
+	@Test
+	public void interceptWhenMaxPendingRequestsThenRejectedUntilTerminated() {
+		this.interceptor.setMaxPendingRequests(1);
+		PayloadExchange first = exchange(PayloadExchangeType.REQUEST_STREAM);
+
+		intercept(first).verifyComplete();
+		intercept(exchange(PayloadExchangeType.REQUEST_STREAM)).verifyError(RejectedException.class);
+		assertThat(this.interceptor.getPendingRequests()).isEqualTo(1);
+
+		terminate(first);
+
+		assertThat(this.interceptor.getPendingRequests()).isEqualTo(0);
+		intercept(exchange(PayloadExchangeType.REQUEST_STREAM)).verifyComplete();
+		assertThat(this.invocations).hasValue(2);
+	}
+
+	@Test
+	public void interceptWhenOverloadedAndBypassMatchedThenAdmitted() {
+		this.interceptor.setOverloadDetector(this.overloaded::get);
+		this.interceptor.setBypassMatcher(PayloadExchangeMatchers.anyExchange());
+		this.overloaded.set(true);
+
+		intercept(exchange(PayloadExchangeType.REQUEST_RESPONSE)).verifyComplete();
+
+		assertThat(this.invocations).hasValue(1);
+	}
+
+	@Test
+	public void interceptWhenOverloadedAndBypassNotMatchedThenRejected() {
+		this.interceptor.setOverloadDetector(this.overloaded::get);
+		this.interceptor.setBypassMatcher((SyncPayloadExchangeMatcher) e -> PayloadExchangeMatcher.MatchResult.notMatched());
+		this.overloaded.set(true);
+
+		intercept(exchange(PayloadExchangeType.REQUEST_RESPONSE)).verifyError(RejectedException.class);
+	}
+
+	@Test
+	public void interceptWhenOverloadedAndReactiveBypassMatchedThenAdmitted() {
+		this.interceptor.setOverloadDetector(this.overloaded::get);
+		this.interceptor.setBypassMatcher(e -> PayloadExchangeMatcher.MatchResult.match());
+		this.overloaded.set(true);
+
+		intercept(exchange(PayloadExchangeType.REQUEST_RESPONSE)).verifyComplete();
+
+		assertThat(this.invocations).hasValue(1);
+	}
+
+	@Test
+	public void interceptWhenNotOverloadedThenBypassMatcherNotInvoked() {
+		this.interceptor.setBypassMatcher(e -> {
+			throw new AssertionError("bypassMatcher should not be invoked");
+		});
+
+		intercept(exchange(PayloadExchangeType.REQUEST_RESPONSE)).verifyComplete();
+	}
+
+	@Test
+	public void interceptWhenNotSubscribedThenNotCheckedOrCounted() {
+		this.interceptor.setMaxPendingRequests(1);
+		this.interceptor.setOverloadDetector(() -> {
+			throw new AssertionError("overloadDetector should not be invoked");
+		});
+
+		this.interceptor.intercept(exchange(PayloadExchangeType.REQUEST_RESPONSE), this.chain);
+
+		assertThat(this.interceptor.getPendingRequests()).isZero();
+		assertThat(this.invocations).hasValue(0);
+	}
+
+	private StepVerifier.FirstStep<Void> intercept(PayloadExchange exchange) {
+		return StepVerifier.create(this.interceptor.intercept(exchange, this.chain));
+	}
+
+	private static PayloadExchange exchange(PayloadExchangeType type) {
+		PayloadExchange exchange = mock(PayloadExchange.class);
+		when(exchange.getType()).thenReturn(type);
+		when(exchange.getAttributes()).thenReturn(new HashMap<>());
+		return exchange;
+	}
+
+	private static void terminate(PayloadExchange exchange) {
+		Map<String, Object> attributes = exchange.getAttributes();
+		attributes.values().removeIf(callback -> {
+			if (callback instanceof Runnable) {
+				((Runnable) callback).run();
+				return true;
+			}
+			return false;
+		});
+	}
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.ratelimit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.security.rsocket.interceptor.PayloadInterceptorChain;
+import org.springframework.security.rsocket.interceptor.authentication.AuthenticationPayloadInterceptor;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcher;
+import org.springframework.security.rsocket.util.PayloadExchangeMatcherEntry;
+import org.springframework.security.rsocket.util.PayloadExchangeMatchers;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Rob Winch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class RateLimitPayloadInterceptorTests {
+	@Mock
+	PayloadExchange setup;
+
+	@Mock
+	PayloadExchange exchange;
+
+	AtomicInteger invocations = new AtomicInteger();
+
+	PayloadInterceptorChain chain = e -> Mono.fromRunnable(this.invocations::incrementAndGet);
+
+	@Before
+	public void setup() {
+		when(this.setup.getType()).thenReturn(PayloadExchangeType.SETUP);
+		when(this.exchange.getType()).thenReturn(PayloadExchangeType.REQUEST_STREAM);
+	}
+
+	@Test
+	public void constructorWhenEmptyThenException() {
+		assertThatCode(() -> new RateLimitPayloadInterceptor(Collections.emptyList()))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void interceptWhenSharedLimitExceededThenRateLimitExceeded() {
+		RateLimitPayloadInterceptor interceptor = interceptor(PayloadExchangeMatchers.anyExchange(),
+				RateLimit.shared(2, Duration.ofHours(1)));
+		Context connection1 = connect(interceptor);
+		Context connection2 = connect(interceptor);
+
+		intercept(interceptor, connection1).verifyComplete();
+		intercept(interceptor, connection2).verifyComplete();
+		intercept(interceptor, connection1).verifyError(RateLimitExceededException.class);
+
+		assertThat(this.invocations).hasValue(2);
+	}
+
+	@Test
+	public void interceptWhenAuthenticationBeforeSharedLimitThenOnePermitPerRequest() {
+		RateLimitPayloadInterceptor interceptor = interceptor(PayloadExchangeMatchers.anyExchange(),
+				RateLimit.shared(1, Duration.ofHours(1)));
+		Authentication user = new TestingAuthenticationToken("user", "password", "ROLE_USER");
+		AuthenticationPayloadInterceptor authentication = new AuthenticationPayloadInterceptor(Mono::just);
+		authentication.setAuthenticationConverter(e -> Mono.just(user));
+		Context connection = connect(interceptor);
+
+		StepVerifier.create(authentication.intercept(this.exchange, e -> interceptor.intercept(e, this.chain))
+				.subscriberContext(connection))
+				.verifyComplete();
+
+		assertThat(this.invocations).hasValue(1);
+	}
+
+	@Test
+	public void interceptWhenPerConnectionThenEachConnectionLimited() {
+		RateLimitPayloadInterceptor interceptor = interceptor(PayloadExchangeMatchers.anyExchange(),
+				RateLimit.perConnection(1, Duration.ofHours(1)));
+		Context connection1 = connect(interceptor);
+		Context connection2 = connect(interceptor);
+
+		intercept(interceptor, connection1).verifyComplete();
+		intercept(interceptor, connection1).verifyError(RateLimitExceededException.class);
+		intercept(interceptor, connection2).verifyComplete();
+
+		assertThat(this.invocations).hasValue(2);
+	}
+
+	@Test
+	public void interceptWhenPerPrincipalThenPrincipalLimitedAcrossConnections() {
+		RateLimitPayloadInterceptor interceptor = interceptor(PayloadExchangeMatchers.anyExchange(),
+				RateLimit.perPrincipal(2, Duration.ofHours(1)));
+		Authentication user = new TestingAuthenticationToken("user", "password", "ROLE_USER");
+		Authentication admin = new TestingAuthenticationToken("admin", "password", "ROLE_ADMIN");
+		Context userConnection1 = authenticate(connect(interceptor), user);
+		Context userConnection2 = authenticate(connect(interceptor), user);
+		Context adminConnection = authenticate(connect(interceptor), admin);
+
+		intercept(interceptor, userConnection1).verifyComplete();
+		intercept(interceptor, userConnection2).verifyComplete();
+		intercept(interceptor, userConnection2).verifyError(RateLimitExceededException.class);
+		intercept(interceptor, adminConnection).verifyComplete();
+
+		assertThat(this.invocations).hasValue(3);
+	}
+
+	@Test
+	public void interceptWhenPerPrincipalAndAnonymousThenLimitedPerConnection() {
+		RateLimitPayloadInterceptor interceptor = interceptor(PayloadExchangeMatchers.anyExchange(),
+				RateLimit.perPrincipal(1, Duration.ofHours(1)));
+		Authentication anonymous = new AnonymousAuthenticationToken("key", "anonymousUser",
+				AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+		Context connection1 = authenticate(connect(interceptor), anonymous);
+		Context connection2 = connect(interceptor);
+
+		intercept(interceptor, connection1).verifyComplete();
+		intercept(interceptor, connection1).verifyError(RateLimitExceededException.class);
+		intercept(interceptor, connection2).verifyComplete();
+		intercept(interceptor, connection2).verifyError(RateLimitExceededException.class);
+
+		assertThat(this.invocations).hasValue(2);
+	}
+
+	@Test
+	public void interceptWhenMaxPrincipalsThenNewPrincipalLimitedPerConnection() {
+		RateLimitPayloadInterceptor interceptor = interceptor(PayloadExchangeMatchers.anyExchange(),
+				RateLimit.perPrincipal(1, Duration.ofHours(1), 1));
+		Authentication user = new TestingAuthenticationToken("user", "password", "ROLE_USER");
+		Authentication admin = new TestingAuthenticationToken("admin", "password", "ROLE_ADMIN");
+		Context userConnection = authenticate(connect(interceptor), user);
+		Context adminConnection1 = authenticate(connect(interceptor), admin);
+		Context adminConnection2 = authenticate(connect(interceptor), admin);
+
+		intercept(interceptor, userConnection).verifyComplete();
+		intercept(interceptor, adminConnection1).verifyComplete();
+		intercept(interceptor, adminConnection1).verifyError(RateLimitExceededException.class);
+		intercept(interceptor, adminConnection2).verifyComplete();
+		intercept(interceptor, userConnection).verifyError(RateLimitExceededException.class);
+
+		assertThat(this.invocations).hasValue(3);
+	}
+
+	@Test
+	public void perPrincipalWhenMaxPrincipalsZeroThenException() {
+		assertThatCode(() -> RateLimit.perPrincipal(1, Duration.ofHours(1), 0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void interceptWhenNotMatchedThenNotLimited() {
+		RateLimitPayloadInterceptor interceptor = interceptor(PayloadExchangeMatchers.setup(),
+				RateLimit.shared(1, Duration.ofHours(1)));
+		Context connection = connect(interceptor);
+
+		intercept(interceptor, connection).verifyComplete();
+		intercept(interceptor, connection).verifyComplete();
+
+		assertThat(this.invocations).hasValue(2);
+	}
+
+	@Test
+	public void interceptWhenReactiveMatcherThenLimited() {
+		RateLimitPayloadInterceptor interceptor = interceptor(e -> PayloadExchangeMatcher.MatchResult.match(),
+				RateLimit.shared(1, Duration.ofHours(1)));
+		Context connection = connect(interceptor);
+
+		intercept(interceptor, connection).verifyComplete();
+		intercept(interceptor, connection).verifyError(RateLimitExceededException.class);
+
+		assertThat(this.invocations).hasValue(1);
+	}
+
+	@Test
+	public void interceptWhenReactiveMatcherNotMatchedThenNotLimited() {
+		RateLimitPayloadInterceptor interceptor = interceptor(e -> PayloadExchangeMatcher.MatchResult.notMatch(),
+				RateLimit.shared(1, Duration.ofHours(1)));
+		Context connection = connect(interceptor);
+
+		intercept(interceptor, connection).verifyComplete();
+		intercept(interceptor, connection).verifyComplete();
+
+		assertThat(this.invocations).hasValue(2);
+	}
+
+	@Test
+	public void interceptWhenSetupThenNotLimited() {
+		RateLimitPayloadInterceptor interceptor = interceptor(PayloadExchangeMatchers.anyExchange(),
+				RateLimit.shared(1, Duration.ofHours(1)));
+
+		assertThat(connect(interceptor)).isNotNull();
+		assertThat(connect(interceptor)).isNotNull();
+	}
+
+	private RateLimitPayloadInterceptor interceptor(PayloadExchangeMatcher matcher, RateLimit limit) {
+		return new RateLimitPayloadInterceptor(
+				Collections.singletonList(new PayloadExchangeMatcherEntry<>(matcher, limit)));
+	}
+
+	private Context connect(RateLimitPayloadInterceptor interceptor) {
+		Context[] result = new Context[1];
+		interceptor.intercept(this.setup, e -> Mono.subscriberContext()
+				.doOnNext(c -> result[0] = c)
+				.then())
+				.block();
+		return result[0];
+	}
+
+	private Context authenticate(Context connection, Authentication authentication) {
+		return connection.putAll(ReactiveSecurityContextHolder.withAuthentication(authentication));
+	}
+
+	private StepVerifier.FirstStep<Void> intercept(RateLimitPayloadInterceptor interceptor, Context connection) {
+		return StepVerifier.create(interceptor.intercept(this.exchange, this.chain).subscriberContext(connection));
+	}
+}
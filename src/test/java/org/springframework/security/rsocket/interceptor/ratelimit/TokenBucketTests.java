@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.ratelimit;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * @author Rob Winch
+ */
+public class TokenBucketTests {
+	private long now = 1000;
+
+	@Test
+	public void constructorWhenCapacityZeroThenException() {
+		assertThatCode(() -> new TokenBucket(0, Duration.ofSeconds(1)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void constructorWhenPeriodZeroThenException() {
+		assertThatCode(() -> new TokenBucket(1, Duration.ZERO))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void tryAcquireWhenCapacityExceededThenFalse() {
+		TokenBucket bucket = new TokenBucket(3, Duration.ofSeconds(3), () -> this.now);
+
+		assertThat(bucket.tryAcquire()).isTrue();
+		assertThat(bucket.tryAcquire()).isTrue();
+		assertThat(bucket.tryAcquire()).isTrue();
+		assertThat(bucket.tryAcquire()).isFalse();
+	}
+
+	@Test
+	public void tryAcquireWhenRefilledThenTrue() {
+		TokenBucket bucket = new TokenBucket(3, Duration.ofSeconds(3), () -> this.now);
+		for (int i = 0; i < 3; i++) {
+			bucket.tryAcquire();
+		}
+
+		this.now += TimeUnit.SECONDS.toNanos(1);
+
+		assertThat(bucket.tryAcquire()).isTrue();
+		assertThat(bucket.tryAcquire()).isFalse();
+	}
+
+	@Test
+	public void tryAcquireWhenIdleThenBurstLimitedToCapacity() {
+		TokenBucket bucket = new TokenBucket(2, Duration.ofSeconds(1), () -> this.now);
+
+		this.now += TimeUnit.HOURS.toNanos(1);
+
+		assertThat(bucket.tryAcquire()).isTrue();
+		assertThat(bucket.tryAcquire()).isTrue();
+		assertThat(bucket.tryAcquire()).isFalse();
+	}
+
+	@Test
+	public void tryAcquireWhenRejectedThenPermitsNotConsumed() {
+		TokenBucket bucket = new TokenBucket(1, Duration.ofSeconds(1), () -> this.now);
+		bucket.tryAcquire();
+		for (int i = 0; i < 100; i++) {
+			bucket.tryAcquire();
+		}
+
+		this.now += TimeUnit.SECONDS.toNanos(1);
+
+		assertThat(bucket.tryAcquire()).isTrue();
+	}
+
+	@Test
+	public void isFullWhenRefilledThenTrue() {
+		TokenBucket bucket = new TokenBucket(2, Duration.ofSeconds(2), () -> this.now);
+		assertThat(bucket.isFull()).isTrue();
+		bucket.tryAcquire();
+		assertThat(bucket.isFull()).isFalse();
+
+		this.now += TimeUnit.SECONDS.toNanos(1);
+
+		assertThat(bucket.isFull()).isTrue();
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.interceptor.ratelimit;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * @author Rob Winch
+ */
+public class VegasConcurrencyLimitTests {
+
+	@Test
+	public void constructorWhenInitialLimitZeroThenException() {
+		assertThatCode(() -> new VegasConcurrencyLimit(0, 10))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void constructorWhenMaxLimitLessThanInitialLimitThenException() {
+		assertThatCode(() -> new VegasConcurrencyLimit(10, 5))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void onSampleWhenLatencyStableAndUtilizedThenLimitIncreases() {
+		VegasConcurrencyLimit limit = new VegasConcurrencyLimit(10, 20);
+
+		for (int i = 0; i < 5; i++) {
+			limit.onSample(1000, limit.getLimit());
+		}
+
+		assertThat(limit.getLimit()).isEqualTo(15);
+	}
+
+	@Test
+	public void onSampleWhenLatencyStableAndUtilizedThenLimitedToMax() {
+		VegasConcurrencyLimit limit = new VegasConcurrencyLimit(10, 12);
+
+		for (int i = 0; i < 5; i++) {
+			limit.onSample(1000, limit.getLimit());
+		}
+
+		assertThat(limit.getLimit()).isEqualTo(12);
+	}
+
+	@Test
+	public void onSampleWhenNotUtilizedThenLimitUnchanged() {
+		VegasConcurrencyLimit limit = new VegasConcurrencyLimit(10, 20);
+
+		for (int i = 0; i < 5; i++) {
+			limit.onSample(1000, 1);
+		}
+
+		assertThat(limit.getLimit()).isEqualTo(10);
+	}
+
+	@Test
+	public void onSampleWhenLatencyIncreasesThenLimitDecreases() {
+		VegasConcurrencyLimit limit = new VegasConcurrencyLimit(10, 20);
+		limit.onSample(1000, 1);
+
+		for (int i = 0; i < 5; i++) {
+			limit.onSample(10000, limit.getLimit());
+		}
+
+		assertThat(limit.getLimit()).isEqualTo(6);
+	}
+
+	@Test
+	public void onSampleWhenLatencyRemainsHigherThenNoLoadDurationForgotten() {
+		VegasConcurrencyLimit limit = new VegasConcurrencyLimit(10, 20);
+		limit.onSample(1000, 1);
+
+		for (int i = 0; i < 100; i++) {
+			limit.onSample(10000, limit.getLimit());
+		}
+
+		assertThat(limit.getLimit()).isGreaterThan(1);
+	}
+}
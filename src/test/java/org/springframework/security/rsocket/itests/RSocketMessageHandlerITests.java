@@ -146,6 +146,20 @@ public class RSocketMessageHandlerITests {
 		assertThat(this.controller.payloads).containsOnly(data);
 	}
 
+	@Test
+	public void retrieveMonoWhenPublicAndInvalidCredentialsThenDenied() throws Exception {
+		String data = "rob";
+		UsernamePasswordMetadata credentials = new UsernamePasswordMetadata("invalid", "password");
+		assertThatCode(() -> this.requester.route("retrieve-mono")
+				.metadata(credentials, UsernamePasswordMetadata.BASIC_AUTHENTICATION_MIME_TYPE)
+				.data(data)
+				.retrieveMono(String.class)
+				.block()
+		).isInstanceOf(ApplicationErrorException.class);
+
+		assertThat(this.controller.payloads).isEmpty();
+	}
+
 	@Test
 	public void retrieveFluxWhenDataFluxAndSecureThenDenied() throws Exception {
 		Flux<String> data = Flux.just("a", "b", "c");
@@ -262,6 +276,7 @@ public class RSocketMessageHandlerITests {
 			rsocket
 					.authorizePayload(authorize -> {
 						authorize
+								.route("retrieve-mono").permitAll()
 								.route("secure.*").authenticated()
 								.anyRequest().permitAll();
 					})
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.metadata;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * @author Rob Winch
+ */
+public class BasicAuthenticationByteBufDecoderTests {
+	@Test
+	public void decodeWhenEncodedThenDecodes() {
+		UsernamePasswordMetadata credentials = BasicAuthenticationByteBufDecoder.decode(encode("rob", "password"));
+
+		assertThat(credentials.getUsername()).isEqualTo("rob");
+		assertThat(credentials.getPassword()).isEqualTo("password");
+	}
+
+	@Test
+	public void decodeWhenMultiByteCharactersThenDecodes() {
+		UsernamePasswordMetadata credentials = BasicAuthenticationByteBufDecoder.decode(encode("r\u00f6b", "p\u00e4ss\u20ac"));
+
+		assertThat(credentials.getUsername()).isEqualTo("r\u00f6b");
+		assertThat(credentials.getPassword()).isEqualTo("p\u00e4ss\u20ac");
+	}
+
+	@Test
+	public void decodeWhenEmptyPasswordThenDecodes() {
+		UsernamePasswordMetadata credentials = BasicAuthenticationByteBufDecoder.decode(encode("rob", ""));
+
+		assertThat(credentials.getUsername()).isEqualTo("rob");
+		assertThat(credentials.getPassword()).isEmpty();
+	}
+
+	@Test
+	public void decodeWhenReaderIndexThenReaderIndexNotModified() {
+		ByteBuf metadata = Unpooled.buffer().writeByte(1).writeBytes(encode("rob", "password"));
+		metadata.readByte();
+
+		BasicAuthenticationByteBufDecoder.decode(metadata);
+
+		assertThat(metadata.readerIndex()).isEqualTo(1);
+		assertThat(BasicAuthenticationByteBufDecoder.decodeUsername(metadata)).isEqualTo("rob");
+	}
+
+	@Test
+	public void decodeWhenMissingLengthThenException() {
+		assertThatCode(() -> BasicAuthenticationByteBufDecoder.decode(Unpooled.buffer().writeShort(1)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void decodeWhenUsernameLengthTooLargeThenException() {
+		ByteBuf metadata = Unpooled.buffer().writeInt(10).writeBytes("rob".getBytes(StandardCharsets.UTF_8));
+
+		assertThatCode(() -> BasicAuthenticationByteBufDecoder.decode(metadata))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void decodeWhenUsernameLengthNegativeThenException() {
+		ByteBuf metadata = Unpooled.buffer().writeInt(-1).writeBytes("rob".getBytes(StandardCharsets.UTF_8));
+
+		assertThatCode(() -> BasicAuthenticationByteBufDecoder.decode(metadata))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void decodeWhenInvalidUtf8ThenException() {
+		ByteBuf metadata = Unpooled.buffer().writeInt(3).writeBytes("rob".getBytes(StandardCharsets.UTF_8))
+				.writeByte(0xC3);
+
+		assertThatCode(() -> BasicAuthenticationByteBufDecoder.decode(metadata))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void decodeWhenInvalidUtf8UsernameThenException() {
+		ByteBuf metadata = Unpooled.buffer().writeInt(1).writeByte(0xFF)
+				.writeBytes("password".getBytes(StandardCharsets.UTF_8));
+
+		assertThatCode(() -> BasicAuthenticationByteBufDecoder.decodeUsername(metadata))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void decodeWhenEncodedSurrogateThenException() {
+		ByteBuf metadata = Unpooled.buffer().writeInt(3).writeBytes("rob".getBytes(StandardCharsets.UTF_8))
+				.writeByte(0xED).writeByte(0xA0).writeByte(0x80);
+
+		assertThatCode(() -> BasicAuthenticationByteBufDecoder.decode(metadata))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void decodePasswordThenChars() {
+		char[] password = BasicAuthenticationByteBufDecoder.decodePassword(encode("rob", "p\u00e4ss"));
+
+		assertThat(password).containsExactly('p', '\u00e4', 's', 's');
+	}
+
+	@Test
+	public void passwordSliceThenBytesWithoutCopy() {
+		ByteBuf metadata = encode("rob", "password");
+
+		ByteBuf password = BasicAuthenticationByteBufDecoder.passwordSlice(metadata);
+
+		assertThat(password.toString(StandardCharsets.UTF_8)).isEqualTo("password");
+		assertThat(password.unwrap()).isSameAs(metadata.unwrap() == null ? metadata : metadata.unwrap());
+	}
+
+	private static ByteBuf encode(String username, String password) {
+		byte[] usernameBytes = username.getBytes(StandardCharsets.UTF_8);
+		return Unpooled.buffer()
+				.writeInt(usernameBytes.length)
+				.writeBytes(usernameBytes)
+				.writeBytes(password.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.security.rsocket.metadata;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Rob Winch
+ */
+public class BasicAuthenticationEncoderTests {
+	private static final ResolvableType ELEMENT_TYPE = ResolvableType.forClass(UsernamePasswordMetadata.class);
+
+	private BasicAuthenticationEncoder encoder = new BasicAuthenticationEncoder();
+
+	@Test
+	public void encodeValueWhenNettyBufferFactoryThenPooledExactSize() {
+		UsernamePasswordMetadata credentials = new UsernamePasswordMetadata("r\u00f6b", "p\u00e4ss\u20ac");
+		NettyDataBufferFactory factory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+		ByteBuf metadata = NettyDataBufferFactory.toByteBuf(encode(credentials, factory));
+
+		try {
+			assertThat(metadata.alloc()).isSameAs(PooledByteBufAllocator.DEFAULT);
+			assertThat(metadata.capacity()).isEqualTo(metadata.readableBytes()).isEqualTo(4 + 4 + 8);
+			UsernamePasswordMetadata decoded = BasicAuthenticationByteBufDecoder.decode(metadata);
+			assertThat(decoded).isEqualToComparingFieldByField(credentials);
+		}
+		finally {
+			metadata.release();
+		}
+	}
+
+	@Test
+	public void encodeValueWhenDefaultBufferFactoryThenExactSize() {
+		UsernamePasswordMetadata credentials = new UsernamePasswordMetadata("rob", "password");
+
+		DataBuffer metadata = encode(credentials, new DefaultDataBufferFactory());
+
+		assertThat(metadata.capacity()).isEqualTo(metadata.readableByteCount()).isEqualTo(4 + 3 + 8);
+	}
+
+	@Test
+	public void encodeValueWhenSameInstanceThenSameBytes() {
+		UsernamePasswordMetadata credentials = new UsernamePasswordMetadata("rob", "password");
+
+		DataBuffer first = encode(credentials, new DefaultDataBufferFactory());
+		DataBuffer second = encode(credentials, new DefaultDataBufferFactory());
+
+		assertThat(first).isNotSameAs(second);
+		assertThat(first.asByteBuffer()).isEqualTo(second.asByteBuffer());
+	}
+
+	private DataBuffer encode(UsernamePasswordMetadata credentials,
+			DataBufferFactory factory) {
+		return this.encoder.encodeValue(credentials, factory, ELEMENT_TYPE,
+				UsernamePasswordMetadata.BASIC_AUTHENTICATION_MIME_TYPE, null);
+	}
+}
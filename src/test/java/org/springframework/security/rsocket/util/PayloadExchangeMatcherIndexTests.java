@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.rsocket.util;
+
+import io.rsocket.Payload;
+import io.rsocket.metadata.WellKnownMimeType;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.rsocket.MetadataExtractor;
+import org.springframework.security.rsocket.interceptor.DefaultPayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.RouteMatcher;
+import org.springframework.util.SimpleRouteMatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Rob Winch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PayloadExchangeMatcherIndexTests {
+	static final MimeType COMPOSITE_METADATA = MimeTypeUtils.parseMimeType(
+			WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA.getString());
+
+	@Mock
+	private MetadataExtractor metadataExtractor;
+
+	@Mock
+	private Payload payload;
+
+	private RouteMatcher routeMatcher = new SimpleRouteMatcher(new AntPathMatcher("."));
+
+	private PayloadExchange exchange;
+
+	private List<PayloadExchangeMatcherEntry<String>> entries = new ArrayList<>();
+
+	@Before
+	public void setup() {
+		this.exchange = new DefaultPayloadExchange(PayloadExchangeType.REQUEST_RESPONSE, this.payload,
+				COMPOSITE_METADATA, MediaType.APPLICATION_JSON);
+	}
+
+	@Test
+	public void getCandidatesWhenLiteralRoutesThenOnlyMatchingRoute() {
+		route("a");
+		route("b");
+		route("c");
+		route("b");
+
+		assertThat(candidates("b")).containsExactly("b", "b");
+	}
+
+	@Test
+	public void getCandidatesWhenNotRouteMatchersThenDeclarationOrder() {
+		route("b");
+		this.entries.add(new PayloadExchangeMatcherEntry<>(PayloadExchangeMatchers.anyExchange(), "any"));
+		route("*.b");
+		route("a.b");
+		route("a.*");
+		route("c");
+
+		assertThat(candidates("a.b")).containsExactly("any", "*.b", "a.b", "a.*");
+	}
+
+	@Test
+	public void getCandidatesWhenDoubleWildcardThenRouteWithoutSegmentCandidate() {
+		route("a.**");
+
+		assertThat(candidates("a")).containsExactly("a.**");
+	}
+
+	@Test
+	public void getCandidatesWhenEmptySegmentsThenIgnored() {
+		route("a.b.*");
+
+		assertThat(candidates("a..b.c")).containsExactly("a.b.*");
+	}
+
+	@Test
+	public void getCandidatesWhenVariableThenCandidate() {
+		route("a.{b}.c");
+		route("a.x.c");
+
+		assertThat(candidates("a.y.c")).containsExactly("a.{b}.c");
+	}
+
+	@Test
+	public void getCandidatesWhenNoRouteThenOnlyNotIndexed() {
+		route("a");
+		route("*");
+
+		assertThat(candidates(null)).containsExactly("*");
+	}
+
+	@Test
+	public void getCandidatesWhenCaseInsensitiveThenAllCandidates() {
+		AntPathMatcher pathMatcher = new AntPathMatcher(".");
+		pathMatcher.setCaseSensitive(false);
+		this.routeMatcher = new SimpleRouteMatcher(pathMatcher);
+		route("a");
+		route("b");
+
+		assertThat(candidates("A")).containsExactly("a", "b");
+	}
+
+	private void route(String pattern) {
+		RoutePayloadExchangeMatcher matcher = new RoutePayloadExchangeMatcher(this.metadataExtractor,
+				this.routeMatcher, pattern);
+		this.entries.add(new PayloadExchangeMatcherEntry<>(matcher, pattern));
+	}
+
+	private List<String> candidates(String route) {
+		when(this.metadataExtractor.extract(any(), any()))
+				.thenReturn(Collections.singletonMap(MetadataExtractor.ROUTE_KEY, route));
+		return PayloadExchangeMatcherIndex.of(this.entries).getCandidates(this.exchange).stream()
+				.map(PayloadExchangeMatcherEntry::getEntry)
+				.collect(Collectors.toList());
+	}
+}
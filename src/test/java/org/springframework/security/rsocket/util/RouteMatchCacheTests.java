@@ -0,0 +1,176 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.security.rsocket.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.Payload;
+import io.rsocket.metadata.CompositeMetadataFlyweight;
+import io.rsocket.metadata.TaggingMetadataFlyweight;
+import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.util.DefaultPayload;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.rsocket.DefaultMetadataExtractor;
+import org.springframework.messaging.rsocket.MetadataExtractor;
+import org.springframework.security.rsocket.interceptor.DefaultPayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchange;
+import org.springframework.security.rsocket.interceptor.PayloadExchangeType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.RouteMatcher;
+import org.springframework.util.SimpleRouteMatcher;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Rob Winch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class RouteMatchCacheTests {
+	static final MimeType COMPOSITE_METADATA = MimeTypeUtils.parseMimeType(
+			WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA.getString());
+
+	@Mock
+	private MetadataExtractor customMetadataExtractor;
+
+	private MetadataExtractor metadataExtractor = new DefaultMetadataExtractor(StringDecoder.allMimeTypes());
+
+	private RouteMatcher routeMatcher = new SimpleRouteMatcher(new AntPathMatcher("."));
+
+	private RouteMatchCache cache = new RouteMatchCache(2);
+
+	@Test
+	public void constructorWhenMaxSizeZeroThenException() {
+		assertThatCode(() -> new RouteMatchCache(0))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void matchesWhenSameRouteThenCacheHit() {
+		RoutePayloadExchangeMatcher matcher = matcher("a.{b}");
+
+		PayloadExchangeMatcher.MatchResult first = matcher.matches(exchange("a.b")).block();
+		PayloadExchangeMatcher.MatchResult second = matcher.matches(exchange("a.b")).block();
+
+		assertThat(first.isMatch()).isTrue();
+		assertThat(first.getVariables()).containsEntry("b", "b");
+		assertThat(second).isSameAs(first);
+		assertThat(this.cache.getMissCount()).isEqualTo(1);
+		assertThat(this.cache.getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void matchesWhenCachedThenRouteNotExtracted() {
+		RoutePayloadExchangeMatcher matcher = matcher("a.{b}");
+		matcher.matches(exchange("a.b")).block();
+		PayloadExchange exchange = spy(exchange("a.b"));
+
+		assertThat(matcher.matches(exchange).block().getVariables()).containsEntry("b", "b");
+
+		verify(exchange, never()).getMetadata(any());
+		assertThat(this.cache.getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void matchesWhenCachedThenVariablesUnmodifiable() {
+		PayloadExchangeMatcher.MatchResult result = matcher("a.{b}").matches(exchange("a.b")).block();
+
+		assertThatCode(() -> result.getVariables().put("b", "c"))
+			.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	public void matchesWhenCustomMetadataExtractorThenUsesExtractedRoute() {
+		when(this.customMetadataExtractor.extract(any(), any()))
+			.thenReturn(Collections.singletonMap(MetadataExtractor.ROUTE_KEY, "c"));
+		RoutePayloadExchangeMatcher matcher = new RoutePayloadExchangeMatcher(this.customMetadataExtractor,
+				this.routeMatcher, "c");
+		matcher.setRouteMatchCache(this.cache);
+
+		assertThat(matcher.matches(exchange("a")).block().isMatch()).isTrue();
+		assertThat(matcher.matches(exchange("b")).block().isMatch()).isTrue();
+		assertThat(this.cache.size()).isEqualTo(1);
+		assertThat(this.cache.getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void matchesWhenDifferentPatternsThenResultPerPattern() {
+		PayloadExchange exchange = exchange("a.b");
+
+		assertThat(matcher("a.b").matches(exchange).block().isMatch()).isTrue();
+		assertThat(matcher("a.c").matches(exchange).block().isMatch()).isFalse();
+		assertThat(this.cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void matchesWhenMaxSizeExceededThenEldestEvicted() {
+		RoutePayloadExchangeMatcher matcher = matcher("**");
+
+		matcher.matches(exchange("a")).block();
+		matcher.matches(exchange("b")).block();
+		matcher.matches(exchange("c")).block();
+		matcher.matches(exchange("a")).block();
+
+		assertThat(this.cache.size()).isEqualTo(2);
+		assertThat(this.cache.getMissCount()).isEqualTo(4);
+		assertThat(this.cache.getHitCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void matchesWhenNoRouteThenNotMatch() {
+		Payload payload = DefaultPayload.create(Unpooled.EMPTY_BUFFER, Unpooled.EMPTY_BUFFER);
+		PayloadExchange exchange = new DefaultPayloadExchange(PayloadExchangeType.REQUEST_RESPONSE, payload,
+				COMPOSITE_METADATA, MediaType.APPLICATION_JSON);
+
+		assertThat(matcher("**").matches(exchange).block().isMatch()).isFalse();
+		assertThat(this.cache.size()).isEqualTo(0);
+	}
+
+	private RoutePayloadExchangeMatcher matcher(String pattern) {
+		RoutePayloadExchangeMatcher matcher = new RoutePayloadExchangeMatcher(this.metadataExtractor,
+				this.routeMatcher, pattern);
+		matcher.setRouteMatchCache(this.cache);
+		return matcher;
+	}
+
+	private static PayloadExchange exchange(String route) {
+		ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+		ByteBuf routing = TaggingMetadataFlyweight.createRoutingMetadata(allocator,
+				Collections.singletonList(route)).getContent();
+		CompositeByteBuf metadata = allocator.compositeBuffer();
+		CompositeMetadataFlyweight.encodeAndAddMetadata(metadata, allocator,
+				WellKnownMimeType.MESSAGE_RSOCKET_ROUTING, routing);
+		Payload payload = DefaultPayload.create(Unpooled.EMPTY_BUFFER, metadata);
+		return new DefaultPayloadExchange(PayloadExchangeType.REQUEST_RESPONSE, payload,
+				COMPOSITE_METADATA, MediaType.APPLICATION_JSON);
+	}
+}
@@ -113,4 +113,16 @@ public class RoutePayloadExchangeMatcherTests {
 		assertThat(result.isMatch()).isTrue();
 		assertThat(result.getVariables()).containsAllEntriesOf(variables);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void matchesSyncWhenMatchAndNoVariablesThenSharedMatch() {
+		String route = "route";
+		when(this.metadataExtractor.extract(any(), any()))
+				.thenReturn(Collections.singletonMap(MetadataExtractor.ROUTE_KEY, route));
+		when(this.routeMatcher.parseRoute(any())).thenReturn(this.route);
+		when(this.routeMatcher.matchAndExtract(any(), any())).thenReturn(Collections.emptyMap());
+		PayloadExchangeMatcher.MatchResult result = this.matcher.matchesSync(this.exchange);
+		assertThat(result).isSameAs(PayloadExchangeMatcher.MatchResult.matched());
+		assertThat(this.matcher.matches(this.exchange)).isSameAs(PayloadExchangeMatcher.MatchResult.match());
+	}
+}